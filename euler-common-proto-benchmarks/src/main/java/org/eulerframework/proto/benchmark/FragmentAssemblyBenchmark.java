@@ -0,0 +1,94 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark;
+
+import org.eulerframework.proto.message.ProtoFragmentAssembler;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reassembles a 64 KiB message of 1 KiB fragments arriving out of order with the {@link ProtoFragmentAssembler},
+ * which copies every fragment once to its place, against sorting the fragments in a map and copying them through a
+ * {@link ByteArrayOutputStream}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FragmentAssemblyBenchmark {
+    private static final int COUNT = 64;
+    private static final int LENGTH = 1024;
+
+    private ProtoFragmentAssembler<String> assembler;
+    private ByteBuffer[] fragments;
+    private int[] order;
+    private int serial;
+
+    @Setup
+    public void setup() {
+        this.assembler = new ProtoFragmentAssembler<>(1 << 20, 1 << 24);
+        Random random = new Random(42);
+        this.fragments = new ByteBuffer[COUNT];
+        this.order = new int[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            byte[] fragment = new byte[LENGTH];
+            random.nextBytes(fragment);
+            this.fragments[i] = ByteBuffer.wrap(fragment);
+            this.order[i] = i;
+        }
+        // a few fragments resent out of order
+        for (int i = COUNT - 1; i > 0; i -= 7) {
+            int j = random.nextInt(i + 1);
+            int index = this.order[i];
+            this.order[i] = this.order[j];
+            this.order[j] = index;
+        }
+    }
+
+    @Benchmark
+    public ByteBuffer assembler() {
+        int serial = this.serial++;
+        ByteBuffer message = null;
+        for (int index : this.order) {
+            message = this.assembler.accept("device", 0x0801, serial, COUNT, index + 1, this.fragments[index].clear());
+        }
+        return message;
+    }
+
+    @Benchmark
+    public byte[] byteArrayOutputStream() {
+        Map<Integer, byte[]> received = new HashMap<>();
+        for (int index : this.order) {
+            ByteBuffer fragment = this.fragments[index].clear();
+            byte[] copy = new byte[fragment.remaining()];
+            fragment.get(copy);
+            received.put(index, copy);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < COUNT; i++) {
+            out.writeBytes(received.get(i));
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark;
+
+import org.eulerframework.proto.frame.DelimitedFrameDecoder;
+import org.eulerframework.proto.frame.DelimitedFrameEncoder;
+import org.eulerframework.proto.frame.FrameChecksum;
+import org.eulerframework.proto.frame.FrameEscaping;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a chunk of JT/T 808 frames with the {@link DelimitedFrameDecoder}, which locates, unescapes and verifies
+ * the frames in one pass, against locating the frames, unescaping them and verifying their checksum byte by byte
+ * in separate passes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameCodecBenchmark {
+    private static final byte FLAG = 0x7E;
+    private static final byte ESCAPE = 0x7D;
+
+    /**
+     * the payload length of a frame
+     */
+    @Param({"64", "1024"})
+    public int length;
+
+    private DelimitedFrameDecoder decoder;
+    private DelimitedFrameEncoder encoder;
+    private byte[] data;
+    private ByteBuffer payload;
+    private ByteBuffer out;
+
+    @Setup
+    public void setup() throws IOException {
+        this.decoder = new DelimitedFrameDecoder(FLAG, FrameEscaping.jt808(), FrameChecksum.XOR);
+        this.encoder = new DelimitedFrameEncoder(FLAG, FrameEscaping.jt808(), FrameChecksum.XOR);
+        Random random = new Random(42);
+        byte[] payload = new byte[this.length];
+        random.nextBytes(payload);
+        this.payload = ByteBuffer.wrap(payload);
+
+        ByteBuffer frames = ByteBuffer.allocate(16 * this.encoder.maxFrameLength(this.length));
+        for (int i = 0; i < 16; i++) {
+            this.encoder.encode(this.payload.clear(), frames);
+        }
+        this.data = new byte[frames.position()];
+        frames.flip().get(this.data);
+        this.out = ByteBuffer.allocate(this.encoder.maxFrameLength(this.length));
+
+        int[] counts = new int[2];
+        this.decoder.decode(ByteBuffer.wrap(this.data), frame -> counts[0]++);
+        separatePasses(this.data, frame -> counts[1]++);
+        if (counts[0] != 16 || counts[1] != 16) {
+            throw new IllegalStateException("The frames are not decoded as expected.");
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws IOException {
+        this.decoder.decode(ByteBuffer.wrap(this.data), blackhole::consume);
+    }
+
+    @Benchmark
+    public void decodeSeparatePasses(Blackhole blackhole) {
+        separatePasses(this.data, blackhole::consume);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        this.encoder.encode(this.payload.clear(), this.out.clear());
+        return this.out;
+    }
+
+    private interface Sink {
+        void accept(Object frame);
+    }
+
+    private static void separatePasses(byte[] data, Sink sink) {
+        int start = -1;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != FLAG) {
+                continue;
+            }
+            if (start < 0 || i == start + 1) {
+                start = i;
+                continue;
+            }
+            byte[] frame = new byte[i - start - 1];
+            System.arraycopy(data, start + 1, frame, 0, frame.length);
+            start = -1;
+
+            byte[] unescaped = new byte[frame.length];
+            int length = 0;
+            for (int j = 0; j < frame.length; j++) {
+                byte b = frame[j];
+                unescaped[length++] = b == ESCAPE ? (frame[++j] == 0x02 ? FLAG : ESCAPE) : b;
+            }
+
+            int check = 0;
+            for (int j = 0; j < length - 1; j++) {
+                check ^= unescaped[j];
+            }
+            if ((byte) check != unescaped[length - 1]) {
+                throw new IllegalStateException("Wrong checksum");
+            }
+            sink.accept(ByteBuffer.wrap(unescaped, 0, length - 1));
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark;
+
+import org.eulerframework.proto.benchmark.model.LocationReport;
+import org.eulerframework.proto.frame.ProtoFrameDecoder;
+import org.eulerframework.proto.node.ProtoNodeSampler;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.serializer.SerializerRegistryFactory;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes a chunk of frames with the {@link org.eulerframework.proto.node.ProtoNode} tree built for no
+ * message, one in 64 messages and every message, to show what the tree costs in time and allocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(NodeTreeBenchmark.FRAMES)
+public class NodeTreeBenchmark {
+    static final int FRAMES = 64;
+
+    @Param({"never", "oneIn64", "always"})
+    public String sampling;
+
+    private ProtoFrameDecoder<LocationReport> decoder;
+    private ByteBuffer chunk;
+
+    @Setup
+    public void setup() throws IOException {
+        SerializerRegistry registry = SerializerRegistryFactory.newRegistry().freeze();
+        byte[] frame = registry.getSerializer(ProtoType.OBJECT).writeAsBytes(new ProtoContext(), LocationReport.sample());
+        this.chunk = ByteBuffer.allocate(frame.length * FRAMES);
+        for (int i = 0; i < FRAMES; i++) {
+            this.chunk.put(frame);
+        }
+        this.decoder = new ProtoFrameDecoder<>(registry, LocationReport.class, 0);
+        switch (this.sampling) {
+            case "never":
+                this.decoder.setNodeSampler(ProtoNodeSampler.NEVER);
+                break;
+            case "oneIn64":
+                this.decoder.setNodeSampler(ProtoNodeSampler.oneIn(64));
+                break;
+            default:
+                this.decoder.setNodeSampler(ProtoNodeSampler.ALWAYS);
+        }
+    }
+
+    @Benchmark
+    public void decode(Blackhole blackhole) throws IOException {
+        this.decoder.decode(this.chunk.clear(), blackhole::consume);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark;
+
+import org.eulerframework.proto.util.bytes.Bcd;
+import org.eulerframework.proto.util.bytes.ByteArrayUtils;
+import org.eulerframework.proto.util.bytes.VarInts;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the table driven varint and BCD codecs, and the {@link java.lang.invoke.VarHandle} Little-Endian
+ * accessors, with the loops testing or shifting digit by digit and byte by byte.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(NumberEncodingBenchmark.VALUES)
+public class NumberEncodingBenchmark {
+    static final int VALUES = 256;
+    private static final int BCD_LENGTH = 6;
+
+    private final long[] varInts = new long[VALUES];
+    private final long[] timestamps = new long[VALUES];
+    private final byte[] varIntData = new byte[VALUES * VarInts.MAX_LENGTH];
+    private final byte[] bcdData = new byte[VALUES * BCD_LENGTH];
+
+    @Setup
+    public void setup() {
+        Random random = new Random(17);
+        for (int i = 0; i < VALUES; i++) {
+            // mostly short values, as lengths and counters are
+            this.varInts[i] = random.nextLong() >>> (8 + random.nextInt(56));
+            this.timestamps[i] = (random.nextLong() >>> 1) % 1_000_000_000_000L;
+            Bcd.write(this.timestamps[i], this.bcdData, i * BCD_LENGTH, BCD_LENGTH);
+        }
+    }
+
+    @Benchmark
+    public int varIntTable() {
+        int offset = 0;
+        for (long value : this.varInts) {
+            offset += VarInts.write(value, this.varIntData, offset);
+        }
+        return offset;
+    }
+
+    @Benchmark
+    public int varIntNaive() {
+        int offset = 0;
+        for (long value : this.varInts) {
+            offset = naiveWriteVarInt(value, this.varIntData, offset);
+        }
+        return offset;
+    }
+
+    @Benchmark
+    public byte[] bcdEncodeTable() {
+        for (int i = 0; i < VALUES; i++) {
+            Bcd.write(this.timestamps[i], this.bcdData, i * BCD_LENGTH, BCD_LENGTH);
+        }
+        return this.bcdData;
+    }
+
+    @Benchmark
+    public byte[] bcdEncodeNaive() {
+        for (int i = 0; i < VALUES; i++) {
+            naiveWriteBcd(this.timestamps[i], this.bcdData, i * BCD_LENGTH, BCD_LENGTH);
+        }
+        return this.bcdData;
+    }
+
+    @Benchmark
+    public long bcdDecodeTable() {
+        long sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            sum += Bcd.readLong(this.bcdData, i * BCD_LENGTH, BCD_LENGTH);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long bcdDecodeNaive() {
+        long sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            sum += naiveReadBcd(this.bcdData, i * BCD_LENGTH, BCD_LENGTH);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long intLEVarHandle() {
+        long sum = 0;
+        for (int i = 0; i < VALUES; i++) {
+            sum += ByteArrayUtils.getIntLE(this.bcdData, i * BCD_LENGTH);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long intLEShifts() {
+        long sum = 0;
+        byte[] data = this.bcdData;
+        for (int i = 0; i < VALUES; i++) {
+            int offset = i * BCD_LENGTH;
+            sum += data[offset] & 0xFF | (data[offset + 1] & 0xFF) << 8
+                    | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24;
+        }
+        return sum;
+    }
+
+    private static int naiveWriteVarInt(long value, byte[] data, int offset) {
+        while ((value & ~0x7FL) != 0) {
+            data[offset++] = (byte) (value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        data[offset++] = (byte) value;
+        return offset;
+    }
+
+    private static void naiveWriteBcd(long value, byte[] data, int offset, int length) {
+        for (int i = offset + length - 1; i >= offset; i--) {
+            int low = (int) (value % 10);
+            value /= 10;
+            int high = (int) (value % 10);
+            value /= 10;
+            data[i] = (byte) (high << 4 | low);
+        }
+    }
+
+    private static long naiveReadBcd(byte[] data, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int high = data[i] >>> 4 & 0x0F;
+            int low = data[i] & 0x0F;
+            if (high > 9 || low > 9) {
+                throw new IllegalArgumentException("Invalid BCD byte: " + data[i]);
+            }
+            value = value * 100 + high * 10 + low;
+        }
+        return value;
+    }
+}
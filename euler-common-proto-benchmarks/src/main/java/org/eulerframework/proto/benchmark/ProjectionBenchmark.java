@@ -0,0 +1,91 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark;
+
+import org.eulerframework.proto.benchmark.model.Terminal;
+import org.eulerframework.proto.codec.ProtoCodecCompiler;
+import org.eulerframework.proto.schema.ProtoProjection;
+import org.eulerframework.proto.serializer.Deserializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.serializer.SerializerRegistryFactory;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reads the serial number of a {@link Terminal} with a {@link ProtoProjection}, skipping its other strings by
+ * their length, against reading the whole message with the reflective fields and the compiled codec.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProjectionBenchmark {
+    private ProtoContext projectedCtx;
+    private ProtoContext ctx;
+    private Deserializer deserializer;
+    private Deserializer compiledDeserializer;
+    private byte[] data;
+
+    @Setup
+    public void setup() throws IOException {
+        SerializerRegistry registry = SerializerRegistryFactory.newRegistry().freeze();
+        this.deserializer = registry.getDeserializer(ProtoType.OBJECT);
+        this.compiledDeserializer = SerializerRegistryFactory.newRegistry(ProtoCodecCompiler::new).freeze()
+                .getDeserializer(ProtoType.OBJECT);
+        this.ctx = new ProtoContext();
+        this.projectedCtx = new ProtoContext();
+        this.projectedCtx.setProjection(ProtoProjection.of(Terminal.class, "serialNumber"));
+        this.data = registry.getSerializer(ProtoType.OBJECT).writeAsBytes(this.ctx, Terminal.sample());
+
+        Terminal terminal = this.projected();
+        if (!Terminal.sample().serialNumber.equals(terminal.serialNumber) || terminal.address != null) {
+            throw new IllegalStateException("The projected message is not read as expected.");
+        }
+    }
+
+    @Benchmark
+    public Terminal full() throws IOException {
+        return this.deserializer.read(this.ctx, ByteBuffer.wrap(this.data), Terminal.class);
+    }
+
+    @Benchmark
+    public Terminal fullCompiled() throws IOException {
+        return this.compiledDeserializer.read(this.ctx, ByteBuffer.wrap(this.data), Terminal.class);
+    }
+
+    @Benchmark
+    public Terminal projected() throws IOException {
+        return this.deserializer.read(this.projectedCtx, ByteBuffer.wrap(this.data), Terminal.class);
+    }
+
+    @Benchmark
+    public Terminal fullStream() throws IOException {
+        return this.deserializer.read(this.ctx, new ByteArrayInputStream(this.data), Terminal.class);
+    }
+
+    @Benchmark
+    public Terminal projectedStream() throws IOException {
+        return this.deserializer.read(this.projectedCtx, new ByteArrayInputStream(this.data), Terminal.class);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.eulerframework.proto.schema.PropertyAccessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the reflective {@link FieldUtils} field access used before with {@link PropertyAccessor}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropertyAccessorBenchmark {
+    private Message message;
+    private Field intField;
+    private Field stringField;
+    private PropertyAccessor intAccessor;
+    private PropertyAccessor stringAccessor;
+    private int value;
+
+    @Setup
+    public void setup() throws NoSuchFieldException {
+        this.message = new Message();
+        this.message.name = "terminal";
+        this.intField = Message.class.getDeclaredField("id");
+        this.stringField = Message.class.getDeclaredField("name");
+        this.intAccessor = PropertyAccessor.of(this.intField);
+        this.stringAccessor = PropertyAccessor.of(this.stringField);
+    }
+
+    @Benchmark
+    public Object reflectiveReadWriteInt() throws IllegalAccessException {
+        FieldUtils.writeField(this.intField, this.message, ++this.value, true);
+        return FieldUtils.readField(this.intField, this.message, true);
+    }
+
+    @Benchmark
+    public Object accessorReadWriteBoxedInt() {
+        this.intAccessor.set(this.message, ++this.value);
+        return this.intAccessor.get(this.message);
+    }
+
+    @Benchmark
+    public int accessorReadWritePrimitiveInt() {
+        this.intAccessor.setInt(this.message, ++this.value);
+        return this.intAccessor.getInt(this.message);
+    }
+
+    @Benchmark
+    public Object reflectiveReadWriteString() throws IllegalAccessException {
+        FieldUtils.writeField(this.stringField, this.message, "terminal", true);
+        return FieldUtils.readField(this.stringField, this.message, true);
+    }
+
+    @Benchmark
+    public Object accessorReadWriteString() {
+        this.stringAccessor.set(this.message, "terminal");
+        return this.stringAccessor.get(this.message);
+    }
+
+    private static class Message {
+        private int id;
+        private String name;
+    }
+}
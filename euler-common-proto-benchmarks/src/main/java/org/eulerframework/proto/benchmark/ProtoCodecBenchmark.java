@@ -0,0 +1,131 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark;
+
+import org.eulerframework.proto.benchmark.model.MessageShape;
+import org.eulerframework.proto.codec.ProtoCodecCompiler;
+import org.eulerframework.proto.field.ObjectField;
+import org.eulerframework.proto.serializer.Deserializer;
+import org.eulerframework.proto.serializer.InstanceDeserializer;
+import org.eulerframework.proto.serializer.Serializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.serializer.SerializerRegistryFactory;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes every {@link MessageShape} with the reflective fields and with the codecs compiled by
+ * {@link ProtoCodecCompiler}, {@code readInto} decodes into a reused message. {@code objectFieldRead} and
+ * {@code objectFieldWrite} walk the properties with an {@link ObjectField} over a direct buffer, which does not use
+ * the compiled codecs. Run through {@link ProtoBenchmarks} to report the allocation rate as well.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProtoCodecBenchmark {
+    @Param
+    public MessageShape shape;
+
+    @Param({"false", "true"})
+    public boolean compiled;
+
+    private ProtoContext ctx;
+    private SerializerRegistry registry;
+    private Serializer serializer;
+    private Deserializer deserializer;
+    private Object message;
+    private Object target;
+    private byte[] data;
+    private ByteBuffer buffer;
+    private ByteBuffer direct;
+    private ByteBuffer directOut;
+
+    @Setup
+    public void setup() throws IOException {
+        this.registry = (this.compiled
+                ? SerializerRegistryFactory.newRegistry(ProtoCodecCompiler::new)
+                : SerializerRegistryFactory.newRegistry()).freeze();
+        this.serializer = this.registry.getSerializer(ProtoType.OBJECT);
+        this.deserializer = this.registry.getDeserializer(ProtoType.OBJECT);
+        this.ctx = new ProtoContext();
+        this.ctx.setVersion(this.shape.getVersion());
+        this.message = this.shape.newSample();
+        this.data = this.serializer.writeAsBytes(this.ctx, this.message);
+        this.buffer = ByteBuffer.allocate(this.data.length);
+        this.direct = ByteBuffer.allocateDirect(this.data.length).put(this.data).flip();
+        this.directOut = ByteBuffer.allocateDirect(this.data.length);
+        this.target = this.shape.newSample();
+
+        byte[] decoded = this.serializer.writeAsBytes(this.ctx, this.read());
+        if (!Arrays.equals(this.data, decoded)) {
+            throw new IllegalStateException("The " + this.shape + " message does not survive a round trip.");
+        }
+    }
+
+    @Benchmark
+    public byte[] writeAsBytes() throws IOException {
+        return this.serializer.writeAsBytes(this.ctx, this.message);
+    }
+
+    @Benchmark
+    public ByteBuffer writeToBuffer() throws IOException {
+        this.buffer.clear();
+        this.serializer.writeTo(this.ctx, this.message, this.buffer);
+        return this.buffer;
+    }
+
+    @Benchmark
+    public Object read() throws IOException {
+        return this.deserializer.read(this.ctx, ByteBuffer.wrap(this.data), this.shape.getType());
+    }
+
+    @Benchmark
+    public Object readInto() throws IOException {
+        return ((InstanceDeserializer) this.deserializer).readInto(this.ctx, ByteBuffer.wrap(this.data), this.target);
+    }
+
+    @Benchmark
+    public Object readStream() throws IOException {
+        return this.deserializer.read(this.ctx, new ByteArrayInputStream(this.data), this.shape.getType());
+    }
+
+    @Benchmark
+    public Object objectFieldRead() throws IOException {
+        ObjectField<Object> objectField = ObjectField.valueOf(this.ctx, this.target);
+        objectField.setSerializerRegistry(this.registry);
+        objectField.read(this.direct.rewind());
+        return objectField.value();
+    }
+
+    @Benchmark
+    public ByteBuffer objectFieldWrite() throws IOException {
+        ObjectField<Object> objectField = ObjectField.valueOf(this.ctx, this.message);
+        objectField.setSerializerRegistry(this.registry);
+        this.directOut.clear();
+        objectField.write(this.directOut);
+        return this.directOut;
+    }
+}
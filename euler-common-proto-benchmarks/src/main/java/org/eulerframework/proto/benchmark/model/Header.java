@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark.model;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.util.ProtoType;
+
+/**
+ * A fixed length message header, 12 bytes.
+ */
+public class Header {
+    @ProtoProperty(type = ProtoType.WORD, order = 0)
+    public int messageId;
+
+    @ProtoProperty(type = ProtoType.WORD, order = 1)
+    public int attributes;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 2, length = 6)
+    public byte[] terminalPhone;
+
+    @ProtoProperty(type = ProtoType.WORD, order = 3)
+    public int serial;
+
+    public static Header sample() {
+        Header header = new Header();
+        header.messageId = 0x0200;
+        header.attributes = 0x001C;
+        header.terminalPhone = new byte[]{0x01, 0x38, 0x00, 0x13, (byte) 0x80, 0x00};
+        header.serial = 0x7F01;
+        return header;
+    }
+}
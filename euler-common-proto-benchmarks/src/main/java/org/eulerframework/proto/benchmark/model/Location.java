@@ -0,0 +1,61 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark.model;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.util.ProtoType;
+
+/**
+ * A location body with a nested {@link StatusBits} bitmap, 28 bytes.
+ */
+public class Location {
+    @ProtoProperty(type = ProtoType.DWORD, order = 0)
+    public long alarm;
+
+    @ProtoProperty(type = ProtoType.OBJECT, order = 1)
+    public StatusBits status;
+
+    @ProtoProperty(type = ProtoType.DWORD, order = 2)
+    public long latitude;
+
+    @ProtoProperty(type = ProtoType.DWORD, order = 3)
+    public long longitude;
+
+    @ProtoProperty(type = ProtoType.WORD, order = 4)
+    public int altitude;
+
+    @ProtoProperty(type = ProtoType.WORD, order = 5)
+    public int speed;
+
+    @ProtoProperty(type = ProtoType.WORD, order = 6)
+    public int direction;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 7, length = 6)
+    public byte[] time;
+
+    public static Location sample() {
+        Location location = new Location();
+        location.alarm = 0x00000400L;
+        location.status = StatusBits.sample();
+        location.latitude = 31_230_416;
+        location.longitude = 121_473_701;
+        location.altitude = 12;
+        location.speed = 605;
+        location.direction = 90;
+        location.time = new byte[]{0x24, 0x10, 0x18, 0x09, 0x30, 0x15};
+        return location;
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark.model;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.util.ProtoType;
+
+/**
+ * A header and a body as nested {@link ProtoType#OBJECT} properties, 40 bytes.
+ */
+public class LocationReport {
+    @ProtoProperty(type = ProtoType.OBJECT, order = 0)
+    public Header header;
+
+    @ProtoProperty(type = ProtoType.OBJECT, order = 1)
+    public Location location;
+
+    public static LocationReport sample() {
+        LocationReport report = new LocationReport();
+        report.header = Header.sample();
+        report.location = Location.sample();
+        return report;
+    }
+}
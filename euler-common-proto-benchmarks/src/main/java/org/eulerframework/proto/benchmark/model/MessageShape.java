@@ -0,0 +1,52 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark.model;
+
+import java.util.function.Supplier;
+
+/**
+ * The message shapes the codec benchmarks run with.
+ */
+public enum MessageShape {
+    HEADER(Header.class, 0, Header::sample),
+    STATUS_BITS(StatusBits.class, 0, StatusBits::sample),
+    LOCATION_REPORT(LocationReport.class, 0, LocationReport::sample),
+    VERSIONED_V0(VersionedReport.class, 0, VersionedReport::sample),
+    VERSIONED_V1(VersionedReport.class, 1, VersionedReport::sample),
+    TERMINAL(Terminal.class, 0, Terminal::sample);
+
+    private final Class<?> type;
+    private final int version;
+    private final Supplier<?> sample;
+
+    MessageShape(Class<?> type, int version, Supplier<?> sample) {
+        this.type = type;
+        this.version = version;
+        this.sample = sample;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public Object newSample() {
+        return this.sample.get();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark.model;
+
+import org.eulerframework.proto.annotation.BitProperty;
+import org.eulerframework.proto.annotation.ByteArrayObject;
+
+/**
+ * A status bitmap of 4 bytes.
+ */
+@ByteArrayObject(length = 4)
+public class StatusBits {
+    @BitProperty(offset = 0, length = 1)
+    public boolean accOn;
+
+    @BitProperty(offset = 1, length = 1)
+    public boolean located;
+
+    @BitProperty(offset = 2, length = 1)
+    public boolean southLatitude;
+
+    @BitProperty(offset = 3, length = 1)
+    public boolean westLongitude;
+
+    @BitProperty(offset = 4, length = 1)
+    public boolean operating;
+
+    @BitProperty(offset = 5, length = 1)
+    public boolean encrypted;
+
+    @BitProperty(offset = 8, length = 2)
+    public int loadStatus;
+
+    @BitProperty(offset = 10, length = 1)
+    public boolean oilCut;
+
+    @BitProperty(offset = 11, length = 1)
+    public boolean circuitCut;
+
+    @BitProperty(offset = 12, length = 1)
+    public boolean doorLocked;
+
+    @BitProperty(offset = 18, length = 6)
+    public int satellites;
+
+    public static StatusBits sample() {
+        StatusBits status = new StatusBits();
+        status.accOn = true;
+        status.located = true;
+        status.operating = true;
+        status.loadStatus = 2;
+        status.doorLocked = true;
+        status.satellites = 17;
+        return status;
+    }
+}
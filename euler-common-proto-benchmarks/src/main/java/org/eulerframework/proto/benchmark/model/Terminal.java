@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark.model;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.util.ProtoCharset;
+import org.eulerframework.proto.util.ProtoType;
+
+/**
+ * String and {@link ProtoType#BYTES} properties in several charsets and length modes.
+ */
+public class Terminal {
+    @ProtoProperty(type = ProtoType.BYTES, order = 0, length = 20, charset = ProtoCharset.GBK)
+    public String model;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 1, length = 20, charset = ProtoCharset.GBK)
+    public String owner;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 2, length = 16, charset = "US-ASCII")
+    public String serialNumber;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 3, charset = ProtoCharset.UTF_8,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_PREFIX, lengthPrefixType = ProtoType.WORD))
+    public String address;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 4, charset = ProtoCharset.UTF_8,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_SEPARATOR, separator = 0x00))
+    public String remark;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 5,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_PREFIX, lengthPrefixType = ProtoType.BYTE))
+    public byte[] firmware;
+
+    public static Terminal sample() {
+        Terminal terminal = new Terminal();
+        terminal.model = "EULER-T100";
+        terminal.owner = "上海欧拉物流有限公司";
+        terminal.serialNumber = "SN2024101800001";
+        terminal.address = "tcp://gateway.example.com:7611/terminal";
+        terminal.remark = "备用线路 backup";
+        terminal.firmware = new byte[]{0x01, 0x02, 0x0A, 0x7F, (byte) 0x80, (byte) 0xFF, 0x00, 0x10};
+        return terminal;
+    }
+}
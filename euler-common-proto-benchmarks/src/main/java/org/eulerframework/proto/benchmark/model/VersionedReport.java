@@ -0,0 +1,57 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.benchmark.model;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.util.ProtoCharset;
+import org.eulerframework.proto.util.ProtoType;
+
+/**
+ * A message whose layout changes with the protocol version: version 1 widens the ID and the plate and
+ * appends the mileage.
+ */
+public class VersionedReport {
+    @ProtoProperty(type = ProtoType.WORD, order = 0)
+    @ProtoProperty(type = ProtoType.DWORD, order = 0, version = 1)
+    public long id;
+
+    @ProtoProperty(type = ProtoType.WORD, order = 1)
+    public int serial;
+
+    @ProtoProperty(type = ProtoType.BYTE, order = 2)
+    public int plateColor;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 3, length = 8, charset = ProtoCharset.GBK)
+    @ProtoProperty(type = ProtoType.BYTES, order = 3, length = 12, charset = ProtoCharset.GBK, version = 1)
+    public String plate;
+
+    @ProtoProperty(type = ProtoType.OBJECT, order = 4)
+    public Location location;
+
+    @ProtoProperty(type = ProtoType.DWORD, order = 5, version = 1)
+    public long mileage;
+
+    public static VersionedReport sample() {
+        VersionedReport report = new VersionedReport();
+        report.id = 0x1001;
+        report.serial = 0x0203;
+        report.plateColor = 2;
+        report.plate = "沪A12345";
+        report.location = Location.sample();
+        report.mileage = 123_456;
+        return report;
+    }
+}
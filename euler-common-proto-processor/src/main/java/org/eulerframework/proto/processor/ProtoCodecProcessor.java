@@ -0,0 +1,204 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.processor;
+
+import org.eulerframework.proto.annotation.BitProperty;
+import org.eulerframework.proto.annotation.ByteArrayObject;
+import org.eulerframework.proto.annotation.ProtoMessage;
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.message.ProtoMessageRegistry;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Generates a {@code ProtoCodecProvider} for every class declaring {@link ProtoProperty} or
+ * {@link BitProperty} fields, and registers the providers in
+ * {@code META-INF/services/org.eulerframework.proto.codec.ProtoCodecProvider}. The {@link ProtoMessage} classes
+ * are listed in the {@link ProtoMessageRegistry#INDEX_FILE}, so a package is registered without scanning it.
+ * <p>
+ * The generated codecs read and write the properties without reflection. A class that can not be
+ * generated, for example because of a custom proto type, is reported as a note and keeps being
+ * compiled at runtime.
+ * <p>
+ * The providers are only used by a registry created with a {@code ProtoCodecCompiler}, such as
+ * {@code SerializerRegistryFactory.newRegistry(ProtoCodecCompiler::new)}, the registry of
+ * {@code SerializerRegistryFactory.newRegistry()} reads and writes by reflection and ignores them.
+ */
+@SupportedAnnotationTypes({
+        "org.eulerframework.proto.annotation.ProtoProperty",
+        "org.eulerframework.proto.annotation.ProtoProperty.MultiVersion",
+        "org.eulerframework.proto.annotation.BitProperty",
+        "org.eulerframework.proto.annotation.BitProperty.MultiVersion",
+        "org.eulerframework.proto.annotation.ByteArrayObject",
+        "org.eulerframework.proto.annotation.ProtoMessage",
+        "org.eulerframework.proto.annotation.ProtoMessage.MultiVersion"
+})
+public class ProtoCodecProcessor extends AbstractProcessor {
+    static final String PROVIDER_SUFFIX = "ProtoCodecProvider";
+    static final String SERVICE_FILE = "META-INF/services/org.eulerframework.proto.codec.ProtoCodecProvider";
+
+    private final Set<String> providers = new TreeSet<>();
+    private final Set<String> messages = new TreeSet<>();
+    private final Set<String> processedTypes = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!this.providers.isEmpty()) {
+                this.writeResource(SERVICE_FILE, this.providers);
+            }
+            if (!this.messages.isEmpty()) {
+                this.writeResource(ProtoMessageRegistry.INDEX_FILE, this.messages);
+            }
+            return false;
+        }
+
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (Class<? extends Annotation> annotation : List.of(
+                ProtoProperty.class, ProtoProperty.MultiVersion.class,
+                BitProperty.class, BitProperty.MultiVersion.class)) {
+            for (Element field : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (field.getKind() == ElementKind.FIELD) {
+                    types.add((TypeElement) field.getEnclosingElement());
+                }
+            }
+        }
+        for (Element type : roundEnv.getElementsAnnotatedWith(ByteArrayObject.class)) {
+            if (type instanceof TypeElement) {
+                types.add((TypeElement) type);
+            }
+        }
+
+        for (Class<? extends Annotation> annotation : List.of(ProtoMessage.class, ProtoMessage.MultiVersion.class)) {
+            for (Element type : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (type instanceof TypeElement) {
+                    this.messages.add(this.processingEnv.getElementUtils().getBinaryName((TypeElement) type).toString());
+                }
+            }
+        }
+
+        for (TypeElement type : types) {
+            if (this.processedTypes.add(type.getQualifiedName().toString())) {
+                this.generate(type);
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement type) {
+        Messager messager = this.processingEnv.getMessager();
+        ProtoTypeModel model;
+        try {
+            model = ProtoTypeModel.of(type, this.processingEnv.getElementUtils(), this.processingEnv.getTypeUtils());
+        } catch (ProtoTypeModel.UnsupportedTypeException e) {
+            // abstract super classes are expected, their subclasses are generated
+            if (!type.getModifiers().contains(Modifier.ABSTRACT)) {
+                messager.printMessage(Diagnostic.Kind.NOTE, "No proto codec is generated for "
+                        + type.getQualifiedName() + ", it will be compiled at runtime: " + e.getMessage(), e.getElement());
+            }
+            return;
+        }
+
+        String packageName = this.processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String binaryName = this.processingEnv.getElementUtils().getBinaryName(type).toString();
+        String simpleName = providerName(packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1));
+        String providerName = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+
+        try {
+            JavaFileObject sourceFile = this.processingEnv.getFiler().createSourceFile(providerName, type);
+            try (Writer writer = sourceFile.openWriter()) {
+                writer.write(new ProtoCodecSourceWriter(model, packageName, simpleName).write());
+            }
+            this.providers.add(providerName);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Failed to write " + providerName + ": " + e.getMessage(), type);
+        }
+    }
+
+    /**
+     * The name of the provider of a class, the {@code $} of a nested class becomes {@code _} and an {@code _} of
+     * the class name becomes {@code _1}, so that {@code Message.Status} and {@code Message_Status} do not share
+     * a provider. A class name never starts with a digit, so the names of two classes are never the same.
+     */
+    static String providerName(String binaryName) {
+        StringBuilder name = new StringBuilder(binaryName.length() + PROVIDER_SUFFIX.length());
+        for (int i = 0; i < binaryName.length(); i++) {
+            char c = binaryName.charAt(i);
+            if (c == '$') {
+                name.append('_');
+            } else if (c == '_') {
+                name.append("_1");
+            } else {
+                name.append(c);
+            }
+        }
+        return name.append(PROVIDER_SUFFIX).toString();
+    }
+
+    /**
+     * Writes the sorted lines to a class output resource, with the lines of the resource a previous incremental
+     * compilation wrote.
+     */
+    private void writeResource(String resourceName, Set<String> lines) {
+        Filer filer = this.processingEnv.getFiler();
+        Set<String> merged = new TreeSet<>(lines);
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#")) {
+                        merged.add(line);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // no resource yet
+        }
+
+        try {
+            FileObject resource = filer.createResource(StandardLocation.CLASS_OUTPUT, "", resourceName);
+            try (Writer writer = new OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                for (String line : merged) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Failed to write " + resourceName + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.processor;
+
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.util.ProtoType;
+
+import java.util.*;
+
+/**
+ * Writes the source of the {@code ProtoCodecProvider} of one {@link ProtoTypeModel}.
+ * <p>
+ * Every layout becomes a nested codec class reading and writing the properties one after another with
+ * the helpers of {@code ProtoCodecSupport}, private fields are accessed through {@code VarHandle}s
+ * resolved once in the static initializer.
+ */
+class ProtoCodecSourceWriter {
+    private static final Map<String, String> BOXED_TYPES = Map.of(
+            "java.lang.Integer", "int",
+            "java.lang.Long", "long",
+            "java.lang.Short", "short",
+            "java.lang.Byte", "byte",
+            "java.lang.Boolean", "boolean",
+            "java.lang.Character", "char");
+
+    private static final Map<String, Integer> FIXED_LENGTHS = Map.of(
+            ProtoType.BYTE, 1,
+            ProtoType.WORD, 2,
+            ProtoType.DWORD, 4);
+
+    private final ProtoTypeModel model;
+    private final String packageName;
+    private final String simpleName;
+    private final String typeName;
+    private final StringBuilder out = new StringBuilder();
+    private final Map<String, String> varHandles = new LinkedHashMap<>();
+    private final Map<String, String> charsets = new LinkedHashMap<>();
+
+    ProtoCodecSourceWriter(ProtoTypeModel model, String packageName, String simpleName) {
+        this.model = model;
+        this.packageName = packageName;
+        this.simpleName = simpleName;
+        this.typeName = model.getType().getQualifiedName().toString();
+    }
+
+    String write() {
+        Set<String> protoTypes = new TreeSet<>();
+        for (ProtoTypeModel.Layout layout : this.model.getLayouts()) {
+            for (ProtoTypeModel.Property property : layout.getProperties()) {
+                if (!property.isDirect()) {
+                    this.varHandles.putIfAbsent(property.getDeclaringType() + "#" + property.getName(),
+                            constantName(property.getName(), this.varHandles.size()));
+                }
+                if (!property.getCharset().isEmpty()) {
+                    this.charsets.putIfAbsent(property.getCharset(), "CHARSET_" + this.charsets.size());
+                }
+                if (!property.getProtoType().isEmpty() && !ProtoType.OBJECT.equals(property.getProtoType())) {
+                    protoTypes.add(property.getProtoType());
+                }
+            }
+        }
+
+        if (!this.packageName.isEmpty()) {
+            line("package " + this.packageName + ";");
+            line("");
+        }
+        line("import org.eulerframework.common.util.NumberUtils;");
+        line("import org.eulerframework.proto.codec.ProtoCodec;");
+        line("import org.eulerframework.proto.codec.ProtoCodecProvider;");
+        line("import org.eulerframework.proto.codec.ProtoCodecSupport;");
+        line("import org.eulerframework.proto.serializer.Deserializer;");
+        line("import org.eulerframework.proto.serializer.Serializer;");
+        line("import org.eulerframework.proto.serializer.SerializerRegistry;");
+        line("import org.eulerframework.proto.util.ProtoContext;");
+        line("import org.eulerframework.proto.util.ProtoType;");
+        line("import org.eulerframework.proto.util.bytes.BitField;");
+        line("");
+        line("import java.io.IOException;");
+        line("import java.io.InputStream;");
+        line("import java.io.OutputStream;");
+        line("import java.lang.invoke.MethodHandles;");
+        line("import java.lang.invoke.VarHandle;");
+        line("import java.nio.charset.Charset;");
+        line("");
+        line("@javax.annotation.processing.Generated(\"" + ProtoCodecProcessor.class.getName() + "\")");
+        line("@SuppressWarnings(\"unused\")");
+        line("public final class " + this.simpleName + " implements ProtoCodecProvider<" + this.typeName + "> {");
+        for (Map.Entry<String, String> varHandle : this.varHandles.entrySet()) {
+            String[] field = varHandle.getKey().split("#");
+            ProtoTypeModel.Property property = this.findProperty(field[0], field[1]);
+            line("    private static final VarHandle " + varHandle.getValue() + " = findVarHandle("
+                    + field[0] + ".class, \"" + field[1] + "\", " + property.getType() + ".class);");
+        }
+        for (Map.Entry<String, String> charset : this.charsets.entrySet()) {
+            line("    private static final Charset " + charset.getValue() + " = Charset.forName(\"" + charset.getKey() + "\");");
+        }
+        if (!this.varHandles.isEmpty() || !this.charsets.isEmpty()) {
+            line("");
+        }
+
+        line("    @Override");
+        line("    public Class<" + this.typeName + "> getType() {");
+        line("        return " + this.typeName + ".class;");
+        line("    }");
+        line("");
+        line("    @Override");
+        line("    public ProtoCodec<" + this.typeName + "> getCodec(int version, SerializerRegistry serializerRegistry) {");
+        StringBuilder builtInTypes = new StringBuilder();
+        for (String protoType : protoTypes) {
+            builtInTypes.append(", ProtoType.").append(protoType);
+        }
+        line("        if (!ProtoCodecSupport.isBuiltIn(serializerRegistry" + builtInTypes + ")) {");
+        line("            return null;");
+        line("        }");
+        List<ProtoTypeModel.Layout> layouts = this.model.getLayouts();
+        for (int i = layouts.size() - 1; i > 0; i--) {
+            line("        if (version >= " + layouts.get(i).getFromVersion() + ") {");
+            line("            return new Codec" + i + "(serializerRegistry);");
+            line("        }");
+        }
+        line("        return new Codec0(serializerRegistry);");
+        line("    }");
+
+        if (!this.varHandles.isEmpty()) {
+            line("");
+            line("    private static VarHandle findVarHandle(Class<?> type, String name, Class<?> fieldType) {");
+            line("        try {");
+            line("            return MethodHandles.privateLookupIn(type, MethodHandles.lookup()).findVarHandle(type, name, fieldType);");
+            line("        } catch (ReflectiveOperationException e) {");
+            line("            throw new ExceptionInInitializerError(e);");
+            line("        }");
+            line("    }");
+        }
+
+        for (int i = 0; i < layouts.size(); i++) {
+            line("");
+            this.writeCodec(i, layouts.get(i));
+        }
+        line("}");
+        return this.out.toString();
+    }
+
+    private void writeCodec(int index, ProtoTypeModel.Layout layout) {
+        List<ProtoTypeModel.Property> properties = layout.getProperties();
+        boolean hasObject = properties.stream().anyMatch(p -> ProtoType.OBJECT.equals(p.getProtoType()));
+
+        line("    private static final class Codec" + index + " implements ProtoCodec<" + this.typeName + "> {");
+        if (this.model.isByteArrayObject()) {
+            // the layout of every bit field is computed once
+            for (int i = 0; i < properties.size(); i++) {
+                ProtoTypeModel.Property property = properties.get(i);
+                line("        private static final BitField BITS_" + i + " = BitField.of(" + this.model.getByteArrayObjectLength()
+                        + ", " + property.getBitOffset() + ", " + property.getLength() + ");");
+            }
+            line("");
+        }
+        if (hasObject) {
+            line("        private final Serializer objectSerializer;");
+            line("        private final Deserializer objectDeserializer;");
+            line("");
+        }
+        line("        Codec" + index + "(SerializerRegistry serializerRegistry) {");
+        if (hasObject) {
+            line("            this.objectSerializer = serializerRegistry.getSerializer(ProtoType.OBJECT);");
+            line("            this.objectDeserializer = serializerRegistry.getDeserializer(ProtoType.OBJECT);");
+        }
+        line("        }");
+        line("");
+        line("        @Override");
+        line("        public " + this.typeName + " newInstance() {");
+        line("            return new " + this.typeName + "();");
+        line("        }");
+        line("");
+        line("        @Override");
+        line("        public void read(ProtoContext ctx, InputStream in, " + this.typeName + " target) throws IOException {");
+        if (this.model.isByteArrayObject()) {
+            line("            byte[] data = ProtoCodecSupport.readFixedLength(in, " + this.model.getByteArrayObjectLength() + ");");
+            for (int i = 0; i < properties.size(); i++) {
+                ProtoTypeModel.Property property = properties.get(i);
+                String value = "NumberUtils.toUnsignedLong(BITS_" + i + ".read(data))";
+                line("            " + this.set(property, "target", fromUnsignedLong(value, property.getType())) + ";");
+            }
+        } else {
+            for (ProtoTypeModel.Property property : properties) {
+                // same as ObjectField: stop reading at the end of the stream, the remaining properties are optional
+                line("            if (in.available() == 0) {");
+                line("                return;");
+                line("            }");
+                line("            " + this.set(property, "target", this.readValue(property)) + ";");
+            }
+        }
+        line("        }");
+        line("");
+        line("        @Override");
+        line("        public void write(ProtoContext ctx, " + this.typeName + " value, OutputStream out) throws IOException {");
+        if (this.model.isByteArrayObject()) {
+            line("            byte[] data = new byte[" + this.model.getByteArrayObjectLength() + "];");
+            for (int i = 0; i < properties.size(); i++) {
+                ProtoTypeModel.Property property = properties.get(i);
+                line("            BITS_" + i + ".write(data, NumberUtils.toUnsignedInt(NumberUtils.toUnsignedLong("
+                        + this.get(property, "value") + ")));");
+            }
+            line("            out.write(data);");
+        } else {
+            for (ProtoTypeModel.Property property : properties) {
+                line("            " + this.writeValue(property, this.get(property, "value")) + ";");
+            }
+        }
+        line("        }");
+        line("");
+        line("        @Override");
+        line("        public int sizeOf(ProtoContext ctx, " + this.typeName + " value) throws IOException {");
+        if (this.model.isByteArrayObject()) {
+            line("            return " + this.model.getByteArrayObjectLength() + ";");
+        } else {
+            int fixedSize = 0;
+            StringBuilder size = new StringBuilder();
+            for (ProtoTypeModel.Property property : properties) {
+                int length = this.fixedSize(property);
+                if (length >= 0) {
+                    fixedSize += length;
+                } else {
+                    size.append("\n                    + ").append(this.sizeOf(property, this.get(property, "value")));
+                }
+            }
+            line("            return " + fixedSize + size + ";");
+        }
+        line("        }");
+        line("    }");
+    }
+
+    /**
+     * @return the byte length of the property, or {@code -1} if it depends on the value
+     */
+    private int fixedSize(ProtoTypeModel.Property property) {
+        String protoType = property.getProtoType();
+        if (FIXED_LENGTHS.containsKey(protoType)) {
+            return FIXED_LENGTHS.get(protoType);
+        }
+        if (ProtoType.BYTES.equals(protoType) && ProtoPropertyOption.LENGTH_MODE_FIXED.equals(property.getLengthMode())) {
+            return property.getLength();
+        }
+        return -1;
+    }
+
+    private String sizeOf(ProtoTypeModel.Property property, String value) {
+        if (ProtoType.BYTES.equals(property.getProtoType())) {
+            return property.getCharset().isEmpty()
+                    ? "ProtoCodecSupport.sizeOf(" + value + ")"
+                    : "ProtoCodecSupport.sizeOf(" + value + ", " + this.charsets.get(property.getCharset()) + ")";
+        }
+        return "this.objectSerializer.sizeOf(ctx, " + value + ")";
+    }
+
+    private String readValue(ProtoTypeModel.Property property) {
+        String protoType = property.getProtoType();
+        if (FIXED_LENGTHS.containsKey(protoType)) {
+            return fromUnsignedLong("ProtoCodecSupport.readUnsigned(in, " + FIXED_LENGTHS.get(protoType) + ")", property.getType());
+        }
+
+        if (ProtoType.BYTES.equals(protoType)) {
+            String data = ProtoPropertyOption.LENGTH_MODE_FIXED.equals(property.getLengthMode())
+                    ? "ProtoCodecSupport.readBytes(in, " + property.getLength() + ")"
+                    : "in.readAllBytes()";
+            return property.getCharset().isEmpty()
+                    ? data
+                    : "ProtoCodecSupport.toString(" + data + ", " + this.charsets.get(property.getCharset()) + ")";
+        }
+
+        // a nested object already set on the target is read in place
+        return "ProtoCodecSupport.readObject(this.objectDeserializer, ctx, in, " + this.get(property, "target") + ", "
+                + property.getType() + ".class)";
+    }
+
+    private String writeValue(ProtoTypeModel.Property property, String value) {
+        String protoType = property.getProtoType();
+        if (FIXED_LENGTHS.containsKey(protoType)) {
+            return "ProtoCodecSupport.writeUnsigned(out, NumberUtils.toUnsignedLong(" + value + "), "
+                    + FIXED_LENGTHS.get(protoType) + ")";
+        }
+
+        if (ProtoType.BYTES.equals(protoType)) {
+            int length = ProtoPropertyOption.LENGTH_MODE_FIXED.equals(property.getLengthMode()) ? property.getLength() : -1;
+            return property.getCharset().isEmpty()
+                    ? "ProtoCodecSupport.writeBytes(out, " + value + ", " + length + ")"
+                    : "ProtoCodecSupport.writeString(out, " + value + ", " + this.charsets.get(property.getCharset()) + ", " + length + ")";
+        }
+
+        return "this.objectSerializer.writeTo(ctx, " + value + ", out)";
+    }
+
+    /**
+     * Converts an unsigned value the same way as {@code NumberUtils.toUnsignedValue(Object, Class)}.
+     */
+    private static String fromUnsignedLong(String value, String type) {
+        String primitiveType = BOXED_TYPES.getOrDefault(type, type);
+        String converted;
+        switch (primitiveType) {
+            case "long":
+                converted = value;
+                break;
+            case "boolean":
+                converted = value + " != 0";
+                break;
+            default:
+                converted = "(" + primitiveType + ") " + value;
+        }
+        return BOXED_TYPES.containsKey(type) ? type + ".valueOf(" + converted + ")" : converted;
+    }
+
+    private String get(ProtoTypeModel.Property property, String target) {
+        if (property.isDirect()) {
+            return target + "." + property.getName();
+        }
+        return "(" + property.getType() + ") " + this.varHandle(property) + ".get(" + target + ")";
+    }
+
+    private String set(ProtoTypeModel.Property property, String target, String value) {
+        if (property.isDirect()) {
+            return target + "." + property.getName() + " = " + value;
+        }
+        return this.varHandle(property) + ".set(" + target + ", (" + property.getType() + ") (" + value + "))";
+    }
+
+    private String varHandle(ProtoTypeModel.Property property) {
+        return this.varHandles.get(property.getDeclaringType() + "#" + property.getName());
+    }
+
+    private ProtoTypeModel.Property findProperty(String declaringType, String name) {
+        for (ProtoTypeModel.Layout layout : this.model.getLayouts()) {
+            for (ProtoTypeModel.Property property : layout.getProperties()) {
+                if (property.getDeclaringType().equals(declaringType) && property.getName().equals(name)) {
+                    return property;
+                }
+            }
+        }
+        throw new IllegalStateException(declaringType + "#" + name);
+    }
+
+    private static String constantName(String fieldName, int index) {
+        StringBuilder name = new StringBuilder();
+        for (char c : fieldName.toCharArray()) {
+            if (Character.isUpperCase(c) && name.length() > 0) {
+                name.append('_');
+            }
+            name.append(Character.toUpperCase(c));
+        }
+        return name.append('_').append(index).toString();
+    }
+
+    private void line(String line) {
+        this.out.append(line).append('\n');
+    }
+}
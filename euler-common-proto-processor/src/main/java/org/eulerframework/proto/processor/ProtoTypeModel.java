@@ -0,0 +1,435 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.processor;
+
+import org.eulerframework.proto.annotation.BitProperty;
+import org.eulerframework.proto.annotation.ByteArrayObject;
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.util.DuplicatedVersionException;
+import org.eulerframework.proto.util.ProtoType;
+import org.eulerframework.proto.util.ProtoUtils;
+
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The properties of one message type resolved at compile time, the same way as
+ * {@link ProtoUtils#getSortedPropertyFields(Class, int)} resolves them at runtime.
+ * <p>
+ * The property layout only changes at the versions named by the annotations, so one layout is resolved
+ * for every such version instead of every possible version.
+ */
+class ProtoTypeModel {
+    private static final Set<String> NUMBER_TYPES = Set.of(
+            "int", "long", "short", "byte", "boolean", "char",
+            "java.lang.Integer", "java.lang.Long", "java.lang.Short", "java.lang.Byte",
+            "java.lang.Boolean", "java.lang.Character");
+
+    /**
+     * Thrown when a type can not be generated, the caller keeps the runtime compilation for it.
+     */
+    static class UnsupportedTypeException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Element element;
+
+        UnsupportedTypeException(Element element, String message) {
+            super(message);
+            this.element = element;
+        }
+
+        Element getElement() {
+            return element;
+        }
+    }
+
+    static class Property {
+        private final String name;
+        private final String declaringType;
+        private final String type;
+        private final boolean direct;
+        private final String protoType;
+        private final int length;
+        private final String lengthMode;
+        private final String charset;
+        private final int bitOffset;
+
+        private Property(VariableElement field, String type, boolean direct,
+                         String protoType, int length, String lengthMode, String charset, int bitOffset) {
+            this.name = field.getSimpleName().toString();
+            this.declaringType = ((TypeElement) field.getEnclosingElement()).getQualifiedName().toString();
+            this.type = type;
+            this.direct = direct;
+            this.protoType = protoType;
+            this.length = length;
+            this.lengthMode = lengthMode;
+            this.charset = charset;
+            this.bitOffset = bitOffset;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        String getDeclaringType() {
+            return declaringType;
+        }
+
+        /**
+         * @return the erased type name of the field
+         */
+        String getType() {
+            return type;
+        }
+
+        /**
+         * @return {@code true} if the generated code can access the field directly, otherwise a
+         * {@link java.lang.invoke.VarHandle} is needed
+         */
+        boolean isDirect() {
+            return direct;
+        }
+
+        String getProtoType() {
+            return protoType;
+        }
+
+        /**
+         * @return the byte length of a {@link ProtoType#BYTES} property, or the bit length of a bit property
+         */
+        int getLength() {
+            return length;
+        }
+
+        String getLengthMode() {
+            return lengthMode;
+        }
+
+        String getCharset() {
+            return charset;
+        }
+
+        int getBitOffset() {
+            return bitOffset;
+        }
+
+        boolean sameAs(Property other) {
+            return this.name.equals(other.name) && this.declaringType.equals(other.declaringType)
+                    && this.protoType.equals(other.protoType) && this.length == other.length
+                    && this.lengthMode.equals(other.lengthMode) && this.charset.equals(other.charset)
+                    && this.bitOffset == other.bitOffset;
+        }
+    }
+
+    /**
+     * The properties used from {@link #getFromVersion()} until the next layout.
+     */
+    static class Layout {
+        private final int fromVersion;
+        private final List<Property> properties;
+
+        Layout(int fromVersion, List<Property> properties) {
+            this.fromVersion = fromVersion;
+            this.properties = properties;
+        }
+
+        int getFromVersion() {
+            return fromVersion;
+        }
+
+        List<Property> getProperties() {
+            return properties;
+        }
+
+        boolean sameAs(Layout other) {
+            if (this.properties.size() != other.properties.size()) {
+                return false;
+            }
+            for (int i = 0; i < this.properties.size(); i++) {
+                if (!this.properties.get(i).sameAs(other.properties.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private final TypeElement type;
+    private final int byteArrayObjectLength;
+    private final List<Layout> layouts;
+
+    private ProtoTypeModel(TypeElement type, int byteArrayObjectLength, List<Layout> layouts) {
+        this.type = type;
+        this.byteArrayObjectLength = byteArrayObjectLength;
+        this.layouts = layouts;
+    }
+
+    TypeElement getType() {
+        return type;
+    }
+
+    boolean isByteArrayObject() {
+        return byteArrayObjectLength >= 0;
+    }
+
+    int getByteArrayObjectLength() {
+        return byteArrayObjectLength;
+    }
+
+    /**
+     * @return the layouts ordered by version, the first one starts at {@link Integer#MIN_VALUE}
+     */
+    List<Layout> getLayouts() {
+        return layouts;
+    }
+
+    static ProtoTypeModel of(TypeElement type, Elements elements, Types types) throws UnsupportedTypeException {
+        checkType(type);
+
+        ByteArrayObject byteArrayObject = type.getAnnotation(ByteArrayObject.class);
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+
+        // the same order as FieldUtils.getAllFieldsList: the fields of the class first, then its super classes
+        List<VariableElement> fields = new ArrayList<>();
+        for (TypeElement current = type; current != null; current = superclass(current)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC)) {
+                    fields.add(field);
+                }
+            }
+        }
+
+        SortedSet<Integer> versions = new TreeSet<>();
+        versions.add(Integer.MIN_VALUE);
+        for (VariableElement field : fields) {
+            for (int[] version : versionsOf(field, byteArrayObject != null)) {
+                for (int v : version) {
+                    versions.add(v);
+                    if (version.length > 1 && v < Integer.MAX_VALUE) {
+                        // a version listed with others does not match the versions right after it
+                        versions.add(v + 1);
+                    }
+                }
+            }
+        }
+
+        List<Layout> layouts = new ArrayList<>();
+        for (int version : versions) {
+            List<Property> properties = byteArrayObject == null
+                    ? resolveProperties(fields, version, packageName, types)
+                    : resolveBitProperties(fields, version, packageName, types);
+            Layout layout = new Layout(version, properties);
+            if (layouts.isEmpty() || !layouts.get(layouts.size() - 1).sameAs(layout)) {
+                layouts.add(layout);
+            }
+        }
+
+        return new ProtoTypeModel(type, byteArrayObject == null ? -1 : byteArrayObject.length(), layouts);
+    }
+
+    private static void checkType(TypeElement type) throws UnsupportedTypeException {
+        if (type.getKind() == ElementKind.RECORD) {
+            throw new UnsupportedTypeException(type, "records are read through their constructor");
+        }
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new UnsupportedTypeException(type, "not a concrete class");
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            throw new UnsupportedTypeException(type, "generic classes are not supported");
+        }
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE)) {
+                throw new UnsupportedTypeException(type, "the class is not accessible from its package");
+            }
+            NestingKind nestingKind = ((TypeElement) e).getNestingKind();
+            if (nestingKind == NestingKind.LOCAL || nestingKind == NestingKind.ANONYMOUS
+                    || nestingKind == NestingKind.MEMBER && !e.getModifiers().contains(Modifier.STATIC)) {
+                throw new UnsupportedTypeException(type, "inner classes are not supported");
+            }
+        }
+
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        boolean noArgsConstructor = constructors.stream()
+                .anyMatch(c -> c.getParameters().isEmpty() && !c.getModifiers().contains(Modifier.PRIVATE));
+        if (!noArgsConstructor) {
+            throw new UnsupportedTypeException(type, "no accessible constructor without arguments");
+        }
+    }
+
+    private static TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private static List<int[]> versionsOf(VariableElement field, boolean bitProperties) {
+        List<int[]> versions = new ArrayList<>();
+        if (bitProperties) {
+            for (BitProperty property : field.getAnnotationsByType(BitProperty.class)) {
+                versions.add(property.version());
+            }
+        } else {
+            for (ProtoProperty property : field.getAnnotationsByType(ProtoProperty.class)) {
+                versions.add(property.version());
+            }
+        }
+        return versions;
+    }
+
+    private static List<Property> resolveProperties(List<VariableElement> fields, int version,
+                                                    String packageName, Types types) throws UnsupportedTypeException {
+        List<Property> properties = new ArrayList<>();
+        List<Integer> orders = new ArrayList<>();
+        for (VariableElement field : fields) {
+            ProtoProperty[] annotations = field.getAnnotationsByType(ProtoProperty.class);
+            ProtoProperty annotation = match(field, annotations, ProtoProperty::version, version);
+            if (annotation == null) {
+                continue;
+            }
+
+            String fieldType = types.erasure(field.asType()).toString();
+            String protoType = annotation.type();
+            String lengthMode = annotation.option().lengthMode();
+            String charset = "";
+            switch (protoType) {
+                case ProtoType.BYTE:
+                case ProtoType.WORD:
+                case ProtoType.DWORD:
+                    checkNumberType(field, fieldType);
+                    break;
+                case ProtoType.BYTES:
+                    if (!"byte[]".equals(fieldType) && !"java.lang.String".equals(fieldType)) {
+                        throw new UnsupportedTypeException(field, "BYTES property of type " + fieldType);
+                    }
+                    if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+                        if (annotation.length() < 0) {
+                            throw new UnsupportedTypeException(field, "FIXED BYTES property without length");
+                        }
+                    } else if (!ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
+                        throw new UnsupportedTypeException(field, "length mode " + lengthMode);
+                    }
+                    if ("java.lang.String".equals(fieldType)) {
+                        charset = annotation.charset();
+                        if (!Charset.isSupported(charset)) {
+                            throw new UnsupportedTypeException(field, "unknown charset " + charset);
+                        }
+                    }
+                    break;
+                case ProtoType.OBJECT:
+                    if (field.asType().getKind() != TypeKind.DECLARED) {
+                        throw new UnsupportedTypeException(field, "OBJECT property of type " + fieldType);
+                    }
+                    break;
+                default:
+                    throw new UnsupportedTypeException(field, "proto type " + protoType);
+            }
+
+            Property property = new Property(field, fieldType, isDirect(field, packageName),
+                    protoType, annotation.length(), lengthMode, charset, -1);
+            // stable insertion by order, as the runtime sorts the fields with a stable sort
+            int index = orders.size();
+            while (index > 0 && orders.get(index - 1) > annotation.order()) {
+                index--;
+            }
+            orders.add(index, annotation.order());
+            properties.add(index, property);
+        }
+        return properties;
+    }
+
+    private static List<Property> resolveBitProperties(List<VariableElement> fields, int version,
+                                                       String packageName, Types types) throws UnsupportedTypeException {
+        List<Property> properties = new ArrayList<>();
+        for (VariableElement field : fields) {
+            BitProperty[] annotations = field.getAnnotationsByType(BitProperty.class);
+            BitProperty annotation = match(field, annotations, BitProperty::version, version);
+            if (annotation == null) {
+                continue;
+            }
+
+            String fieldType = types.erasure(field.asType()).toString();
+            checkNumberType(field, fieldType);
+            Property property = new Property(field, fieldType, isDirect(field, packageName),
+                    "", annotation.length(), "", "", annotation.offset());
+            int index = properties.size();
+            while (index > 0 && properties.get(index - 1).getBitOffset() > annotation.offset()) {
+                index--;
+            }
+            properties.add(index, property);
+        }
+        return properties;
+    }
+
+    private static <A> A match(VariableElement field, A[] annotations,
+                               Function<A, int[]> version, int exceptedVersion)
+            throws UnsupportedTypeException {
+        if (annotations.length == 0) {
+            return null;
+        }
+
+        int[][] versions = new int[annotations.length][];
+        for (int i = 0; i < annotations.length; i++) {
+            versions[i] = version.apply(annotations[i]);
+        }
+        try {
+            int index = ProtoUtils.getMatchedVersionIndex(versions, exceptedVersion);
+            return index < 0 ? null : annotations[index];
+        } catch (DuplicatedVersionException e) {
+            throw new UnsupportedTypeException(field, "more than one annotations matched the version '" + exceptedVersion + "'");
+        }
+    }
+
+    private static void checkNumberType(VariableElement field, String fieldType) throws UnsupportedTypeException {
+        if (!NUMBER_TYPES.contains(fieldType)) {
+            throw new UnsupportedTypeException(field, "number property of type " + fieldType);
+        }
+    }
+
+    private static boolean isDirect(VariableElement field, String packageName) throws UnsupportedTypeException {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.FINAL)) {
+            throw new UnsupportedTypeException(field, "final fields can not be read into");
+        }
+
+        TypeElement declaringType = (TypeElement) field.getEnclosingElement();
+        Element packageElement = declaringType;
+        while (!(packageElement instanceof PackageElement)) {
+            packageElement = packageElement.getEnclosingElement();
+        }
+        boolean samePackage = ((PackageElement) packageElement).getQualifiedName().contentEquals(packageName);
+
+        for (Element e = declaringType; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            Set<Modifier> typeModifiers = e.getModifiers();
+            if (typeModifiers.contains(Modifier.PRIVATE) || !samePackage && !typeModifiers.contains(Modifier.PUBLIC)) {
+                throw new UnsupportedTypeException(field, "the declaring class is not accessible");
+            }
+        }
+
+        return samePackage && !modifiers.contains(Modifier.PRIVATE);
+    }
+}
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.processor;
+
+import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.codec.ProtoCodec;
+import org.eulerframework.proto.codec.ProtoCodecCompiler;
+import org.eulerframework.proto.codec.ProtoCodecProvider;
+import org.eulerframework.proto.message.ProtoMessageRegistry;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.serializer.SerializerRegistryFactory;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+class ProtoCodecProcessorTest {
+    private static final String MESSAGE = String.join("\n",
+            "package sample;",
+            "import org.eulerframework.proto.annotation.*;",
+            "import org.eulerframework.proto.util.*;",
+            "@ProtoMessage(id = 0x0200)",
+            "public class Message {",
+            "    @ProtoProperty(type = ProtoType.WORD, order = 0)",
+            "    @ProtoProperty(type = ProtoType.DWORD, order = 0, version = 1)",
+            "    private int id;",
+            "    @ProtoProperty(type = ProtoType.WORD, order = 1)",
+            "    short serial;",
+            "    @ProtoProperty(type = ProtoType.BYTE, order = 2)",
+            "    private Boolean alive;",
+            "    @ProtoProperty(type = ProtoType.BYTES, order = 3, length = 8, charset = ProtoCharset.GBK)",
+            "    private String name;",
+            "    @ProtoProperty(type = ProtoType.OBJECT, order = 4)",
+            "    private Status status;",
+            "    @ProtoProperty(type = ProtoType.DWORD, order = 5, version = {1, 3})",
+            "    private long extra;",
+            "    @ProtoProperty(type = ProtoType.BYTES, order = 6, option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_ALL_BYTES))",
+            "    byte[] payload;",
+            "    @ByteArrayObject(length = 2)",
+            "    public static class Status {",
+            "        @BitProperty(offset = 0, length = 1)",
+            "        boolean online;",
+            "        @BitProperty(offset = 4, length = 6)",
+            "        private int alarm;",
+            "    }",
+            "}");
+
+    private static final String UNSUPPORTED = String.join("\n",
+            "package sample;",
+            "import org.eulerframework.proto.annotation.*;",
+            "public class Unsupported {",
+            "    @ProtoProperty(type = \"BCD\", order = 0)",
+            "    private int id;",
+            "}");
+
+    private static final String MESSAGE_STATUS = String.join("\n",
+            "package sample;",
+            "import org.eulerframework.proto.annotation.*;",
+            "import org.eulerframework.proto.util.*;",
+            "public class Message_Status {",
+            "    @ProtoProperty(type = ProtoType.WORD, order = 0)",
+            "    int code;",
+            "}");
+
+    private static final String BASE = String.join("\n",
+            "package sample.base;",
+            "import org.eulerframework.proto.annotation.*;",
+            "import org.eulerframework.proto.util.*;",
+            "public class Base {",
+            "    @ProtoProperty(type = ProtoType.WORD, order = 0)",
+            "    private int id;",
+            "    @ProtoProperty(type = ProtoType.BYTE, order = 1)",
+            "    short serial;",
+            "}");
+
+    private static final String DERIVED = String.join("\n",
+            "package sample;",
+            "import org.eulerframework.proto.annotation.*;",
+            "import org.eulerframework.proto.util.*;",
+            "public class Derived extends sample.base.Base {",
+            "    @ProtoProperty(type = ProtoType.DWORD, order = 2)",
+            "    private long total;",
+            "}");
+
+    private static final String OTHER = String.join("\n",
+            "package sample;",
+            "import org.eulerframework.proto.annotation.*;",
+            "import org.eulerframework.proto.util.*;",
+            "@ProtoMessage(id = 0x0300)",
+            "public class Other {",
+            "    @ProtoProperty(type = ProtoType.WORD, order = 0)",
+            "    int id;",
+            "}");
+
+    @Test
+    void generateProviders(@TempDir Path output) throws Exception {
+        List<Diagnostic<? extends JavaFileObject>> diagnostics = compile(output,
+                source("sample/Message", MESSAGE), source("sample/Unsupported", UNSUPPORTED));
+        Assertions.assertTrue(diagnostics.stream().anyMatch(d -> d.getKind() == Diagnostic.Kind.NOTE
+                && d.getMessage(null).contains("sample.Unsupported")), diagnostics::toString);
+
+        List<String> services = Files.readAllLines(output.resolve(ProtoCodecProcessor.SERVICE_FILE));
+        Assertions.assertEquals(List.of("sample.MessageProtoCodecProvider", "sample.Message_StatusProtoCodecProvider"), services);
+        Assertions.assertEquals(List.of("sample.Message"), Files.readAllLines(output.resolve(ProtoMessageRegistry.INDEX_FILE)));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new java.net.URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            List<ProtoCodecProvider<?>> providers = new ArrayList<>();
+            ServiceLoader.load(ProtoCodecProvider.class, classLoader).forEach(providers::add);
+            Assertions.assertEquals(2, providers.size());
+            for (ProtoCodecProvider<?> provider : providers) {
+                Assertions.assertNotNull(provider.getCodec(0, newRegistry(null)));
+            }
+
+            Class<?> messageClass = classLoader.loadClass("sample.Message");
+            ProtoMessageRegistry<?> messageRegistry = new ProtoMessageRegistry<>(newRegistry(null), messageClass, header -> 0)
+                    .registerPackage("sample", classLoader);
+            Assertions.assertEquals(messageClass, messageRegistry.getType(0x0200, 0));
+            for (int version = 0; version <= 4; version++) {
+                Object message = messageClass.getConstructor().newInstance();
+                set(message, "id", 0x12345678);
+                set(message, "serial", (short) 0xF234);
+                set(message, "alive", true);
+                set(message, "name", "设备01");
+                set(message, "extra", 0xFFFFFFFFL);
+                set(message, "payload", new byte[]{1, 2, 3});
+                Object status = classLoader.loadClass("sample.Message$Status").getConstructor().newInstance();
+                set(status, "online", true);
+                set(status, "alarm", 5);
+                set(message, "status", status);
+
+                ProtoCodecCompiler[] compiler = new ProtoCodecCompiler[1];
+                SerializerRegistry registry = SerializerRegistryFactory.newRegistry(
+                        r -> compiler[0] = new ProtoCodecCompiler(r, providers));
+                ProtoCodec<?> codec = compiler[0].getCodec(messageClass, version);
+                Assertions.assertEquals("sample.MessageProtoCodecProvider", codec.getClass().getEnclosingClass().getName());
+
+                byte[] expected = write(newRegistry(null), message, version);
+                byte[] actual = write(registry, message, version);
+                Assertions.assertArrayEquals(expected, actual, "version " + version);
+                ProtoContext ctx = new ProtoContext();
+                ctx.setVersion(version);
+                Assertions.assertEquals(actual.length, registry.getSerializer(ProtoType.OBJECT).sizeOf(ctx, message));
+
+                Object result = read(registry, actual, messageClass, version);
+                // the registry reads and writes through the generated codec
+                Assertions.assertSame(codec, compiler[0].getCodec(messageClass, version));
+                Assertions.assertEquals(version == 0 ? 0x5678 : 0x12345678, get(result, "id"));
+                Assertions.assertEquals((short) 0xF234, get(result, "serial"));
+                Assertions.assertEquals(true, get(result, "alive"));
+                Assertions.assertEquals("设备01", get(result, "name"));
+                Assertions.assertEquals(version == 1 || version >= 3 ? 0xFFFFFFFFL : 0L, get(result, "extra"));
+                Assertions.assertArrayEquals(new byte[]{1, 2, 3}, (byte[]) get(result, "payload"));
+                Assertions.assertEquals(true, get(get(result, "status"), "online"));
+                Assertions.assertEquals(5, get(get(result, "status"), "alarm"));
+            }
+        }
+    }
+
+    @Test
+    void nestedClassNames(@TempDir Path output) throws Exception {
+        Assertions.assertEquals("Message_StatusProtoCodecProvider", ProtoCodecProcessor.providerName("Message$Status"));
+        Assertions.assertEquals("Message_1StatusProtoCodecProvider", ProtoCodecProcessor.providerName("Message_Status"));
+        Assertions.assertEquals("A__1BProtoCodecProvider", ProtoCodecProcessor.providerName("A$_B"));
+        Assertions.assertEquals("A_1_BProtoCodecProvider", ProtoCodecProcessor.providerName("A_$B"));
+
+        // a nested class and a class named after it do not share a provider
+        compile(output, source("sample/Message", MESSAGE), source("sample/Message_Status", MESSAGE_STATUS));
+        Assertions.assertEquals(List.of("sample.MessageProtoCodecProvider", "sample.Message_1StatusProtoCodecProvider",
+                "sample.Message_StatusProtoCodecProvider"), Files.readAllLines(output.resolve(ProtoCodecProcessor.SERVICE_FILE)));
+        try (URLClassLoader classLoader = new URLClassLoader(new java.net.URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            List<String> types = new ArrayList<>();
+            ServiceLoader.load(ProtoCodecProvider.class, classLoader).forEach(provider -> types.add(provider.getType().getName()));
+            Assertions.assertEquals(List.of("sample.Message", "sample.Message_Status", "sample.Message$Status"), types);
+        }
+    }
+
+    @Test
+    void inheritedPrivateFields(@TempDir Path output) throws Exception {
+        // the provider of a subclass reads the private and package-private fields of a super class in another package
+        compile(output, source("sample/base/Base", BASE), source("sample/Derived", DERIVED));
+        Assertions.assertEquals(List.of("sample.DerivedProtoCodecProvider", "sample.base.BaseProtoCodecProvider"),
+                Files.readAllLines(output.resolve(ProtoCodecProcessor.SERVICE_FILE)));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new java.net.URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            List<ProtoCodecProvider<?>> providers = new ArrayList<>();
+            ServiceLoader.load(ProtoCodecProvider.class, classLoader).forEach(providers::add);
+            Class<?> derivedClass = classLoader.loadClass("sample.Derived");
+            Class<?> baseClass = classLoader.loadClass("sample.base.Base");
+            Object derived = derivedClass.getConstructor().newInstance();
+            set(baseClass, derived, "id", 0x8001);
+            set(baseClass, derived, "serial", (short) 0x7F);
+            set(derivedClass, derived, "total", 0xFFFFFFFFL);
+
+            ProtoCodecCompiler[] compiler = new ProtoCodecCompiler[1];
+            SerializerRegistry registry = SerializerRegistryFactory.newRegistry(
+                    r -> compiler[0] = new ProtoCodecCompiler(r, providers));
+            Assertions.assertEquals("sample.DerivedProtoCodecProvider",
+                    compiler[0].getCodec(derivedClass, 0).getClass().getEnclosingClass().getName());
+
+            byte[] actual = write(registry, derived, 0);
+            Assertions.assertArrayEquals(new byte[]{(byte) 0x80, 0x01, 0x7F, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF}, actual);
+            Assertions.assertArrayEquals(write(newRegistry(null), derived, 0), actual);
+            Object result = read(registry, actual, derivedClass, 0);
+            Assertions.assertEquals(0x8001, get(baseClass, result, "id"));
+            Assertions.assertEquals((short) 0x7F, get(baseClass, result, "serial"));
+            Assertions.assertEquals(0xFFFFFFFFL, get(derivedClass, result, "total"));
+        }
+    }
+
+    @Test
+    void incrementalCompilation(@TempDir Path output) throws Exception {
+        compile(output, source("sample/Message", MESSAGE));
+        // a later compilation of other classes keeps the providers and messages of the earlier one, once
+        compile(output, source("sample/Other", OTHER));
+        compile(output, source("sample/Other", OTHER));
+        Assertions.assertEquals(List.of("sample.MessageProtoCodecProvider", "sample.Message_StatusProtoCodecProvider",
+                "sample.OtherProtoCodecProvider"), Files.readAllLines(output.resolve(ProtoCodecProcessor.SERVICE_FILE)));
+        Assertions.assertEquals(List.of("sample.Message", "sample.Other"),
+                Files.readAllLines(output.resolve(ProtoMessageRegistry.INDEX_FILE)));
+
+        try (URLClassLoader classLoader = new URLClassLoader(new java.net.URL[]{output.toUri().toURL()}, getClass().getClassLoader())) {
+            ProtoMessageRegistry<?> messageRegistry = new ProtoMessageRegistry<>(newRegistry(null),
+                    classLoader.loadClass("sample.Message"), header -> 0).registerPackage("sample", classLoader);
+            Assertions.assertEquals(classLoader.loadClass("sample.Message"), messageRegistry.getType(0x0200, 0));
+            Assertions.assertEquals(classLoader.loadClass("sample.Other"), messageRegistry.getType(0x0300, 0));
+        }
+    }
+
+    private static List<Diagnostic<? extends JavaFileObject>> compile(Path output, JavaFileObject... sources) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            fileManager.setLocationFromPaths(StandardLocation.CLASS_OUTPUT, List.of(output));
+            fileManager.setLocationFromPaths(StandardLocation.SOURCE_OUTPUT, List.of(output));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    List.of("-classpath", classpath() + File.pathSeparator + output), null, List.of(sources));
+            task.setProcessors(List.of(new ProtoCodecProcessor()));
+            Assertions.assertTrue(task.call(), diagnostics.getDiagnostics()::toString);
+        }
+        return diagnostics.getDiagnostics();
+    }
+
+    private static String classpath() {
+        List<String> classpath = new ArrayList<>();
+        for (Class<?> type : List.of(ProtoType.class, NumberUtils.class)) {
+            try {
+                classpath.add(Path.of(type.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+            } catch (URISyntaxException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        return String.join(File.pathSeparator, classpath);
+    }
+
+    private static JavaFileObject source(String name, String content) {
+        return new SimpleJavaFileObject(URI.create("string:///" + name + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return content;
+            }
+        };
+    }
+
+    private static SerializerRegistry newRegistry(List<ProtoCodecProvider<?>> providers) {
+        return providers == null
+                ? SerializerRegistryFactory.newRegistry()
+                : SerializerRegistryFactory.newRegistry(registry -> new ProtoCodecCompiler(registry, providers));
+    }
+
+    private static byte[] write(SerializerRegistry registry, Object message, int version) throws IOException {
+        ProtoContext ctx = new ProtoContext();
+        ctx.setVersion(version);
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            registry.getSerializer(ProtoType.OBJECT).writeTo(ctx, message, out);
+            return out.toByteArray();
+        }
+    }
+
+    private static Object read(SerializerRegistry registry, byte[] data, Class<?> type, int version) throws IOException {
+        ProtoContext ctx = new ProtoContext();
+        ctx.setVersion(version);
+        try (ByteArrayInputStream in = new ByteArrayInputStream(data)) {
+            return registry.getDeserializer(ProtoType.OBJECT).read(ctx, in, type);
+        }
+    }
+
+    private static void set(Object target, String name, Object value) throws ReflectiveOperationException {
+        set(target.getClass(), target, name, value);
+    }
+
+    private static void set(Class<?> type, Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    private static Object get(Object target, String name) throws ReflectiveOperationException {
+        return get(target.getClass(), target, name);
+    }
+
+    private static Object get(Class<?> type, Object target, String name) throws ReflectiveOperationException {
+        Field field = type.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(target);
+    }
+}
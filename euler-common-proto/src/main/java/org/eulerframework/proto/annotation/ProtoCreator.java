@@ -0,0 +1,33 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * The constructor creating a message of a class that is not a record, the properties read are passed to it
+ * instead of written to the fields, see {@link org.eulerframework.proto.schema.ProtoConstructor}.
+ */
+@Target(ElementType.CONSTRUCTOR)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ProtoCreator {
+    /**
+     * The names of the fields passed to the constructor, in parameter order. If empty, the parameter names
+     * are used, which requires compiling with {@code -parameters}.
+     */
+    String[] value() default {};
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * A message body of a stream carrying several message types, found by the message ID in the header of every
+ * message, see {@link org.eulerframework.proto.message.ProtoMessageRegistry}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Repeatable(ProtoMessage.MultiVersion.class)
+public @interface ProtoMessage {
+    int id();
+
+    /**
+     * The first protocol version the class is the body of the message ID in, until a later version registered
+     * for the same ID.
+     */
+    int version() default 0;
+
+    @Target(ElementType.TYPE)
+    @Documented
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface MultiVersion {
+        ProtoMessage[] value();
+    }
+}
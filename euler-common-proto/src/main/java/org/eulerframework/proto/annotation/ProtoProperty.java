@@ -19,13 +19,21 @@ import org.eulerframework.proto.util.ProtoCharset;
 
 import java.lang.annotation.*;
 
-@Target(value = ElementType.FIELD)
+/**
+ * A property of a proto message. On a record component, the value read is passed to the canonical constructor,
+ * see {@link org.eulerframework.proto.schema.ProtoConstructor}.
+ */
+@Target(value = {ElementType.FIELD, ElementType.RECORD_COMPONENT})
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
 @Repeatable(ProtoProperty.MultiVersion.class)
 public @interface ProtoProperty {
     String type();
 
+    /**
+     * The element count of an {@code ARRAY} property in {@link ProtoPropertyOption#LENGTH_MODE_FIXED} mode,
+     * otherwise the byte length.
+     */
     int length() default -1;
 
     int order();
@@ -41,7 +49,12 @@ public @interface ProtoProperty {
 
     ProtoPropertyOption option() default @ProtoPropertyOption();
 
-    @Target({ElementType.FIELD})
+    /**
+     * The type of the elements of an {@code ARRAY} property, any type but {@code ARRAY}.
+     */
+    String elementType() default "";
+
+    @Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
     @Documented
     @Retention(RetentionPolicy.RUNTIME)
     @interface MultiVersion {
@@ -12,4 +12,9 @@ public @interface ProtoPropertyOption {
     String LENGTH_MODE_PREFIX = "PREFIX";
     String LENGTH_MODE_SEPARATOR = "SEPARATOR";
     String LENGTH_MODE_ALL_BYTES = "ALL_BYTES";
+    /**
+     * The elements of an {@code ARRAY} property follow the count of elements, a number of the
+     * {@link #lengthPrefixType()}.
+     */
+    String LENGTH_MODE_COUNT_PREFIX = "COUNT_PREFIX";
 }
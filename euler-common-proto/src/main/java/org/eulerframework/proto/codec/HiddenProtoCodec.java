@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.codec;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.eulerframework.proto.util.ProtoContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.constant.ConstantDescs;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * The template of the codecs defined by {@link ProtoCodecCompiler}.
+ * <p>
+ * This class is never loaded by name. Its bytes are defined again as a hidden class for every compiled
+ * message type, with the constructor, read, write and size handles as class data. Each hidden class has its own
+ * {@code static final} handles, which the JIT treats as constants and inlines down to the field accesses.
+ */
+final class HiddenProtoCodec implements ProtoCodec<Object> {
+    private static final MethodHandle NEW_INSTANCE;
+    private static final MethodHandle READ;
+    private static final MethodHandle WRITE;
+    private static final MethodHandle SIZE_OF;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            NEW_INSTANCE = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class, 0);
+            READ = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class, 1);
+            WRITE = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class, 2);
+            SIZE_OF = MethodHandles.classDataAt(lookup, ConstantDescs.DEFAULT_NAME, MethodHandle.class, 3);
+        } catch (IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Override
+    public Object newInstance() {
+        try {
+            return NEW_INSTANCE.invokeExact();
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    @Override
+    public void read(ProtoContext ctx, InputStream in, Object target) throws IOException {
+        try {
+            READ.invokeExact(ctx, target, in);
+        } catch (Throwable e) {
+            throw ProtoCodecCompiler.rethrow(e);
+        }
+    }
+
+    @Override
+    public void write(ProtoContext ctx, Object value, OutputStream out) throws IOException {
+        try {
+            WRITE.invokeExact(ctx, value, out);
+        } catch (Throwable e) {
+            throw ProtoCodecCompiler.rethrow(e);
+        }
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, Object value) throws IOException {
+        try {
+            return (int) SIZE_OF.invokeExact(ctx, value);
+        } catch (Throwable e) {
+            throw ProtoCodecCompiler.rethrow(e);
+        }
+    }
+}
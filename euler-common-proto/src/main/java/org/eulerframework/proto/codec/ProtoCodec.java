@@ -0,0 +1,58 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.codec;
+
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.ByteBufferInputStream;
+import org.eulerframework.proto.util.bytes.ByteBufferOutputStream;
+import org.eulerframework.proto.util.bytes.CountingOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes the properties of one message type for one protocol version.
+ * <p>
+ * A codec does the same work as {@link org.eulerframework.proto.field.ObjectField}, but it does not
+ * build the {@link org.eulerframework.proto.node.ProtoNode} tree.
+ */
+public interface ProtoCodec<T> {
+    T newInstance();
+
+    void read(ProtoContext ctx, InputStream in, T target) throws IOException;
+
+    void write(ProtoContext ctx, T value, OutputStream out) throws IOException;
+
+    /**
+     * @return the number of bytes {@link #write(ProtoContext, Object, OutputStream)} writes for the value,
+     * measured by writing it unless the codec computes it
+     */
+    default int sizeOf(ProtoContext ctx, T value) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        this.write(ctx, value, out);
+        return out.getIntCount();
+    }
+
+    default void read(ProtoContext ctx, ByteBuffer buffer, T target) throws IOException {
+        this.read(ctx, new ByteBufferInputStream(buffer), target);
+    }
+
+    default void write(ProtoContext ctx, T value, ByteBuffer buffer) throws IOException {
+        this.write(ctx, value, new ByteBufferOutputStream(buffer));
+    }
+}
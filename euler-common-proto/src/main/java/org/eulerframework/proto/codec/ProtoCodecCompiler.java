@@ -0,0 +1,485 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.codec;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.eulerframework.common.util.JavaObjectUtils;
+import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.schema.PropertyRun;
+import org.eulerframework.proto.schema.ProtoSchema;
+import org.eulerframework.proto.serializer.*;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Compiles a {@link ProtoSchema} into a {@link ProtoCodec} that reads and writes the properties in
+ * declared order without going through {@link SerializerRegistry} lookups for every field.
+ * <p>
+ * Every property becomes one method handle step, BYTE, WORD and DWORD properties of the built-in
+ * deserializers are read and written inline, any other property calls its bound serializer. A
+ * {@link PropertyRun} of adjacent fixed length numbers is one step reading or writing all its bytes at once. The steps
+ * are chained into one handle per direction and defined as a hidden class, so the whole chain is a
+ * constant the JIT can inline. {@link org.eulerframework.proto.annotation.ByteArrayObject} classes and the
+ * classes created by a {@link org.eulerframework.proto.schema.ProtoConstructor}, such as records, are not
+ * compiled, as a codec reads into an existing instance.
+ * <p>
+ * The codecs of a {@link ProtoCodecProvider}, generated at compile time, are used instead of compiling
+ * at runtime whenever the provider supports the registry.
+ */
+public class ProtoCodecCompiler {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProtoCodecCompiler.class);
+    private static final int DENSE_VERSIONS = 64;
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType READ_TYPE = MethodType.methodType(void.class, ProtoContext.class, Object.class, InputStream.class);
+    private static final MethodType NEW_INSTANCE_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType WRITE_TYPE = MethodType.methodType(void.class, ProtoContext.class, Object.class, OutputStream.class);
+    private static final MethodType SIZE_OF_TYPE = MethodType.methodType(int.class, ProtoContext.class, Object.class);
+
+    private static final MethodHandle HAS_REMAINING;
+    private static final MethodHandle HAS_AT_LEAST;
+    private static final MethodHandle READ_RUN;
+    private static final MethodHandle WRITE_RUN;
+    private static final MethodHandle NEW_INSTANCE;
+    private static final MethodHandle READ_PROPERTY;
+    private static final MethodHandle WRITE_PROPERTY;
+    private static final MethodHandle SIZE_OF_PROPERTY;
+    private static final MethodHandle[] READ_UNSIGNED = new MethodHandle[5];
+    private static final MethodHandle[] WRITE_UNSIGNED = new MethodHandle[5];
+    private static final MethodHandle LONG_TO_BOOLEAN;
+    private static final MethodHandle OBJECT_TO_UNSIGNED_LONG;
+
+    private static final byte[] TEMPLATE = loadTemplate();
+
+    static {
+        try {
+            HAS_REMAINING = LOOKUP.findStatic(ProtoCodecCompiler.class, "hasRemaining",
+                    MethodType.methodType(boolean.class, InputStream.class));
+            HAS_AT_LEAST = LOOKUP.findStatic(ProtoCodecCompiler.class, "hasAtLeast",
+                    MethodType.methodType(boolean.class, InputStream.class, int.class));
+            READ_RUN = LOOKUP.findStatic(ProtoCodecCompiler.class, "readRun",
+                    MethodType.methodType(void.class, PropertyRun.class, ProtoContext.class, Object.class, InputStream.class));
+            WRITE_RUN = LOOKUP.findVirtual(PropertyRun.class, "write",
+                    MethodType.methodType(void.class, ProtoContext.class, Object.class, OutputStream.class));
+            NEW_INSTANCE = LOOKUP.findStatic(JavaObjectUtils.class, "newInstance",
+                    MethodType.methodType(Object.class, Class.class));
+            READ_PROPERTY = LOOKUP.findStatic(ProtoCodecCompiler.class, "readProperty",
+                    MethodType.methodType(void.class, Deserializer.class, PropertyField.class,
+                            ProtoContext.class, Object.class, InputStream.class));
+            WRITE_PROPERTY = LOOKUP.findStatic(ProtoCodecCompiler.class, "writeProperty",
+                    MethodType.methodType(void.class, Serializer.class, PropertyField.class,
+                            ProtoContext.class, Object.class, OutputStream.class));
+            SIZE_OF_PROPERTY = LOOKUP.findStatic(ProtoCodecCompiler.class, "sizeOfProperty",
+                    MethodType.methodType(int.class, Serializer.class, PropertyField.class,
+                            int.class, ProtoContext.class, Object.class));
+            MethodHandle readUnsigned = LOOKUP.findStatic(ProtoCodecSupport.class, "readUnsigned",
+                    MethodType.methodType(long.class, InputStream.class, int.class));
+            MethodHandle writeUnsigned = LOOKUP.findStatic(ProtoCodecSupport.class, "writeUnsigned",
+                    MethodType.methodType(void.class, OutputStream.class, long.class, int.class));
+            for (int length : new int[]{1, 2, 4}) {
+                READ_UNSIGNED[length] = MethodHandles.insertArguments(readUnsigned, 1, length);
+                WRITE_UNSIGNED[length] = MethodHandles.insertArguments(writeUnsigned, 2, length);
+            }
+            LONG_TO_BOOLEAN = LOOKUP.findStatic(NumberUtils.class, "toBoolean",
+                    MethodType.methodType(boolean.class, long.class));
+            OBJECT_TO_UNSIGNED_LONG = LOOKUP.findStatic(NumberUtils.class, "toUnsignedLong",
+                    MethodType.methodType(long.class, Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final SerializerRegistry serializerRegistry;
+    private final Map<Class<?>, ProtoCodecProvider<?>> providers = new HashMap<>();
+    private final ClassValue<VersionedCodecs> codecs = new ClassValue<>() {
+        @Override
+        protected VersionedCodecs computeValue(Class<?> type) {
+            return new VersionedCodecs();
+        }
+    };
+
+    /**
+     * Uses the {@link ProtoCodecProvider} services of the context class loader.
+     */
+    public ProtoCodecCompiler(SerializerRegistry serializerRegistry) {
+        this(serializerRegistry, loadProviders());
+    }
+
+    public ProtoCodecCompiler(SerializerRegistry serializerRegistry, Iterable<? extends ProtoCodecProvider<?>> providers) {
+        this.serializerRegistry = serializerRegistry;
+        for (ProtoCodecProvider<?> provider : providers) {
+            this.providers.putIfAbsent(provider.getType(), provider);
+        }
+    }
+
+    private static List<ProtoCodecProvider<?>> loadProviders() {
+        List<ProtoCodecProvider<?>> providers = new ArrayList<>();
+        @SuppressWarnings("unchecked")
+        Class<ProtoCodecProvider<?>> service = (Class<ProtoCodecProvider<?>>) (Class<?>) ProtoCodecProvider.class;
+        Iterator<ProtoCodecProvider<?>> iterator = ServiceLoader.load(service).iterator();
+        while (true) {
+            try {
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                providers.add(iterator.next());
+            } catch (ServiceConfigurationError e) {
+                // a stale provider only falls back to the runtime compilation of its type
+                LOGGER.warn("Failed to load a proto codec provider, skip it.", e);
+            }
+        }
+        return providers;
+    }
+
+    /**
+     * @return the generated or compiled codec, or {@code null} if the class is not supported and the
+     * reflective fields should be used
+     */
+    @SuppressWarnings("unchecked")
+    public <T> ProtoCodec<T> getCodec(Class<T> clazz, int version) {
+        VersionedCodecs versionCodecs = this.codecs.get(clazz);
+        CompiledCodec compiled = versionCodecs.get(version);
+        int revision = this.serializerRegistry.revision();
+        if (compiled == null || compiled.revision != revision) {
+            // a codec is immutable, so losing the race only wastes one compilation
+            compiled = new CompiledCodec(revision, this.createCodec(clazz, version));
+            versionCodecs.put(version, compiled);
+        }
+        return (ProtoCodec<T>) compiled.codec;
+    }
+
+    private ProtoCodec<?> createCodec(Class<?> clazz, int version) {
+        ProtoCodecProvider<?> provider = this.providers.get(clazz);
+        if (provider != null) {
+            ProtoCodec<?> codec = provider.getCodec(version, this.serializerRegistry);
+            if (codec != null) {
+                return codec;
+            }
+        }
+        return this.compile(ProtoSchema.forClass(clazz, version));
+    }
+
+    private ProtoCodec<?> compile(ProtoSchema schema) {
+        if (schema.isByteArrayObject() || schema.getConstructor() != null) {
+            return null;
+        }
+
+        try {
+            List<PropertyField> propertyFields = schema.getPropertyFields();
+            int size = propertyFields.size();
+            // the steps from every property to the end, a run continues with the steps after it
+            MethodHandle[] reads = new MethodHandle[size + 1];
+            MethodHandle[] writes = new MethodHandle[size + 1];
+            reads[size] = MethodHandles.empty(READ_TYPE);
+            writes[size] = MethodHandles.empty(WRITE_TYPE);
+            MethodHandle stop = MethodHandles.empty(READ_TYPE);
+            MethodHandle hasRemaining = MethodHandles.dropArguments(HAS_REMAINING, 0, ProtoContext.class, Object.class);
+            for (int i = size - 1; i >= 0; i--) {
+                PropertyField propertyField = propertyFields.get(i);
+                // same as ObjectField: stop reading at the end of the stream, the remaining properties are optional
+                reads[i] = MethodHandles.guardWithTest(hasRemaining,
+                        MethodHandles.foldArguments(reads[i + 1], this.readStep(propertyField)),
+                        stop);
+                writes[i] = MethodHandles.foldArguments(writes[i + 1], this.writeStep(propertyField));
+
+                PropertyRun run = schema.getPropertyRun(i);
+                if (run != null && run.isBuiltIn(this.serializerRegistry)) {
+                    // same as ObjectField: the properties of a run are read one by one only if the stream ends within it
+                    MethodHandle hasRun = MethodHandles.dropArguments(
+                            MethodHandles.insertArguments(HAS_AT_LEAST, 1, run.getLength()), 0, ProtoContext.class, Object.class);
+                    reads[i] = MethodHandles.guardWithTest(hasRun,
+                            MethodHandles.foldArguments(reads[run.getTo()], READ_RUN.bindTo(run)),
+                            reads[i]);
+                    writes[i] = MethodHandles.foldArguments(writes[run.getTo()], WRITE_RUN.bindTo(run));
+                }
+            }
+            return defineCodec(newInstance(schema.getType()), reads[0], writes[0], this.sizeOf(propertyFields));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LOGGER.warn("Failed to compile proto codec for {}, fall back to the reflective fields.", schema.getType(), e);
+            return null;
+        }
+    }
+
+    private static MethodHandle newInstance(Class<?> type) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, LOOKUP);
+            return lookup.findConstructor(type, MethodType.methodType(void.class)).asType(NEW_INSTANCE_TYPE);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // let JavaObjectUtils report the missing or inaccessible constructor when an instance is needed
+            return NEW_INSTANCE.bindTo(type);
+        }
+    }
+
+    private MethodHandle readStep(PropertyField propertyField) {
+        Deserializer deserializer = propertyField.getDeserializer(this.serializerRegistry);
+        if (deserializer == null) {
+            throw new IllegalArgumentException("No deserializer for type " + propertyField.getType());
+        }
+
+        int length = ProtoCodecSupport.fixedLength(deserializer);
+        MethodHandle fromLong = fromUnsignedLong(propertyField.getField().getType());
+        if (length > 0 && fromLong != null) {
+            MethodHandle value = MethodHandles.filterReturnValue(READ_UNSIGNED[length], fromLong);
+            MethodHandle step = MethodHandles.filterArguments(propertyField.getAccessor().setterHandle(), 1, value);
+            return MethodHandles.dropArguments(step, 0, ProtoContext.class);
+        }
+
+        return MethodHandles.insertArguments(READ_PROPERTY, 0, deserializer, propertyField);
+    }
+
+    private MethodHandle writeStep(PropertyField propertyField) throws ReflectiveOperationException {
+        Serializer serializer = propertyField.getSerializer(this.serializerRegistry);
+        if (serializer == null) {
+            throw new IllegalArgumentException("No serializer for type " + propertyField.getType());
+        }
+
+        int length = ProtoCodecSupport.fixedLength(serializer);
+        MethodHandle toLong = toUnsignedLong(propertyField.getField().getType());
+        if (length > 0 && toLong != null) {
+            MethodHandle value = MethodHandles.filterReturnValue(propertyField.getAccessor().getterHandle(), toLong);
+            MethodHandle step = MethodHandles.filterArguments(WRITE_UNSIGNED[length], 1, value);
+            return MethodHandles.permuteArguments(step, WRITE_TYPE, 2, 1);
+        }
+
+        return MethodHandles.insertArguments(WRITE_PROPERTY, 0, serializer, propertyField);
+    }
+
+    /**
+     * @return a handle of type {@code (ProtoContext,Object)int} computing the size of a message, the built-in
+     * fixed length properties are summed once, every other property adds the size from its serializer
+     */
+    private MethodHandle sizeOf(List<PropertyField> propertyFields) {
+        int fixedSize = 0;
+        List<MethodHandle> steps = new ArrayList<>();
+        for (PropertyField propertyField : propertyFields) {
+            Serializer serializer = propertyField.getSerializer(this.serializerRegistry);
+            int length = ProtoCodecSupport.fixedLength(serializer);
+            if (length > 0) {
+                fixedSize += length;
+            } else {
+                steps.add(MethodHandles.insertArguments(SIZE_OF_PROPERTY, 0, serializer, propertyField));
+            }
+        }
+
+        MethodHandle sizeOf = MethodHandles.dropArguments(MethodHandles.constant(int.class, fixedSize), 0,
+                ProtoContext.class, Object.class);
+        for (MethodHandle step : steps) {
+            sizeOf = MethodHandles.foldArguments(step, sizeOf);
+        }
+        return sizeOf;
+    }
+
+    /**
+     * @return a handle converting an unsigned value to the field type the same way as
+     * {@link NumberUtils#toUnsignedValue(Object, Class)}, or {@code null} if the type is not supported
+     */
+    private static MethodHandle fromUnsignedLong(Class<?> type) {
+        Class<?> primitiveType = type.isPrimitive() ? type : MethodType.methodType(type).unwrap().returnType();
+        MethodHandle handle;
+        if (primitiveType == boolean.class) {
+            handle = LONG_TO_BOOLEAN;
+        } else if (primitiveType == int.class || primitiveType == long.class || primitiveType == short.class
+                || primitiveType == byte.class || primitiveType == char.class) {
+            handle = MethodHandles.explicitCastArguments(MethodHandles.identity(long.class),
+                    MethodType.methodType(primitiveType, long.class));
+        } else {
+            return null;
+        }
+        return handle.asType(MethodType.methodType(type, long.class));
+    }
+
+    /**
+     * @return a handle converting the field type to an unsigned value the same way as
+     * {@link NumberUtils#toUnsignedLong(Object)}, or {@code null} if the type is not supported
+     */
+    private static MethodHandle toUnsignedLong(Class<?> type) throws ReflectiveOperationException {
+        if (type == int.class || type == long.class || type == short.class || type == byte.class
+                || type == char.class || type == boolean.class) {
+            return LOOKUP.findStatic(NumberUtils.class, "toUnsignedLong", MethodType.methodType(long.class, type));
+        }
+        if (type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+                || type == Character.class || type == Boolean.class) {
+            return OBJECT_TO_UNSIGNED_LONG.asType(MethodType.methodType(long.class, type));
+        }
+        return null;
+    }
+
+    private static ProtoCodec<?> defineCodec(MethodHandle newInstance, MethodHandle read, MethodHandle write,
+                                             MethodHandle sizeOf) throws ReflectiveOperationException {
+        if (TEMPLATE == null) {
+            return new MethodHandleProtoCodec(newInstance, read, write, sizeOf);
+        }
+
+        MethodHandles.Lookup hiddenLookup = LOOKUP.defineHiddenClassWithClassData(TEMPLATE,
+                List.of(newInstance, read, write, sizeOf), true);
+        MethodHandle constructor = hiddenLookup.findConstructor(hiddenLookup.lookupClass(), MethodType.methodType(void.class));
+        try {
+            return (ProtoCodec<?>) constructor.invoke();
+        } catch (Throwable e) {
+            throw new UndeclaredThrowableException(e);
+        }
+    }
+
+    private static byte[] loadTemplate() {
+        try (InputStream in = ProtoCodecCompiler.class.getResourceAsStream("HiddenProtoCodec.class")) {
+            if (in != null) {
+                return in.readAllBytes();
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Failed to load the hidden codec template.", e);
+        }
+        LOGGER.info("Hidden codec template is not available, compiled proto codecs are not defined as hidden classes.");
+        return null;
+    }
+
+    static IOException rethrow(Throwable e) {
+        if (e instanceof IOException) {
+            return (IOException) e;
+        }
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        throw new UndeclaredThrowableException(e);
+    }
+
+    private static boolean hasRemaining(InputStream in) throws IOException {
+        return in.available() != 0;
+    }
+
+    private static boolean hasAtLeast(InputStream in, int length) throws IOException {
+        return in.available() >= length;
+    }
+
+    private static void readRun(PropertyRun run, ProtoContext ctx, Object target, InputStream in) throws IOException {
+        run.read(ctx, in, target, null);
+    }
+
+    private static void readProperty(Deserializer deserializer, PropertyField propertyField,
+                                     ProtoContext ctx, Object target, InputStream in) throws IOException {
+        propertyField.readInto(ctx, deserializer, in, target);
+    }
+
+    private static void writeProperty(Serializer serializer, PropertyField propertyField,
+                                      ProtoContext ctx, Object value, OutputStream out) throws IOException {
+        serializer.writeTo(ctx, propertyField, propertyField.getAccessor().get(value), out);
+    }
+
+    private static int sizeOfProperty(Serializer serializer, PropertyField propertyField,
+                                      int size, ProtoContext ctx, Object value) throws IOException {
+        return size + serializer.sizeOf(ctx, propertyField, propertyField.getAccessor().get(value));
+    }
+
+    /**
+     * The codecs of one class, the versions below {@code DENSE_VERSIONS} are looked up by index.
+     */
+    private static class VersionedCodecs {
+        private final AtomicReferenceArray<CompiledCodec> dense = new AtomicReferenceArray<>(DENSE_VERSIONS);
+        private final ConcurrentMap<Integer, CompiledCodec> sparse = new ConcurrentHashMap<>();
+
+        CompiledCodec get(int version) {
+            return version >= 0 && version < DENSE_VERSIONS ? this.dense.get(version) : this.sparse.get(version);
+        }
+
+        void put(int version, CompiledCodec compiled) {
+            if (version >= 0 && version < DENSE_VERSIONS) {
+                this.dense.set(version, compiled);
+            } else {
+                this.sparse.put(version, compiled);
+            }
+        }
+    }
+
+    private static class CompiledCodec {
+        private final int revision;
+        private final ProtoCodec<?> codec;
+
+        CompiledCodec(int revision, ProtoCodec<?> codec) {
+            this.revision = revision;
+            this.codec = codec;
+        }
+    }
+
+    /**
+     * Used when the class file of {@link HiddenProtoCodec} can not be read, for example in a runtime
+     * image without class file resources.
+     */
+    private static class MethodHandleProtoCodec implements ProtoCodec<Object> {
+        private final MethodHandle newInstance;
+        private final MethodHandle read;
+        private final MethodHandle write;
+        private final MethodHandle sizeOf;
+
+        MethodHandleProtoCodec(MethodHandle newInstance, MethodHandle read, MethodHandle write, MethodHandle sizeOf) {
+            this.newInstance = newInstance;
+            this.read = read;
+            this.write = write;
+            this.sizeOf = sizeOf;
+        }
+
+        @Override
+        public Object newInstance() {
+            try {
+                return this.newInstance.invokeExact();
+            } catch (Throwable e) {
+                throw ExceptionUtils.asRuntimeException(e);
+            }
+        }
+
+        @Override
+        public void read(ProtoContext ctx, InputStream in, Object target) throws IOException {
+            try {
+                this.read.invokeExact(ctx, target, in);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public void write(ProtoContext ctx, Object value, OutputStream out) throws IOException {
+            try {
+                this.write.invokeExact(ctx, value, out);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+
+        @Override
+        public int sizeOf(ProtoContext ctx, Object value) throws IOException {
+            try {
+                return (int) this.sizeOf.invokeExact(ctx, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.codec;
+
+import org.eulerframework.proto.serializer.SerializerRegistry;
+
+/**
+ * Provides the codecs of one message type, usually generated at compile time by the
+ * {@code euler-common-proto-processor} annotation processor and registered as a {@link java.util.ServiceLoader}
+ * service. {@link ProtoCodecCompiler} prefers these codecs to the ones compiled at runtime.
+ * <p>
+ * The services are loaded by {@link ProtoCodecCompiler#ProtoCodecCompiler(SerializerRegistry)} only, so a registry
+ * uses them when it is created with a compiler, such as
+ * {@code SerializerRegistryFactory.newRegistry(ProtoCodecCompiler::new)}.
+ */
+public interface ProtoCodecProvider<T> {
+    Class<T> getType();
+
+    /**
+     * @return the codec of the given version bound to the registry, or {@code null} if the registry
+     * can not be used by this codec, for example when a built-in serializer is replaced
+     */
+    ProtoCodec<T> getCodec(int version, SerializerRegistry serializerRegistry);
+}
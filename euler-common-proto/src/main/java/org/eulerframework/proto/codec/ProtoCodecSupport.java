@@ -0,0 +1,326 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.codec;
+
+import org.eulerframework.proto.schema.ProtoSchema;
+import org.eulerframework.proto.serializer.*;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.eulerframework.proto.util.bytes.ByteArrayUtils;
+import org.eulerframework.proto.util.bytes.StringBytesConvertor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Reads and writes property values the same way as the built-in serializers, used by the compiled
+ * codecs and by the codecs generated by the annotation processor.
+ */
+public final class ProtoCodecSupport {
+    private static final StringBytesConvertor STRING_CONVERTOR = new StringBytesConvertor();
+
+    private ProtoCodecSupport() {
+    }
+
+    /**
+     * Checks that the registry uses the built-in serializer and deserializer for every given type,
+     * otherwise the codecs must not inline these types.
+     */
+    public static boolean isBuiltIn(SerializerRegistry serializerRegistry, String... types) {
+        for (String type : types) {
+            Serializer serializer = serializerRegistry.getSerializer(type);
+            Deserializer deserializer = serializerRegistry.getDeserializer(type);
+            if (serializer == null || deserializer == null) {
+                return false;
+            }
+
+            Class<?> serializerClass = serializer.getClass();
+            Class<?> deserializerClass = deserializer.getClass();
+            boolean builtIn;
+            switch (type) {
+                case ProtoType.BYTE:
+                    builtIn = serializerClass == ByteProtoFieldSerializer.class
+                            && deserializerClass == ByteProtoFieldDeserializer.class;
+                    break;
+                case ProtoType.WORD:
+                    builtIn = serializerClass == UnsignedShortProtoFieldSerializer.class
+                            && deserializerClass == UnsignedShortProtoFieldDeserializer.class;
+                    break;
+                case ProtoType.DWORD:
+                    builtIn = serializerClass == UnsignedIntegerProtoFieldSerializer.class
+                            && deserializerClass == UnsignedIntegerProtoFieldDeserializer.class;
+                    break;
+                case ProtoType.BYTES:
+                    builtIn = serializerClass == ByteArraySerializer.class
+                            && deserializerClass == ByteArrayDeserializer.class;
+                    break;
+                case ProtoType.ARRAY:
+                    builtIn = serializerClass == RepeatedPropertySerializer.class
+                            && deserializerClass == RepeatedPropertyDeserializer.class;
+                    break;
+                case ProtoType.WORD_LE:
+                case ProtoType.DWORD_LE:
+                    builtIn = serializerClass == LittleEndianNumberSerializer.class
+                            && deserializerClass == LittleEndianNumberDeserializer.class
+                            && ((LittleEndianNumberDeserializer) deserializer).length() == (ProtoType.WORD_LE.equals(type) ? 2 : 4);
+                    break;
+                case ProtoType.VARINT:
+                    builtIn = serializerClass == VarIntSerializer.class
+                            && deserializerClass == VarIntDeserializer.class;
+                    break;
+                case ProtoType.BCD:
+                    builtIn = serializerClass == BcdSerializer.class
+                            && deserializerClass == BcdDeserializer.class;
+                    break;
+                default:
+                    builtIn = false;
+            }
+            if (!builtIn) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the registry uses the built-in serializers for every property of the schema and of its
+     * nested objects, so that the lengths resolved by the schema are the lengths of the messages.
+     *
+     * @throws IllegalArgumentException if the serializers of a property type are replaced
+     */
+    public static void checkBuiltIn(SerializerRegistry serializerRegistry, ProtoSchema schema) {
+        if (schema.isByteArrayObject()) {
+            checkObjectDeserializer(serializerRegistry);
+            return;
+        }
+
+        for (PropertyField propertyField : schema.getPropertyFields()) {
+            Class<?> clazz = propertyField.getField().getType();
+            String type = propertyField.getType();
+            if (ProtoType.ARRAY.equals(type)) {
+                checkBuiltIn(serializerRegistry, type);
+                // the elements are checked as a property of the element type
+                clazz = propertyField.getElementClass();
+                type = propertyField.getElementType();
+            }
+            if (ProtoType.OBJECT.equals(type)) {
+                checkObjectDeserializer(serializerRegistry);
+                checkBuiltIn(serializerRegistry, ProtoSchema.forClass(clazz, schema.getVersion()));
+            } else {
+                checkBuiltIn(serializerRegistry, type);
+            }
+        }
+    }
+
+    private static void checkBuiltIn(SerializerRegistry serializerRegistry, String type) {
+        if (!isBuiltIn(serializerRegistry, type)) {
+            throw new IllegalArgumentException("The length of " + type + " is unknown, its serializers are replaced.");
+        }
+    }
+
+    private static void checkObjectDeserializer(SerializerRegistry serializerRegistry) {
+        if (!(serializerRegistry.getDeserializer(ProtoType.OBJECT) instanceof ObjectProtoFieldDeserializer)) {
+            throw new IllegalArgumentException("The length of " + ProtoType.OBJECT + " is unknown, its deserializer is replaced.");
+        }
+    }
+
+    /**
+     * @return the length of the Big-Endian fixed length type read by the built-in deserializer, or {@code -1}
+     */
+    public static int fixedLength(Deserializer deserializer) {
+        Class<?> deserializerClass = deserializer.getClass();
+        if (deserializerClass == ByteProtoFieldDeserializer.class) {
+            return 1;
+        }
+        if (deserializerClass == UnsignedShortProtoFieldDeserializer.class) {
+            return 2;
+        }
+        if (deserializerClass == UnsignedIntegerProtoFieldDeserializer.class) {
+            return 4;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the length of the Big-Endian fixed length type written by the built-in serializer, or {@code -1}
+     */
+    public static int fixedLength(Serializer serializer) {
+        Class<?> serializerClass = serializer.getClass();
+        if (serializerClass == ByteProtoFieldSerializer.class) {
+            return 1;
+        }
+        if (serializerClass == UnsignedShortProtoFieldSerializer.class) {
+            return 2;
+        }
+        if (serializerClass == UnsignedIntegerProtoFieldSerializer.class) {
+            return 4;
+        }
+        return -1;
+    }
+
+    /**
+     * Reads a Big-Endian unsigned value of 1 to 8 bytes.
+     *
+     * @throws IllegalArgumentException if the stream ends before the value
+     */
+    public static long readUnsigned(InputStream in, int length) throws IOException {
+        if (in.available() < length) {
+            throw new IllegalArgumentException("Not enough bytes to read.");
+        }
+
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IllegalArgumentException("Except " + length + " bytes but only " + i + " bytes read.");
+            }
+            value = value << 8 | b;
+        }
+        return value;
+    }
+
+    /**
+     * Reads a nested object in place if the target already has one and the deserializer is an
+     * {@link InstanceDeserializer}, otherwise reads a new one.
+     */
+    public static <T> T readObject(Deserializer deserializer, ProtoContext ctx, InputStream in,
+                                   T current, Class<T> type) throws IOException {
+        if (current != null && deserializer instanceof InstanceDeserializer instanceDeserializer) {
+            return instanceDeserializer.readInto(ctx, in, current);
+        }
+        return deserializer.read(ctx, in, type);
+    }
+
+    /**
+     * Reads the bytes of a fixed length field, such as a
+     * {@link org.eulerframework.proto.annotation.ByteArrayObject}.
+     */
+    public static byte[] readFixedLength(InputStream in, int length) throws IOException {
+        if (in.available() < length) {
+            throw new IllegalStateException("Not enough bytes to read, abort.");
+        }
+
+        byte[] bytes = new byte[length];
+        int r;
+        // a single read may return less than available, only the end of the stream is short
+        if ((r = in.readNBytes(bytes, 0, length)) < length) {
+            throw new IllegalStateException(
+                    "Except " + length + " bytes but only " + r + " bytes read.");
+        }
+        return bytes;
+    }
+
+    /**
+     * Writes the lowest {@code length} bytes of the value in Big-Endian without allocating.
+     */
+    public static void writeUnsigned(OutputStream out, long value, int length) throws IOException {
+        for (int i = length - 1; i >= 0; i--) {
+            out.write((int) (value >>> (i << 3)));
+        }
+    }
+
+    /**
+     * Reads a {@link ProtoType#BYTES} property of fixed length.
+     */
+    public static byte[] readBytes(InputStream in, int length) throws IOException {
+        if (in.available() < length) {
+            throw new IllegalArgumentException("Not enough bytes to read.");
+        }
+
+        byte[] data = new byte[length];
+        int readBytes;
+        if ((readBytes = in.readNBytes(data, 0, length)) < data.length) {
+            throw new IOException("This property need " + data.length + " bytes, but only " + readBytes + " bytes read.");
+        }
+        return data;
+    }
+
+    /**
+     * Decodes a {@link ProtoType#BYTES} property read for a {@link String} field, the trailing zeros
+     * are the padding of a fixed length property.
+     */
+    public static String toString(byte[] data, Charset charset) {
+        return STRING_CONVERTOR.readFrom(data, 0, ByteArrayUtils.rightTrimIndex(data, 0, data.length, (byte) 0), charset);
+    }
+
+    /**
+     * Writes a {@link ProtoType#BYTES} property.
+     *
+     * @param length the fixed length to pad the data to with zeros, or {@code -1} if the property is
+     *               not of fixed length
+     */
+    public static void writeBytes(OutputStream out, byte[] data, int length) throws IOException {
+        int count = data == null ? 0 : data.length;
+        if (length >= 0 && count > length) {
+            throw new IndexOutOfBoundsException("The bytes length of this property is " + length +
+                    ", but " + count + " bytes was written.");
+        }
+
+        if (count > 0) {
+            out.write(data);
+        }
+
+        if (count < length) {
+            out.write(new byte[length - count]);
+        }
+    }
+
+    /**
+     * @return the number of bytes {@link #writeBytes(OutputStream, byte[], int)} writes for a property not of
+     * fixed length
+     */
+    public static int sizeOf(byte[] data) {
+        return data == null ? 0 : data.length;
+    }
+
+    /**
+     * @return the number of bytes {@link #writeString(OutputStream, String, Charset, int)} writes for a property
+     * not of fixed length
+     */
+    public static int sizeOf(String value, Charset charset) {
+        return value == null ? 0 : STRING_CONVERTOR.sizeOf(value, charset);
+    }
+
+    /**
+     * Writes a {@link ProtoType#BYTES} property of a {@link String} field.
+     *
+     * @param length the fixed length to pad the data to with zeros, or {@code -1} if the property is
+     *               not of fixed length
+     */
+    public static void writeString(OutputStream out, String value, Charset charset, int length) throws IOException {
+        if (value == null) {
+            writeBytes(out, null, length);
+            return;
+        }
+        if (length < 0) {
+            STRING_CONVERTOR.writeTo(value, out, charset);
+            return;
+        }
+
+        int count = STRING_CONVERTOR.sizeOf(value, charset);
+        if (count > length) {
+            throw new IndexOutOfBoundsException("The bytes length of this property is " + length +
+                    ", but " + count + " bytes was written.");
+        }
+        STRING_CONVERTOR.writeTo(value, out, charset);
+        if (count < length) {
+            out.write(new byte[length - count]);
+        }
+    }
+}
@@ -18,6 +18,7 @@ package org.eulerframework.proto.field;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public abstract class AbstractFixedLengthProtoField<T> implements FixedLengthProtoField<T> {
     private final int length;
@@ -39,7 +40,7 @@ public abstract class AbstractFixedLengthProtoField<T> implements FixedLengthPro
 
         byte[] bytes = new byte[this.length()];
         int r;
-        if ((r = in.read(bytes)) < this.length()) {
+        if ((r = in.readNBytes(bytes, 0, bytes.length)) < this.length()) {
             throw new IllegalStateException(
                     "Except " + this.length() + " bytes but only " + r + " bytes read.");
         }
@@ -47,8 +48,73 @@ public abstract class AbstractFixedLengthProtoField<T> implements FixedLengthPro
         this.read(bytes);
     }
 
+    @Override
+    public void read(ByteBuffer buffer) {
+        if (buffer.remaining() < this.length()) {
+            throw new IllegalStateException("Not enough bytes to read, abort.");
+        }
+
+        byte[] bytes = new byte[this.length()];
+        buffer.get(bytes);
+        this.read(bytes);
+    }
+
+    /**
+     * Moves past {@link #length()} bytes without reading them.
+     */
+    public void skip(InputStream in) throws IOException {
+        if (in.available() < this.length()) {
+            throw new IllegalStateException("Not enough bytes to read, abort.");
+        }
+        in.skipNBytes(this.length());
+    }
+
+    public void skip(ByteBuffer buffer) {
+        this.checkRemaining(buffer);
+        buffer.position(buffer.position() + this.length());
+    }
+
+    /**
+     * Reads {@link #length()} bytes, at most 4, as a Big-Endian unsigned number without allocating.
+     */
+    protected int readUnsignedInt(InputStream in) throws IOException {
+        if (in.available() < this.length()) {
+            throw new IllegalStateException("Not enough bytes to read, abort.");
+        }
+
+        int value = 0;
+        for (int i = 0; i < this.length(); i++) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IllegalStateException("Except " + this.length() + " bytes but only " + i + " bytes read.");
+            }
+            value = value << 8 | b;
+        }
+        return value;
+    }
+
+    /**
+     * Writes the lowest {@link #length()} bytes, at most 4, of the value in Big-Endian without allocating.
+     */
+    protected void writeUnsignedInt(int value, OutputStream out) throws IOException {
+        for (int i = this.length() - 1; i >= 0; i--) {
+            out.write(value >>> (i << 3));
+        }
+    }
+
+    protected void checkRemaining(ByteBuffer buffer) {
+        if (buffer.remaining() < this.length()) {
+            throw new IllegalStateException("Not enough bytes to read, abort.");
+        }
+    }
+
     @Override
     public void write(OutputStream out) throws IOException {
         out.write(this.writeAsBytes());
     }
+
+    @Override
+    public void write(ByteBuffer buffer) {
+        buffer.put(this.writeAsBytes());
+    }
 }
@@ -15,23 +15,19 @@
  */
 package org.eulerframework.proto.field;
 
-import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.apache.commons.lang3.reflect.FieldUtils;
 import org.eulerframework.common.util.NumberUtils;
-import org.eulerframework.proto.annotation.BitProperty;
 import org.eulerframework.proto.node.ObjectProtoNode;
 import org.eulerframework.proto.node.ProtoNode;
+import org.eulerframework.proto.schema.PropertyAccessor;
+import org.eulerframework.proto.schema.ProtoSchema;
 import org.eulerframework.proto.util.BitPropertyField;
 import org.eulerframework.proto.util.ProtoContext;
-import org.eulerframework.proto.util.ProtoUtils;
+import org.eulerframework.proto.util.bytes.BitField;
 
-import java.lang.reflect.Field;
 import java.util.List;
 
 public class ByteArrayObjectField<T> extends AbstractFixedLengthProtoField<T>
         implements FixedLengthProtoField<T> {
-    private final static int MAX_FIELD_BITS = Integer.bitCount(-1);
-
     public static <T> ByteArrayObjectField<T> newInstance(ProtoContext ctx, int length, ObjectProtoNode objectNode) {
         return new ByteArrayObjectField<>(ctx, length, objectNode);
     }
@@ -64,18 +60,18 @@ public class ByteArrayObjectField<T> extends AbstractFixedLengthProtoField<T>
 
     @Override
     public void read(byte[] bytes) {
-        List<BitPropertyField> bitPropertyFields = ProtoUtils.getSortedBitPropertyFields(this.data.getClass(), ctx.getVersion());
-
-        for (BitPropertyField bitPropertyField : bitPropertyFields) {
-            Field field = bitPropertyField.getField();
-            BitProperty property = bitPropertyField.getAnnotation();
-            int value = readUnsignedValue(bytes, property);
-            Object typedValue = NumberUtils.toUnsignedValue(value, field.getType());
-            this.objectNode.addProperty(field.getName(), ProtoNode::newValueNode).setValue(typedValue);
-            try {
-                FieldUtils.writeField(field, this.data, typedValue, true);
-            } catch (IllegalAccessException e) {
-                throw ExceptionUtils.asRuntimeException(e);
+        ProtoSchema schema = ProtoSchema.forClass(this.data.getClass(), ctx.getVersion());
+        List<BitPropertyField> bitPropertyFields = schema.getBitPropertyFields();
+        List<BitField> bitFields = schema.getBitFields();
+
+        for (int i = 0, size = bitPropertyFields.size(); i < size; i++) {
+            BitPropertyField bitPropertyField = bitPropertyFields.get(i);
+            PropertyAccessor accessor = bitPropertyField.getAccessor();
+            int value = bitFields.get(i).read(bytes);
+            accessor.setUnsignedLong(this.data, NumberUtils.toUnsignedLong(value));
+            if (this.objectNode != null) {
+                this.objectNode.addProperty(bitPropertyField.getField().getName(), ProtoNode::newValueNode)
+                        .setValue(accessor.get(this.data));
             }
         }
     }
@@ -84,60 +80,15 @@ public class ByteArrayObjectField<T> extends AbstractFixedLengthProtoField<T>
     public byte[] writeAsBytes() {
         byte[] result = new byte[this.length()];
 
-        List<BitPropertyField> bitPropertyFields = ProtoUtils.getSortedBitPropertyFields(this.data.getClass(), ctx.getVersion());
-
-        for (BitPropertyField bitPropertyField : bitPropertyFields) {
-            Field field = bitPropertyField.getField();
-            BitProperty property = bitPropertyField.getAnnotation();
-            int value;
-            try {
-                value = NumberUtils.toUnsignedInt(FieldUtils.readField(field, this.data, true));
-            } catch (IllegalAccessException e) {
-                throw ExceptionUtils.asRuntimeException(e);
-            }
-
-            if (value == 0) {
-                continue;
-            }
-
-            int offset = property.offset();
-            int length = property.length();
-
-            if (length > MAX_FIELD_BITS) {
-                throw new IllegalArgumentException("The max bit length of a field is " + MAX_FIELD_BITS + ", but " + length);
-            }
-
-            if (value >>> length != 0) {
-                throw new IllegalArgumentException(String.format("value 0x%04x(%d) is too large for a %d bit value", value, value, length));
-            }
+        ProtoSchema schema = ProtoSchema.forClass(this.data.getClass(), ctx.getVersion());
+        List<BitPropertyField> bitPropertyFields = schema.getBitPropertyFields();
+        List<BitField> bitFields = schema.getBitFields();
 
-            for (int bit = 0; bit < length; bit++) {
-                int bitIndex = offset + bit;
-                // Big-Endian
-                int byteIndex = result.length - bitIndex / 8 - 1;
-                result[byteIndex] = (byte) (result[byteIndex] |
-                        (value >>> bit & 0x01) << bitIndex % 8);
-            }
+        for (int i = 0, size = bitPropertyFields.size(); i < size; i++) {
+            int value = NumberUtils.toUnsignedInt(bitPropertyFields.get(i).getAccessor().getUnsignedLong(this.data));
+            bitFields.get(i).write(result, value);
         }
 
         return result;
     }
-
-    private static int readUnsignedValue(byte[] bytes, BitProperty property) {
-        int offset = property.offset();
-        int length = property.length();
-
-        if (length > MAX_FIELD_BITS) {
-            throw new IllegalArgumentException("The max bit length of a field is " + MAX_FIELD_BITS + ", but " + length);
-        }
-
-        int value = 0;
-        for (int bit = 0; bit < length; bit++) {
-            int bitIndex = offset + bit;
-            // Big-Endian
-            int byteIndex = bytes.length - bitIndex / 8 - 1;
-            value = value | (bytes[byteIndex] >>> bitIndex % 8 & 0x01) << bit;
-        }
-        return value;
-    }
 }
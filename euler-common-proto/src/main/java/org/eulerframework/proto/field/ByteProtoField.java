@@ -16,13 +16,18 @@
 package org.eulerframework.proto.field;
 
 import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.bytes.IntBytesConvertor;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
+/**
+ * A BYTE. The {@link IntBytesConvertor} methods do not use the value of the field.
+ */
 public class ByteProtoField extends AbstractFixedLengthProtoField<Byte>
-        implements NumberProtoField<Byte>, FixedLengthProtoField<Byte> {
+        implements NumberProtoField<Byte>, FixedLengthProtoField<Byte>, IntBytesConvertor {
     private byte data;
 
     public ByteProtoField() {
@@ -101,6 +106,16 @@ public class ByteProtoField extends AbstractFixedLengthProtoField<Byte>
 
     @Override
     public void read(InputStream in) throws IOException {
+        this.data = (byte) this.readInt(in);
+    }
+
+    @Override
+    public void read(ByteBuffer buffer) {
+        this.data = (byte) this.readInt(buffer);
+    }
+
+    @Override
+    public int readInt(InputStream in) throws IOException {
         if (in.available() < this.length()) {
             throw new IllegalStateException("Not enough bytes to read, abort.");
         }
@@ -109,8 +124,23 @@ public class ByteProtoField extends AbstractFixedLengthProtoField<Byte>
         if ((data = in.read()) < 0) {
             throw new IllegalStateException("Can not read any data from the input stream.");
         }
+        return data;
+    }
+
+    @Override
+    public int readInt(ByteBuffer buffer) {
+        this.checkRemaining(buffer);
+        return buffer.get() & 0xFF;
+    }
 
-        this.read(data);
+    @Override
+    public void writeInt(int value, OutputStream out) throws IOException {
+        out.write(value);
+    }
+
+    @Override
+    public void writeInt(int value, ByteBuffer buffer) {
+        buffer.put((byte) value);
     }
 
     @Override
@@ -124,4 +154,9 @@ public class ByteProtoField extends AbstractFixedLengthProtoField<Byte>
     public void write(OutputStream out) throws IOException {
         out.write(this.data);
     }
+
+    @Override
+    public void write(ByteBuffer buffer) {
+        buffer.put(this.data);
+    }
 }
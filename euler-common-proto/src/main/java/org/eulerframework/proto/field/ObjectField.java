@@ -16,16 +16,18 @@
 package org.eulerframework.proto.field;
 
 import org.apache.commons.lang3.exception.ExceptionUtils;
-import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.common.util.JavaObjectUtils;
 import org.eulerframework.proto.node.ObjectProtoNode;
+import org.eulerframework.proto.schema.PropertyRun;
+import org.eulerframework.proto.schema.ProtoConstructor;
+import org.eulerframework.proto.schema.ProtoProjection;
+import org.eulerframework.proto.schema.ProtoSchema;
 import org.eulerframework.proto.serializer.*;
-import org.apache.commons.lang3.reflect.FieldUtils;
 import org.eulerframework.proto.util.PropertyField;
 import org.eulerframework.proto.util.ProtoContext;
-import org.eulerframework.proto.util.ProtoUtils;
 
 import java.io.*;
-import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 public class ObjectField<T> implements ProtoField<T> {
@@ -52,6 +54,7 @@ public class ObjectField<T> implements ProtoField<T> {
     }
 
     private T data;
+    private Class<?> type;
     private final ProtoContext ctx;
     private final ObjectProtoNode objectNode;
 
@@ -66,7 +69,7 @@ public class ObjectField<T> implements ProtoField<T> {
             throw new NullPointerException("object is null");
         }
         this.data = object;
-
+        this.type = object.getClass();
     }
 
     @Override
@@ -78,34 +81,192 @@ public class ObjectField<T> implements ProtoField<T> {
         }
     }
 
+    /**
+     * Reads a new instance of the type instead of the properties of an existing object. A type with a
+     * {@link ProtoConstructor} is created after all its properties are read, any other type is created by its
+     * constructor without arguments.
+     */
+    public void readNew(Class<? extends T> type) {
+        this.type = type;
+        this.data = null;
+    }
+
     @Override
     public void read(InputStream in) throws IOException {
-        List<PropertyField> propertyFields = ProtoUtils.getSortedPropertyFields(this.value().getClass(), ctx.getVersion());
-        for (PropertyField propertyField : propertyFields) {
-            if (in.available() == 0) {
+        ProtoSchema schema = ProtoSchema.forClass(this.type, ctx.getVersion());
+        ProtoConstructor constructor = schema.getConstructor();
+        Object[] arguments = this.prepare(constructor);
+        ProtoProjection projection = this.getProjection();
+        List<PropertyField> propertyFields = schema.getPropertyFields();
+        for (int i = 0, size = propertyFields.size(); i < size; i++) {
+            int available = in.available();
+            if (available == 0) {
                 break;
             }
-            Field field = propertyField.getField();
-            ProtoProperty property = propertyField.getAnnotation();
-            String type = property.type();
-            Deserializer deserializer = this.serializerRegistry.getDeserializer(type);
-            Object value;
-            ObjectProtoNode.PropertyNodeFuture propertyNodeFuture = this.objectNode.addProperty(field.getName(), deserializer::newProtoNode);
-            value = deserializer.read(ctx, in, propertyField);
-            propertyNodeFuture.setValue(value);
-            try {
-                FieldUtils.writeField(field, this.data, value, true);
-            } catch (IllegalAccessException e) {
-                throw ExceptionUtils.asRuntimeException(e);
+            // a run of fixed length numbers is read at once, unless the message ends within it or a node tree is built
+            PropertyRun run = this.objectNode == null ? schema.getPropertyRun(i) : null;
+            if (run != null && available >= run.getLength() && run.isBuiltIn(this.serializerRegistry)
+                    && (projection == null || projection.isSelected(run, schema))) {
+                run.read(ctx, in, this.data, arguments);
+                i = run.getTo() - 1;
+                continue;
+            }
+            PropertyField propertyField = propertyFields.get(i);
+            Deserializer deserializer = propertyField.getDeserializer(this.serializerRegistry);
+            if (projection != null && !projection.isSelected(propertyField)) {
+                this.skipProperty(propertyField, deserializer, in);
+                continue;
+            }
+            int parameterIndex = arguments == null ? -1 : constructor.getParameterIndex(i);
+            if (this.objectNode == null) {
+                this.readProperty(propertyField, deserializer, in, arguments, parameterIndex);
+            } else {
+                ObjectProtoNode.PropertyNodeFuture propertyNodeFuture =
+                        this.objectNode.addProperty(propertyField.getField().getName(), deserializer::newProtoNode);
+                // a nested object adds its properties to its own node
+                ctx.setPropertyNode(propertyNodeFuture.get());
+                try {
+                    this.readProperty(propertyField, deserializer, in, arguments, parameterIndex);
+                } finally {
+                    ctx.setPropertyNode(this.objectNode);
+                }
+                propertyNodeFuture.setValue(arguments == null ? propertyField.getAccessor().get(this.data) : arguments[parameterIndex]);
             }
         }
+        this.construct(constructor, arguments);
+    }
+
+    @Override
+    public void read(ByteBuffer buffer) throws IOException {
+        ProtoSchema schema = ProtoSchema.forClass(this.type, ctx.getVersion());
+        ProtoConstructor constructor = schema.getConstructor();
+        Object[] arguments = this.prepare(constructor);
+        ProtoProjection projection = this.getProjection();
+        List<PropertyField> propertyFields = schema.getPropertyFields();
+        for (int i = 0, size = propertyFields.size(); i < size; i++) {
+            if (!buffer.hasRemaining()) {
+                break;
+            }
+            PropertyRun run = this.objectNode == null ? schema.getPropertyRun(i) : null;
+            if (run != null && buffer.remaining() >= run.getLength() && run.isBuiltIn(this.serializerRegistry)
+                    && (projection == null || projection.isSelected(run, schema))) {
+                run.read(ctx, buffer, this.data, arguments);
+                i = run.getTo() - 1;
+                continue;
+            }
+            PropertyField propertyField = propertyFields.get(i);
+            Deserializer deserializer = propertyField.getDeserializer(this.serializerRegistry);
+            if (projection != null && !projection.isSelected(propertyField)) {
+                this.skipProperty(propertyField, deserializer, buffer);
+                continue;
+            }
+            int parameterIndex = arguments == null ? -1 : constructor.getParameterIndex(i);
+            if (this.objectNode == null) {
+                this.readProperty(propertyField, deserializer, buffer, arguments, parameterIndex);
+            } else {
+                ObjectProtoNode.PropertyNodeFuture propertyNodeFuture =
+                        this.objectNode.addProperty(propertyField.getField().getName(), deserializer::newProtoNode);
+                // a nested object adds its properties to its own node
+                ctx.setPropertyNode(propertyNodeFuture.get());
+                try {
+                    this.readProperty(propertyField, deserializer, buffer, arguments, parameterIndex);
+                } finally {
+                    ctx.setPropertyNode(this.objectNode);
+                }
+                propertyNodeFuture.setValue(arguments == null ? propertyField.getAccessor().get(this.data) : arguments[parameterIndex]);
+            }
+        }
+        this.construct(constructor, arguments);
+    }
+
+    /**
+     * @return the projection of the properties of this type, or {@code null} if every property is read
+     */
+    private ProtoProjection getProjection() {
+        ProtoProjection projection = ctx.getProjection();
+        return projection != null && projection.appliesTo(this.type) ? projection : null;
+    }
+
+    /**
+     * @return the arguments the properties are read into, or {@code null} if they are written to the object
+     */
+    @SuppressWarnings("unchecked")
+    private Object[] prepare(ProtoConstructor constructor) {
+        if (constructor != null) {
+            return constructor.newArguments();
+        }
+        if (this.data == null) {
+            this.data = (T) JavaObjectUtils.newInstance(this.type);
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void construct(ProtoConstructor constructor, Object[] arguments) {
+        if (arguments != null) {
+            this.data = (T) constructor.newInstance(arguments);
+        }
+    }
+
+    private void readProperty(PropertyField propertyField, Deserializer deserializer, InputStream in,
+                              Object[] arguments, int parameterIndex) throws IOException {
+        if (arguments == null) {
+            propertyField.readInto(ctx, deserializer, in, this.data);
+        } else {
+            arguments[parameterIndex] = deserializer.read(ctx, in, propertyField);
+        }
+    }
+
+    private void readProperty(PropertyField propertyField, Deserializer deserializer, ByteBuffer buffer,
+                              Object[] arguments, int parameterIndex) throws IOException {
+        if (arguments == null) {
+            propertyField.readInto(ctx, deserializer, buffer, this.data);
+        } else {
+            arguments[parameterIndex] = deserializer.read(ctx, buffer, propertyField);
+        }
+    }
+
+    /**
+     * Skips a property left out by the projection, it adds no node and leaves the field unchanged, so an
+     * instance read into keeps its current value.
+     */
+    private void skipProperty(PropertyField propertyField, Deserializer deserializer, InputStream in) throws IOException {
+        // a skipped object read by a custom deserializer must not add its properties to this node
+        ctx.setPropertyNode(null);
+        try {
+            deserializer.skip(ctx, in, propertyField);
+        } finally {
+            ctx.setPropertyNode(this.objectNode);
+        }
+    }
+
+    private void skipProperty(PropertyField propertyField, Deserializer deserializer, ByteBuffer buffer) throws IOException {
+        ctx.setPropertyNode(null);
+        try {
+            deserializer.skip(ctx, buffer, propertyField);
+        } finally {
+            ctx.setPropertyNode(this.objectNode);
+        }
+    }
+
+    /**
+     * @return the exact count of bytes {@link #write(ByteBuffer)} puts, to allocate the buffer of a message
+     */
+    public int sizeOf() throws IOException {
+        return ProtoSchema.forClass(this.value().getClass(), ctx.getVersion()).sizeOf(ctx, this.data, this.serializerRegistry);
     }
 
     @Override
     public byte[] writeAsBytes() {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            this.write(out);
-            return out.toByteArray();
+        try {
+            byte[] bytes = new byte[this.sizeOf()];
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            this.write(buffer);
+            if (buffer.hasRemaining()) {
+                throw new IllegalStateException("The size of this object is " + bytes.length +
+                        ", but only " + buffer.position() + " bytes was written.");
+            }
+            return bytes;
         } catch (IOException e) {
             throw ExceptionUtils.asRuntimeException(e);
         }
@@ -113,19 +274,35 @@ public class ObjectField<T> implements ProtoField<T> {
 
     @Override
     public void write(OutputStream out) throws IOException {
-        List<PropertyField> propertyFields = ProtoUtils.getSortedPropertyFields(this.value().getClass(), ctx.getVersion());
-        for (PropertyField propertyField : propertyFields) {
-            Field field = propertyField.getField();
-            ProtoProperty property = propertyField.getAnnotation();
-            String type = property.type();
-            Object value;
-            try {
-                value = FieldUtils.readField(field, this.data, true);
-            } catch (IllegalAccessException e) {
-                throw ExceptionUtils.asRuntimeException(e);
+        ProtoSchema schema = ProtoSchema.forClass(this.value().getClass(), ctx.getVersion());
+        List<PropertyField> propertyFields = schema.getPropertyFields();
+        for (int i = 0, size = propertyFields.size(); i < size; i++) {
+            PropertyRun run = schema.getPropertyRun(i);
+            if (run != null && run.isBuiltIn(this.serializerRegistry)) {
+                run.write(ctx, this.data, out);
+                i = run.getTo() - 1;
+                continue;
+            }
+            PropertyField propertyField = propertyFields.get(i);
+            Serializer serializer = propertyField.getSerializer(this.serializerRegistry);
+            propertyField.writeFrom(ctx, serializer, this.data, out);
+        }
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) throws IOException {
+        ProtoSchema schema = ProtoSchema.forClass(this.value().getClass(), ctx.getVersion());
+        List<PropertyField> propertyFields = schema.getPropertyFields();
+        for (int i = 0, size = propertyFields.size(); i < size; i++) {
+            PropertyRun run = schema.getPropertyRun(i);
+            if (run != null && run.isBuiltIn(this.serializerRegistry)) {
+                run.write(ctx, this.data, buffer);
+                i = run.getTo() - 1;
+                continue;
             }
-            Serializer serializer = this.serializerRegistry.getSerializer(type);
-            serializer.writeTo(ctx, propertyField, value, out);
+            PropertyField propertyField = propertyFields.get(i);
+            Serializer serializer = propertyField.getSerializer(this.serializerRegistry);
+            propertyField.writeFrom(ctx, serializer, this.data, buffer);
         }
     }
 }
@@ -15,9 +15,13 @@
  */
 package org.eulerframework.proto.field;
 
+import org.eulerframework.proto.util.bytes.ByteBufferInputStream;
+import org.eulerframework.proto.util.bytes.ByteBufferOutputStream;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public interface ProtoField<T> {
     T value();
@@ -28,7 +32,18 @@ public interface ProtoField<T> {
 
     void read(InputStream in) throws IOException;
 
+    /**
+     * Reads from the position of the buffer and moves the position past the bytes read.
+     */
+    default void read(ByteBuffer buffer) throws IOException {
+        this.read(new ByteBufferInputStream(buffer));
+    }
+
     byte[] writeAsBytes();
 
     void write(OutputStream out) throws IOException;
+
+    default void write(ByteBuffer buffer) throws IOException {
+        this.write(new ByteBufferOutputStream(buffer));
+    }
 }
@@ -16,9 +16,20 @@
 package org.eulerframework.proto.field;
 
 import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.bytes.ByteArrayUtils;
+import org.eulerframework.proto.util.bytes.ByteBufferUtils;
+import org.eulerframework.proto.util.bytes.IntBytesConvertor;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A DWORD. The {@link IntBytesConvertor} methods do not use the value of the field.
+ */
 public class UnsignedIntegerProtoField extends AbstractFixedLengthProtoField<Integer>
-        implements NumberProtoField<Integer>, FixedLengthProtoField<Integer> {
+        implements NumberProtoField<Integer>, FixedLengthProtoField<Integer>, IntBytesConvertor {
     private int data;
 
     public UnsignedIntegerProtoField() {
@@ -72,7 +83,7 @@ public class UnsignedIntegerProtoField extends AbstractFixedLengthProtoField<Int
             throw new IllegalArgumentException("Invalid bytes length " + bytes.length);
         }
 
-        this.data = (bytes[0] & 0xFF) << 24 | (bytes[1] & 0xFF) << 16 | (bytes[2] & 0xFF) << 8 | bytes[3] & 0xFF;
+        this.data = ByteArrayUtils.getInt(bytes, 0);
     }
 
     @Override
@@ -95,13 +106,51 @@ public class UnsignedIntegerProtoField extends AbstractFixedLengthProtoField<Int
         this.data = NumberUtils.toUnsignedInt(l);
     }
 
+    @Override
+    public void read(InputStream in) throws IOException {
+        this.data = this.readInt(in);
+    }
+
+    @Override
+    public void read(ByteBuffer buffer) {
+        this.data = this.readInt(buffer);
+    }
+
+    @Override
+    public int readInt(InputStream in) throws IOException {
+        return this.readUnsignedInt(in);
+    }
+
+    @Override
+    public int readInt(ByteBuffer buffer) {
+        this.checkRemaining(buffer);
+        return ByteBufferUtils.readInt(buffer);
+    }
+
+    @Override
+    public void writeInt(int value, OutputStream out) throws IOException {
+        this.writeUnsignedInt(value, out);
+    }
+
+    @Override
+    public void writeInt(int value, ByteBuffer buffer) {
+        ByteBufferUtils.writeInt(buffer, value);
+    }
+
     @Override
     public byte[] writeAsBytes() {
         byte[] bytes = new byte[4];
-        bytes[0] = (byte) (this.data >>> 24);
-        bytes[1] = (byte) (this.data >>> 16);
-        bytes[2] = (byte) (this.data >>> 8);
-        bytes[3] = (byte) this.data;
+        ByteArrayUtils.putInt(bytes, 0, this.data);
         return bytes;
     }
+
+    @Override
+    public void write(OutputStream out) throws IOException {
+        this.writeInt(this.data, out);
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) {
+        this.writeInt(this.data, buffer);
+    }
 }
@@ -16,9 +16,20 @@
 package org.eulerframework.proto.field;
 
 import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.bytes.ByteArrayUtils;
+import org.eulerframework.proto.util.bytes.ByteBufferUtils;
+import org.eulerframework.proto.util.bytes.IntBytesConvertor;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A WORD. The {@link IntBytesConvertor} methods do not use the value of the field.
+ */
 public class UnsignedShortProtoField extends AbstractFixedLengthProtoField<Short>
-        implements NumberProtoField<Short>, FixedLengthProtoField<Short> {
+        implements NumberProtoField<Short>, FixedLengthProtoField<Short>, IntBytesConvertor {
     private short data;
 
     public UnsignedShortProtoField() {
@@ -72,7 +83,7 @@ public class UnsignedShortProtoField extends AbstractFixedLengthProtoField<Short
             throw new IllegalArgumentException("Invalid bytes length " + bytes.length);
         }
 
-        this.data = (short) ((bytes[0] & 0xFF) << 8 | bytes[1] & 0xFF);
+        this.data = ByteArrayUtils.getShort(bytes, 0);
     }
 
     @Override
@@ -95,11 +106,51 @@ public class UnsignedShortProtoField extends AbstractFixedLengthProtoField<Short
         this.data = NumberUtils.toUnsignedShort(l);
     }
 
+    @Override
+    public void read(InputStream in) throws IOException {
+        this.data = (short) this.readInt(in);
+    }
+
+    @Override
+    public void read(ByteBuffer buffer) {
+        this.data = (short) this.readInt(buffer);
+    }
+
+    @Override
+    public int readInt(InputStream in) throws IOException {
+        return this.readUnsignedInt(in);
+    }
+
+    @Override
+    public int readInt(ByteBuffer buffer) {
+        this.checkRemaining(buffer);
+        return ByteBufferUtils.readShort(buffer) & 0xFFFF;
+    }
+
+    @Override
+    public void writeInt(int value, OutputStream out) throws IOException {
+        this.writeUnsignedInt(value, out);
+    }
+
+    @Override
+    public void writeInt(int value, ByteBuffer buffer) {
+        ByteBufferUtils.writeShort(buffer, (short) value);
+    }
+
     @Override
     public byte[] writeAsBytes() {
         byte[] bytes = new byte[2];
-        bytes[0] = (byte) (this.data >>> 8);
-        bytes[1] = (byte) this.data;
+        ByteArrayUtils.putShort(bytes, 0, this.data);
         return bytes;
     }
+
+    @Override
+    public void write(OutputStream out) throws IOException {
+        this.writeInt(this.data, out);
+    }
+
+    @Override
+    public void write(ByteBuffer buffer) {
+        this.writeInt(this.data, buffer);
+    }
 }
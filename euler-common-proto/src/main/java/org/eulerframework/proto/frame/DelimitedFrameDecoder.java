@@ -0,0 +1,283 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.frame;
+
+import org.eulerframework.proto.util.bytes.ByteBufferUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Checksum;
+
+/**
+ * Finds the frames between a start and an end flag in the chunks of a byte stream, unescapes their content and
+ * verifies their checksum in one pass, and passes the payload of every valid frame to a {@link FrameConsumer},
+ * such as a {@link ProtoFrameDecoder} or a {@link org.eulerframework.proto.message.ProtoMessageRegistry}.
+ * <p>
+ * The content of a frame is scanned eight bytes at a time for the end flag and the escape byte, the runs between
+ * them are copied in bulk and added to the checksum as they are copied. The last bytes of the content are held
+ * back from the checksum until the end flag tells they are the check code. A frame without escaped bytes that is
+ * all in one chunk is not copied at all, its payload is a view of the chunk.
+ * <p>
+ * The bytes outside a frame are dropped. If the start and the end flag are the same byte, the end flag of a
+ * frame may also start the next one, and the empty frame between two adjacent flags is skipped.
+ * <p>
+ * A decoder keeps the state of one stream and is not thread-safe.
+ */
+public class DelimitedFrameDecoder {
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 64 * 1024;
+
+    private static final int OUTSIDE = 0;
+    private static final int INSIDE = 1;
+    private static final int ESCAPING = 2;
+    private static final int DISCARDING = 3;
+
+    private final byte startFlag;
+    private final byte endFlag;
+    private final FrameEscaping escaping;
+    /**
+     * the byte searched for besides the end flag, the end flag itself if there is no escaping
+     */
+    private final byte escape;
+    private final FrameChecksum frameChecksum;
+    private final Checksum checksum;
+    private final int checksumLength;
+    private final int maxFrameLength;
+    /**
+     * the state after the end flag of a frame
+     */
+    private final int afterFrame;
+
+    private byte[] frame = new byte[64];
+    private int frameLength;
+    /**
+     * the bytes of the frame added to the checksum so far
+     */
+    private int checkedLength;
+    private int state = OUTSIDE;
+
+    /**
+     * Creates a decoder of the frames between two flags, without escaping or checksum.
+     */
+    public DelimitedFrameDecoder(byte flag) {
+        this(flag, flag, null, null, DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * Creates a decoder of the frames between two flags with the {@link #DEFAULT_MAX_FRAME_LENGTH}.
+     *
+     * @param escaping the escaping of the frame content, or {@code null}
+     * @param checksum the checksum at the end of the frame content, or {@code null}
+     */
+    public DelimitedFrameDecoder(byte flag, FrameEscaping escaping, FrameChecksum checksum) {
+        this(flag, flag, escaping, checksum, DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param escaping       the escaping of the frame content, or {@code null}
+     * @param checksum       the checksum at the end of the frame content, or {@code null}
+     * @param maxFrameLength the max byte length of the unescaped frame content, the checksum included
+     * @throws IllegalArgumentException if the escaping does not escape the flags
+     */
+    public DelimitedFrameDecoder(byte startFlag, byte endFlag, FrameEscaping escaping, FrameChecksum checksum,
+                                 int maxFrameLength) {
+        if (maxFrameLength < 0) {
+            throw new IllegalArgumentException("Invalid max frame length: " + maxFrameLength);
+        }
+        if (escaping != null && !(escaping.isEscaped(startFlag) && escaping.isEscaped(endFlag))) {
+            throw new IllegalArgumentException("The flags of a frame must be escaped");
+        }
+        this.startFlag = startFlag;
+        this.endFlag = endFlag;
+        this.escaping = escaping;
+        this.escape = escaping == null ? endFlag : escaping.getEscape();
+        this.frameChecksum = checksum;
+        this.checksum = checksum == null ? null : checksum.newChecksum();
+        this.checksumLength = checksum == null ? 0 : checksum.length();
+        this.maxFrameLength = maxFrameLength;
+        this.afterFrame = startFlag == endFlag ? INSIDE : OUTSIDE;
+    }
+
+    /**
+     * Consumes all the remaining bytes of the chunk and passes the payload of every completed frame to the
+     * consumer.
+     * <p>
+     * If a frame has an invalid escape sequence, a wrong checksum, or is longer than the max frame length, the
+     * frame is dropped and the exception is thrown, the bytes after the failure are left in the chunk. The rest
+     * of a broken frame is dropped up to its end flag by the next call.
+     */
+    public void decode(ByteBuffer chunk, FrameConsumer consumer) throws IOException {
+        while (chunk.hasRemaining()) {
+            if (this.state == INSIDE) {
+                this.decodeContent(chunk, consumer);
+            } else if (this.state == ESCAPING) {
+                byte code = chunk.get(chunk.position());
+                int b = this.escaping.unescape(code);
+                if (b < 0) {
+                    // the code is left in the chunk, it may be the end flag
+                    this.discard();
+                    throw new IllegalArgumentException("Invalid escape sequence: 0x" + Integer.toHexString(this.escape & 0xFF)
+                            + " 0x" + Integer.toHexString(code & 0xFF));
+                }
+                chunk.position(chunk.position() + 1);
+                this.state = INSIDE;
+                this.ensureCapacity(1);
+                this.frame[this.frameLength++] = (byte) b;
+                this.updateChecksum();
+            } else {
+                byte flag = this.state == OUTSIDE ? this.startFlag : this.endFlag;
+                int index = ByteBufferUtils.indexOfAny(chunk, chunk.position(), chunk.limit(), flag, flag);
+                if (index < 0) {
+                    chunk.position(chunk.limit());
+                    return;
+                }
+                chunk.position(index + 1);
+                this.state = this.state == OUTSIDE ? INSIDE : this.afterFrame;
+            }
+        }
+    }
+
+    /**
+     * @return {@code true} if a frame has been partially decoded
+     */
+    public boolean isDecoding() {
+        return this.frameLength > 0 || this.state == ESCAPING;
+    }
+
+    /**
+     * Drops the partially decoded frame, the next frame starts after the next start flag.
+     */
+    public void reset() {
+        this.clearFrame();
+        this.state = OUTSIDE;
+    }
+
+    private void decodeContent(ByteBuffer chunk, FrameConsumer consumer) throws IOException {
+        int position = chunk.position();
+        int limit = chunk.limit();
+        int index = ByteBufferUtils.indexOfAny(chunk, position, limit, this.endFlag, this.escape);
+        if (index < 0) {
+            this.append(chunk, limit);
+            return;
+        }
+
+        boolean end = chunk.get(index) == this.endFlag;
+        if (end && this.frameLength == 0) {
+            // the whole frame is in the chunk without escaped bytes
+            chunk.position(index + 1);
+            this.state = this.afterFrame;
+            int length = index - position;
+            if (length > 0) {
+                this.checkFrameLength(length);
+                this.complete(chunk.slice(position, length), length, consumer);
+            }
+            return;
+        }
+
+        this.append(chunk, index);
+        chunk.position(index + 1);
+        if (end) {
+            this.state = this.afterFrame;
+            this.complete(ByteBuffer.wrap(this.frame), this.frameLength, consumer);
+        } else {
+            this.state = ESCAPING;
+        }
+    }
+
+    /**
+     * Copies the bytes from the position of the chunk to {@code end} to the frame.
+     */
+    private void append(ByteBuffer chunk, int end) {
+        int position = chunk.position();
+        int count = end - position;
+        chunk.position(end);
+        this.ensureCapacity(count);
+        chunk.get(position, this.frame, this.frameLength, count);
+        this.frameLength += count;
+        this.updateChecksum();
+    }
+
+    private void ensureCapacity(int count) {
+        int required = this.frameLength + count;
+        if (required > this.maxFrameLength) {
+            this.discard();
+            throw new IllegalArgumentException("The frame is longer than " + this.maxFrameLength + " bytes.");
+        }
+        if (required > this.frame.length) {
+            this.frame = Arrays.copyOf(this.frame, Math.min(Math.max(required, this.frame.length << 1), this.maxFrameLength));
+        }
+    }
+
+    /**
+     * Adds the bytes of the frame to the checksum, except the last bytes that may be the check code.
+     */
+    private void updateChecksum() {
+        if (this.checksum != null) {
+            int length = this.frameLength - this.checksumLength;
+            if (length > this.checkedLength) {
+                this.checksum.update(this.frame, this.checkedLength, length - this.checkedLength);
+                this.checkedLength = length;
+            }
+        }
+    }
+
+    private void checkFrameLength(int length) {
+        if (length > this.maxFrameLength) {
+            throw new IllegalArgumentException("The frame is longer than " + this.maxFrameLength + " bytes: " + length);
+        }
+    }
+
+    /**
+     * Verifies the checksum of a complete frame and passes its payload to the consumer.
+     *
+     * @param frame the frame content from index 0, the checked bytes are already added to the checksum
+     */
+    private void complete(ByteBuffer frame, int frameLength, FrameConsumer consumer) throws IOException {
+        int length = frameLength - this.checksumLength;
+        if (this.checksum != null) {
+            if (length < 0) {
+                this.clearFrame();
+                throw new IllegalArgumentException("The frame is shorter than its checksum: " + frameLength + " bytes");
+            }
+            long expected = this.frameChecksum.read(frame, length);
+            if (length > this.checkedLength) {
+                this.checksum.update(frame.limit(length).position(this.checkedLength));
+            }
+            long actual = this.frameChecksum.truncate(this.checksum.getValue());
+            if (actual != expected) {
+                this.clearFrame();
+                throw new IllegalArgumentException("The checksum of the frame is 0x" + Long.toHexString(actual)
+                        + ", but 0x" + Long.toHexString(expected) + " is expected.");
+            }
+        }
+        frame.limit(length).position(0);
+        this.clearFrame();
+        consumer.accept(frame);
+    }
+
+    private void discard() {
+        this.clearFrame();
+        this.state = DISCARDING;
+    }
+
+    private void clearFrame() {
+        this.frameLength = 0;
+        this.checkedLength = 0;
+        if (this.checksum != null) {
+            this.checksum.reset();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.frame;
+
+import org.eulerframework.proto.util.bytes.ByteBufferUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * Writes payloads as the frames read by a {@link DelimitedFrameDecoder} of the same flags, escaping and checksum:
+ * the checksum is computed and the content is escaped in one pass over the payload.
+ * <p>
+ * The payload is scanned eight bytes at a time for the escaped bytes if there are at most two of them, and the
+ * runs between them are copied in bulk.
+ * <p>
+ * An encoder is not thread-safe.
+ */
+public class DelimitedFrameEncoder {
+    private final byte startFlag;
+    private final byte endFlag;
+    private final FrameEscaping escaping;
+    private final FrameChecksum frameChecksum;
+    private final Checksum checksum;
+    private final int checksumLength;
+    /**
+     * the bytes searched for in the content, or {@code null} if the escaped bytes are looked up one by one
+     */
+    private final byte[] searched;
+    private final byte[] checkCode = new byte[Long.BYTES];
+    private byte[] buffer;
+
+    public DelimitedFrameEncoder(byte flag) {
+        this(flag, flag, null, null);
+    }
+
+    /**
+     * @param escaping the escaping of the frame content, or {@code null}
+     * @param checksum the checksum at the end of the frame content, or {@code null}
+     */
+    public DelimitedFrameEncoder(byte flag, FrameEscaping escaping, FrameChecksum checksum) {
+        this(flag, flag, escaping, checksum);
+    }
+
+    /**
+     * @param escaping the escaping of the frame content, or {@code null}
+     * @param checksum the checksum at the end of the frame content, or {@code null}
+     * @throws IllegalArgumentException if the escaping does not escape the flags
+     */
+    public DelimitedFrameEncoder(byte startFlag, byte endFlag, FrameEscaping escaping, FrameChecksum checksum) {
+        if (escaping != null && !(escaping.isEscaped(startFlag) && escaping.isEscaped(endFlag))) {
+            throw new IllegalArgumentException("The flags of a frame must be escaped");
+        }
+        this.startFlag = startFlag;
+        this.endFlag = endFlag;
+        this.escaping = escaping;
+        this.frameChecksum = checksum;
+        this.checksum = checksum == null ? null : checksum.newChecksum();
+        this.checksumLength = checksum == null ? 0 : checksum.length();
+        if (escaping == null) {
+            this.searched = new byte[]{endFlag, endFlag};
+        } else {
+            byte[] escapedBytes = escaping.getEscapedBytes();
+            this.searched = escapedBytes.length > 2 ? null
+                    : new byte[]{escapedBytes[0], escapedBytes[escapedBytes.length - 1]};
+        }
+    }
+
+    /**
+     * @return the max byte length of the frame of a payload, as if every byte were escaped
+     */
+    public int maxFrameLength(int payloadLength) {
+        int contentLength = Math.addExact(payloadLength, this.checksumLength);
+        return Math.addExact(2, this.escaping == null ? contentLength : Math.multiplyExact(2, contentLength));
+    }
+
+    /**
+     * Writes the frame of the remaining bytes of the payload at the position of the buffer, and moves the
+     * positions of both past them.
+     *
+     * @throws BufferOverflowException  if the frame does not fit in the buffer, neither position is moved
+     * @throws IllegalArgumentException if the payload contains the end flag and there is no escaping
+     */
+    public void encode(ByteBuffer payload, ByteBuffer out) {
+        int payloadPosition = payload.position();
+        int payloadLimit = payload.limit();
+        int outPosition = out.position();
+        try {
+            out.put(this.startFlag);
+            if (this.checksum != null) {
+                this.checksum.reset();
+            }
+            this.writeContent(payload, out, this.checksum);
+            if (this.checksum != null) {
+                this.frameChecksum.write(this.checksum.getValue(), this.checkCode, 0);
+                this.writeContent(ByteBuffer.wrap(this.checkCode, 0, this.checksumLength), out, null);
+            }
+            out.put(this.endFlag);
+        } catch (RuntimeException e) {
+            payload.limit(payloadLimit).position(payloadPosition);
+            out.position(outPosition);
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the frame of the remaining bytes of the payload and moves the position of the payload past them.
+     *
+     * @throws IllegalArgumentException if the payload contains the end flag and there is no escaping
+     */
+    public void encode(ByteBuffer payload, OutputStream out) throws IOException {
+        int length = this.maxFrameLength(payload.remaining());
+        if (this.buffer == null || this.buffer.length < length) {
+            this.buffer = new byte[length];
+        }
+        ByteBuffer frame = ByteBuffer.wrap(this.buffer);
+        this.encode(payload, frame);
+        out.write(this.buffer, 0, frame.position());
+    }
+
+    private void writeContent(ByteBuffer content, ByteBuffer out, Checksum checksum) {
+        int limit = content.limit();
+        while (content.hasRemaining()) {
+            int position = content.position();
+            int index = this.indexOfEscaped(content, position, limit);
+            int end = index < 0 ? limit : index;
+            if (end > position) {
+                content.limit(end);
+                if (checksum != null) {
+                    checksum.update(content);
+                    content.position(position);
+                }
+                out.put(content);
+                content.limit(limit);
+            }
+            if (index < 0) {
+                return;
+            }
+
+            byte b = content.get();
+            if (this.escaping == null) {
+                throw new IllegalArgumentException("The payload contains the end flag and can not be framed without escaping");
+            }
+            if (checksum != null) {
+                checksum.update(b);
+            }
+            out.put(this.escaping.getEscape());
+            out.put((byte) this.escaping.code(b));
+        }
+    }
+
+    private int indexOfEscaped(ByteBuffer content, int fromIndex, int toIndex) {
+        if (this.searched != null) {
+            return ByteBufferUtils.indexOfAny(content, fromIndex, toIndex, this.searched[0], this.searched[1]);
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            if (this.escaping.isEscaped(content.get(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.frame;
+
+import org.eulerframework.proto.util.bytes.Crc16;
+import org.eulerframework.proto.util.bytes.XorChecksum;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.zip.Checksum;
+
+/**
+ * The check code at the end of a delimited frame: the {@link Checksum} of the payload, written as the low
+ * {@link #length()} bytes of its value.
+ */
+public final class FrameChecksum {
+    public static final FrameChecksum XOR = new FrameChecksum(XorChecksum::new, 1, ByteOrder.BIG_ENDIAN);
+    public static final FrameChecksum CRC16_CCITT = new FrameChecksum(Crc16::ccitt, 2, ByteOrder.BIG_ENDIAN);
+    public static final FrameChecksum CRC16_MODBUS = new FrameChecksum(Crc16::modbus, 2, ByteOrder.LITTLE_ENDIAN);
+    public static final FrameChecksum CRC32 = new FrameChecksum(java.util.zip.CRC32::new, 4, ByteOrder.BIG_ENDIAN);
+
+    private final Supplier<? extends Checksum> checksumSupplier;
+    private final int length;
+    private final ByteOrder order;
+
+    /**
+     * @param checksumSupplier creates the {@link Checksum} of a decoder or an encoder
+     * @param length           the byte count of the check code, 1 to 8
+     * @param order            the byte order of the check code
+     */
+    public FrameChecksum(Supplier<? extends Checksum> checksumSupplier, int length, ByteOrder order) {
+        if (length < 1 || length > Long.BYTES) {
+            throw new IllegalArgumentException("Invalid checksum length: " + length);
+        }
+        this.checksumSupplier = Objects.requireNonNull(checksumSupplier);
+        this.length = length;
+        this.order = Objects.requireNonNull(order);
+    }
+
+    public Checksum newChecksum() {
+        return this.checksumSupplier.get();
+    }
+
+    public int length() {
+        return this.length;
+    }
+
+    public ByteOrder order() {
+        return this.order;
+    }
+
+    /**
+     * Writes the low {@link #length()} bytes of the value to {@code data} at {@code offset}.
+     */
+    public void write(long value, byte[] data, int offset) {
+        Objects.checkFromIndexSize(offset, this.length, data.length);
+        for (int i = 0; i < this.length; i++) {
+            int shift = (this.order == ByteOrder.BIG_ENDIAN ? this.length - 1 - i : i) << 3;
+            data[offset + i] = (byte) (value >>> shift);
+        }
+    }
+
+    /**
+     * Reads the check code at the absolute {@code index} of the buffer, the position is not moved.
+     */
+    public long read(ByteBuffer buffer, int index) {
+        long value = 0;
+        for (int i = 0; i < this.length; i++) {
+            int shift = (this.order == ByteOrder.BIG_ENDIAN ? this.length - 1 - i : i) << 3;
+            value |= (buffer.get(index + i) & 0xFFL) << shift;
+        }
+        return value;
+    }
+
+    /**
+     * @return the low {@link #length()} bytes of the value, as they are compared with the check code
+     */
+    long truncate(long value) {
+        return this.length == Long.BYTES ? value : value & ((1L << (this.length << 3)) - 1);
+    }
+}
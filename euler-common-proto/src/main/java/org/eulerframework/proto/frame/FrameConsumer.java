@@ -0,0 +1,31 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.frame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Receives the payloads of the frames found by a {@link DelimitedFrameDecoder}.
+ */
+@FunctionalInterface
+public interface FrameConsumer {
+    /**
+     * @param payload the unescaped payload of a frame, its checksum excluded. The buffer is a view of the bytes of
+     *                the decoder or the chunk, it is only valid during this call.
+     */
+    void accept(ByteBuffer payload) throws IOException;
+}
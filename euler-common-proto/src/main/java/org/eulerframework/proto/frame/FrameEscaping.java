@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.frame;
+
+import java.util.Arrays;
+
+/**
+ * The byte stuffing of a delimited frame: every escaped byte of the frame content, the flags and the escape byte
+ * itself, is written as the escape byte followed by its code. For example the {@code 0x7E} flag of JT/T 808 is
+ * {@code 0x7D 0x02} and the {@code 0x7D} escape byte is {@code 0x7D 0x01}, see {@link #jt808()}.
+ * <p>
+ * Both directions are looked up in tables of 256 entries.
+ */
+public final class FrameEscaping {
+    private final byte escape;
+    private final byte[] escapedBytes;
+    /**
+     * the code of an escaped byte, or {@code -1}
+     */
+    private final short[] codes = new short[256];
+    /**
+     * the escaped byte of a code, or {@code -1}
+     */
+    private final short[] bytes = new short[256];
+
+    /**
+     * @param escape       the escape byte
+     * @param escapedBytes the escaped bytes, the escape byte included
+     * @param codes        the code following the escape byte of each escaped byte
+     * @throws IllegalArgumentException if the escape byte is not escaped, or a byte or a code is repeated
+     */
+    public FrameEscaping(byte escape, byte[] escapedBytes, byte[] codes) {
+        if (escapedBytes.length != codes.length) {
+            throw new IllegalArgumentException("Every escaped byte must have a code");
+        }
+        Arrays.fill(this.codes, (short) -1);
+        Arrays.fill(this.bytes, (short) -1);
+        for (int i = 0; i < escapedBytes.length; i++) {
+            int b = escapedBytes[i] & 0xFF;
+            int code = codes[i] & 0xFF;
+            if (this.codes[b] >= 0 || this.bytes[code] >= 0) {
+                throw new IllegalArgumentException("Repeated escaped byte or code: 0x" + Integer.toHexString(b));
+            }
+            this.codes[b] = (short) code;
+            this.bytes[code] = (short) b;
+        }
+        if (this.codes[escape & 0xFF] < 0) {
+            throw new IllegalArgumentException("The escape byte must be escaped: 0x" + Integer.toHexString(escape & 0xFF));
+        }
+        this.escape = escape;
+        this.escapedBytes = escapedBytes.clone();
+    }
+
+    /**
+     * @return the escaping of JT/T 808 and the protocols derived from it: {@code 0x7E} is {@code 0x7D 0x02} and
+     * {@code 0x7D} is {@code 0x7D 0x01}
+     */
+    public static FrameEscaping jt808() {
+        return new FrameEscaping((byte) 0x7D, new byte[]{0x7E, 0x7D}, new byte[]{0x02, 0x01});
+    }
+
+    public byte getEscape() {
+        return this.escape;
+    }
+
+    public byte[] getEscapedBytes() {
+        return this.escapedBytes.clone();
+    }
+
+    public boolean isEscaped(byte b) {
+        return this.codes[b & 0xFF] >= 0;
+    }
+
+    /**
+     * @return the code following the escape byte of an escaped byte, or {@code -1} if the byte is not escaped
+     */
+    public int code(byte b) {
+        return this.codes[b & 0xFF];
+    }
+
+    /**
+     * @return the escaped byte of a code, or {@code -1} if the code is invalid
+     */
+    public int unescape(byte code) {
+        return this.bytes[code & 0xFF];
+    }
+}
@@ -0,0 +1,440 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.frame;
+
+import org.eulerframework.common.util.JavaObjectUtils;
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.codec.ProtoCodecSupport;
+import org.eulerframework.proto.node.ObjectProtoNode;
+import org.eulerframework.proto.node.ProtoNode;
+import org.eulerframework.proto.node.ProtoNodeSampler;
+import org.eulerframework.proto.schema.ProtoConstructor;
+import org.eulerframework.proto.schema.ProtoSchema;
+import org.eulerframework.proto.serializer.Deserializer;
+import org.eulerframework.proto.serializer.InstanceDeserializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.ObjectPool;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.eulerframework.proto.util.bytes.ByteArrayUtils;
+import org.eulerframework.proto.util.bytes.ByteBufferUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Decodes messages from the chunks of a byte stream, such as the reads of a non-blocking socket.
+ * <p>
+ * The decoder never blocks and never reads a byte twice: every call consumes the whole chunk, decodes each
+ * property as soon as its bytes are complete and keeps the partial property in its own state until the
+ * next chunk arrives. A property whose bytes are all in the chunk is decoded in place.
+ * <p>
+ * Besides the properties of a fixed length, a top level {@link ProtoType#BYTES} property may be in
+ * {@link ProtoPropertyOption#LENGTH_MODE_PREFIX} mode with a {@link ProtoType#BYTE}, {@link ProtoType#WORD} or
+ * {@link ProtoType#DWORD} prefix, or in {@link ProtoPropertyOption#LENGTH_MODE_SEPARATOR} mode. The bytes of such
+ * a property are limited by the max property length, so a broken stream can not make the decoder buffer
+ * without bound. The nested {@link ProtoType#OBJECT}s must have a fixed length and
+ * {@link ProtoPropertyOption#LENGTH_MODE_ALL_BYTES} is not supported, as a stream has no end of message.
+ * <p>
+ * A {@link ByteBuffer} or {@link org.eulerframework.proto.util.bytes.ByteSlice} property decoded in place
+ * is a view of the chunk, it is only valid until the bytes of the chunk are reused.
+ * <p>
+ * No {@link ProtoNode} tree is built unless a {@link ProtoNodeSampler} is set, then the tree of a sampled
+ * message is available from {@link #getPropertyNode()} while the message is passed to the consumer.
+ * <p>
+ * A decoder keeps the state of one stream and is not thread-safe.
+ */
+public class ProtoFrameDecoder<T> {
+    public static final int DEFAULT_MAX_PROPERTY_LENGTH = 64 * 1024;
+
+    private static final int PREFIX = -1;
+    private static final int SEPARATOR = -2;
+
+    private final SerializerRegistry serializerRegistry;
+    private final Class<T> type;
+    private final ProtoContext ctx;
+    private final List<PropertyField> propertyFields;
+    private final ProtoConstructor constructor;
+    private final int maxPropertyLength;
+    /**
+     * the byte length of each step, or {@link #PREFIX} or {@link #SEPARATOR}
+     */
+    private final int[] lengths;
+    private final int[] prefixLengths;
+    private final byte[][] separators;
+    /**
+     * whether the value of a step may share the bytes it is read from
+     */
+    private final boolean[] sharing;
+
+    private ProtoNodeSampler nodeSampler = ProtoNodeSampler.NEVER;
+    private ObjectPool<T> objectPool;
+
+    private byte[] partial;
+    private T target;
+    /**
+     * the properties read so far of a message created by its {@link ProtoConstructor}
+     */
+    private Object[] arguments;
+    private ObjectProtoNode rootNode;
+    private int index;
+    private int partialLength;
+
+    /**
+     * Creates a decoder with the {@link #DEFAULT_MAX_PROPERTY_LENGTH}.
+     *
+     * @throws IllegalArgumentException if the messages have no property, or a property can not be framed with
+     *                                  the serializers of the registry
+     */
+    public ProtoFrameDecoder(SerializerRegistry serializerRegistry, Class<T> type, int version) {
+        this(serializerRegistry, type, version, DEFAULT_MAX_PROPERTY_LENGTH);
+    }
+
+    /**
+     * @param maxPropertyLength the max byte length of a {@link ProtoPropertyOption#LENGTH_MODE_PREFIX} or
+     *                          {@link ProtoPropertyOption#LENGTH_MODE_SEPARATOR} property, the prefix and the
+     *                          separator excluded
+     * @throws IllegalArgumentException if the messages have no property, or a property can not be framed with
+     *                                  the serializers of the registry
+     */
+    public ProtoFrameDecoder(SerializerRegistry serializerRegistry, Class<T> type, int version, int maxPropertyLength) {
+        if (maxPropertyLength < 0) {
+            throw new IllegalArgumentException("Invalid max property length: " + maxPropertyLength);
+        }
+        ProtoSchema schema = ProtoSchema.forClass(type, version);
+        if (!schema.isByteArrayObject() && schema.getPropertyFields().isEmpty()) {
+            throw new IllegalArgumentException("The messages of " + type.getName() + " have no property to decode, version " + version);
+        }
+        ProtoCodecSupport.checkBuiltIn(serializerRegistry, schema);
+
+        this.serializerRegistry = serializerRegistry;
+        this.type = type;
+        this.ctx = new ProtoContext();
+        this.ctx.setVersion(version);
+        this.constructor = schema.getConstructor();
+        this.maxPropertyLength = maxPropertyLength;
+
+        if (schema.isByteArrayObject()) {
+            // the whole message is one step
+            this.propertyFields = List.of();
+            this.lengths = new int[]{schema.getFixedLength()};
+        } else {
+            this.propertyFields = schema.getPropertyFields();
+            this.lengths = new int[this.propertyFields.size()];
+        }
+        this.prefixLengths = new int[this.lengths.length];
+        this.separators = new byte[this.lengths.length][];
+        this.sharing = new boolean[this.lengths.length];
+
+        for (int i = 0; i < this.propertyFields.size(); i++) {
+            PropertyField propertyField = this.propertyFields.get(i);
+            int length = schema.getFixedLength(i);
+            this.lengths[i] = length < 0 ? this.variableLength(propertyField, i, type, version) : length;
+            this.sharing[i] = propertyField.getConvertor() != null && propertyField.getConvertor().isSharing();
+        }
+
+        // the partial bytes grow on demand for the variable length properties
+        int maxLength = 16;
+        for (int length : this.lengths) {
+            maxLength = Math.max(maxLength, length);
+        }
+        this.partial = new byte[maxLength];
+    }
+
+    /**
+     * Consumes all the remaining bytes of the chunk and passes every completed message to the consumer.
+     * <p>
+     * If a property can not be decoded, or is longer than the max property length, the partially decoded
+     * message is dropped as by {@link #reset()} and the exception is thrown, the bytes after the failed property
+     * are left in the chunk. The bytes of a too long property are consumed as far as they have been inspected:
+     * the length prefix, or the bytes searched for the separator.
+     */
+    public void decode(ByteBuffer chunk, Consumer<? super T> consumer) throws IOException {
+        while (chunk.hasRemaining()) {
+            int length;
+            if (this.partialLength == 0 && (length = this.stepLength(chunk)) >= 0) {
+                int limit = chunk.limit();
+                int end = chunk.position() + length;
+                chunk.limit(end);
+                try {
+                    this.readStep(chunk);
+                } finally {
+                    chunk.limit(limit);
+                    chunk.position(end);
+                }
+            } else {
+                if (!this.fillPartial(chunk)) {
+                    return;
+                }
+                length = this.partialLength;
+                this.partialLength = 0;
+                this.readStep(ByteBuffer.wrap(this.partial, 0, length));
+                if (this.sharing[this.index]) {
+                    // the value is a view of the partial bytes
+                    this.partial = new byte[this.partial.length];
+                }
+            }
+
+            if (++this.index == this.lengths.length) {
+                T message = this.target;
+                this.target = null;
+                this.index = 0;
+                consumer.accept(message);
+                this.rootNode = null;
+            }
+        }
+    }
+
+    /**
+     * @param nodeSampler decides which messages build their {@link ProtoNode} tree, from the next message on
+     */
+    public void setNodeSampler(ProtoNodeSampler nodeSampler) {
+        this.nodeSampler = nodeSampler;
+    }
+
+    /**
+     * @param objectPool the pool the messages are decoded into from the next message on, the consumer releases
+     *                   a message to the pool when it is done with it. A dropped message is released by the
+     *                   decoder. If {@code null}, every message is a new instance.
+     * @throws IllegalArgumentException if the messages are created by a {@link ProtoConstructor}, such as records
+     */
+    public void setObjectPool(ObjectPool<T> objectPool) {
+        if (objectPool != null && this.constructor != null) {
+            throw new IllegalArgumentException("The immutable messages of " + this.type.getName() + " can not be pooled");
+        }
+        this.objectPool = objectPool;
+    }
+
+    /**
+     * @return the root of the {@link ProtoNode} tree of the message being decoded or passed to the consumer,
+     * or {@code null} if the message is not sampled or there is no such message
+     */
+    public ObjectProtoNode getPropertyNode() {
+        return this.rootNode;
+    }
+
+    /**
+     * @return {@code true} if a message has been partially decoded
+     */
+    public boolean isDecoding() {
+        return this.index > 0 || this.partialLength > 0;
+    }
+
+    /**
+     * Drops the partially decoded message, for example after the stream is broken.
+     */
+    public void reset() {
+        if (this.target != null && this.objectPool != null) {
+            this.objectPool.release(this.target);
+        }
+        this.target = null;
+        this.arguments = null;
+        this.rootNode = null;
+        this.index = 0;
+        this.partialLength = 0;
+    }
+
+    /**
+     * @return the byte length of the current step if all its bytes are in the chunk, or {@code -1}
+     */
+    private int stepLength(ByteBuffer chunk) {
+        int length = this.lengths[this.index];
+        int remaining = chunk.remaining();
+        if (length == PREFIX) {
+            int prefixLength = this.prefixLengths[this.index];
+            if (remaining < prefixLength) {
+                return -1;
+            }
+            long prefix = ByteBufferUtils.getUnsigned(chunk, chunk.position(), prefixLength);
+            if (prefix > this.maxPropertyLength) {
+                chunk.position(chunk.position() + prefixLength);
+            }
+            length = prefixLength + this.checkLength(prefix);
+        } else if (length == SEPARATOR) {
+            byte[] separator = this.separators[this.index];
+            int index = ByteBufferUtils.indexOf(chunk, separator);
+            if (index < 0) {
+                return -1;
+            }
+            length = index - chunk.position();
+            if (length > this.maxPropertyLength) {
+                chunk.position(index + separator.length);
+            }
+            length = this.checkLength(length) + separator.length;
+        }
+        return remaining >= length ? length : -1;
+    }
+
+    /**
+     * Moves the bytes of the current step from the chunk to the partial bytes, the bytes after the step are left
+     * in the chunk.
+     *
+     * @return {@code true} if all the bytes of the current step are in the partial bytes
+     */
+    private boolean fillPartial(ByteBuffer chunk) {
+        int length = this.lengths[this.index];
+        if (length == PREFIX) {
+            int prefixLength = this.prefixLengths[this.index];
+            if (this.partialLength < prefixLength) {
+                this.copyPartial(chunk, prefixLength - this.partialLength);
+                if (this.partialLength < prefixLength) {
+                    return false;
+                }
+            }
+            length = prefixLength + this.checkLength(ByteArrayUtils.getUnsigned(this.partial, 0, prefixLength));
+        } else if (length == SEPARATOR) {
+            byte[] separator = this.separators[this.index];
+            // the separator may start in the bytes already searched
+            int from = Math.max(0, this.partialLength - separator.length + 1);
+            int maxLength = this.maxPropertyLength + separator.length;
+            this.copyPartial(chunk, maxLength - this.partialLength);
+            int index = ByteArrayUtils.indexOf(this.partial, from, this.partialLength, separator);
+            if (index < 0) {
+                if (this.partialLength >= maxLength) {
+                    this.checkLength(this.partialLength);
+                }
+                return false;
+            }
+            int end = index + separator.length;
+            // give the bytes after the separator back to the chunk
+            chunk.position(chunk.position() - (this.partialLength - end));
+            this.partialLength = end;
+            return true;
+        }
+        this.copyPartial(chunk, length - this.partialLength);
+        return this.partialLength == length;
+    }
+
+    private void copyPartial(ByteBuffer chunk, int length) {
+        int count = Math.min(length, chunk.remaining());
+        int required = this.partialLength + count;
+        if (required > this.partial.length) {
+            this.partial = Arrays.copyOf(this.partial, Math.max(required, this.partial.length << 1));
+        }
+        chunk.get(this.partial, this.partialLength, count);
+        this.partialLength = required;
+    }
+
+    private int checkLength(long length) {
+        if (length > this.maxPropertyLength) {
+            this.reset();
+            throw new IllegalArgumentException("The property is longer than " + this.maxPropertyLength + " bytes: " + length);
+        }
+        return (int) length;
+    }
+
+    private void readStep(ByteBuffer buffer) throws IOException {
+        try {
+            this.readProperty(buffer);
+        } catch (IOException | RuntimeException e) {
+            this.reset();
+            throw e;
+        }
+    }
+
+    private void readProperty(ByteBuffer buffer) throws IOException {
+        if (this.index == 0) {
+            this.rootNode = this.ctx.sampleNodeTree(this.nodeSampler);
+        }
+
+        if (this.propertyFields.isEmpty()) {
+            Deserializer deserializer = this.serializerRegistry.getDeserializer(ProtoType.OBJECT);
+            if (this.objectPool != null && deserializer instanceof InstanceDeserializer instanceDeserializer) {
+                this.target = this.objectPool.acquire();
+                instanceDeserializer.readInto(this.ctx, buffer, this.target);
+            } else {
+                this.target = deserializer.read(this.ctx, buffer, this.type);
+            }
+            return;
+        }
+
+        if (this.constructor != null) {
+            if (this.arguments == null) {
+                this.arguments = this.constructor.newArguments();
+            }
+        } else if (this.target == null) {
+            this.target = this.objectPool != null ? this.objectPool.acquire() : JavaObjectUtils.newInstance(this.type);
+        }
+        PropertyField propertyField = this.propertyFields.get(this.index);
+        Deserializer deserializer = propertyField.getDeserializer(this.serializerRegistry);
+        if (this.rootNode == null) {
+            this.readValue(propertyField, deserializer, buffer);
+        } else {
+            ObjectProtoNode.PropertyNodeFuture propertyNodeFuture =
+                    this.rootNode.addProperty(propertyField.getField().getName(), deserializer::newProtoNode);
+            this.ctx.setPropertyNode(propertyNodeFuture.get());
+            try {
+                this.readValue(propertyField, deserializer, buffer);
+            } finally {
+                this.ctx.setPropertyNode(this.rootNode);
+            }
+            propertyNodeFuture.setValue(this.arguments != null
+                    ? this.arguments[this.constructor.getParameterIndex(this.index)]
+                    : propertyField.getAccessor().get(this.target));
+        }
+
+        if (this.arguments != null && this.index == this.lengths.length - 1) {
+            this.target = this.type.cast(this.constructor.newInstance(this.arguments));
+            this.arguments = null;
+        }
+    }
+
+    private void readValue(PropertyField propertyField, Deserializer deserializer, ByteBuffer buffer) throws IOException {
+        if (this.arguments != null) {
+            this.arguments[this.constructor.getParameterIndex(this.index)] = deserializer.read(this.ctx, buffer, propertyField);
+        } else {
+            propertyField.readInto(this.ctx, deserializer, buffer, this.target);
+        }
+    }
+
+    private int variableLength(PropertyField propertyField, int index, Class<T> type, int version) {
+        boolean bytes = ProtoType.BYTES.equals(propertyField.getType());
+        // an ARRAY is framed by its length prefix like BYTES, not by its count prefix
+        if (bytes || ProtoType.ARRAY.equals(propertyField.getType())) {
+            String lengthMode = propertyField.getLengthMode();
+            if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+                int prefixLength = prefixLength(propertyField.getLengthPrefixType());
+                if (prefixLength > 0 && ProtoCodecSupport.isBuiltIn(this.serializerRegistry, propertyField.getLengthPrefixType())) {
+                    this.prefixLengths[index] = prefixLength;
+                    return PREFIX;
+                }
+            } else if (bytes && ProtoPropertyOption.LENGTH_MODE_SEPARATOR.equals(lengthMode)
+                    && propertyField.getSeparator().length > 0) {
+                this.separators[index] = propertyField.getSeparator();
+                return SEPARATOR;
+            }
+        }
+        throw new IllegalArgumentException("The length of " + type.getName() + "." + propertyField.getField().getName()
+                + " can not be framed, version " + version);
+    }
+
+    private static int prefixLength(String prefixType) {
+        switch (prefixType) {
+            case ProtoType.BYTE:
+                return 1;
+            case ProtoType.WORD:
+                return 2;
+            case ProtoType.DWORD:
+                return 4;
+            default:
+                return -1;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.message;
+
+/**
+ * A message read by a {@link ProtoMessageRegistry}: its header and the body of the type registered for its
+ * message ID.
+ *
+ * @param <H> the header type
+ */
+public class ProtoEnvelope<H> {
+    private final H header;
+    private final int messageId;
+    private final int version;
+    private final Object body;
+
+    public ProtoEnvelope(H header, int messageId, int version, Object body) {
+        this.header = header;
+        this.messageId = messageId;
+        this.version = version;
+        this.body = body;
+    }
+
+    public H getHeader() {
+        return header;
+    }
+
+    public int getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * @return the protocol version the body is read in
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the body, or {@code null} if no type is registered for the message ID and version
+     */
+    public Object getBody() {
+        return body;
+    }
+
+    /**
+     * @return {@code true} if a type is registered for the message ID and version, and the body is read
+     */
+    public boolean isKnown() {
+        return body != null;
+    }
+}
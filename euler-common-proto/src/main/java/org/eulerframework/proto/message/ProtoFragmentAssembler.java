@@ -0,0 +1,354 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.message;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reassembles the messages split into several fragments, such as the sub-packages of a picture or a firmware
+ * upgrade, each carrying the fragment count and its 1-based sequence number. The fragments of a message are
+ * keyed by the session, the message ID and the serial number of the message.
+ * <p>
+ * All the fragments but the last are expected to have the same length, so the bytes of a message are reserved
+ * when its first such fragment arrives, and every fragment is copied once, to its place in the message. The
+ * complete message wraps the reserved bytes and is read by a
+ * {@link org.eulerframework.proto.serializer.Deserializer} or a {@link ProtoMessageRegistry} without further
+ * copies. A repeated fragment is ignored.
+ * <p>
+ * The reserved bytes are limited per session and in total: a fragment that would exceed a limit drops its
+ * message. The fragment count is limited too, a fragment of a larger count is rejected before anything is
+ * allocated for its message. An incomplete message is dropped when no fragment of it has arrived within the timeout, on its next
+ * fragment or by {@link #expire()}.
+ * <p>
+ * An assembler is thread-safe, the fragments of different messages are reassembled concurrently.
+ *
+ * @param <S> the session type, such as the terminal ID or the connection of a device
+ */
+public class ProtoFragmentAssembler<S> {
+    public static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(60);
+    /**
+     * The max value of a fragment count carried in a {@code WORD}.
+     */
+    public static final int DEFAULT_MAX_FRAGMENT_COUNT = 0xFFFF;
+
+    private final long maxSessionBytes;
+    private final long maxTotalBytes;
+    private final int maxFragmentCount;
+    private final long timeoutMillis;
+    private final Clock clock;
+    private final ConcurrentMap<Key<S>, Assembly> assemblies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<S, Long> sessionBytes = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    /**
+     * Creates an assembler with the {@link #DEFAULT_TIMEOUT}.
+     */
+    public ProtoFragmentAssembler(long maxSessionBytes, long maxTotalBytes) {
+        this(maxSessionBytes, maxTotalBytes, DEFAULT_TIMEOUT, Clock.systemUTC());
+    }
+
+    /**
+     * Creates an assembler with the {@link #DEFAULT_MAX_FRAGMENT_COUNT}.
+     */
+    public ProtoFragmentAssembler(long maxSessionBytes, long maxTotalBytes, Duration timeout, Clock clock) {
+        this(maxSessionBytes, maxTotalBytes, DEFAULT_MAX_FRAGMENT_COUNT, timeout, clock);
+    }
+
+    /**
+     * @param maxSessionBytes  the max bytes reserved for the incomplete messages of a session
+     * @param maxTotalBytes    the max bytes reserved for all the incomplete messages
+     * @param maxFragmentCount the max fragment count of a message
+     * @param timeout          the max time between two fragments of a message
+     */
+    public ProtoFragmentAssembler(long maxSessionBytes, long maxTotalBytes, int maxFragmentCount, Duration timeout, Clock clock) {
+        if (maxSessionBytes < 0 || maxTotalBytes < 0) {
+            throw new IllegalArgumentException("Invalid max bytes: " + maxSessionBytes + ", " + maxTotalBytes);
+        }
+        if (maxFragmentCount < 1) {
+            throw new IllegalArgumentException("Invalid max fragment count: " + maxFragmentCount);
+        }
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("Invalid timeout: " + timeout);
+        }
+        this.maxSessionBytes = maxSessionBytes;
+        this.maxTotalBytes = maxTotalBytes;
+        this.maxFragmentCount = maxFragmentCount;
+        this.timeoutMillis = timeout.toMillis();
+        this.clock = clock;
+    }
+
+    /**
+     * Copies the remaining bytes of a fragment to its message and moves the position of the fragment past them.
+     *
+     * @param count    the fragment count of the message
+     * @param sequence the sequence number of the fragment, from 1 to {@code count}
+     * @return the complete message from position 0, or {@code null} if fragments are missing. A message of one
+     * fragment is a view of the fragment.
+     * @throws IllegalArgumentException if the fragment does not match the other fragments of the message, or
+     *                                  its message would exceed the max bytes, the message is dropped. Also if
+     *                                  the count exceeds the max fragment count, the fragment is rejected.
+     */
+    public ByteBuffer accept(S session, int messageId, int serial, int count, int sequence, ByteBuffer fragment) {
+        Objects.requireNonNull(session);
+        if (count < 1 || sequence < 1 || sequence > count) {
+            throw new IllegalArgumentException("Invalid fragment " + sequence + " of " + count);
+        }
+        if (count > this.maxFragmentCount) {
+            // rejected before the received bits of the message are allocated by the count
+            throw new IllegalArgumentException("The fragment count " + count + " exceeds " + this.maxFragmentCount);
+        }
+        if (count == 1) {
+            ByteBuffer message = fragment.slice();
+            fragment.position(fragment.limit());
+            return message;
+        }
+
+        Key<S> key = new Key<>(session, messageId, serial);
+        long now = this.clock.millis();
+        while (true) {
+            Assembly assembly = this.assemblies.computeIfAbsent(key, k -> new Assembly(count));
+            synchronized (assembly) {
+                if (assembly.dropped) {
+                    continue;
+                }
+                if (assembly.received > 0 && now - assembly.updated > this.timeoutMillis) {
+                    this.drop(key, assembly);
+                    continue;
+                }
+                return this.accept(key, assembly, count, sequence, fragment, now);
+            }
+        }
+    }
+
+    /**
+     * Drops the incomplete messages whose last fragment arrived before the timeout.
+     *
+     * @return the count of messages dropped
+     */
+    public int expire() {
+        long now = this.clock.millis();
+        int expired = 0;
+        for (Map.Entry<Key<S>, Assembly> entry : this.assemblies.entrySet()) {
+            Assembly assembly = entry.getValue();
+            synchronized (assembly) {
+                if (!assembly.dropped && assembly.received > 0 && now - assembly.updated > this.timeoutMillis) {
+                    this.drop(entry.getKey(), assembly);
+                    expired++;
+                }
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * Drops the incomplete messages of a session, for example after its connection is closed.
+     */
+    public void removeSession(S session) {
+        for (Map.Entry<Key<S>, Assembly> entry : this.assemblies.entrySet()) {
+            if (entry.getKey().session().equals(session)) {
+                Assembly assembly = entry.getValue();
+                synchronized (assembly) {
+                    if (!assembly.dropped) {
+                        this.drop(entry.getKey(), assembly);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the count of incomplete messages
+     */
+    public int size() {
+        return this.assemblies.size();
+    }
+
+    /**
+     * @return the bytes reserved for the incomplete messages of a session
+     */
+    public long getReservedBytes(S session) {
+        return this.sessionBytes.getOrDefault(session, 0L);
+    }
+
+    /**
+     * @return the bytes reserved for all the incomplete messages
+     */
+    public long getReservedBytes() {
+        return this.totalBytes.get();
+    }
+
+    private ByteBuffer accept(Key<S> key, Assembly assembly, int count, int sequence, ByteBuffer fragment, long now) {
+        if (assembly.count != count) {
+            this.drop(key, assembly);
+            throw new IllegalArgumentException("The fragment count of message " + key.messageId() + " changed from "
+                    + assembly.count + " to " + count);
+        }
+        int index = sequence - 1;
+        if (assembly.isReceived(index)) {
+            fragment.position(fragment.limit());
+            return null;
+        }
+
+        int length = fragment.remaining();
+        boolean last = sequence == count;
+        if (assembly.data == null && last) {
+            // the length of the other fragments is not known yet
+            this.reserve(key, assembly, length);
+            assembly.lastFragment = new byte[length];
+            fragment.get(assembly.lastFragment);
+        } else {
+            if (assembly.data == null) {
+                this.allocate(key, assembly, sequence, length);
+            }
+            this.checkLength(key, assembly, sequence, length);
+            fragment.get(assembly.data, index * assembly.fragmentLength, length);
+        }
+        if (last) {
+            assembly.lastLength = length;
+        }
+        assembly.setReceived(index);
+        assembly.updated = now;
+
+        if (assembly.received < count) {
+            return null;
+        }
+        this.drop(key, assembly);
+        return ByteBuffer.wrap(assembly.data, 0, (count - 1) * assembly.fragmentLength + assembly.lastLength);
+    }
+
+    /**
+     * Reserves the bytes of a message by the length of one of its fragments but the last.
+     */
+    private void allocate(Key<S> key, Assembly assembly, int sequence, int length) {
+        if (length == 0) {
+            this.drop(key, assembly);
+            throw new IllegalArgumentException("Fragment " + sequence + " of message " + key.messageId() + " is empty");
+        }
+        long size = (long) assembly.count * length;
+        if (size > Integer.MAX_VALUE - 8) {
+            this.drop(key, assembly);
+            throw new IllegalArgumentException("Message " + key.messageId() + " is too long: " + size + " bytes");
+        }
+        this.reserve(key, assembly, size);
+        assembly.data = new byte[(int) size];
+        assembly.fragmentLength = length;
+
+        byte[] lastFragment = assembly.lastFragment;
+        if (lastFragment != null) {
+            assembly.lastFragment = null;
+            this.checkLength(key, assembly, assembly.count, lastFragment.length);
+            System.arraycopy(lastFragment, 0, assembly.data, (assembly.count - 1) * length, lastFragment.length);
+            this.release(key.session(), lastFragment.length);
+            assembly.reserved -= lastFragment.length;
+        }
+    }
+
+    private void checkLength(Key<S> key, Assembly assembly, int sequence, int length) {
+        boolean valid = sequence == assembly.count ? length <= assembly.fragmentLength : length == assembly.fragmentLength;
+        if (!valid) {
+            this.drop(key, assembly);
+            throw new IllegalArgumentException("Fragment " + sequence + " of message " + key.messageId() + " has "
+                    + length + " bytes, but the other fragments have " + assembly.fragmentLength);
+        }
+    }
+
+    private void reserve(Key<S> key, Assembly assembly, long bytes) {
+        long total;
+        do {
+            total = this.totalBytes.get();
+            if (total + bytes > this.maxTotalBytes) {
+                this.drop(key, assembly);
+                throw new IllegalArgumentException("The incomplete messages exceed " + this.maxTotalBytes + " bytes");
+            }
+        } while (!this.totalBytes.compareAndSet(total, total + bytes));
+
+        try {
+            this.sessionBytes.compute(key.session(), (session, reserved) -> {
+                long sum = reserved == null ? bytes : reserved + bytes;
+                if (sum > this.maxSessionBytes) {
+                    throw new IllegalArgumentException("The incomplete messages of session " + session
+                            + " exceed " + this.maxSessionBytes + " bytes");
+                }
+                return sum;
+            });
+        } catch (IllegalArgumentException e) {
+            this.totalBytes.addAndGet(-bytes);
+            this.drop(key, assembly);
+            throw e;
+        }
+        assembly.reserved += bytes;
+    }
+
+    private void release(S session, long bytes) {
+        if (bytes > 0) {
+            this.totalBytes.addAndGet(-bytes);
+            this.sessionBytes.computeIfPresent(session, (s, reserved) -> reserved == bytes ? null : reserved - bytes);
+        }
+    }
+
+    private void drop(Key<S> key, Assembly assembly) {
+        assembly.dropped = true;
+        this.assemblies.remove(key, assembly);
+        this.release(key.session(), assembly.reserved);
+        assembly.reserved = 0;
+    }
+
+    private record Key<S>(S session, int messageId, int serial) {
+    }
+
+    /**
+     * The fragments received of a message, guarded by itself.
+     */
+    private static final class Assembly {
+        final int count;
+        final long[] receivedBits;
+        /**
+         * the bytes of the message, {@code null} until the length of the fragments is known
+         */
+        byte[] data;
+        int fragmentLength;
+        /**
+         * the last fragment if it arrived before the length of the fragments is known
+         */
+        byte[] lastFragment;
+        int lastLength;
+        int received;
+        long reserved;
+        long updated;
+        boolean dropped;
+
+        Assembly(int count) {
+            this.count = count;
+            this.receivedBits = new long[(count + 63) >>> 6];
+        }
+
+        boolean isReceived(int index) {
+            return (this.receivedBits[index >>> 6] & 1L << index) != 0;
+        }
+
+        void setReceived(int index) {
+            this.receivedBits[index >>> 6] |= 1L << index;
+            this.received++;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.message;
+
+import org.eulerframework.proto.annotation.ProtoMessage;
+import org.eulerframework.proto.schema.ProtoSchema;
+import org.eulerframework.proto.serializer.Deserializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Reads the messages of a stream carrying several message types: the header of a message is read first, the
+ * message ID and the protocol version in the header select the body type, and the body is read right after the
+ * header, without peeking at the bytes or reading them twice.
+ * <p>
+ * The body types of the message IDs below {@value #DENSE_IDS} are found by array index, any other ID by hash.
+ * The body type of every version below {@value #DENSE_VERSIONS} is resolved when a type is registered, so finding
+ * the body type of a message is two array loads. The {@link ProtoSchema} of a type is built when the type is
+ * registered, a broken message type fails at startup instead of at its first message.
+ * <p>
+ * A registry may be extended until it is {@link #freeze() frozen}, it is safe to read messages concurrently.
+ *
+ * @param <H> the header type
+ */
+public class ProtoMessageRegistry<H> {
+    /**
+     * The class path resource listing the {@link ProtoMessage} classes compiled with the
+     * {@code euler-common-proto-processor} annotation processor, one class name a line.
+     */
+    public static final String INDEX_FILE = "META-INF/org.eulerframework.proto.messages";
+
+    private static final int DENSE_IDS = 1 << 16;
+    private static final int DENSE_VERSIONS = 64;
+    private static final int OBJECT = SerializerRegistry.typeId(ProtoType.OBJECT);
+
+    private final SerializerRegistry serializerRegistry;
+    private final Class<H> headerType;
+    private final ToIntFunction<? super H> messageIdOf;
+    private final ToIntFunction<? super H> versionOf;
+    private volatile MessageTypes[] dense = new MessageTypes[0];
+    private final ConcurrentMap<Integer, MessageTypes> sparse = new ConcurrentHashMap<>();
+    private volatile boolean frozen;
+
+    /**
+     * Creates a registry reading the bodies in the version of the {@link ProtoContext}.
+     */
+    public ProtoMessageRegistry(SerializerRegistry serializerRegistry, Class<H> headerType,
+                                ToIntFunction<? super H> messageIdOf) {
+        this(serializerRegistry, headerType, messageIdOf, null);
+    }
+
+    /**
+     * @param messageIdOf returns the message ID in a header
+     * @param versionOf   returns the protocol version of the body in a header, if {@code null} a body is read in the
+     *                    version of the {@link ProtoContext}
+     */
+    public ProtoMessageRegistry(SerializerRegistry serializerRegistry, Class<H> headerType,
+                                ToIntFunction<? super H> messageIdOf, ToIntFunction<? super H> versionOf) {
+        this.serializerRegistry = serializerRegistry;
+        this.headerType = headerType;
+        this.messageIdOf = messageIdOf;
+        this.versionOf = versionOf;
+        ProtoSchema.forClass(headerType, 0);
+    }
+
+    /**
+     * Registers the type as the body of the message ID in every version.
+     */
+    public ProtoMessageRegistry<H> register(int messageId, Class<?> type) {
+        return this.register(messageId, 0, type);
+    }
+
+    /**
+     * Registers the type as the body of the message ID from the version on, until a later version registered for
+     * the same ID.
+     *
+     * @throws IllegalArgumentException if another type is registered for the message ID and version, or the
+     *                                  properties of the type are invalid
+     */
+    public synchronized ProtoMessageRegistry<H> register(int messageId, int version, Class<?> type) {
+        this.checkNotFrozen();
+        if (version < 0) {
+            throw new IllegalArgumentException("Invalid version: " + version);
+        }
+        ProtoSchema.forClass(type, version);
+
+        MessageTypes types = this.getTypes(messageId);
+        types = (types == null ? MessageTypes.EMPTY : types).with(messageId, version, type);
+        if (messageId >= 0 && messageId < DENSE_IDS) {
+            MessageTypes[] dense = Arrays.copyOf(this.dense, Math.max(this.dense.length, messageId + 1));
+            dense[messageId] = types;
+            this.dense = dense;
+        } else {
+            this.sparse.put(messageId, types);
+        }
+        return this;
+    }
+
+    /**
+     * Registers the type by its {@link ProtoMessage} annotations.
+     *
+     * @throws IllegalArgumentException if the type is not annotated
+     */
+    public ProtoMessageRegistry<H> register(Class<?> type) {
+        ProtoMessage[] messages = type.getAnnotationsByType(ProtoMessage.class);
+        if (messages.length == 0) {
+            throw new IllegalArgumentException(type.getName() + " is not a ProtoMessage.");
+        }
+        for (ProtoMessage message : messages) {
+            this.register(message.id(), message.version(), type);
+        }
+        return this;
+    }
+
+    /**
+     * Registers the {@link ProtoMessage} classes of the package and its sub packages, loaded by the context
+     * class loader, see {@link #registerPackage(String, ClassLoader)}.
+     */
+    public ProtoMessageRegistry<H> registerPackage(String packageName) throws IOException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return this.registerPackage(packageName, classLoader == null ? ProtoMessageRegistry.class.getClassLoader() : classLoader);
+    }
+
+    /**
+     * Registers the {@link ProtoMessage} classes of the package and its sub packages. The classes are listed by
+     * the {@link #INDEX_FILE}s of the class path, the class files of the package are only scanned if no index lists
+     * a class of the package.
+     */
+    public ProtoMessageRegistry<H> registerPackage(String packageName, ClassLoader classLoader) throws IOException {
+        for (String className : ProtoMessageScanner.scan(classLoader, packageName)) {
+            Class<?> type;
+            try {
+                type = Class.forName(className, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("The message class " + className + " is not found.", e);
+            }
+            if (type.getAnnotationsByType(ProtoMessage.class).length > 0) {
+                this.register(type);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return the body type of the message ID in the version, or {@code null} if none is registered
+     */
+    public Class<?> getType(int messageId, int version) {
+        MessageTypes types = this.getTypes(messageId);
+        return types == null ? null : types.get(version);
+    }
+
+    /**
+     * Reads the header and the body of a message from the position of the buffer and moves the position past
+     * them. The bytes of a body whose type is not registered are left in the buffer.
+     */
+    public ProtoEnvelope<H> read(ProtoContext ctx, ByteBuffer buffer) throws IOException {
+        Deserializer deserializer = this.getDeserializer();
+        H header = deserializer.read(ctx, buffer, this.headerType);
+        int messageId = this.messageIdOf.applyAsInt(header);
+        int version = this.versionOf == null ? ctx.getVersion() : this.versionOf.applyAsInt(header);
+        Class<?> type = this.getType(messageId, version);
+        if (type == null) {
+            return new ProtoEnvelope<>(header, messageId, version, null);
+        }
+
+        int contextVersion = ctx.getVersion();
+        ctx.setVersion(version);
+        try {
+            return new ProtoEnvelope<>(header, messageId, version, deserializer.read(ctx, buffer, type));
+        } finally {
+            ctx.setVersion(contextVersion);
+        }
+    }
+
+    /**
+     * Reads the header and the body of a message. The bytes of a body whose type is not registered are left in
+     * the stream.
+     */
+    public ProtoEnvelope<H> read(ProtoContext ctx, InputStream in) throws IOException {
+        Deserializer deserializer = this.getDeserializer();
+        H header = deserializer.read(ctx, in, this.headerType);
+        int messageId = this.messageIdOf.applyAsInt(header);
+        int version = this.versionOf == null ? ctx.getVersion() : this.versionOf.applyAsInt(header);
+        Class<?> type = this.getType(messageId, version);
+        if (type == null) {
+            return new ProtoEnvelope<>(header, messageId, version, null);
+        }
+
+        int contextVersion = ctx.getVersion();
+        ctx.setVersion(version);
+        try {
+            return new ProtoEnvelope<>(header, messageId, version, deserializer.read(ctx, in, type));
+        } finally {
+            ctx.setVersion(contextVersion);
+        }
+    }
+
+    /**
+     * Rejects any later registration.
+     *
+     * @return this registry
+     */
+    public ProtoMessageRegistry<H> freeze() {
+        this.frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private MessageTypes getTypes(int messageId) {
+        if (messageId >= 0 && messageId < DENSE_IDS) {
+            MessageTypes[] dense = this.dense;
+            return messageId < dense.length ? dense[messageId] : null;
+        }
+        return this.sparse.get(messageId);
+    }
+
+    private Deserializer getDeserializer() {
+        Deserializer deserializer = this.serializerRegistry.getDeserializer(OBJECT);
+        if (deserializer == null) {
+            throw new IllegalStateException("No deserializer of " + ProtoType.OBJECT + " is registered.");
+        }
+        return deserializer;
+    }
+
+    private void checkNotFrozen() {
+        if (this.frozen) {
+            throw new IllegalStateException("The message registry is frozen.");
+        }
+    }
+
+    /**
+     * The body types of one message ID by the version they are registered from, immutable.
+     */
+    private static final class MessageTypes {
+        static final MessageTypes EMPTY = new MessageTypes(new int[0], new Class<?>[0]);
+
+        private final int[] versions;
+        private final Class<?>[] types;
+        private final Class<?>[] denseTypes = new Class<?>[DENSE_VERSIONS];
+
+        MessageTypes(int[] versions, Class<?>[] types) {
+            this.versions = versions;
+            this.types = types;
+            for (int version = 0; version < DENSE_VERSIONS; version++) {
+                this.denseTypes[version] = this.find(version);
+            }
+        }
+
+        Class<?> get(int version) {
+            return version >= 0 && version < DENSE_VERSIONS ? this.denseTypes[version] : this.find(version);
+        }
+
+        MessageTypes with(int messageId, int version, Class<?> type) {
+            int index = Arrays.binarySearch(this.versions, version);
+            if (index >= 0) {
+                if (this.types[index] != type) {
+                    throw new IllegalArgumentException("The message 0x" + Integer.toHexString(messageId) +
+                            " of version " + version + " is registered as " + this.types[index].getName() +
+                            ", not as " + type.getName() + ".");
+                }
+                return this;
+            }
+
+            int insert = -index - 1;
+            int[] versions = new int[this.versions.length + 1];
+            Class<?>[] types = new Class<?>[versions.length];
+            System.arraycopy(this.versions, 0, versions, 0, insert);
+            System.arraycopy(this.types, 0, types, 0, insert);
+            versions[insert] = version;
+            types[insert] = type;
+            System.arraycopy(this.versions, insert, versions, insert + 1, this.versions.length - insert);
+            System.arraycopy(this.types, insert, types, insert + 1, this.types.length - insert);
+            return new MessageTypes(versions, types);
+        }
+
+        /**
+         * @return the type of the highest version not after the version
+         */
+        private Class<?> find(int version) {
+            int index = Arrays.binarySearch(this.versions, version);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            return index < 0 ? null : this.types[index];
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.message;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * Lists the candidate message classes of a package and its sub packages for
+ * {@link ProtoMessageRegistry#registerPackage(String, ClassLoader)}.
+ */
+final class ProtoMessageScanner {
+    private static final String CLASS_SUFFIX = ".class";
+
+    private ProtoMessageScanner() {
+    }
+
+    /**
+     * @return the classes of the package listed by the {@link ProtoMessageRegistry#INDEX_FILE}s, or every class
+     * of the package in the directories and jars of the class path if no index lists any
+     */
+    static Set<String> scan(ClassLoader classLoader, String packageName) throws IOException {
+        Set<String> classNames = readIndexes(classLoader, packageName);
+        return classNames.isEmpty() ? scanClassFiles(classLoader, packageName) : classNames;
+    }
+
+    private static Set<String> readIndexes(ClassLoader classLoader, String packageName) throws IOException {
+        Set<String> classNames = new TreeSet<>();
+        Enumeration<URL> indexes = classLoader.getResources(ProtoMessageRegistry.INDEX_FILE);
+        while (indexes.hasMoreElements()) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(indexes.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (!line.isEmpty() && !line.startsWith("#") && isInPackage(line, packageName)) {
+                        classNames.add(line);
+                    }
+                }
+            }
+        }
+        return classNames;
+    }
+
+    private static Set<String> scanClassFiles(ClassLoader classLoader, String packageName) throws IOException {
+        String path = packageName.replace('.', '/');
+        Set<String> classNames = new TreeSet<>();
+        Enumeration<URL> roots = classLoader.getResources(path);
+        while (roots.hasMoreElements()) {
+            URL root = roots.nextElement();
+            if ("file".equals(root.getProtocol())) {
+                Path directory;
+                try {
+                    directory = Path.of(root.toURI());
+                } catch (URISyntaxException e) {
+                    throw new IOException("Invalid class path directory: " + root, e);
+                }
+                try (Stream<Path> files = Files.walk(directory)) {
+                    files.map(file -> directory.relativize(file).toString().replace(File.separatorChar, '/'))
+                            .filter(ProtoMessageScanner::isClassFile)
+                            .forEach(file -> classNames.add(className(path.isEmpty() ? file : path + '/' + file)));
+                }
+            } else if ("jar".equals(root.getProtocol())) {
+                JarURLConnection connection = (JarURLConnection) root.openConnection();
+                // the cached jar file may be shared with the class loader, a fresh one is closed after the scan
+                connection.setUseCaches(false);
+                try (JarFile jarFile = connection.getJarFile()) {
+                    String prefix = path.isEmpty() ? "" : path + '/';
+                    for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements(); ) {
+                        String name = entries.nextElement().getName();
+                        if (name.startsWith(prefix) && isClassFile(name)) {
+                            classNames.add(className(name));
+                        }
+                    }
+                }
+            }
+        }
+        return classNames;
+    }
+
+    private static boolean isInPackage(String className, String packageName) {
+        return packageName.isEmpty() || className.startsWith(packageName)
+                && className.length() > packageName.length() && className.charAt(packageName.length()) == '.';
+    }
+
+    private static boolean isClassFile(String file) {
+        return file.endsWith(CLASS_SUFFIX) && !file.endsWith("package-info" + CLASS_SUFFIX)
+                && !file.endsWith("module-info" + CLASS_SUFFIX);
+    }
+
+    private static String className(String classFile) {
+        return classFile.substring(0, classFile.length() - CLASS_SUFFIX.length()).replace('/', '.');
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.eulerframework.proto.node;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which decoded messages build their {@link ProtoNode} tree.
+ * <p>
+ * The tree records every property of a message, which is only needed to inspect malformed messages, so the
+ * hot decode paths build no tree unless a message is sampled.
+ */
+@FunctionalInterface
+public interface ProtoNodeSampler {
+    ProtoNodeSampler NEVER = () -> false;
+    ProtoNodeSampler ALWAYS = () -> true;
+
+    /**
+     * @return {@code true} if the next message builds its {@link ProtoNode} tree
+     */
+    boolean sample();
+
+    /**
+     * @return a sampler of the first message in every {@code n} messages, it may be shared by threads
+     */
+    static ProtoNodeSampler oneIn(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("The sampling interval must be positive: " + n);
+        }
+        if (n == 1) {
+            return ALWAYS;
+        }
+        AtomicLong count = new AtomicLong();
+        return () -> count.getAndIncrement() % n == 0;
+    }
+}
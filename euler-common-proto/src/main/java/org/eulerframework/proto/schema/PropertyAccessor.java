@@ -0,0 +1,339 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.schema;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.eulerframework.common.util.NumberUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Reads and writes one field through method handles bound once, instead of a reflective access per call.
+ * <p>
+ * The generic {@link #get(Object)} and {@link #set(Object, Object)} box primitive values, the typed
+ * methods such as {@link #getInt(Object)} and {@link #setInt(Object, int)} do not, but they only accept
+ * a field of exactly that primitive type.
+ * <p>
+ * The field of a record is read only, the setters throw {@link UnsupportedOperationException}, the values are
+ * passed to the constructor instead, see {@link ProtoConstructor}.
+ */
+public final class PropertyAccessor {
+    private static final MethodType GENERIC_GETTER = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType GENERIC_SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodHandle READ_ONLY;
+
+    static {
+        try {
+            READ_ONLY = MethodHandles.lookup().findStatic(PropertyAccessor.class, "readOnly",
+                    MethodType.methodType(void.class, Field.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    public static PropertyAccessor of(Field field) {
+        if (Modifier.isStatic(field.getModifiers())) {
+            throw new IllegalArgumentException("Static field is not supported: " + field);
+        }
+        try {
+            return new PropertyAccessor(field);
+        } catch (IllegalAccessException e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    private final Field field;
+    private final Class<?> type;
+    private final boolean writable;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    private final MethodHandle typedGetter;
+    private final MethodHandle typedSetter;
+    private final MethodHandle primitiveGetter;
+    private final MethodHandle primitiveSetter;
+
+    private PropertyAccessor(Field field) throws IllegalAccessException {
+        this.field = field;
+        this.type = field.getType();
+
+        MethodHandle getter;
+        MethodHandle setter;
+        MethodHandles.Lookup lookup = privateLookup(field);
+        Class<?> declaringClass = field.getDeclaringClass();
+        this.writable = !declaringClass.isRecord();
+        if (lookup != null && !Modifier.isFinal(field.getModifiers())) {
+            VarHandle varHandle = lookup.unreflectVarHandle(field);
+            getter = varHandle.toMethodHandle(VarHandle.AccessMode.GET);
+            setter = varHandle.toMethodHandle(VarHandle.AccessMode.SET);
+        } else if (!this.writable) {
+            if (lookup == null) {
+                throw new IllegalArgumentException("Field is not accessible: " + field);
+            }
+            getter = lookup.unreflectGetter(field);
+            setter = MethodHandles.dropArguments(MethodHandles.insertArguments(READ_ONLY, 0, field), 0,
+                    declaringClass, this.type);
+        } else {
+            // VarHandles never write final fields, fall back to an accessible reflective field,
+            // which is not writable either for hidden classes
+            if (declaringClass.isHidden()) {
+                throw new IllegalArgumentException("Final field of a hidden class is not supported: " + field);
+            }
+            try {
+                field.setAccessible(true);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Final field is not accessible: " + field, e);
+            }
+            getter = MethodHandles.lookup().unreflectGetter(field);
+            setter = MethodHandles.lookup().unreflectSetter(field);
+        }
+
+        this.getter = getter.asType(GENERIC_GETTER);
+        this.setter = setter.asType(GENERIC_SETTER);
+        this.typedGetter = getter.asType(MethodType.methodType(this.type, Object.class));
+        this.typedSetter = setter.asType(MethodType.methodType(void.class, Object.class, this.type));
+        this.primitiveGetter = this.type.isPrimitive() ? this.typedGetter : null;
+        this.primitiveSetter = this.type.isPrimitive() ? this.typedSetter : null;
+    }
+
+    private static MethodHandles.Lookup privateLookup(Field field) {
+        try {
+            return MethodHandles.privateLookupIn(field.getDeclaringClass(), MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static void readOnly(Field field) {
+        throw new UnsupportedOperationException("The field is read only: " + field);
+    }
+
+    public Field getField() {
+        return field;
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return {@code false} if the field is a record component, which is passed to the constructor instead
+     */
+    public boolean isWritable() {
+        return writable;
+    }
+
+    /**
+     * @return the getter handle of type {@code (Object)F}, where {@code F} is the field type
+     */
+    public MethodHandle getterHandle() {
+        return typedGetter;
+    }
+
+    /**
+     * @return the setter handle of type {@code (Object,F)void}, where {@code F} is the field type
+     */
+    public MethodHandle setterHandle() {
+        return typedSetter;
+    }
+
+    public Object get(Object target) {
+        try {
+            return this.getter.invokeExact(target);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public void set(Object target, Object value) {
+        if (value == null && this.type.isPrimitive()) {
+            throw new IllegalArgumentException("Can not set primitive field " + this.field + " to null");
+        }
+        try {
+            this.setter.invokeExact(target, value);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Can not set field " + this.field + " to " + value.getClass(), e);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public int getInt(Object target) {
+        this.checkType(int.class);
+        try {
+            return (int) this.primitiveGetter.invokeExact(target);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public void setInt(Object target, int value) {
+        this.checkType(int.class);
+        try {
+            this.primitiveSetter.invokeExact(target, value);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public long getLong(Object target) {
+        this.checkType(long.class);
+        try {
+            return (long) this.primitiveGetter.invokeExact(target);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public void setLong(Object target, long value) {
+        this.checkType(long.class);
+        try {
+            this.primitiveSetter.invokeExact(target, value);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public short getShort(Object target) {
+        this.checkType(short.class);
+        try {
+            return (short) this.primitiveGetter.invokeExact(target);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public void setShort(Object target, short value) {
+        this.checkType(short.class);
+        try {
+            this.primitiveSetter.invokeExact(target, value);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public byte getByte(Object target) {
+        this.checkType(byte.class);
+        try {
+            return (byte) this.primitiveGetter.invokeExact(target);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public void setByte(Object target, byte value) {
+        this.checkType(byte.class);
+        try {
+            this.primitiveSetter.invokeExact(target, value);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public boolean getBoolean(Object target) {
+        this.checkType(boolean.class);
+        try {
+            return (boolean) this.primitiveGetter.invokeExact(target);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public void setBoolean(Object target, boolean value) {
+        this.checkType(boolean.class);
+        try {
+            this.primitiveSetter.invokeExact(target, value);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public char getChar(Object target) {
+        this.checkType(char.class);
+        try {
+            return (char) this.primitiveGetter.invokeExact(target);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    public void setChar(Object target, char value) {
+        this.checkType(char.class);
+        try {
+            this.primitiveSetter.invokeExact(target, value);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads an integral field as an unsigned value, same as {@link NumberUtils#toUnsignedLong(Object)}
+     * but without boxing primitive fields.
+     */
+    public long getUnsignedLong(Object target) {
+        if (this.type == int.class) {
+            return NumberUtils.toUnsignedLong(this.getInt(target));
+        }
+        if (this.type == short.class) {
+            return NumberUtils.toUnsignedLong(this.getShort(target));
+        }
+        if (this.type == byte.class) {
+            return NumberUtils.toUnsignedLong(this.getByte(target));
+        }
+        if (this.type == long.class) {
+            return this.getLong(target);
+        }
+        if (this.type == boolean.class) {
+            return NumberUtils.toUnsignedLong(this.getBoolean(target));
+        }
+        if (this.type == char.class) {
+            return NumberUtils.toUnsignedLong(this.getChar(target));
+        }
+        return NumberUtils.toUnsignedLong(this.get(target));
+    }
+
+    /**
+     * Writes an unsigned value to an integral field, same as {@link NumberUtils#toUnsignedValue(Object, Class)}
+     * but without boxing primitive fields.
+     */
+    public void setUnsignedLong(Object target, long value) {
+        if (this.type == int.class) {
+            this.setInt(target, NumberUtils.toUnsignedInt(value));
+        } else if (this.type == short.class) {
+            this.setShort(target, NumberUtils.toUnsignedShort(value));
+        } else if (this.type == byte.class) {
+            this.setByte(target, NumberUtils.toByte(value));
+        } else if (this.type == long.class) {
+            this.setLong(target, value);
+        } else if (this.type == boolean.class) {
+            this.setBoolean(target, NumberUtils.toBoolean(value));
+        } else if (this.type == char.class) {
+            this.setChar(target, (char) NumberUtils.toUnsignedShort(value));
+        } else {
+            this.set(target, NumberUtils.toUnsignedValue(value, this.type));
+        }
+    }
+
+    private void checkType(Class<?> expectedType) {
+        if (this.type != expectedType) {
+            throw new IllegalArgumentException("The type of field " + this.field + " is not " + expectedType);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.schema;
+
+import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.codec.ProtoCodecSupport;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.eulerframework.proto.util.bytes.ByteArrayUtils;
+import org.eulerframework.proto.util.bytes.ByteBufferInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Adjacent fixed length number properties of a {@link ProtoSchema}, such as the fields of a message header,
+ * read and written as one block of bytes: the remaining bytes are checked once, the block is read at once and
+ * every value is taken at its offset in the block, instead of a bounds check and a read per property.
+ * <p>
+ * The values are converted as the built-in {@link ProtoType#BYTE}, {@link ProtoType#WORD},
+ * {@link ProtoType#DWORD}, {@link ProtoType#WORD_LE} and {@link ProtoType#DWORD_LE} serializers convert them, so
+ * a run is only used while the registry has these serializers, see {@link #isBuiltIn(SerializerRegistry)}.
+ */
+public final class PropertyRun {
+    /**
+     * The least count of properties worth fusing.
+     */
+    static final int MIN_PROPERTIES = 2;
+
+    private static final int BYTE = 0;
+    private static final int WORD = 1;
+    private static final int DWORD = 2;
+    private static final int WORD_LE = 3;
+    private static final int DWORD_LE = 4;
+
+    private final int from;
+    private final int to;
+    private final int length;
+    private final PropertyField[] propertyFields;
+    private final int[] kinds;
+    private final int[] offsets;
+    private final int[] parameterIndexes;
+    private final String[] types;
+    private volatile Binding binding;
+
+    private PropertyRun(List<PropertyField> propertyFields, int from, int to, ProtoConstructor constructor) {
+        this.from = from;
+        this.to = to;
+        int count = to - from;
+        this.propertyFields = propertyFields.subList(from, to).toArray(new PropertyField[0]);
+        this.kinds = new int[count];
+        this.offsets = new int[count];
+        this.parameterIndexes = constructor == null ? null : new int[count];
+        this.types = new String[count];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            String type = this.propertyFields[i].getType();
+            this.kinds[i] = kind(type);
+            this.offsets[i] = offset;
+            this.types[i] = type;
+            if (this.parameterIndexes != null) {
+                this.parameterIndexes[i] = constructor.getParameterIndex(from + i);
+            }
+            offset += width(this.kinds[i]);
+        }
+        this.length = offset;
+    }
+
+    /**
+     * @return the runs of at least {@link #MIN_PROPERTIES} adjacent properties, indexed by their first
+     * property, {@code null} at the other indexes
+     */
+    static PropertyRun[] plan(List<PropertyField> propertyFields, ProtoConstructor constructor) {
+        int size = propertyFields.size();
+        PropertyRun[] runs = new PropertyRun[size];
+        for (int from = 0; from < size; ) {
+            int to = from;
+            while (to < size && isFusible(propertyFields.get(to))) {
+                to++;
+            }
+            if (to - from >= MIN_PROPERTIES) {
+                runs[from] = new PropertyRun(propertyFields, from, to, constructor);
+            }
+            from = Math.max(to, from + 1);
+        }
+        return runs;
+    }
+
+    private static boolean isFusible(PropertyField propertyField) {
+        if (kind(propertyField.getType()) < 0) {
+            return false;
+        }
+        Class<?> type = propertyField.getField().getType();
+        return type == int.class || type == long.class || type == short.class || type == byte.class
+                || type == char.class || type == boolean.class
+                || type == Integer.class || type == Long.class || type == Short.class || type == Byte.class
+                || type == Character.class || type == Boolean.class;
+    }
+
+    /**
+     * @return the index of the first property in {@link ProtoSchema#getPropertyFields()}
+     */
+    public int getFrom() {
+        return from;
+    }
+
+    /**
+     * @return the index after the last property in {@link ProtoSchema#getPropertyFields()}
+     */
+    public int getTo() {
+        return to;
+    }
+
+    /**
+     * @return the byte length of all the properties
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return {@code true} if the registry reads and writes every property of the run with the built-in
+     * serializers, the result is cached until the registry changes
+     */
+    public boolean isBuiltIn(SerializerRegistry serializerRegistry) {
+        Binding binding = this.binding;
+        if (binding == null || !binding.isBoundTo(serializerRegistry)) {
+            binding = new Binding(serializerRegistry, this.types);
+            this.binding = binding;
+        }
+        return binding.builtIn;
+    }
+
+    /**
+     * Reads the properties into the target, or into the constructor arguments if they are not {@code null}.
+     * The caller checks that there are at least {@link #getLength()} bytes available.
+     */
+    public void read(ProtoContext ctx, InputStream in, Object target, Object[] arguments) throws IOException {
+        if (in instanceof ByteBufferInputStream) {
+            this.read(ctx, ((ByteBufferInputStream) in).getBuffer(), target, arguments);
+            return;
+        }
+
+        byte[] data = ctx.scratch(this.length);
+        int readBytes;
+        if ((readBytes = in.readNBytes(data, 0, this.length)) < this.length) {
+            throw new IOException("These properties need " + this.length + " bytes, but only " + readBytes + " bytes read.");
+        }
+        this.decode(data, 0, target, arguments);
+    }
+
+    /**
+     * Reads the properties at the position of the buffer and moves the position past them. The caller checks
+     * that the buffer has at least {@link #getLength()} bytes remaining.
+     */
+    public void read(ProtoContext ctx, ByteBuffer buffer, Object target, Object[] arguments) {
+        int position = buffer.position();
+        if (buffer.hasArray()) {
+            this.decode(buffer.array(), buffer.arrayOffset() + position, target, arguments);
+        } else {
+            byte[] data = ctx.scratch(this.length);
+            buffer.get(position, data, 0, this.length);
+            this.decode(data, 0, target, arguments);
+        }
+        buffer.position(position + this.length);
+    }
+
+    public void write(ProtoContext ctx, Object source, OutputStream out) throws IOException {
+        byte[] data = ctx.scratch(this.length);
+        this.encode(source, data, 0);
+        out.write(data, 0, this.length);
+    }
+
+    /**
+     * @throws BufferOverflowException if the buffer has fewer bytes remaining than {@link #getLength()}, nothing
+     *                                 is written then
+     */
+    public void write(ProtoContext ctx, Object source, ByteBuffer buffer) {
+        if (buffer.remaining() < this.length) {
+            throw new BufferOverflowException();
+        }
+        int position = buffer.position();
+        if (buffer.hasArray()) {
+            this.encode(source, buffer.array(), buffer.arrayOffset() + position);
+        } else {
+            byte[] data = ctx.scratch(this.length);
+            this.encode(source, data, 0);
+            buffer.put(position, data, 0, this.length);
+        }
+        buffer.position(position + this.length);
+    }
+
+    private void decode(byte[] data, int offset, Object target, Object[] arguments) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            long value = get(data, offset + this.offsets[i], this.kinds[i]);
+            PropertyField propertyField = this.propertyFields[i];
+            if (arguments == null) {
+                propertyField.getAccessor().setUnsignedLong(target, value);
+            } else {
+                arguments[this.parameterIndexes[i]] = NumberUtils.toUnsignedValue(value, propertyField.getField().getType());
+            }
+        }
+    }
+
+    private void encode(Object source, byte[] data, int offset) {
+        for (int i = 0; i < this.kinds.length; i++) {
+            put(data, offset + this.offsets[i], this.kinds[i], this.propertyFields[i].getAccessor().getUnsignedLong(source));
+        }
+    }
+
+    private static long get(byte[] data, int index, int kind) {
+        switch (kind) {
+            case BYTE:
+                return data[index] & 0xFF;
+            case WORD:
+                return ByteArrayUtils.getShort(data, index) & 0xFFFF;
+            case DWORD:
+                return ByteArrayUtils.getInt(data, index) & 0xFFFFFFFFL;
+            case WORD_LE:
+                return ByteArrayUtils.getShortLE(data, index) & 0xFFFF;
+            default:
+                return ByteArrayUtils.getIntLE(data, index) & 0xFFFFFFFFL;
+        }
+    }
+
+    private static void put(byte[] data, int index, int kind, long value) {
+        switch (kind) {
+            case BYTE:
+                data[index] = (byte) value;
+                break;
+            case WORD:
+                ByteArrayUtils.putShort(data, index, (short) value);
+                break;
+            case DWORD:
+                ByteArrayUtils.putInt(data, index, (int) value);
+                break;
+            case WORD_LE:
+                ByteArrayUtils.putShortLE(data, index, (short) value);
+                break;
+            default:
+                ByteArrayUtils.putIntLE(data, index, (int) value);
+        }
+    }
+
+    private static int kind(String type) {
+        switch (type) {
+            case ProtoType.BYTE:
+                return BYTE;
+            case ProtoType.WORD:
+                return WORD;
+            case ProtoType.DWORD:
+                return DWORD;
+            case ProtoType.WORD_LE:
+                return WORD_LE;
+            case ProtoType.DWORD_LE:
+                return DWORD_LE;
+            default:
+                return -1;
+        }
+    }
+
+    private static int width(int kind) {
+        switch (kind) {
+            case BYTE:
+                return 1;
+            case WORD:
+            case WORD_LE:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+    private static class Binding {
+        private final SerializerRegistry registry;
+        private final boolean frozen;
+        private final int revision;
+        private final boolean builtIn;
+
+        Binding(SerializerRegistry registry, String[] types) {
+            this.registry = registry;
+            this.frozen = registry.isFrozen();
+            this.revision = registry.revision();
+            this.builtIn = ProtoCodecSupport.isBuiltIn(registry, types);
+        }
+
+        boolean isBoundTo(SerializerRegistry registry) {
+            return this.registry == registry && (this.frozen || this.revision == registry.revision());
+        }
+    }
+}
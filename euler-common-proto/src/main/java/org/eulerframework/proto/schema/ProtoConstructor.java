@@ -0,0 +1,183 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.schema;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.eulerframework.proto.annotation.ProtoCreator;
+import org.eulerframework.proto.util.PropertyField;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Creates the immutable messages whose properties are passed to the constructor instead of written to the
+ * fields: records, through the canonical constructor, and other classes through the constructor annotated
+ * with {@link ProtoCreator}, whose parameters are matched to the fields by name.
+ * <p>
+ * The properties are read into an argument array, see {@link #newArguments()}, then the instance is created
+ * by one call of the constructor handle, so the primitive properties are boxed. A property missing from the
+ * data, or not matched by the version, is passed as {@code null} or the zero of its primitive type.
+ */
+public final class ProtoConstructor {
+    private static final MethodType SPREAD_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * @return the constructor of the type, or {@code null} if the type is created by its constructor without
+     * arguments and the properties are written to the fields
+     */
+    static ProtoConstructor of(Class<?> type, List<PropertyField> propertyFields) {
+        List<Field> parameters = new ArrayList<>();
+        Constructor<?> constructor;
+        if (type.isRecord()) {
+            for (RecordComponent component : type.getRecordComponents()) {
+                parameters.add(field(type, component.getName()));
+            }
+            Class<?>[] parameterTypes = parameters.stream().map(Field::getType).toArray(Class<?>[]::new);
+            try {
+                constructor = type.getDeclaredConstructor(parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("No canonical constructor of the record " + type.getName(), e);
+            }
+        } else {
+            constructor = creator(type);
+            if (constructor == null) {
+                // the final fields are written through the accessible fields
+                return null;
+            }
+            String[] names = constructor.getAnnotation(ProtoCreator.class).value();
+            Parameter[] constructorParameters = constructor.getParameters();
+            if (names.length == 0) {
+                names = new String[constructorParameters.length];
+                for (int i = 0; i < names.length; i++) {
+                    if (!constructorParameters[i].isNamePresent()) {
+                        throw new IllegalArgumentException("No parameter names of the constructor " + constructor
+                                + ", compile with -parameters or list the field names in @ProtoCreator");
+                    }
+                    names[i] = constructorParameters[i].getName();
+                }
+            } else if (names.length != constructorParameters.length) {
+                throw new IllegalArgumentException("@ProtoCreator names " + names.length
+                        + " fields but the constructor " + constructor + " takes " + constructorParameters.length);
+            }
+            for (int i = 0; i < names.length; i++) {
+                Field field = field(type, names[i]);
+                if (field.getType() != constructorParameters[i].getType()) {
+                    throw new IllegalArgumentException("The parameter " + i + " of the constructor " + constructor
+                            + " does not match the type of the field " + field);
+                }
+                parameters.add(field);
+            }
+        }
+
+        try {
+            return new ProtoConstructor(constructor, parameters, propertyFields);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("The constructor is not accessible: " + constructor, e);
+        }
+    }
+
+    private static Constructor<?> creator(Class<?> type) {
+        Constructor<?> creator = null;
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            if (constructor.isAnnotationPresent(ProtoCreator.class)) {
+                if (creator != null) {
+                    throw new IllegalArgumentException("More than one @ProtoCreator constructor of " + type.getName());
+                }
+                creator = constructor;
+            }
+        }
+        return creator;
+    }
+
+    private static Field field(Class<?> type, String name) {
+        try {
+            Field field = type.getDeclaredField(name);
+            if (Modifier.isStatic(field.getModifiers())) {
+                throw new IllegalArgumentException("The field " + field + " is static");
+            }
+            return field;
+        } catch (NoSuchFieldException e) {
+            throw new IllegalArgumentException("No field " + name + " of " + type.getName(), e);
+        }
+    }
+
+    private final Constructor<?> constructor;
+    private final MethodHandle handle;
+    private final int[] parameterIndexes;
+    private final Object[] defaults;
+
+    private ProtoConstructor(Constructor<?> constructor, List<Field> parameters, List<PropertyField> propertyFields)
+            throws IllegalAccessException {
+        this.constructor = constructor;
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(constructor.getDeclaringClass(), MethodHandles.lookup());
+        this.handle = lookup.unreflectConstructor(constructor)
+                .asSpreader(Object[].class, parameters.size())
+                .asType(SPREAD_TYPE);
+        this.parameterIndexes = new int[propertyFields.size()];
+        for (int i = 0; i < this.parameterIndexes.length; i++) {
+            this.parameterIndexes[i] = parameters.indexOf(propertyFields.get(i).getField());
+            if (this.parameterIndexes[i] < 0) {
+                throw new IllegalArgumentException("The property " + propertyFields.get(i).getField()
+                        + " is not a parameter of the constructor " + constructor);
+            }
+        }
+        this.defaults = new Object[parameters.size()];
+        for (int i = 0; i < this.defaults.length; i++) {
+            Class<?> parameterType = parameters.get(i).getType();
+            // the zero of a primitive type, null for the others
+            this.defaults[i] = parameterType.isPrimitive() ? Array.get(Array.newInstance(parameterType, 1), 0) : null;
+        }
+    }
+
+    public Constructor<?> getConstructor() {
+        return constructor;
+    }
+
+    /**
+     * @return a new argument array holding the default value of every parameter
+     */
+    public Object[] newArguments() {
+        return this.defaults.clone();
+    }
+
+    /**
+     * @return the index in the argument array of the property at {@code index} of
+     * {@link ProtoSchema#getPropertyFields()}
+     */
+    public int getParameterIndex(int index) {
+        return this.parameterIndexes[index];
+    }
+
+    public Object newInstance(Object[] arguments) {
+        try {
+            return this.handle.invokeExact(arguments);
+        } catch (ClassCastException e) {
+            throw new IllegalArgumentException("Can not call " + this.constructor + " with " + Arrays.toString(arguments), e);
+        } catch (Throwable e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+}
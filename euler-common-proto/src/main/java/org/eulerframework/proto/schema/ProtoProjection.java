@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.schema;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.util.PropertyField;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The properties of a message type to read, set on {@link org.eulerframework.proto.util.ProtoContext#setProjection}
+ * when only a few properties of a large message are needed.
+ * <p>
+ * The other properties are skipped by their length, see
+ * {@link org.eulerframework.proto.serializer.Deserializer#skip}, and are not written: a new instance keeps the
+ * default value of their field, an instance read into, see
+ * {@link org.eulerframework.proto.serializer.InstanceDeserializer#readInto}, keeps its current value. A
+ * projection applies to the properties of its own type only, the nested objects of the selected properties are
+ * read in full. A message read with a projection is read through the reflective fields, not a compiled codec.
+ */
+public final class ProtoProjection {
+    private final Class<?> type;
+    private final Set<String> propertyNames;
+
+    private ProtoProjection(Class<?> type, Set<String> propertyNames) {
+        this.type = type;
+        this.propertyNames = propertyNames;
+    }
+
+    /**
+     * @param propertyNames the field names of the properties to read
+     * @throws IllegalArgumentException if a name is not a {@link ProtoProperty} field of the type in any version
+     */
+    public static ProtoProjection of(Class<?> type, String... propertyNames) {
+        return of(type, Arrays.asList(propertyNames));
+    }
+
+    public static ProtoProjection of(Class<?> type, Collection<String> propertyNames) {
+        Set<String> properties = FieldUtils.getAllFieldsList(type).stream()
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .filter(field -> field.getAnnotationsByType(ProtoProperty.class).length > 0)
+                .map(Field::getName)
+                .collect(Collectors.toSet());
+        for (String propertyName : propertyNames) {
+            if (!properties.contains(propertyName)) {
+                throw new IllegalArgumentException("The property " + type.getName() + "#" + propertyName +
+                        " is not found.");
+            }
+        }
+        return new ProtoProjection(type, Set.copyOf(propertyNames));
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    /**
+     * @return the field names of the selected properties, the set is immutable
+     */
+    public Set<String> getPropertyNames() {
+        return propertyNames;
+    }
+
+    /**
+     * @return {@code true} if the properties of the type are selected by this projection
+     */
+    public boolean appliesTo(Class<?> type) {
+        return this.type == type;
+    }
+
+    public boolean isSelected(PropertyField propertyField) {
+        return this.propertyNames.contains(propertyField.getField().getName());
+    }
+
+    /**
+     * @return {@code true} if every property of the run is selected, so the run may be read at once
+     */
+    public boolean isSelected(PropertyRun run, ProtoSchema schema) {
+        for (int i = run.getFrom(); i < run.getTo(); i++) {
+            if (!this.isSelected(schema.getPropertyFields().get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
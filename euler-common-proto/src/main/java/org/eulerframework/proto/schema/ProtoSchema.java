@@ -0,0 +1,262 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.schema;
+
+import org.eulerframework.proto.annotation.ByteArrayObject;
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.BitPropertyField;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.eulerframework.proto.util.ProtoUtils;
+import org.eulerframework.proto.util.bytes.BitField;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The resolved proto layout of a class for one protocol version.
+ * <p>
+ * A schema is built once per (class, version) and cached, so the annotation scanning, version matching
+ * and sorting done by {@link ProtoUtils} is not repeated for every message.
+ */
+public final class ProtoSchema {
+    private static final int DENSE_VERSIONS = 64;
+
+    private static final ClassValue<VersionedSchemas> SCHEMAS = new ClassValue<>() {
+        @Override
+        protected VersionedSchemas computeValue(Class<?> type) {
+            return new VersionedSchemas(type);
+        }
+    };
+
+    public static ProtoSchema forClass(Class<?> clazz, int version) {
+        return SCHEMAS.get(clazz).get(version);
+    }
+
+    private final Class<?> type;
+    private final int version;
+    private final List<PropertyField> propertyFields;
+    private final List<BitPropertyField> bitPropertyFields;
+    private final List<BitField> bitFields;
+    private final int byteArrayObjectLength;
+    private final ProtoConstructor constructor;
+    private final PropertyRun[] propertyRuns;
+    private volatile int[] fixedLengths;
+
+    private ProtoSchema(Class<?> type, int version) {
+        this.type = type;
+        this.version = version;
+        this.propertyFields = List.copyOf(ProtoUtils.getSortedPropertyFields(type, version));
+        this.bitPropertyFields = List.copyOf(ProtoUtils.getSortedBitPropertyFields(type, version));
+        ByteArrayObject byteArrayObject = type.getAnnotation(ByteArrayObject.class);
+        this.byteArrayObjectLength = byteArrayObject == null ? -1 : byteArrayObject.length();
+        this.bitFields = byteArrayObject == null ? List.of() : this.bitPropertyFields.stream()
+                .map(field -> BitField.of(this.byteArrayObjectLength, field.getOffset(), field.getAnnotation().length()))
+                .toList();
+        if (byteArrayObject != null && type.isRecord()) {
+            throw new IllegalArgumentException("A ByteArrayObject record is not supported: " + type.getName());
+        }
+        this.constructor = ProtoConstructor.of(type, this.propertyFields);
+        this.propertyRuns = PropertyRun.plan(this.propertyFields, this.constructor);
+    }
+
+    public Class<?> getType() {
+        return type;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the matched {@code ProtoProperty} fields sorted by order, the list is immutable
+     */
+    public List<PropertyField> getPropertyFields() {
+        return propertyFields;
+    }
+
+    /**
+     * @return the matched {@code BitProperty} fields sorted by offset, the list is immutable
+     */
+    public List<BitPropertyField> getBitPropertyFields() {
+        return bitPropertyFields;
+    }
+
+    /**
+     * @return the compiled layouts of the {@link #getBitPropertyFields()} in the bytes of the
+     * {@link ByteArrayObject}, the list is immutable
+     */
+    public List<BitField> getBitFields() {
+        return bitFields;
+    }
+
+    public boolean isByteArrayObject() {
+        return byteArrayObjectLength >= 0;
+    }
+
+    /**
+     * @return the constructor the properties are passed to, or {@code null} if an instance is created by the
+     * constructor without arguments and the properties are written to its fields
+     */
+    public ProtoConstructor getConstructor() {
+        return constructor;
+    }
+
+    /**
+     * @return the run of adjacent fixed length number properties starting at {@code index} of
+     * {@link #getPropertyFields()}, or {@code null} if no run starts there
+     */
+    public PropertyRun getPropertyRun(int index) {
+        return propertyRuns[index];
+    }
+
+    /**
+     * @return the {@link ByteArrayObject#length()} of the class, or {@code -1} if the class is not a
+     * {@link ByteArrayObject}
+     */
+    public int getByteArrayObjectLength() {
+        return byteArrayObjectLength;
+    }
+
+    /**
+     * @return the byte length of a message of this schema, or {@code -1} if the length is not fixed.
+     * The length is resolved for the built-in serializers of the {@link ProtoType}s.
+     */
+    public int getFixedLength() {
+        return this.fixedLengths(new HashSet<>())[this.propertyFields.size()];
+    }
+
+    /**
+     * @return the byte length of the property at {@code index} of {@link #getPropertyFields()}, or
+     * {@code -1} if the length is not fixed
+     */
+    public int getFixedLength(int index) {
+        return this.fixedLengths(new HashSet<>())[index];
+    }
+
+    /**
+     * @return the exact byte length of the message written with the serializers of the registry. The fixed
+     * length properties are summed from their serializers and the variable length ones from their values,
+     * nothing is written.
+     */
+    public int sizeOf(ProtoContext ctx, Object value, SerializerRegistry serializerRegistry) throws IOException {
+        if (this.isByteArrayObject()) {
+            return this.byteArrayObjectLength;
+        }
+
+        int size = 0;
+        for (int i = 0, count = this.propertyFields.size(); i < count; i++) {
+            PropertyField propertyField = this.propertyFields.get(i);
+            Object propertyValue = propertyField.getAccessor().get(value);
+            size = Math.addExact(size, propertyField.getSerializer(serializerRegistry).sizeOf(ctx, propertyField, propertyValue));
+        }
+        return size;
+    }
+
+    private int[] fixedLengths(Set<Class<?>> resolving) {
+        int[] lengths = this.fixedLengths;
+        if (lengths != null) {
+            return lengths;
+        }
+
+        if (!resolving.add(this.type)) {
+            // a message containing itself has no fixed length
+            return null;
+        }
+        try {
+            int size = this.propertyFields.size();
+            lengths = new int[size + 1];
+            int total = 0;
+            for (int i = 0; i < size; i++) {
+                int length = this.fixedLength(this.propertyFields.get(i), resolving);
+                lengths[i] = length;
+                total = total < 0 || length < 0 ? -1 : total + length;
+            }
+            lengths[size] = this.isByteArrayObject() ? this.byteArrayObjectLength : total;
+        } finally {
+            resolving.remove(this.type);
+        }
+        this.fixedLengths = lengths;
+        return lengths;
+    }
+
+    private int fixedLength(PropertyField propertyField, Set<Class<?>> resolving) {
+        boolean fixed = ProtoPropertyOption.LENGTH_MODE_FIXED.equals(propertyField.getLengthMode()) && propertyField.getLength() >= 0;
+        switch (propertyField.getType()) {
+            case ProtoType.BYTES:
+                return fixed ? propertyField.getLength() : -1;
+            case ProtoType.BCD:
+                // the length of a BCD property does not depend on its length mode
+                return Math.max(propertyField.getLength(), -1);
+            case ProtoType.ARRAY:
+                // the length of a fixed array is its element count
+                int elementLength = fixed ? this.fixedLength(propertyField.getElementType(), propertyField.getElementClass(), resolving) : -1;
+                long length = (long) propertyField.getLength() * elementLength;
+                return elementLength < 0 || length > Integer.MAX_VALUE ? -1 : (int) length;
+            default:
+                return this.fixedLength(propertyField.getType(), propertyField.getField().getType(), resolving);
+        }
+    }
+
+    private int fixedLength(String type, Class<?> clazz, Set<Class<?>> resolving) {
+        switch (type) {
+            case ProtoType.BYTE:
+                return 1;
+            case ProtoType.WORD:
+            case ProtoType.WORD_LE:
+                return 2;
+            case ProtoType.DWORD:
+            case ProtoType.DWORD_LE:
+                return 4;
+            case ProtoType.OBJECT:
+                ProtoSchema schema = forClass(clazz, this.version);
+                int[] lengths = schema.fixedLengths(resolving);
+                return lengths == null ? -1 : lengths[schema.propertyFields.size()];
+            default:
+                return -1;
+        }
+    }
+
+    private static class VersionedSchemas {
+        private final Class<?> type;
+        private final AtomicReferenceArray<ProtoSchema> dense = new AtomicReferenceArray<>(DENSE_VERSIONS);
+        private final ConcurrentMap<Integer, ProtoSchema> sparse = new ConcurrentHashMap<>();
+
+        VersionedSchemas(Class<?> type) {
+            this.type = type;
+        }
+
+        ProtoSchema get(int version) {
+            if (version >= 0 && version < DENSE_VERSIONS) {
+                ProtoSchema schema = this.dense.get(version);
+                if (schema == null) {
+                    // a schema is immutable, so losing the race only wastes one build
+                    this.dense.compareAndSet(version, null, new ProtoSchema(this.type, version));
+                    schema = this.dense.get(version);
+                }
+                return schema;
+            }
+            return this.sparse.computeIfAbsent(version, v -> new ProtoSchema(this.type, v));
+        }
+    }
+}
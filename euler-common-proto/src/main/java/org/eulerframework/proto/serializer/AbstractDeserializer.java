@@ -23,6 +23,7 @@ import org.eulerframework.proto.util.ProtoContext;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 
 public abstract class AbstractDeserializer implements Deserializer {
     @Override
@@ -36,6 +37,23 @@ public abstract class AbstractDeserializer implements Deserializer {
         return (T) this.read(ctx, in, propertyField.getField().getType());
     }
 
+    /**
+     * Moves past {@code length} bytes of a property without reading them.
+     */
+    protected static void skipFixedLength(InputStream in, int length) throws IOException {
+        if (in.available() < length) {
+            throw new IllegalArgumentException("Not enough bytes to read.");
+        }
+        in.skipNBytes(length);
+    }
+
+    protected static void skipFixedLength(ByteBuffer buffer, int length) {
+        if (buffer.remaining() < length) {
+            throw new IllegalArgumentException("Not enough bytes to read.");
+        }
+        buffer.position(buffer.position() + length);
+    }
+
     @Override
     public ProtoNode newProtoNode(ProtoNode parent) {
         return ProtoNode.newValueNode(parent);
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.Bcd;
+import org.eulerframework.proto.util.bytes.ByteBufferInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a {@link org.eulerframework.proto.util.ProtoType#BCD} property of {@link PropertyField#getLength()} bytes,
+ * as a {@link String} of all its digits for a {@link CharSequence} property, otherwise as a number.
+ */
+public class BcdDeserializer extends AbstractDeserializer {
+    @Override
+    public <T> T read(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException {
+        if (in instanceof ByteBufferInputStream) {
+            return this.read(ctx, ((ByteBufferInputStream) in).getBuffer(), propertyField);
+        }
+
+        int length = length(propertyField);
+        if (in.available() < length) {
+            throw new IllegalArgumentException("Not enough bytes to read.");
+        }
+        byte[] data = new byte[length];
+        int readBytes;
+        if ((readBytes = in.readNBytes(data, 0, length)) < length) {
+            throw new IOException("This property need " + length + " bytes, but only " + readBytes + " bytes read.");
+        }
+        return decode(propertyField, ByteBuffer.wrap(data), length);
+    }
+
+    @Override
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) {
+        int length = length(propertyField);
+        if (buffer.remaining() < length) {
+            throw new IllegalArgumentException("Not enough bytes to read.");
+        }
+        return decode(propertyField, buffer, length);
+    }
+
+    @Override
+    public void skip(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException {
+        skipFixedLength(in, length(propertyField));
+    }
+
+    @Override
+    public void skip(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) {
+        skipFixedLength(buffer, length(propertyField));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T decode(PropertyField propertyField, ByteBuffer buffer, int length) {
+        Class<?> type = propertyField.getField().getType();
+        if (CharSequence.class.isAssignableFrom(type)) {
+            return (T) Bcd.readString(buffer, length);
+        }
+        return (T) NumberUtils.toUnsignedValue(Bcd.readLong(buffer, length), type);
+    }
+
+    static int length(PropertyField propertyField) {
+        int length = propertyField.getLength();
+        if (length < 0) {
+            throw new IllegalArgumentException("The length of this BCD property is unknown.");
+        }
+        return length;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.Bcd;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Writes a {@link org.eulerframework.proto.util.ProtoType#BCD} property of {@link PropertyField#getLength()} bytes
+ * from a number or a {@link CharSequence} of digits, padded with leading zeros. A {@code null} value is written
+ * as zeros.
+ */
+public class BcdSerializer extends AbstractSerializer implements Serializer {
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, OutputStream outputStream) throws IOException {
+        throw new UnsupportedEncodingException();
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, ByteBuffer buffer) throws IOException {
+        throw new UnsupportedEncodingException();
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, OutputStream outputStream) throws IOException {
+        byte[] data = new byte[BcdDeserializer.length(valueField)];
+        encode(value, data, 0, data.length);
+        outputStream.write(data);
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, ByteBuffer buffer) {
+        int length = BcdDeserializer.length(valueField);
+        if (buffer.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        if (buffer.hasArray()) {
+            encode(value, buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.position() + length);
+        } else {
+            byte[] data = new byte[length];
+            encode(value, data, 0, length);
+            buffer.put(data);
+        }
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, Object value) throws IOException {
+        throw new UnsupportedEncodingException();
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, PropertyField valueField, Object value) {
+        return BcdDeserializer.length(valueField);
+    }
+
+    private static void encode(Object value, byte[] data, int offset, int length) {
+        if (value == null) {
+            Arrays.fill(data, offset, offset + length, (byte) 0);
+        } else if (value instanceof CharSequence) {
+            Bcd.write((CharSequence) value, data, offset, length);
+        } else {
+            Bcd.write(NumberUtils.toUnsignedLong(value), data, offset, length);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package org.eulerframework.proto.serializer;
 
-import org.eulerframework.proto.annotation.ProtoProperty;
 import org.eulerframework.proto.annotation.ProtoPropertyOption;
 import org.eulerframework.proto.util.PropertyField;
 import org.eulerframework.proto.util.ProtoContext;
@@ -8,50 +7,277 @@ import org.eulerframework.proto.util.bytes.*;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Field;
-import java.nio.charset.Charset;
-import java.util.Optional;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class ByteArrayDeserializer extends AbstractDeserializer implements Deserializer, SerializerRegistryAware {
+    public static final int DEFAULT_MAX_SEPARATED_LENGTH = 64 * 1024;
+
+    private static final int SEARCH_CHUNK_SIZE = 256;
+
+    private final int maxSeparatedLength;
+
+    private SerializerRegistry serializerRegistry;
+
+    /**
+     * The registry resolving the {@link ProtoPropertyOption#lengthPrefixType()} is set when this is registered.
+     */
+    public ByteArrayDeserializer() {
+        this(null);
+    }
+
+    /**
+     * @param serializerRegistry resolves the {@link ProtoPropertyOption#lengthPrefixType()} of the
+     *                           {@link ProtoPropertyOption#LENGTH_MODE_PREFIX} properties
+     */
+    public ByteArrayDeserializer(SerializerRegistry serializerRegistry) {
+        this(serializerRegistry, DEFAULT_MAX_SEPARATED_LENGTH);
+    }
+
+    /**
+     * @param serializerRegistry resolves the {@link ProtoPropertyOption#lengthPrefixType()} of the
+     *                           {@link ProtoPropertyOption#LENGTH_MODE_PREFIX} properties
+     * @param maxSeparatedLength the max byte length of a {@link ProtoPropertyOption#LENGTH_MODE_SEPARATOR} property
+     *                           read from a stream, the separator excluded, a stream is not searched further for
+     *                           a missing separator. A buffer is searched up to its limit.
+     */
+    public ByteArrayDeserializer(SerializerRegistry serializerRegistry, int maxSeparatedLength) {
+        if (maxSeparatedLength < 0) {
+            throw new IllegalArgumentException("Invalid max separated length: " + maxSeparatedLength);
+        }
+        this.serializerRegistry = serializerRegistry;
+        this.maxSeparatedLength = maxSeparatedLength;
+    }
+
+    @Override
+    public SerializerRegistry getSerializerRegistry() {
+        return serializerRegistry;
+    }
+
+    @Override
+    public void setSerializerRegistry(SerializerRegistry serializerRegistry) {
+        this.serializerRegistry = serializerRegistry;
+    }
 
-public class ByteArrayDeserializer extends AbstractDeserializer implements Deserializer {
     @Override
-    @SuppressWarnings("unchecked")
     public <T> T read(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException {
-        Field field = propertyField.getField();
-        Class<?> fieldType = field.getType();
-        ProtoProperty protoProperty = propertyField.getAnnotation();
-        ProtoPropertyOption protoPropertyOption = protoProperty.option();
-        String lengthMode = Optional.ofNullable(protoPropertyOption)
-                .map(ProtoPropertyOption::lengthMode)
-                .orElse(ProtoPropertyOption.LENGTH_MODE_FIXED);
+        BytesConvertor<?> convertor = propertyField.getConvertor();
+        if (in instanceof ByteBufferInputStream && convertor != null && convertor.isSharing()) {
+            // a view is read from the buffer behind the stream, as the compiled codecs read a buffer by a stream
+            return this.read(ctx, ((ByteBufferInputStream) in).getBuffer(), propertyField);
+        }
+
+        String lengthMode = propertyField.getLengthMode();
 
         byte[] data;
         if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
-            int length = protoProperty.length();
+            data = readFixedLength(in, propertyField.getLength());
+        } else if (ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
+            data = in.readAllBytes();
+        } else if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            int length = checkPrefix(this.getPrefixDeserializer(propertyField).read(ctx, in, Long.class));
+            data = readFixedLength(in, length);
+        } else if (ProtoPropertyOption.LENGTH_MODE_SEPARATOR.equals(lengthMode)) {
+            data = this.readUntil(in, getSeparator(propertyField));
+        } else {
+            throw new IllegalArgumentException("Unsupported property length mode: " + lengthMode);
+        }
 
-            if (in.available() < length) {
-                throw new IllegalArgumentException("Not enough bytes to read.");
-            }
+        return convert(propertyField, data);
+    }
 
-            data = new byte[length];
-            int readBytes;
-            if ((readBytes = in.read(data)) < data.length) {
-                throw new IOException("This property need " + data.length + " bytes, but only " + readBytes + " bytes read.");
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) throws IOException {
+        String lengthMode = propertyField.getLengthMode();
+
+        ByteBuffer data;
+        if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+            data = readSlice(buffer, propertyField.getLength());
+        } else if (ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
+            data = readSlice(buffer, buffer.remaining());
+        } else if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            int length = checkPrefix(this.getPrefixDeserializer(propertyField).read(ctx, buffer, Long.class));
+            data = readSlice(buffer, length);
+        } else if (ProtoPropertyOption.LENGTH_MODE_SEPARATOR.equals(lengthMode)) {
+            byte[] separator = getSeparator(propertyField);
+            int index = ByteBufferUtils.indexOf(buffer, separator);
+            if (index < 0) {
+                throw new IllegalArgumentException("The separator of this property is not found.");
             }
+            data = readSlice(buffer, index - buffer.position());
+            buffer.position(index + separator.length);
+        } else {
+            throw new IllegalArgumentException("Unsupported property length mode: " + lengthMode);
+        }
+
+        // the slice shares the content of the buffer, only the convertor copies it if needed
+        BytesConvertor<?> convertor = propertyField.getConvertor();
+        if (convertor instanceof CharSequenceBytesConvertor) {
+            CharSequenceBytesConvertor<?> charSequenceBytesConvertor = (CharSequenceBytesConvertor<?>) convertor;
+            return (T) charSequenceBytesConvertor.readFrom(ByteBufferUtils.rightTrim(data), propertyField.getCharset());
+        }
+
+        return (T) convertor.readFrom(data);
+    }
+
+    /**
+     * Skips the bytes of the property by its length mode, the bytes before a separator are searched but
+     * not decoded.
+     */
+    @Override
+    public void skip(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException {
+        if (in instanceof ByteBufferInputStream) {
+            this.skip(ctx, ((ByteBufferInputStream) in).getBuffer(), propertyField);
+            return;
+        }
+
+        String lengthMode = propertyField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+            skipFixedLength(in, propertyField.getLength());
         } else if (ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
-            data = in.readAllBytes();
+            in.transferTo(OutputStream.nullOutputStream());
+        } else if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            skipFixedLength(in, checkPrefix(this.getPrefixDeserializer(propertyField).read(ctx, in, Long.class)));
+        } else if (ProtoPropertyOption.LENGTH_MODE_SEPARATOR.equals(lengthMode)) {
+            this.readUntil(in, getSeparator(propertyField));
+        } else {
+            throw new IllegalArgumentException("Unsupported property length mode: " + lengthMode);
+        }
+    }
+
+    @Override
+    public void skip(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) throws IOException {
+        String lengthMode = propertyField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+            skipFixedLength(buffer, propertyField.getLength());
+        } else if (ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
+            buffer.position(buffer.limit());
+        } else if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            skipFixedLength(buffer, checkPrefix(this.getPrefixDeserializer(propertyField).read(ctx, buffer, Long.class)));
+        } else if (ProtoPropertyOption.LENGTH_MODE_SEPARATOR.equals(lengthMode)) {
+            byte[] separator = getSeparator(propertyField);
+            int index = ByteBufferUtils.indexOf(buffer, separator);
+            if (index < 0) {
+                throw new IllegalArgumentException("The separator of this property is not found.");
+            }
+            buffer.position(index + separator.length);
         } else {
             throw new IllegalArgumentException("Unsupported property length mode: " + lengthMode);
         }
+    }
+
+    private Deserializer getPrefixDeserializer(PropertyField propertyField) {
+        if (this.serializerRegistry == null) {
+            throw new IllegalStateException("A SerializerRegistry is required to read the length prefix of a property.");
+        }
+        Deserializer deserializer = propertyField.getLengthPrefixDeserializer(this.serializerRegistry);
+        if (deserializer == null) {
+            throw new IllegalArgumentException("Unsupported length prefix type: " + propertyField.getLengthPrefixType());
+        }
+        return deserializer;
+    }
+
+    /**
+     * @param prefix the length prefix, any {@link Number} as a custom prefix deserializer may return another type
+     */
+    private static int checkPrefix(Object prefix) {
+        long length = ((Number) prefix).longValue();
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid length prefix: " + length);
+        }
+        return (int) length;
+    }
+
+    static byte[] getSeparator(PropertyField propertyField) {
+        byte[] separator = propertyField.getSeparator();
+        if (separator.length == 0) {
+            throw new IllegalArgumentException("The separator of this property is empty.");
+        }
+        return separator;
+    }
+
+    private static byte[] readFixedLength(InputStream in, int length) throws IOException {
+        if (in.available() < length) {
+            throw new IllegalArgumentException("Not enough bytes to read.");
+        }
+
+        byte[] data = new byte[length];
+        int readBytes;
+        if ((readBytes = in.readNBytes(data, 0, length)) < data.length) {
+            throw new IOException("This property need " + data.length + " bytes, but only " + readBytes + " bytes read.");
+        }
+        return data;
+    }
+
+    private static ByteBuffer readSlice(ByteBuffer buffer, int length) {
+        if (buffer.remaining() < length) {
+            throw new IllegalArgumentException("Not enough bytes to read.");
+        }
+        return ByteBufferUtils.readSlice(buffer, length);
+    }
+
+    /**
+     * Reads the bytes before the separator and skips the separator. A stream supporting mark is searched
+     * chunk by chunk and reset, any other stream is read byte by byte. At most {@link #maxSeparatedLength} bytes
+     * and the separator are read, so a stream missing the separator is not buffered to its end.
+     */
+    private byte[] readUntil(InputStream in, byte[] separator) throws IOException {
+        int maxLength = (int) Math.min(Integer.MAX_VALUE, (long) this.maxSeparatedLength + separator.length);
+        if (in.markSupported()) {
+            in.mark(maxLength);
+            ByteArrayBuffer data = new ByteArrayBuffer(Math.min(SEARCH_CHUNK_SIZE, maxLength));
+            byte[] chunk = new byte[SEARCH_CHUNK_SIZE];
+            int readBytes;
+            while (data.length() < maxLength
+                    && (readBytes = in.read(chunk, 0, Math.min(chunk.length, maxLength - data.length()))) >= 0) {
+                // the separator may start in the bytes already searched
+                int from = Math.max(0, data.length() - separator.length + 1);
+                data.append(chunk, 0, readBytes);
+                int index = ByteArrayUtils.indexOf(data.array(), from, data.length(), separator);
+                if (index >= 0) {
+                    in.reset();
+                    in.skipNBytes(index + separator.length);
+                    return Arrays.copyOf(data.array(), index);
+                }
+            }
+            in.reset();
+            throw this.separatorNotFound(data.length() >= maxLength);
+        }
 
-        BytesConvertor<?> convertor = ByteConvertorRegistryFactory.defaultRegistry().getConvertor(fieldType);
+        ByteArrayBuffer data = new ByteArrayBuffer(Math.min(Math.max(in.available(), 16), maxLength));
+        int b;
+        while (data.length() < maxLength && (b = in.read()) >= 0) {
+            data.append(b);
+            int length = data.length() - separator.length;
+            if (length >= 0 && b == (separator[separator.length - 1] & 0xFF)
+                    && ByteArrayUtils.indexOf(data.array(), length, data.length(), separator) == length) {
+                data.setLength(length);
+                return data.toByteArray();
+            }
+        }
+        throw this.separatorNotFound(data.length() >= maxLength);
+    }
+
+    private IllegalArgumentException separatorNotFound(boolean tooLong) {
+        return new IllegalArgumentException(tooLong
+                ? "The separator of this property is not found within " + this.maxSeparatedLength + " bytes."
+                : "The separator of this property is not found.");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T convert(PropertyField propertyField, byte[] data) {
+        BytesConvertor<?> convertor = propertyField.getConvertor();
 
         if (convertor instanceof CharSequenceBytesConvertor) {
             CharSequenceBytesConvertor<?> charSequenceBytesConvertor = (CharSequenceBytesConvertor<?>) convertor;
-            Charset charset = Charset.forName(protoProperty.charset());
-            data = ByteArrayUtils.rightTrim(data);
-            return (T) charSequenceBytesConvertor.readFrom(data, charset);
+            // the trailing zeros are the padding of a fixed length property
+            int length = ByteArrayUtils.rightTrimIndex(data, 0, data.length, (byte) 0);
+            return (T) charSequenceBytesConvertor.readFrom(data, 0, length, propertyField.getCharset());
         }
 
-        return (T) convertor.readFrom(data);
+        // the bytes were just read for this property, the value may keep them
+        return (T) convertor.wrap(data);
     }
 }
@@ -1,71 +1,285 @@
 package org.eulerframework.proto.serializer;
 
-import org.eulerframework.proto.annotation.ProtoProperty;
 import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.codec.ProtoCodecSupport;
 import org.eulerframework.proto.util.PropertyField;
 import org.eulerframework.proto.util.ProtoContext;
 import org.eulerframework.proto.util.bytes.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
-import java.lang.reflect.Field;
-import java.nio.charset.Charset;
-import java.util.Optional;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+public class ByteArraySerializer extends AbstractSerializer implements Serializer, SerializerRegistryAware {
+    private SerializerRegistry serializerRegistry;
+
+    /**
+     * The registry resolving the {@link ProtoPropertyOption#lengthPrefixType()} is set when this is registered.
+     */
+    public ByteArraySerializer() {
+        this(null);
+    }
+
+    /**
+     * @param serializerRegistry resolves the {@link ProtoPropertyOption#lengthPrefixType()} of the
+     *                           {@link ProtoPropertyOption#LENGTH_MODE_PREFIX} properties
+     */
+    public ByteArraySerializer(SerializerRegistry serializerRegistry) {
+        this.serializerRegistry = serializerRegistry;
+    }
+
+    @Override
+    public SerializerRegistry getSerializerRegistry() {
+        return serializerRegistry;
+    }
+
+    @Override
+    public void setSerializerRegistry(SerializerRegistry serializerRegistry) {
+        this.serializerRegistry = serializerRegistry;
+    }
 
-public class ByteArraySerializer extends AbstractSerializer implements Serializer {
     @Override
     public void writeTo(ProtoContext ctx, Object value, OutputStream outputStream) throws IOException {
         throw new UnsupportedEncodingException();
     }
 
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, ByteBuffer buffer) throws IOException {
+        throw new UnsupportedEncodingException();
+    }
+
     @Override
     public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, OutputStream outputStream) throws IOException {
-        Field field = valueField.getField();
-        Class<?> fieldType = field.getType();
-        ProtoProperty protoProperty = valueField.getAnnotation();
-        ProtoPropertyOption protoPropertyOption = protoProperty.option();
-        String lengthMode = Optional.ofNullable(protoPropertyOption)
-                .map(ProtoPropertyOption::lengthMode)
-                .orElse(ProtoPropertyOption.LENGTH_MODE_FIXED);
-
-        int length = protoProperty.length();
+        String lengthMode = valueField.getLengthMode();
+
+        if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            // the value is written after its size, not copied to find its length
+            int count = contentSize(valueField, value);
+            Serializer prefixSerializer = this.getPrefixSerializer(valueField);
+            checkPrefix(valueField, prefixSerializer, count);
+            prefixSerializer.writeTo(ctx, count, outputStream);
+            writeContent(valueField, value, outputStream);
+            return;
+        }
+
+        if (ProtoPropertyOption.LENGTH_MODE_SEPARATOR.equals(lengthMode)) {
+            byte[] separator = ByteArrayDeserializer.getSeparator(valueField);
+            byte[] data = toBytes(valueField, value);
+            if (ByteArrayUtils.indexOf(data, separator) >= 0) {
+                throw new IllegalArgumentException("The value of this property contains its separator.");
+            }
+            outputStream.write(data);
+            outputStream.write(separator);
+            return;
+        }
+
+        int length = valueField.getLength();
         int count;
         if (value == null) {
             count = 0;
         } else {
-            if (CharSequence.class.isAssignableFrom(fieldType)) {
-                CharSequenceBytesConvertor<?> convertor = (CharSequenceBytesConvertor<?>) ByteConvertorRegistryFactory.defaultRegistry()
-                        .getConvertor(fieldType);
-                Charset charset = Charset.forName(protoProperty.charset());
-                count = convertor.writeTo(value, outputStream, charset);
+            BytesConvertor<?> convertor = valueField.getConvertor();
+            if (convertor instanceof CharSequenceBytesConvertor) {
+                count = ((CharSequenceBytesConvertor<?>) convertor).writeTo(value, outputStream, valueField.getCharset());
             } else {
-                BytesConvertor<?> convertor = ByteConvertorRegistryFactory.defaultRegistry()
-                        .getConvertor(fieldType);
+                checkFixedLength(convertor, length);
+                count = convertor.writeTo(value, outputStream);
+            }
+        }
 
-                if (FixedLengthBytesConvertor.class.isAssignableFrom(convertor.getClass())) {
-                    int actualLength = ((FixedLengthBytesConvertor<?>) convertor).length();
-                    if (actualLength > length) {
-                        throw new IndexOutOfBoundsException("The bytes length of this property is " + length +
-                                ", but " + actualLength + " bytes will be written.");
-                    }
-                }
+        int padding = padding(lengthMode, length, count);
+        if (padding > 0) {
+            outputStream.write(new byte[padding]);
+        }
+    }
 
-                count = convertor.writeTo(value, outputStream);
+    @Override
+    public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, ByteBuffer buffer) throws IOException {
+        String lengthMode = valueField.getLengthMode();
+
+        if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            Serializer prefixSerializer = this.getPrefixSerializer(valueField);
+            int prefixLength = ProtoCodecSupport.fixedLength(prefixSerializer);
+            if (prefixLength < 0) {
+                int count = contentSize(valueField, value);
+                checkPrefix(valueField, prefixSerializer, count);
+                prefixSerializer.writeTo(ctx, count, buffer);
+                writeContent(valueField, value, buffer);
+                return;
+            }
+
+            // write the value in place and fill the reserved prefix afterwards
+            int prefixPosition = buffer.position();
+            buffer.position(prefixPosition + prefixLength);
+            int count = writeContent(valueField, value, buffer);
+            checkPrefix(valueField, prefixSerializer, count);
+            prefixSerializer.writeTo(ctx, count, buffer.duplicate().position(prefixPosition));
+            return;
+        }
+
+        if (ProtoPropertyOption.LENGTH_MODE_SEPARATOR.equals(lengthMode)) {
+            byte[] separator = ByteArrayDeserializer.getSeparator(valueField);
+            int start = buffer.position();
+            writeContent(valueField, value, buffer);
+            if (ByteBufferUtils.indexOf(buffer.duplicate().flip().position(start), separator) >= 0) {
+                throw new IllegalArgumentException("The value of this property contains its separator.");
             }
+            buffer.put(separator);
+            return;
         }
 
+        int length = valueField.getLength();
+        if (value != null && !(valueField.getConvertor() instanceof CharSequenceBytesConvertor)) {
+            checkFixedLength(valueField.getConvertor(), length);
+        }
+        int count;
         if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
-            if (count > length) {
+            if (buffer.remaining() < length) {
+                throw new BufferOverflowException();
+            }
+            // a value longer than the property overflows the limit, not the buffer
+            int limit = buffer.limit();
+            buffer.limit(buffer.position() + length);
+            try {
+                count = writeContent(valueField, value, buffer);
+            } catch (BufferOverflowException e) {
                 throw new IndexOutOfBoundsException("The bytes length of this property is " + length +
-                        ", but " + count + " bytes was written.");
+                        ", but more bytes will be written.");
+            } finally {
+                buffer.limit(limit);
+            }
+        } else {
+            count = writeContent(valueField, value, buffer);
+        }
+
+        int padding = padding(lengthMode, length, count);
+        for (int i = 0; i < padding; i++) {
+            buffer.put((byte) 0);
+        }
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, Object value) throws IOException {
+        throw new UnsupportedEncodingException();
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, PropertyField valueField, Object value) throws IOException {
+        String lengthMode = valueField.getLengthMode();
+
+        if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+            return valueField.getLength();
+        }
+
+        int count = contentSize(valueField, value);
+        if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            return this.getPrefixSerializer(valueField).sizeOf(ctx, count) + count;
+        }
+        if (ProtoPropertyOption.LENGTH_MODE_SEPARATOR.equals(lengthMode)) {
+            return count + ByteArrayDeserializer.getSeparator(valueField).length;
+        }
+        return count;
+    }
+
+    private Serializer getPrefixSerializer(PropertyField valueField) {
+        if (this.serializerRegistry == null) {
+            throw new IllegalStateException("A SerializerRegistry is required to write the length prefix of a property.");
+        }
+        Serializer serializer = valueField.getLengthPrefixSerializer(this.serializerRegistry);
+        if (serializer == null) {
+            throw new IllegalArgumentException("Unsupported length prefix type: " + valueField.getLengthPrefixType());
+        }
+        return serializer;
+    }
+
+    private static void checkPrefix(PropertyField valueField, Serializer prefixSerializer, int count) {
+        int prefixLength = ProtoCodecSupport.fixedLength(prefixSerializer);
+        if (prefixLength > 0 && prefixLength < Integer.BYTES && count >>> (prefixLength << 3) != 0) {
+            throw new IndexOutOfBoundsException("The length prefix of this property is " + valueField.getLengthPrefixType() +
+                    ", but " + count + " bytes will be written.");
+        }
+    }
+
+    private static int writeContent(PropertyField valueField, Object value, OutputStream out) throws IOException {
+        if (value == null) {
+            return 0;
+        }
+
+        BytesConvertor<?> convertor = valueField.getConvertor();
+        if (convertor instanceof CharSequenceBytesConvertor) {
+            return ((CharSequenceBytesConvertor<?>) convertor).writeTo(value, out, valueField.getCharset());
+        }
+        return convertor.writeTo(value, out);
+    }
+
+    private static int writeContent(PropertyField valueField, Object value, ByteBuffer buffer) {
+        if (value == null) {
+            return 0;
+        }
+
+        BytesConvertor<?> convertor = valueField.getConvertor();
+        if (convertor instanceof CharSequenceBytesConvertor) {
+            return ((CharSequenceBytesConvertor<?>) convertor).writeTo(value, buffer, valueField.getCharset());
+        }
+        return convertor.writeTo(value, buffer);
+    }
+
+    private static int contentSize(PropertyField valueField, Object value) {
+        if (value == null) {
+            return 0;
+        }
+
+        BytesConvertor<?> convertor = valueField.getConvertor();
+        if (convertor instanceof CharSequenceBytesConvertor) {
+            return ((CharSequenceBytesConvertor<?>) convertor).sizeOf(value, valueField.getCharset());
+        }
+        return convertor.sizeOf(value);
+    }
+
+    private static byte[] toBytes(PropertyField valueField, Object value) throws IOException {
+        if (value == null) {
+            return new byte[0];
+        }
+        if (value instanceof byte[]) {
+            return (byte[]) value;
+        }
+
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            BytesConvertor<?> convertor = valueField.getConvertor();
+            if (convertor instanceof CharSequenceBytesConvertor) {
+                ((CharSequenceBytesConvertor<?>) convertor).writeTo(value, out, valueField.getCharset());
+            } else {
+                convertor.writeTo(value, out);
             }
+            return out.toByteArray();
+        }
+    }
 
-            if (count < length) {
-                for (int i = count; i < length; i++) {
-                    outputStream.write((byte) 0);
-                }
+    private static void checkFixedLength(BytesConvertor<?> convertor, int length) {
+        if (FixedLengthBytesConvertor.class.isAssignableFrom(convertor.getClass())) {
+            int actualLength = ((FixedLengthBytesConvertor<?>) convertor).length();
+            if (actualLength > length) {
+                throw new IndexOutOfBoundsException("The bytes length of this property is " + length +
+                        ", but " + actualLength + " bytes will be written.");
             }
         }
     }
+
+    /**
+     * @return the count of zero bytes to pad a fixed length property with
+     */
+    private static int padding(String lengthMode, int length, int count) {
+        if (!ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+            return 0;
+        }
+
+        if (count > length) {
+            throw new IndexOutOfBoundsException("The bytes length of this property is " + length +
+                    ", but " + count + " bytes was written.");
+        }
+        return length - count;
+    }
 }
@@ -17,15 +17,48 @@ package org.eulerframework.proto.serializer;
 
 import org.eulerframework.proto.field.ByteProtoField;
 import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.PropertyField;
 import org.eulerframework.proto.util.ProtoContext;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+public class ByteProtoFieldSerializer extends AbstractSerializer implements IntSerializer {
+    private static final ByteProtoField CONVERTOR = new ByteProtoField();
 
-public class ByteProtoFieldSerializer extends AbstractSerializer implements Serializer {
     @Override
     public void writeTo(ProtoContext ctx, Object value, OutputStream outputStream) throws IOException {
-        ByteProtoField field = new ByteProtoField(NumberUtils.toByte(value));
-        field.write(outputStream);
+        this.writeInt(ctx, NumberUtils.toByte(value), outputStream);
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, ByteBuffer buffer) {
+        this.writeInt(ctx, NumberUtils.toByte(value), buffer);
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, ByteBuffer buffer) {
+        this.writeTo(ctx, value, buffer);
+    }
+
+    @Override
+    public void writeInt(ProtoContext ctx, int value, OutputStream outputStream) throws IOException {
+        CONVERTOR.writeInt(value, outputStream);
+    }
+
+    @Override
+    public void writeInt(ProtoContext ctx, int value, ByteBuffer buffer) {
+        CONVERTOR.writeInt(value, buffer);
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, Object value) {
+        return 1;
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, PropertyField valueField, Object value) {
+        return 1;
     }
 }
@@ -18,14 +18,42 @@ package org.eulerframework.proto.serializer;
 import org.eulerframework.proto.node.ProtoNode;
 import org.eulerframework.proto.util.PropertyField;
 import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.ByteBufferInputStream;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 public interface Deserializer {
     <T> T read(ProtoContext ctx, InputStream in, Class<T> clazz) throws IOException;
 
     <T> T read(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException;
 
+    /**
+     * Reads from the position of the buffer and moves the position past the bytes read. The built-in
+     * deserializers read the buffer directly, the default implementation reads through an
+     * {@link InputStream} view of the buffer.
+     */
+    default <T> T read(ProtoContext ctx, ByteBuffer buffer, Class<T> clazz) throws IOException {
+        return this.read(ctx, new ByteBufferInputStream(buffer), clazz);
+    }
+
+    default <T> T read(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) throws IOException {
+        return this.read(ctx, new ByteBufferInputStream(buffer), propertyField);
+    }
+
+    /**
+     * Moves past a property left out by a {@link org.eulerframework.proto.schema.ProtoProjection} without
+     * converting it. The built-in deserializers skip by the length of the property, the default implementation
+     * reads the value and drops it.
+     */
+    default void skip(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException {
+        this.read(ctx, in, propertyField);
+    }
+
+    default void skip(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) throws IOException {
+        this.read(ctx, buffer, propertyField);
+    }
+
     ProtoNode newProtoNode(ProtoNode parent);
 }
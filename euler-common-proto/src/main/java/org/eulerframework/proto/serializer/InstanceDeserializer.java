@@ -0,0 +1,38 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.proto.util.ProtoContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Deserializer} of objects that can also read into an existing instance, so a message and its
+ * nested objects are reused instead of allocated for every message.
+ */
+public interface InstanceDeserializer extends Deserializer {
+    /**
+     * Reads the properties of the target in place. A nested object already set on the target is read in place
+     * too, a property not in the data, or left out by the projection, keeps its value.
+     *
+     * @return the target
+     */
+    <T> T readInto(ProtoContext ctx, InputStream in, T target) throws IOException;
+
+    <T> T readInto(ProtoContext ctx, ByteBuffer buffer, T target) throws IOException;
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.proto.util.ProtoContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Deserializer} of a number of at most 4 bytes that can also be read as a primitive {@code int},
+ * so a primitive property is set without boxing.
+ */
+public interface IntDeserializer extends Deserializer {
+    /**
+     * @return the number read, a number shorter than 4 bytes is unsigned
+     */
+    int readInt(ProtoContext ctx, InputStream in) throws IOException;
+
+    int readInt(ProtoContext ctx, ByteBuffer buffer);
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.proto.util.ProtoContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link Serializer} of a number of at most 4 bytes that can also write a primitive {@code int},
+ * so a primitive property is written without boxing.
+ */
+public interface IntSerializer extends Serializer {
+    /**
+     * Writes the lowest bytes of the value, as many as the serializer writes for any value.
+     */
+    void writeInt(ProtoContext ctx, int value, OutputStream outputStream) throws IOException;
+
+    void writeInt(ProtoContext ctx, int value, ByteBuffer buffer);
+}
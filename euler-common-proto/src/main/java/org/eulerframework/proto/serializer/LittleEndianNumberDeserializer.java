@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.ByteBufferInputStream;
+import org.eulerframework.proto.util.bytes.ByteBufferUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a Little-Endian unsigned number of 2 or 4 bytes, a {@link org.eulerframework.proto.util.ProtoType#WORD_LE}
+ * or a {@link org.eulerframework.proto.util.ProtoType#DWORD_LE}.
+ */
+public class LittleEndianNumberDeserializer extends AbstractDeserializer implements IntDeserializer {
+    private final int length;
+
+    /**
+     * @param length the byte count of the numbers, {@code 2} or {@code 4}
+     */
+    public LittleEndianNumberDeserializer(int length) {
+        this.length = checkLength(length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public <T> T read(ProtoContext ctx, InputStream in, Class<T> clazz) throws IOException {
+        return this.toValue(this.readInt(ctx, in), clazz);
+    }
+
+    @Override
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, Class<T> clazz) {
+        return this.toValue(this.readInt(ctx, buffer), clazz);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) {
+        return (T) this.read(ctx, buffer, propertyField.getField().getType());
+    }
+
+    @Override
+    public int readInt(ProtoContext ctx, InputStream in) throws IOException {
+        if (in instanceof ByteBufferInputStream) {
+            return this.readInt(ctx, ((ByteBufferInputStream) in).getBuffer());
+        }
+
+        int value = 0;
+        for (int i = 0; i < this.length; i++) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IllegalStateException("Except " + this.length + " bytes but only " + i + " bytes read.");
+            }
+            value |= b << (i << 3);
+        }
+        return value;
+    }
+
+    @Override
+    public int readInt(ProtoContext ctx, ByteBuffer buffer) {
+        if (buffer.remaining() < this.length) {
+            throw new IllegalStateException("Not enough bytes to read, abort.");
+        }
+        return this.length == Short.BYTES ? ByteBufferUtils.readShortLE(buffer) & 0xFFFF : ByteBufferUtils.readIntLE(buffer);
+    }
+
+    @Override
+    public void skip(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException {
+        if (in.available() < this.length) {
+            throw new IllegalStateException("Not enough bytes to read, abort.");
+        }
+        in.skipNBytes(this.length);
+    }
+
+    @Override
+    public void skip(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) {
+        if (buffer.remaining() < this.length) {
+            throw new IllegalStateException("Not enough bytes to read, abort.");
+        }
+        buffer.position(buffer.position() + this.length);
+    }
+
+    private <T> T toValue(int value, Class<T> clazz) {
+        // a WORD is converted as a short, so it is unsigned in a wider type
+        return this.length == Short.BYTES
+                ? NumberUtils.toUnsignedValue((short) value, clazz)
+                : NumberUtils.toUnsignedValue(value, clazz);
+    }
+
+    static int checkLength(int length) {
+        if (length != Short.BYTES && length != Integer.BYTES) {
+            throw new IllegalArgumentException("A Little-Endian number is 2 or 4 bytes: " + length);
+        }
+        return length;
+    }
+}
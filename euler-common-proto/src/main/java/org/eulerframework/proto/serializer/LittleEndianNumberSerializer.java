@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.ByteBufferUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes a Little-Endian unsigned number of 2 or 4 bytes, a {@link org.eulerframework.proto.util.ProtoType#WORD_LE}
+ * or a {@link org.eulerframework.proto.util.ProtoType#DWORD_LE}.
+ */
+public class LittleEndianNumberSerializer extends AbstractSerializer implements IntSerializer {
+    private final int length;
+
+    /**
+     * @param length the byte count of the numbers, {@code 2} or {@code 4}
+     */
+    public LittleEndianNumberSerializer(int length) {
+        this.length = LittleEndianNumberDeserializer.checkLength(length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, OutputStream outputStream) throws IOException {
+        this.writeInt(ctx, this.toInt(value), outputStream);
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, ByteBuffer buffer) {
+        this.writeInt(ctx, this.toInt(value), buffer);
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, ByteBuffer buffer) {
+        this.writeTo(ctx, value, buffer);
+    }
+
+    @Override
+    public void writeInt(ProtoContext ctx, int value, OutputStream outputStream) throws IOException {
+        for (int i = 0; i < this.length; i++) {
+            outputStream.write(value >>> (i << 3));
+        }
+    }
+
+    @Override
+    public void writeInt(ProtoContext ctx, int value, ByteBuffer buffer) {
+        if (this.length == Short.BYTES) {
+            ByteBufferUtils.writeShortLE(buffer, (short) value);
+        } else {
+            ByteBufferUtils.writeIntLE(buffer, value);
+        }
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, Object value) {
+        return this.length;
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, PropertyField valueField, Object value) {
+        return this.length;
+    }
+
+    private int toInt(Object value) {
+        return this.length == Short.BYTES ? NumberUtils.toUnsignedShort(value) : NumberUtils.toUnsignedInt(value);
+    }
+}
@@ -16,39 +16,151 @@
 package org.eulerframework.proto.serializer;
 
 import org.eulerframework.common.util.JavaObjectUtils;
-import org.eulerframework.proto.annotation.ByteArrayObject;
+import org.eulerframework.proto.codec.ProtoCodec;
+import org.eulerframework.proto.codec.ProtoCodecCompiler;
 import org.eulerframework.proto.field.*;
 import org.eulerframework.proto.node.ObjectProtoNode;
 import org.eulerframework.proto.node.ProtoNode;
+import org.eulerframework.proto.schema.ProtoProjection;
+import org.eulerframework.proto.schema.ProtoSchema;
+import org.eulerframework.proto.util.PropertyField;
 import org.eulerframework.proto.util.ProtoContext;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
-public class ObjectProtoFieldDeserializer extends AbstractDeserializer implements Deserializer {
+public class ObjectProtoFieldDeserializer extends AbstractDeserializer implements InstanceDeserializer {
     private final SerializerRegistry serializerRegistry;
+    private final ProtoCodecCompiler codecCompiler;
 
     public ObjectProtoFieldDeserializer(SerializerRegistry serializerRegistry) {
+        this(serializerRegistry, null);
+    }
+
+    /**
+     * @param codecCompiler if not {@code null}, objects are read by the compiled codecs whenever the
+     *                      {@link ProtoNode} tree is not requested
+     */
+    public ObjectProtoFieldDeserializer(SerializerRegistry serializerRegistry, ProtoCodecCompiler codecCompiler) {
         this.serializerRegistry = serializerRegistry;
+        this.codecCompiler = codecCompiler;
     }
 
     @Override
     public <T> T read(ProtoContext ctx, InputStream in, Class<T> clazz) throws IOException {
-        ByteArrayObject byteArrayObject = clazz.getAnnotation(ByteArrayObject.class);
-        if (byteArrayObject == null) {
+        ProtoCodec<T> codec = this.getCodec(ctx, clazz);
+        if (codec != null) {
+            T value = codec.newInstance();
+            codec.read(ctx, in, value);
+            return value;
+        }
+        return this.readFields(ctx, in, clazz, null);
+    }
+
+    @Override
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, Class<T> clazz) throws IOException {
+        ProtoCodec<T> codec = this.getCodec(ctx, clazz);
+        if (codec != null) {
+            T value = codec.newInstance();
+            codec.read(ctx, buffer, value);
+            return value;
+        }
+        return this.readFields(ctx, buffer, clazz, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A record, or another class created by its {@link org.eulerframework.proto.schema.ProtoConstructor}, can
+     * not be read in place, a new instance is returned instead.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readInto(ProtoContext ctx, InputStream in, T target) throws IOException {
+        Class<T> type = (Class<T>) target.getClass();
+        ProtoCodec<T> codec = this.getCodec(ctx, type);
+        if (codec != null) {
+            codec.read(ctx, in, target);
+            return target;
+        }
+        return this.readFields(ctx, in, type, target);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T readInto(ProtoContext ctx, ByteBuffer buffer, T target) throws IOException {
+        Class<T> type = (Class<T>) target.getClass();
+        ProtoCodec<T> codec = this.getCodec(ctx, type);
+        if (codec != null) {
+            codec.read(ctx, buffer, target);
+            return target;
+        }
+        return this.readFields(ctx, buffer, type, target);
+    }
+
+    /**
+     * Reads through the reflective fields into the target, or into a new instance if the target is {@code null}.
+     */
+    private <T> T readFields(ProtoContext ctx, InputStream in, Class<T> type, T target) throws IOException {
+        ProtoSchema schema = ProtoSchema.forClass(type, ctx.getVersion());
+        if (!schema.isByteArrayObject()) {
             ObjectField<T> field = ObjectField.newInstance(ctx, (ObjectProtoNode) ctx.getPropertyNode());
             field.setSerializerRegistry(this.serializerRegistry);
-            field.read(JavaObjectUtils.newInstance(clazz));
+            if (target == null) {
+                field.readNew(type);
+            } else {
+                field.read(target);
+            }
             field.read(in);
             return field.value();
         } else {
-            ByteArrayObjectField<T> field = ByteArrayObjectField.newInstance(ctx, byteArrayObject.length(), (ObjectProtoNode) ctx.getPropertyNode());
-            field.read(JavaObjectUtils.newInstance(clazz));
+            ByteArrayObjectField<T> field = ByteArrayObjectField.newInstance(ctx, schema.getByteArrayObjectLength(), (ObjectProtoNode) ctx.getPropertyNode());
+            field.read(target == null ? JavaObjectUtils.newInstance(type) : target);
             field.read(in);
             return field.value();
         }
     }
 
+    private <T> T readFields(ProtoContext ctx, ByteBuffer buffer, Class<T> type, T target) throws IOException {
+        ProtoSchema schema = ProtoSchema.forClass(type, ctx.getVersion());
+        if (!schema.isByteArrayObject()) {
+            ObjectField<T> field = ObjectField.newInstance(ctx, (ObjectProtoNode) ctx.getPropertyNode());
+            field.setSerializerRegistry(this.serializerRegistry);
+            if (target == null) {
+                field.readNew(type);
+            } else {
+                field.read(target);
+            }
+            field.read(buffer);
+            return field.value();
+        } else {
+            ByteArrayObjectField<T> field = ByteArrayObjectField.newInstance(ctx, schema.getByteArrayObjectLength(), (ObjectProtoNode) ctx.getPropertyNode());
+            field.read(target == null ? JavaObjectUtils.newInstance(type) : target);
+            field.read(buffer);
+            return field.value();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) throws IOException {
+        return (T) this.read(ctx, buffer, propertyField.getField().getType());
+    }
+
+    /**
+     * @return the compiled codec of the class, or {@code null} if the node tree is built or the properties of the
+     * class are projected, as a codec reads every property
+     */
+    private <T> ProtoCodec<T> getCodec(ProtoContext ctx, Class<T> clazz) {
+        ProtoProjection projection = ctx.getProjection();
+        if (this.codecCompiler != null && ctx.getPropertyNode() == null
+                && (projection == null || !projection.appliesTo(clazz))) {
+            return this.codecCompiler.getCodec(clazz, ctx.getVersion());
+        }
+        return null;
+    }
+
     @Override
     public ProtoNode newProtoNode(ProtoNode parent) {
         return ProtoNode.newObjectNode(parent);
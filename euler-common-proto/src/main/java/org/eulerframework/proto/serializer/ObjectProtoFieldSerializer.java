@@ -15,31 +15,98 @@
  */
 package org.eulerframework.proto.serializer;
 
-import org.eulerframework.proto.annotation.ByteArrayObject;
+import org.eulerframework.proto.codec.ProtoCodec;
+import org.eulerframework.proto.codec.ProtoCodecCompiler;
 import org.eulerframework.proto.field.ByteArrayObjectField;
 import org.eulerframework.proto.field.ObjectField;
+import org.eulerframework.proto.schema.ProtoSchema;
+import org.eulerframework.proto.util.PropertyField;
 import org.eulerframework.proto.util.ProtoContext;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public class ObjectProtoFieldSerializer extends AbstractSerializer implements Serializer {
     private final SerializerRegistry serializerRegistry;
+    private final ProtoCodecCompiler codecCompiler;
 
     public ObjectProtoFieldSerializer(SerializerRegistry serializerRegistry) {
+        this(serializerRegistry, null);
+    }
+
+    /**
+     * @param codecCompiler if not {@code null}, objects are written by the compiled codecs
+     */
+    public ObjectProtoFieldSerializer(SerializerRegistry serializerRegistry, ProtoCodecCompiler codecCompiler) {
         this.serializerRegistry = serializerRegistry;
+        this.codecCompiler = codecCompiler;
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public void writeTo(ProtoContext ctx, Object value, OutputStream outputStream) throws IOException {
-        ByteArrayObject byteArrayObject = value.getClass().getAnnotation(ByteArrayObject.class);
-        if (byteArrayObject == null) {
+        if (this.codecCompiler != null) {
+            ProtoCodec<Object> codec = (ProtoCodec<Object>) this.codecCompiler.getCodec(value.getClass(), ctx.getVersion());
+            if (codec != null) {
+                codec.write(ctx, value, outputStream);
+                return;
+            }
+        }
+
+        ProtoSchema schema = ProtoSchema.forClass(value.getClass(), ctx.getVersion());
+        if (!schema.isByteArrayObject()) {
             ObjectField<?> objectField = ObjectField.valueOf(ctx, value);
             objectField.setSerializerRegistry(this.serializerRegistry);
             objectField.write(outputStream);
         } else {
-            ByteArrayObjectField<?> objectField = ByteArrayObjectField.valueOf(ctx, value, byteArrayObject.length());
+            ByteArrayObjectField<?> objectField = ByteArrayObjectField.valueOf(ctx, value, schema.getByteArrayObjectLength());
             objectField.write(outputStream);
         }
     }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void writeTo(ProtoContext ctx, Object value, ByteBuffer buffer) throws IOException {
+        if (this.codecCompiler != null) {
+            ProtoCodec<Object> codec = (ProtoCodec<Object>) this.codecCompiler.getCodec(value.getClass(), ctx.getVersion());
+            if (codec != null) {
+                codec.write(ctx, value, buffer);
+                return;
+            }
+        }
+
+        ProtoSchema schema = ProtoSchema.forClass(value.getClass(), ctx.getVersion());
+        if (!schema.isByteArrayObject()) {
+            ObjectField<?> objectField = ObjectField.valueOf(ctx, value);
+            objectField.setSerializerRegistry(this.serializerRegistry);
+            objectField.write(buffer);
+        } else {
+            ByteArrayObjectField<?> objectField = ByteArrayObjectField.valueOf(ctx, value, schema.getByteArrayObjectLength());
+            objectField.write(buffer);
+        }
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, ByteBuffer buffer) throws IOException {
+        this.writeTo(ctx, value, buffer);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public int sizeOf(ProtoContext ctx, Object value) throws IOException {
+        if (this.codecCompiler != null) {
+            ProtoCodec<Object> codec = (ProtoCodec<Object>) this.codecCompiler.getCodec(value.getClass(), ctx.getVersion());
+            if (codec != null) {
+                return codec.sizeOf(ctx, value);
+            }
+        }
+
+        return ProtoSchema.forClass(value.getClass(), ctx.getVersion()).sizeOf(ctx, value, this.serializerRegistry);
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, PropertyField valueField, Object value) throws IOException {
+        return this.sizeOf(ctx, value);
+    }
 }
@@ -0,0 +1,342 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.codec.ProtoCodecSupport;
+import org.eulerframework.proto.node.ProtoNode;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.ByteBufferInputStream;
+import org.eulerframework.proto.util.bytes.ByteBufferUtils;
+import org.eulerframework.proto.util.bytes.PrimitiveArrays;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the {@link org.eulerframework.proto.util.ProtoType#ARRAY} properties, a {@link List} or an array of
+ * elements read by the deserializer of the
+ * {@link org.eulerframework.proto.annotation.ProtoProperty#elementType() element type}. The elements are
+ * <ul>
+ *     <li>{@link ProtoPropertyOption#LENGTH_MODE_FIXED}: as many as the length of the property</li>
+ *     <li>{@link ProtoPropertyOption#LENGTH_MODE_COUNT_PREFIX}: as many as the count prefix</li>
+ *     <li>{@link ProtoPropertyOption#LENGTH_MODE_PREFIX}: in as many bytes as the length prefix</li>
+ *     <li>{@link ProtoPropertyOption#LENGTH_MODE_ALL_BYTES}: in the remaining bytes</li>
+ * </ul>
+ * A {@code byte[]}, {@code short[]}, {@code int[]} or {@code long[]} of built-in numbers is read in bulk by
+ * {@link PrimitiveArrays}, sized once from the count.
+ */
+public class RepeatedPropertyDeserializer extends AbstractDeserializer implements Deserializer, SerializerRegistryAware {
+    private SerializerRegistry serializerRegistry;
+
+    /**
+     * The registry resolving the element and the prefix types is set when this is registered.
+     */
+    public RepeatedPropertyDeserializer() {
+        this(null);
+    }
+
+    /**
+     * @param serializerRegistry resolves the {@link org.eulerframework.proto.annotation.ProtoProperty#elementType()}
+     *                           and the {@link ProtoPropertyOption#lengthPrefixType()} of the properties
+     */
+    public RepeatedPropertyDeserializer(SerializerRegistry serializerRegistry) {
+        this.serializerRegistry = serializerRegistry;
+    }
+
+    @Override
+    public SerializerRegistry getSerializerRegistry() {
+        return serializerRegistry;
+    }
+
+    @Override
+    public void setSerializerRegistry(SerializerRegistry serializerRegistry) {
+        this.serializerRegistry = serializerRegistry;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T read(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException {
+        if (in instanceof ByteBufferInputStream) {
+            // the compiled codecs read a buffer by a stream, the elements are read from the buffer behind it
+            return this.read(ctx, ((ByteBufferInputStream) in).getBuffer(), propertyField);
+        }
+
+        String lengthMode = propertyField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            int length = checkPrefix(this.getPrefixDeserializer(propertyField).read(ctx, in, Long.class));
+            return (T) this.readElements(ctx, ByteBuffer.wrap(readFixedLength(in, length)), propertyField, -1);
+        }
+        if (ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
+            return (T) this.readElements(ctx, ByteBuffer.wrap(in.readAllBytes()), propertyField, -1);
+        }
+
+        int count = this.readCount(ctx, in, propertyField);
+        Deserializer elementDeserializer = this.getElementDeserializer(propertyField);
+        int width = bulkWidth(propertyField, elementDeserializer);
+        if (width > 0) {
+            if ((long) count * width > in.available()) {
+                throw new IllegalArgumentException("Not enough bytes to read.");
+            }
+            byte[] data = readFixedLength(in, count * width);
+            return (T) PrimitiveArrays.read(data, 0, count, width, propertyField.getElementClass());
+        }
+
+        // a corrupt count must not allocate more elements than the bytes left
+        List<Object> elements = new ArrayList<>(Math.min(count, in.available()));
+        Class<?> elementClass = boxed(propertyField.getElementClass());
+        ProtoNode propertyNode = ctx.getPropertyNode();
+        ctx.setPropertyNode(null);
+        try {
+            for (int i = 0; i < count; i++) {
+                elements.add(elementDeserializer.read(ctx, in, elementClass));
+            }
+        } finally {
+            ctx.setPropertyNode(propertyNode);
+        }
+        return (T) toValue(propertyField, elements);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) throws IOException {
+        String lengthMode = propertyField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            int length = checkPrefix(this.getPrefixDeserializer(propertyField).read(ctx, buffer, Long.class));
+            return (T) this.readElements(ctx, readSlice(buffer, length), propertyField, -1);
+        }
+        if (ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
+            return (T) this.readElements(ctx, readSlice(buffer, buffer.remaining()), propertyField, -1);
+        }
+        return (T) this.readElements(ctx, buffer, propertyField, this.readCount(ctx, buffer, propertyField));
+    }
+
+    /**
+     * Skips the bytes of the property by its length prefix, or by its count of fixed length elements. The
+     * elements of variable length without a length prefix are read and dropped.
+     */
+    @Override
+    public void skip(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException {
+        if (in instanceof ByteBufferInputStream) {
+            this.skip(ctx, ((ByteBufferInputStream) in).getBuffer(), propertyField);
+            return;
+        }
+
+        String lengthMode = propertyField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            skipFixedLength(in, checkPrefix(this.getPrefixDeserializer(propertyField).read(ctx, in, Long.class)));
+            return;
+        }
+        if (ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return;
+        }
+
+        int length = ProtoCodecSupport.fixedLength(this.getElementDeserializer(propertyField));
+        if (length <= 0) {
+            this.read(ctx, in, propertyField);
+            return;
+        }
+        skipFixedLength(in, Math.multiplyExact(this.readCount(ctx, in, propertyField), length));
+    }
+
+    @Override
+    public void skip(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) throws IOException {
+        String lengthMode = propertyField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            skipFixedLength(buffer, checkPrefix(this.getPrefixDeserializer(propertyField).read(ctx, buffer, Long.class)));
+            return;
+        }
+        if (ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        int length = ProtoCodecSupport.fixedLength(this.getElementDeserializer(propertyField));
+        if (length <= 0) {
+            this.read(ctx, buffer, propertyField);
+            return;
+        }
+        skipFixedLength(buffer, Math.multiplyExact(this.readCount(ctx, buffer, propertyField), length));
+    }
+
+    /**
+     * Reads {@code count} elements from the buffer, or every element up to its limit if {@code count} is negative.
+     */
+    private Object readElements(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField, int count) throws IOException {
+        Deserializer elementDeserializer = this.getElementDeserializer(propertyField);
+        int width = bulkWidth(propertyField, elementDeserializer);
+        if (width > 0) {
+            if (count < 0) {
+                if (buffer.remaining() % width != 0) {
+                    throw new IllegalArgumentException("The length of this property is " + buffer.remaining() +
+                            " bytes, not a multiple of its element length " + width + ".");
+                }
+                count = buffer.remaining() / width;
+            } else if (buffer.remaining() / width < count) {
+                throw new IllegalArgumentException("Not enough bytes to read.");
+            }
+            return PrimitiveArrays.read(buffer, count, width, propertyField.getElementClass());
+        }
+
+        List<Object> elements = new ArrayList<>(count < 0 ? 10 : Math.min(count, buffer.remaining()));
+        Class<?> elementClass = boxed(propertyField.getElementClass());
+        // the elements are values of this property, they add no property to its node
+        ProtoNode propertyNode = ctx.getPropertyNode();
+        ctx.setPropertyNode(null);
+        try {
+            if (count < 0) {
+                while (buffer.hasRemaining()) {
+                    int position = buffer.position();
+                    elements.add(elementDeserializer.read(ctx, buffer, elementClass));
+                    if (buffer.position() == position) {
+                        throw new IllegalArgumentException("An element of this property has no bytes.");
+                    }
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    elements.add(elementDeserializer.read(ctx, buffer, elementClass));
+                }
+            }
+        } finally {
+            ctx.setPropertyNode(propertyNode);
+        }
+        return toValue(propertyField, elements);
+    }
+
+    private int readCount(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException {
+        String lengthMode = propertyField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+            return fixedCount(propertyField);
+        }
+        if (ProtoPropertyOption.LENGTH_MODE_COUNT_PREFIX.equals(lengthMode)) {
+            return checkPrefix(this.getPrefixDeserializer(propertyField).read(ctx, in, Long.class));
+        }
+        throw new IllegalArgumentException("Unsupported property length mode: " + lengthMode);
+    }
+
+    private int readCount(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) throws IOException {
+        String lengthMode = propertyField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+            return fixedCount(propertyField);
+        }
+        if (ProtoPropertyOption.LENGTH_MODE_COUNT_PREFIX.equals(lengthMode)) {
+            return checkPrefix(this.getPrefixDeserializer(propertyField).read(ctx, buffer, Long.class));
+        }
+        throw new IllegalArgumentException("Unsupported property length mode: " + lengthMode);
+    }
+
+    private Deserializer getElementDeserializer(PropertyField propertyField) {
+        Deserializer deserializer = propertyField.getElementDeserializer(this.checkRegistry());
+        if (deserializer == null) {
+            throw new IllegalArgumentException("Unsupported element type: " + propertyField.getElementType());
+        }
+        return deserializer;
+    }
+
+    private Deserializer getPrefixDeserializer(PropertyField propertyField) {
+        Deserializer deserializer = propertyField.getLengthPrefixDeserializer(this.checkRegistry());
+        if (deserializer == null) {
+            throw new IllegalArgumentException("Unsupported length prefix type: " + propertyField.getLengthPrefixType());
+        }
+        return deserializer;
+    }
+
+    private SerializerRegistry checkRegistry() {
+        if (this.serializerRegistry == null) {
+            throw new IllegalStateException("A SerializerRegistry is required to read the elements of a property.");
+        }
+        return this.serializerRegistry;
+    }
+
+    /**
+     * @return the byte length of the elements read in bulk by {@link PrimitiveArrays}, or {@code -1} if the
+     * elements are read one by one
+     */
+    static int bulkWidth(PropertyField propertyField, Deserializer elementDeserializer) {
+        Class<?> elementClass = propertyField.getElementClass();
+        return elementClass.isPrimitive() && PrimitiveArrays.isSupported(elementClass)
+                ? ProtoCodecSupport.fixedLength(elementDeserializer) : -1;
+    }
+
+    static int fixedCount(PropertyField propertyField) {
+        int count = propertyField.getLength();
+        if (count < 0) {
+            throw new IllegalArgumentException("The element count of this property is unknown.");
+        }
+        return count;
+    }
+
+    /**
+     * @param prefix the count or length prefix, any {@link Number} as a custom prefix deserializer may return
+     *               another type
+     */
+    private static int checkPrefix(Object prefix) {
+        long length = ((Number) prefix).longValue();
+        if (length < 0 || length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid length prefix: " + length);
+        }
+        return (int) length;
+    }
+
+    private static byte[] readFixedLength(InputStream in, int length) throws IOException {
+        if (in.available() < length) {
+            throw new IllegalArgumentException("Not enough bytes to read.");
+        }
+
+        byte[] data = new byte[length];
+        int readBytes;
+        if ((readBytes = in.readNBytes(data, 0, length)) < data.length) {
+            throw new IOException("This property need " + data.length + " bytes, but only " + readBytes + " bytes read.");
+        }
+        return data;
+    }
+
+    private static ByteBuffer readSlice(ByteBuffer buffer, int length) {
+        if (buffer.remaining() < length) {
+            throw new IllegalArgumentException("Not enough bytes to read.");
+        }
+        return ByteBufferUtils.readSlice(buffer, length);
+    }
+
+    private static Class<?> boxed(Class<?> type) {
+        return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+    }
+
+    private static Object toValue(PropertyField propertyField, List<Object> elements) {
+        Class<?> type = propertyField.getField().getType();
+        if (!type.isArray()) {
+            return elements;
+        }
+
+        Class<?> componentType = type.getComponentType();
+        if (!componentType.isPrimitive()) {
+            return elements.toArray((Object[]) Array.newInstance(componentType, elements.size()));
+        }
+        Object array = Array.newInstance(componentType, elements.size());
+        for (int i = 0; i < elements.size(); i++) {
+            Array.set(array, i, elements.get(i));
+        }
+        return array;
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.codec.ProtoCodecSupport;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.PrimitiveArrays;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Writes the {@link org.eulerframework.proto.util.ProtoType#ARRAY} properties, see
+ * {@link RepeatedPropertyDeserializer} for the length modes. A {@code null} value has no elements.
+ */
+public class RepeatedPropertySerializer extends AbstractSerializer implements Serializer, SerializerRegistryAware {
+    private SerializerRegistry serializerRegistry;
+
+    /**
+     * The registry resolving the element and the prefix types is set when this is registered.
+     */
+    public RepeatedPropertySerializer() {
+        this(null);
+    }
+
+    /**
+     * @param serializerRegistry resolves the {@link org.eulerframework.proto.annotation.ProtoProperty#elementType()}
+     *                           and the {@link ProtoPropertyOption#lengthPrefixType()} of the properties
+     */
+    public RepeatedPropertySerializer(SerializerRegistry serializerRegistry) {
+        this.serializerRegistry = serializerRegistry;
+    }
+
+    @Override
+    public SerializerRegistry getSerializerRegistry() {
+        return serializerRegistry;
+    }
+
+    @Override
+    public void setSerializerRegistry(SerializerRegistry serializerRegistry) {
+        this.serializerRegistry = serializerRegistry;
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, OutputStream outputStream) throws IOException {
+        throw new UnsupportedEncodingException();
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, ByteBuffer buffer) throws IOException {
+        throw new UnsupportedEncodingException();
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, OutputStream outputStream) throws IOException {
+        Serializer elementSerializer = this.getElementSerializer(valueField);
+        int count = count(value);
+        String lengthMode = valueField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+            checkFixedCount(valueField, count);
+        } else if (ProtoPropertyOption.LENGTH_MODE_COUNT_PREFIX.equals(lengthMode)) {
+            this.writePrefix(ctx, valueField, count, outputStream);
+        } else if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            // the elements are written after their size, not copied to find their length
+            this.writePrefix(ctx, valueField, contentSize(ctx, valueField, elementSerializer, value, count), outputStream);
+        } else if (!ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
+            throw new IllegalArgumentException("Unsupported property length mode: " + lengthMode);
+        }
+
+        if (count == 0) {
+            return;
+        }
+        int width = bulkWidth(valueField, elementSerializer);
+        if (width > 0) {
+            byte[] data = new byte[Math.multiplyExact(count, width)];
+            PrimitiveArrays.write(value, width, data, 0);
+            outputStream.write(data);
+            return;
+        }
+        for (Object element : elements(value)) {
+            elementSerializer.writeTo(ctx, element, outputStream);
+        }
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, ByteBuffer buffer) throws IOException {
+        Serializer elementSerializer = this.getElementSerializer(valueField);
+        int count = count(value);
+        String lengthMode = valueField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            Serializer prefixSerializer = this.getPrefixSerializer(valueField);
+            int prefixLength = ProtoCodecSupport.fixedLength(prefixSerializer);
+            if (prefixLength > 0) {
+                // write the elements in place and fill the reserved prefix afterwards
+                int prefixPosition = buffer.position();
+                buffer.position(prefixPosition + prefixLength);
+                writeElements(ctx, valueField, elementSerializer, value, count, buffer);
+                int length = buffer.position() - prefixPosition - prefixLength;
+                checkPrefix(valueField, prefixSerializer, length);
+                prefixSerializer.writeTo(ctx, length, buffer.duplicate().position(prefixPosition));
+                return;
+            }
+            this.writePrefix(ctx, valueField, contentSize(ctx, valueField, elementSerializer, value, count), buffer);
+        } else if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+            checkFixedCount(valueField, count);
+        } else if (ProtoPropertyOption.LENGTH_MODE_COUNT_PREFIX.equals(lengthMode)) {
+            this.writePrefix(ctx, valueField, count, buffer);
+        } else if (!ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)) {
+            throw new IllegalArgumentException("Unsupported property length mode: " + lengthMode);
+        }
+        writeElements(ctx, valueField, elementSerializer, value, count, buffer);
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, Object value) throws IOException {
+        throw new UnsupportedEncodingException();
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, PropertyField valueField, Object value) throws IOException {
+        int count = count(value);
+        int size = contentSize(ctx, valueField, this.getElementSerializer(valueField), value, count);
+        String lengthMode = valueField.getLengthMode();
+        if (ProtoPropertyOption.LENGTH_MODE_FIXED.equals(lengthMode)) {
+            checkFixedCount(valueField, count);
+            return size;
+        }
+        if (ProtoPropertyOption.LENGTH_MODE_COUNT_PREFIX.equals(lengthMode)) {
+            return Math.addExact(this.getPrefixSerializer(valueField).sizeOf(ctx, count), size);
+        }
+        if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+            return Math.addExact(this.getPrefixSerializer(valueField).sizeOf(ctx, size), size);
+        }
+        return size;
+    }
+
+    private void writePrefix(ProtoContext ctx, PropertyField valueField, int prefix, OutputStream outputStream) throws IOException {
+        Serializer prefixSerializer = this.getPrefixSerializer(valueField);
+        checkPrefix(valueField, prefixSerializer, prefix);
+        prefixSerializer.writeTo(ctx, prefix, outputStream);
+    }
+
+    private void writePrefix(ProtoContext ctx, PropertyField valueField, int prefix, ByteBuffer buffer) throws IOException {
+        Serializer prefixSerializer = this.getPrefixSerializer(valueField);
+        checkPrefix(valueField, prefixSerializer, prefix);
+        prefixSerializer.writeTo(ctx, prefix, buffer);
+    }
+
+    private Serializer getElementSerializer(PropertyField valueField) {
+        Serializer serializer = valueField.getElementSerializer(this.checkRegistry());
+        if (serializer == null) {
+            throw new IllegalArgumentException("Unsupported element type: " + valueField.getElementType());
+        }
+        return serializer;
+    }
+
+    private Serializer getPrefixSerializer(PropertyField valueField) {
+        Serializer serializer = valueField.getLengthPrefixSerializer(this.checkRegistry());
+        if (serializer == null) {
+            throw new IllegalArgumentException("Unsupported length prefix type: " + valueField.getLengthPrefixType());
+        }
+        return serializer;
+    }
+
+    private SerializerRegistry checkRegistry() {
+        if (this.serializerRegistry == null) {
+            throw new IllegalStateException("A SerializerRegistry is required to write the elements of a property.");
+        }
+        return this.serializerRegistry;
+    }
+
+    private static void writeElements(ProtoContext ctx, PropertyField valueField, Serializer elementSerializer,
+                                      Object value, int count, ByteBuffer buffer) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        int width = bulkWidth(valueField, elementSerializer);
+        if (width > 0) {
+            PrimitiveArrays.write(value, width, buffer);
+            return;
+        }
+        for (Object element : elements(value)) {
+            elementSerializer.writeTo(ctx, element, buffer);
+        }
+    }
+
+    private static int contentSize(ProtoContext ctx, PropertyField valueField, Serializer elementSerializer,
+                                   Object value, int count) throws IOException {
+        int length = ProtoCodecSupport.fixedLength(elementSerializer);
+        if (length > 0) {
+            return Math.multiplyExact(count, length);
+        }
+        if (count == 0) {
+            return 0;
+        }
+
+        int size = 0;
+        for (Object element : elements(value)) {
+            size = Math.addExact(size, elementSerializer.sizeOf(ctx, element));
+        }
+        return size;
+    }
+
+    private static int bulkWidth(PropertyField valueField, Serializer elementSerializer) {
+        Class<?> elementClass = valueField.getElementClass();
+        return elementClass.isPrimitive() && PrimitiveArrays.isSupported(elementClass)
+                ? ProtoCodecSupport.fixedLength(elementSerializer) : -1;
+    }
+
+    private static void checkFixedCount(PropertyField valueField, int count) {
+        int length = RepeatedPropertyDeserializer.fixedCount(valueField);
+        if (count != length) {
+            throw new IllegalArgumentException("The element count of this property is " + length +
+                    ", but " + count + " elements are given.");
+        }
+    }
+
+    private static void checkPrefix(PropertyField valueField, Serializer prefixSerializer, int prefix) {
+        int prefixLength = ProtoCodecSupport.fixedLength(prefixSerializer);
+        if (prefixLength > 0 && prefixLength < Integer.BYTES && prefix >>> (prefixLength << 3) != 0) {
+            throw new IndexOutOfBoundsException("The prefix of this property is " + valueField.getLengthPrefixType() +
+                    ", but its value is " + prefix + ".");
+        }
+    }
+
+    private static int count(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof List<?> list) {
+            return list.size();
+        }
+        return Array.getLength(value);
+    }
+
+    private static List<?> elements(Object value) {
+        if (value instanceof List<?> list) {
+            return list;
+        }
+        if (value instanceof Object[] array) {
+            return Arrays.asList(array);
+        }
+        int length = Array.getLength(value);
+        Object[] elements = new Object[length];
+        for (int i = 0; i < length; i++) {
+            elements[i] = Array.get(value, i);
+        }
+        return Arrays.asList(elements);
+    }
+}
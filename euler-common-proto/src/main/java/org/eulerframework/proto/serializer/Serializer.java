@@ -17,12 +17,58 @@ package org.eulerframework.proto.serializer;
 
 import org.eulerframework.proto.util.PropertyField;
 import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.ByteBufferOutputStream;
+import org.eulerframework.proto.util.bytes.CountingOutputStream;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public interface Serializer {
     void writeTo(ProtoContext ctx, Object value, OutputStream outputStream) throws IOException;
 
     void writeTo(ProtoContext ctx, PropertyField valueField, Object value, OutputStream outputStream) throws IOException;
+
+    /**
+     * Puts the value at the position of the buffer. The built-in serializers write the buffer directly,
+     * the default implementation writes through an {@link OutputStream} view of the buffer.
+     */
+    default void writeTo(ProtoContext ctx, Object value, ByteBuffer buffer) throws IOException {
+        this.writeTo(ctx, value, new ByteBufferOutputStream(buffer));
+    }
+
+    default void writeTo(ProtoContext ctx, PropertyField valueField, Object value, ByteBuffer buffer) throws IOException {
+        this.writeTo(ctx, valueField, value, new ByteBufferOutputStream(buffer));
+    }
+
+    /**
+     * @return the exact count of bytes {@link #writeTo(ProtoContext, Object, OutputStream)} writes for the value.
+     * The built-in serializers compute it without writing, the default implementation writes the value to a
+     * {@link CountingOutputStream}.
+     */
+    default int sizeOf(ProtoContext ctx, Object value) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        this.writeTo(ctx, value, out);
+        return out.getIntCount();
+    }
+
+    default int sizeOf(ProtoContext ctx, PropertyField valueField, Object value) throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        this.writeTo(ctx, valueField, value, out);
+        return out.getIntCount();
+    }
+
+    /**
+     * Writes the value to an array allocated with the exact {@link #sizeOf(ProtoContext, Object)} of the value.
+     */
+    default byte[] writeAsBytes(ProtoContext ctx, Object value) throws IOException {
+        byte[] bytes = new byte[this.sizeOf(ctx, value)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        this.writeTo(ctx, value, buffer);
+        if (buffer.hasRemaining()) {
+            throw new IllegalStateException("The size of the value is " + bytes.length +
+                    ", but only " + buffer.position() + " bytes was written.");
+        }
+        return bytes;
+    }
 }
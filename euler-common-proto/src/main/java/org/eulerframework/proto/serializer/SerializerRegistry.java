@@ -15,28 +15,130 @@
  */
 package org.eulerframework.proto.serializer;
 
-import java.util.HashMap;
-import java.util.Map;
+import org.eulerframework.proto.util.ProtoType;
 
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The serializers of the proto types. A type name is resolved to a type ID once, see {@link #typeId(String)},
+ * and the serializers of a type ID are found by array index.
+ * <p>
+ * A registry may be extended until it is {@link #freeze() frozen}, a frozen registry never changes, so the
+ * serializers bound to a {@link org.eulerframework.proto.util.PropertyField} stay valid.
+ */
 public class SerializerRegistry {
-    private final Map<String, Serializer> serializerMap = new HashMap<>();
-    private final Map<String, Deserializer> deserializerMap = new HashMap<>();
+    private static final ConcurrentMap<String, Integer> TYPE_IDS = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_TYPE_ID = new AtomicInteger();
+
+    static {
+        for (String type : new String[]{ProtoType.BYTE, ProtoType.WORD, ProtoType.DWORD, ProtoType.BYTES, ProtoType.OBJECT,
+                ProtoType.ARRAY, ProtoType.WORD_LE, ProtoType.DWORD_LE, ProtoType.VARINT, ProtoType.BCD}) {
+            typeId(type);
+        }
+    }
+
+    private volatile Serializer[] serializers = new Serializer[0];
+    private volatile Deserializer[] deserializers = new Deserializer[0];
+    private final AtomicInteger revision = new AtomicInteger();
+    private volatile boolean frozen;
+
+    /**
+     * @return the ID of the type name, the same in every registry. The IDs are dense and the built-in
+     * {@link ProtoType}s have the lowest ones.
+     */
+    public static int typeId(String type) {
+        Integer typeId = TYPE_IDS.get(type);
+        if (typeId == null) {
+            typeId = TYPE_IDS.computeIfAbsent(type, t -> NEXT_TYPE_ID.getAndIncrement());
+        }
+        return typeId;
+    }
 
-    public SerializerRegistry registerSerializer(String type, Serializer serializer) {
-        serializerMap.put(type, serializer);
+    public synchronized SerializerRegistry registerSerializer(String type, Serializer serializer) {
+        this.checkNotFrozen();
+        this.serializers = set(this.serializers, typeId(type), serializer);
+        this.bind(serializer);
+        revision.incrementAndGet();
         return this;
     }
 
     public Serializer getSerializer(String type) {
-        return serializerMap.get(type);
+        Integer typeId = TYPE_IDS.get(type);
+        return typeId == null ? null : this.getSerializer(typeId);
+    }
+
+    /**
+     * @return the serializer of the {@link #typeId(String) type ID}, or {@code null}
+     */
+    public Serializer getSerializer(int typeId) {
+        Serializer[] serializers = this.serializers;
+        return typeId < serializers.length ? serializers[typeId] : null;
     }
 
-    public SerializerRegistry registerDeserializer(String type, Deserializer deserializer) {
-        deserializerMap.put(type, deserializer);
+    public synchronized SerializerRegistry registerDeserializer(String type, Deserializer deserializer) {
+        this.checkNotFrozen();
+        this.deserializers = set(this.deserializers, typeId(type), deserializer);
+        this.bind(deserializer);
+        revision.incrementAndGet();
         return this;
     }
 
     public Deserializer getDeserializer(String type) {
-        return deserializerMap.get(type);
+        Integer typeId = TYPE_IDS.get(type);
+        return typeId == null ? null : this.getDeserializer(typeId);
+    }
+
+    /**
+     * @return the deserializer of the {@link #typeId(String) type ID}, or {@code null}
+     */
+    public Deserializer getDeserializer(int typeId) {
+        Deserializer[] deserializers = this.deserializers;
+        return typeId < deserializers.length ? deserializers[typeId] : null;
+    }
+
+    /**
+     * Rejects any later registration.
+     *
+     * @return this registry
+     */
+    public SerializerRegistry freeze() {
+        this.frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void checkNotFrozen() {
+        if (this.frozen) {
+            throw new IllegalStateException("The serializer registry is frozen.");
+        }
+    }
+
+    private static <T> T[] set(T[] array, int index, T value) {
+        T[] newArray = Arrays.copyOf(array, Math.max(array.length, index + 1));
+        newArray[index] = value;
+        return newArray;
+    }
+
+    private void bind(Object serializer) {
+        if (serializer instanceof SerializerRegistryAware) {
+            SerializerRegistryAware aware = (SerializerRegistryAware) serializer;
+            if (aware.getSerializerRegistry() == null) {
+                aware.setSerializerRegistry(this);
+            }
+        }
+    }
+
+    /**
+     * Changes on every registration, lets the cached serializers of a
+     * {@link org.eulerframework.proto.util.PropertyField} detect a stale binding.
+     */
+    public int revision() {
+        return revision.get();
     }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.proto.codec.ProtoCodecCompiler;
+import org.eulerframework.proto.util.ProtoType;
+
+import java.util.function.Function;
+
+public class SerializerRegistryFactory {
+
+    /**
+     * The codecs generated by the {@code euler-common-proto-processor} are not used by this registry, they are
+     * loaded by the {@link ProtoCodecCompiler} of {@code newRegistry(ProtoCodecCompiler::new)}.
+     *
+     * @return a new registry of the built-in serializers, reading and writing objects by reflection
+     */
+    public static SerializerRegistry newRegistry() {
+        return newRegistry(null);
+    }
+
+    /**
+     * @param compilerFactory creates the codec compiler of the {@link ProtoType#OBJECT} serializers from the new
+     *                        registry, such as {@code ProtoCodecCompiler::new} to use the generated
+     *                        {@link org.eulerframework.proto.codec.ProtoCodecProvider} services and compile the
+     *                        other classes at runtime, or {@code null} to use reflection only
+     * @return a new registry of the built-in serializers, not frozen yet so custom serializers may be registered
+     * before {@link SerializerRegistry#freeze()}
+     */
+    public static SerializerRegistry newRegistry(Function<SerializerRegistry, ProtoCodecCompiler> compilerFactory) {
+        SerializerRegistry registry = new SerializerRegistry();
+        ProtoCodecCompiler compiler = compilerFactory == null ? null : compilerFactory.apply(registry);
+        registry.registerSerializer(ProtoType.BYTE, new ByteProtoFieldSerializer())
+                .registerSerializer(ProtoType.WORD, new UnsignedShortProtoFieldSerializer())
+                .registerSerializer(ProtoType.DWORD, new UnsignedIntegerProtoFieldSerializer())
+                .registerSerializer(ProtoType.BYTES, new ByteArraySerializer())
+                .registerSerializer(ProtoType.OBJECT, new ObjectProtoFieldSerializer(registry, compiler))
+                .registerSerializer(ProtoType.ARRAY, new RepeatedPropertySerializer())
+                .registerSerializer(ProtoType.WORD_LE, new LittleEndianNumberSerializer(Short.BYTES))
+                .registerSerializer(ProtoType.DWORD_LE, new LittleEndianNumberSerializer(Integer.BYTES))
+                .registerSerializer(ProtoType.VARINT, new VarIntSerializer())
+                .registerSerializer(ProtoType.BCD, new BcdSerializer())
+                .registerDeserializer(ProtoType.BYTE, new ByteProtoFieldDeserializer())
+                .registerDeserializer(ProtoType.WORD, new UnsignedShortProtoFieldDeserializer())
+                .registerDeserializer(ProtoType.DWORD, new UnsignedIntegerProtoFieldDeserializer())
+                .registerDeserializer(ProtoType.BYTES, new ByteArrayDeserializer())
+                .registerDeserializer(ProtoType.OBJECT, new ObjectProtoFieldDeserializer(registry, compiler))
+                .registerDeserializer(ProtoType.ARRAY, new RepeatedPropertyDeserializer())
+                .registerDeserializer(ProtoType.WORD_LE, new LittleEndianNumberDeserializer(Short.BYTES))
+                .registerDeserializer(ProtoType.DWORD_LE, new LittleEndianNumberDeserializer(Integer.BYTES))
+                .registerDeserializer(ProtoType.VARINT, new VarIntDeserializer())
+                .registerDeserializer(ProtoType.BCD, new BcdDeserializer());
+        return registry;
+    }
+}
@@ -17,16 +17,49 @@ package org.eulerframework.proto.serializer;
 
 import org.eulerframework.proto.field.UnsignedShortProtoField;
 import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.PropertyField;
 import org.eulerframework.proto.util.ProtoContext;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+public class UnsignedShortProtoFieldDeserializer extends AbstractDeserializer implements IntDeserializer {
+    private static final UnsignedShortProtoField CONVERTOR = new UnsignedShortProtoField();
 
-public class UnsignedShortProtoFieldDeserializer extends AbstractDeserializer implements Deserializer {
     @Override
     public <T> T read(ProtoContext ctx, InputStream in, Class<T> clazz) throws IOException {
-        UnsignedShortProtoField field = new UnsignedShortProtoField();
-        field.read(in);
-        return NumberUtils.toUnsignedValue(field.shorValue(), clazz);
+        return NumberUtils.toUnsignedValue((short) this.readInt(ctx, in), clazz);
+    }
+
+    @Override
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, Class<T> clazz) {
+        return NumberUtils.toUnsignedValue((short) this.readInt(ctx, buffer), clazz);
+    }
+
+    @Override
+    public int readInt(ProtoContext ctx, InputStream in) throws IOException {
+        return CONVERTOR.readInt(in);
+    }
+
+    @Override
+    public int readInt(ProtoContext ctx, ByteBuffer buffer) {
+        return CONVERTOR.readInt(buffer);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) {
+        return (T) this.read(ctx, buffer, propertyField.getField().getType());
+    }
+
+    @Override
+    public void skip(ProtoContext ctx, InputStream in, PropertyField propertyField) throws IOException {
+        CONVERTOR.skip(in);
+    }
+
+    @Override
+    public void skip(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) {
+        CONVERTOR.skip(buffer);
     }
 }
@@ -17,15 +17,48 @@ package org.eulerframework.proto.serializer;
 
 import org.eulerframework.proto.field.UnsignedShortProtoField;
 import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.PropertyField;
 import org.eulerframework.proto.util.ProtoContext;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+public class UnsignedShortProtoFieldSerializer extends AbstractSerializer implements IntSerializer {
+    private static final UnsignedShortProtoField CONVERTOR = new UnsignedShortProtoField();
 
-public class UnsignedShortProtoFieldSerializer extends AbstractSerializer implements Serializer {
     @Override
     public void writeTo(ProtoContext ctx, Object value, OutputStream outputStream) throws IOException {
-        UnsignedShortProtoField field = new UnsignedShortProtoField(NumberUtils.toUnsignedShort(value));
-        field.write(outputStream);
+        this.writeInt(ctx, NumberUtils.toUnsignedShort(value), outputStream);
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, ByteBuffer buffer) {
+        this.writeInt(ctx, NumberUtils.toUnsignedShort(value), buffer);
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, ByteBuffer buffer) {
+        this.writeTo(ctx, value, buffer);
+    }
+
+    @Override
+    public void writeInt(ProtoContext ctx, int value, OutputStream outputStream) throws IOException {
+        CONVERTOR.writeInt(value, outputStream);
+    }
+
+    @Override
+    public void writeInt(ProtoContext ctx, int value, ByteBuffer buffer) {
+        CONVERTOR.writeInt(value, buffer);
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, Object value) {
+        return 2;
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, PropertyField valueField, Object value) {
+        return 2;
     }
 }
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.ByteBufferInputStream;
+import org.eulerframework.proto.util.bytes.VarInts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads a {@link org.eulerframework.proto.util.ProtoType#VARINT}, a value wider than the property type keeps its
+ * lowest bits as the other number types do.
+ */
+public class VarIntDeserializer extends AbstractDeserializer {
+    @Override
+    public <T> T read(ProtoContext ctx, InputStream in, Class<T> clazz) throws IOException {
+        if (in instanceof ByteBufferInputStream) {
+            return this.read(ctx, ((ByteBufferInputStream) in).getBuffer(), clazz);
+        }
+        return NumberUtils.toUnsignedValue(VarInts.read(in), clazz);
+    }
+
+    @Override
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, Class<T> clazz) {
+        return NumberUtils.toUnsignedValue(VarInts.read(buffer), clazz);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T read(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) {
+        return (T) this.read(ctx, buffer, propertyField.getField().getType());
+    }
+}
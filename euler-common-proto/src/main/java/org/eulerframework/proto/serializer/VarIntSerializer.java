@@ -0,0 +1,55 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.common.util.NumberUtils;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.bytes.VarInts;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes a {@link org.eulerframework.proto.util.ProtoType#VARINT}, the value is unsigned.
+ */
+public class VarIntSerializer extends AbstractSerializer implements Serializer {
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, OutputStream outputStream) throws IOException {
+        VarInts.write(NumberUtils.toUnsignedLong(value), outputStream);
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, Object value, ByteBuffer buffer) {
+        VarInts.write(NumberUtils.toUnsignedLong(value), buffer);
+    }
+
+    @Override
+    public void writeTo(ProtoContext ctx, PropertyField valueField, Object value, ByteBuffer buffer) {
+        this.writeTo(ctx, value, buffer);
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, Object value) {
+        return VarInts.sizeOf(NumberUtils.toUnsignedLong(value));
+    }
+
+    @Override
+    public int sizeOf(ProtoContext ctx, PropertyField valueField, Object value) {
+        return this.sizeOf(ctx, value);
+    }
+}
@@ -1,6 +1,7 @@
 package org.eulerframework.proto.util;
 
 import org.eulerframework.proto.annotation.BitProperty;
+import org.eulerframework.proto.schema.PropertyAccessor;
 
 import java.lang.reflect.Field;
 
@@ -8,11 +9,13 @@ public class BitPropertyField {
     private final Field field;
     private final BitProperty annotation;
     private final int offset;
+    private final PropertyAccessor accessor;
 
     public BitPropertyField(Field field, BitProperty annotation) {
         this.field = field;
         this.annotation = annotation;
         this.offset = annotation.offset();
+        this.accessor = PropertyAccessor.of(field);
     }
 
     public Field getField() {
@@ -26,4 +29,8 @@ public class BitPropertyField {
     public int getOffset() {
         return offset;
     }
+
+    public PropertyAccessor getAccessor() {
+        return accessor;
+    }
 }
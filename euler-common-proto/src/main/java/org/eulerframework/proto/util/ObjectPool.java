@@ -0,0 +1,76 @@
+package org.eulerframework.proto.util;
+
+import org.eulerframework.common.util.JavaObjectUtils;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded pool of the instances of a message class. Decoding into an acquired instance with an
+ * {@link org.eulerframework.proto.serializer.InstanceDeserializer} reuses the message and its nested objects,
+ * so the steady state allocates nothing per message.
+ * <p>
+ * A released instance is passed to the reset hook and pooled, an instance released to a full pool is left to
+ * the garbage collector. The pool can be shared by threads, but an instance must not be used after it is
+ * released.
+ */
+public class ObjectPool<T> {
+    private final Supplier<? extends T> factory;
+    private final Consumer<? super T> resetHook;
+    private final ArrayBlockingQueue<T> instances;
+
+    /**
+     * Creates the instances by the constructor without arguments. A released instance has every property of any
+     * version reset to the default value of its field, a nested object is reset and kept to be read into, so a
+     * shorter or older version message read into the instance does not keep the properties of the previous one.
+     */
+    public ObjectPool(Class<T> type, int capacity) {
+        this(() -> JavaObjectUtils.newInstance(type), capacity, PropertyReset::reset);
+    }
+
+    /**
+     * @param factory   creates an instance when the pool is empty
+     * @param capacity  the max number of pooled instances
+     * @param resetHook resets an instance when it is released, for example clears the properties that may be
+     *                  missing from the next message
+     */
+    public ObjectPool(Supplier<? extends T> factory, int capacity, Consumer<? super T> resetHook) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+        }
+        this.factory = Objects.requireNonNull(factory);
+        this.resetHook = Objects.requireNonNull(resetHook);
+        this.instances = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * @return a pooled instance, or a new one if the pool is empty
+     */
+    public T acquire() {
+        T value = this.instances.poll();
+        return value != null ? value : this.factory.get();
+    }
+
+    /**
+     * Resets the instance and returns it to the pool.
+     *
+     * @return {@code true} if the instance is pooled, {@code false} if the pool is full
+     */
+    public boolean release(T value) {
+        this.resetHook.accept(value);
+        return this.instances.offer(value);
+    }
+
+    /**
+     * @return the number of pooled instances
+     */
+    public int size() {
+        return this.instances.size();
+    }
+
+    public int capacity() {
+        return this.instances.size() + this.instances.remainingCapacity();
+    }
+}
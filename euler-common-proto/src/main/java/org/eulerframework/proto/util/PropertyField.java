@@ -1,18 +1,85 @@
 package org.eulerframework.proto.util;
 
 import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.schema.PropertyAccessor;
+import org.eulerframework.proto.serializer.Deserializer;
+import org.eulerframework.proto.serializer.InstanceDeserializer;
+import org.eulerframework.proto.serializer.IntDeserializer;
+import org.eulerframework.proto.serializer.IntSerializer;
+import org.eulerframework.proto.serializer.Serializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.bytes.ByteConvertorRegistryFactory;
+import org.eulerframework.proto.util.bytes.BytesConvertor;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class PropertyField {
+    private static final int MAX_SERIALIZER_BINDINGS = 4;
+
     private final Field field;
     private final ProtoProperty annotation;
     private final int order;
+    private final String type;
+    private final int typeId;
+    private final int length;
+    private final String lengthMode;
+    private final String lengthPrefixType;
+    private final int lengthPrefixTypeId;
+    private final String elementType;
+    private final int elementTypeId;
+    private final Class<?> elementClass;
+    private final byte[] separator;
+    private final Charset charset;
+    private final BytesConvertor<?> convertor;
+    private final PropertyAccessor accessor;
+    private final boolean primitive;
+
+    /**
+     * The serializers bound to the recently used registries, most recent first. The array is replaced
+     * instead of modified, so readers never lock.
+     */
+    private volatile SerializerBinding[] serializerBindings = new SerializerBinding[0];
 
     public PropertyField(Field field, ProtoProperty annotation) {
         this.field = field;
         this.annotation = annotation;
         this.order = annotation.order();
+        this.type = annotation.type();
+        this.typeId = SerializerRegistry.typeId(this.type);
+        this.length = annotation.length();
+        ProtoPropertyOption option = annotation.option();
+        this.lengthMode = option == null ? ProtoPropertyOption.LENGTH_MODE_FIXED : option.lengthMode();
+        this.lengthPrefixType = option == null ? "" : option.lengthPrefixType();
+        this.lengthPrefixTypeId = this.lengthPrefixType.isEmpty() ? -1 : SerializerRegistry.typeId(this.lengthPrefixType);
+        this.separator = option == null ? new byte[0] : option.separator();
+        this.elementType = annotation.elementType();
+        if (ProtoType.ARRAY.equals(this.type)) {
+            // the length of the property is the element count, so the elements can not have a length of their own
+            if (this.elementType.isEmpty() || ProtoType.ARRAY.equals(this.elementType) || ProtoType.BYTES.equals(this.elementType)
+                    || ProtoType.BCD.equals(this.elementType)) {
+                throw new IllegalArgumentException("Unsupported element type of the ARRAY property " + field + ": " + this.elementType);
+            }
+            this.elementTypeId = SerializerRegistry.typeId(this.elementType);
+            this.elementClass = elementClass(field);
+        } else {
+            this.elementTypeId = -1;
+            this.elementClass = null;
+        }
+        this.charset = CharSequence.class.isAssignableFrom(field.getType()) ? Charset.forName(annotation.charset()) : null;
+        this.convertor = ByteConvertorRegistryFactory.defaultRegistry().getConvertor(field.getType());
+        this.accessor = PropertyAccessor.of(field);
+        this.primitive = field.getType().isPrimitive();
     }
 
     public Field getField() {
@@ -26,4 +93,229 @@ public class PropertyField {
     public int getOrder() {
         return order;
     }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * @return the {@link SerializerRegistry#typeId(String) type ID} of the {@link #getType() type}
+     */
+    public int getTypeId() {
+        return typeId;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    public String getLengthMode() {
+        return lengthMode;
+    }
+
+    /**
+     * @return the {@link ProtoType} of the length prefix in {@link ProtoPropertyOption#LENGTH_MODE_PREFIX} mode,
+     * or an empty string
+     */
+    public String getLengthPrefixType() {
+        return lengthPrefixType;
+    }
+
+    /**
+     * @return the {@link ProtoProperty#elementType() element type} of a {@link ProtoType#ARRAY} property, or an
+     * empty string
+     */
+    public String getElementType() {
+        return elementType;
+    }
+
+    /**
+     * @return the class of the elements of a {@link ProtoType#ARRAY} property, the component type of an array
+     * or the type argument of a {@link List}, or {@code null}
+     */
+    public Class<?> getElementClass() {
+        return elementClass;
+    }
+
+    /**
+     * @return the separator in {@link ProtoPropertyOption#LENGTH_MODE_SEPARATOR} mode, the array is shared
+     * and must not be modified
+     */
+    public byte[] getSeparator() {
+        return separator;
+    }
+
+    /**
+     * @return the resolved charset, or {@code null} if the field is not a {@link CharSequence}
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    /**
+     * @return the convertor of the field type in the default registry, or {@code null} if there is none
+     */
+    public BytesConvertor<?> getConvertor() {
+        return convertor;
+    }
+
+    public PropertyAccessor getAccessor() {
+        return accessor;
+    }
+
+    public Serializer getSerializer(SerializerRegistry serializerRegistry) {
+        return this.bind(serializerRegistry).serializer;
+    }
+
+    public Deserializer getDeserializer(SerializerRegistry serializerRegistry) {
+        return this.bind(serializerRegistry).deserializer;
+    }
+
+    /**
+     * @return the serializer of the {@link #getLengthPrefixType() length prefix}, or {@code null} if the
+     * property has none or the registry does not support its type
+     */
+    public Serializer getLengthPrefixSerializer(SerializerRegistry serializerRegistry) {
+        return this.bind(serializerRegistry).lengthPrefixSerializer;
+    }
+
+    public Deserializer getLengthPrefixDeserializer(SerializerRegistry serializerRegistry) {
+        return this.bind(serializerRegistry).lengthPrefixDeserializer;
+    }
+
+    /**
+     * @return the serializer of the {@link #getElementType() element type}, or {@code null} if the property is
+     * not repeated or the registry does not support the type
+     */
+    public Serializer getElementSerializer(SerializerRegistry serializerRegistry) {
+        return this.bind(serializerRegistry).elementSerializer;
+    }
+
+    public Deserializer getElementDeserializer(SerializerRegistry serializerRegistry) {
+        return this.bind(serializerRegistry).elementDeserializer;
+    }
+
+    /**
+     * Reads the property with the deserializer and sets it to the target. A primitive property read by an
+     * {@link IntDeserializer} is set without boxing, an object already set on the target is read in place by an
+     * {@link InstanceDeserializer}.
+     */
+    public void readInto(ProtoContext ctx, Deserializer deserializer, InputStream in, Object target) throws IOException {
+        Object current;
+        if (this.primitive && deserializer instanceof IntDeserializer intDeserializer) {
+            this.accessor.setUnsignedLong(target, Integer.toUnsignedLong(intDeserializer.readInt(ctx, in)));
+        } else if (deserializer instanceof InstanceDeserializer instanceDeserializer && !this.primitive
+                && (current = this.accessor.get(target)) != null) {
+            Object value = instanceDeserializer.readInto(ctx, in, current);
+            if (value != current) {
+                // an immutable object is read into a new instance
+                this.accessor.set(target, value);
+            }
+        } else {
+            this.accessor.set(target, deserializer.read(ctx, in, this));
+        }
+    }
+
+    public void readInto(ProtoContext ctx, Deserializer deserializer, ByteBuffer buffer, Object target) throws IOException {
+        Object current;
+        if (this.primitive && deserializer instanceof IntDeserializer intDeserializer) {
+            this.accessor.setUnsignedLong(target, Integer.toUnsignedLong(intDeserializer.readInt(ctx, buffer)));
+        } else if (deserializer instanceof InstanceDeserializer instanceDeserializer && !this.primitive
+                && (current = this.accessor.get(target)) != null) {
+            Object value = instanceDeserializer.readInto(ctx, buffer, current);
+            if (value != current) {
+                // an immutable object is read into a new instance
+                this.accessor.set(target, value);
+            }
+        } else {
+            this.accessor.set(target, deserializer.read(ctx, buffer, this));
+        }
+    }
+
+    /**
+     * Writes the property of the source with the serializer. A primitive property written by an
+     * {@link IntSerializer} is written without boxing.
+     */
+    public void writeFrom(ProtoContext ctx, Serializer serializer, Object source, OutputStream out) throws IOException {
+        if (this.primitive && serializer instanceof IntSerializer intSerializer) {
+            intSerializer.writeInt(ctx, (int) this.accessor.getUnsignedLong(source), out);
+        } else {
+            serializer.writeTo(ctx, this, this.accessor.get(source), out);
+        }
+    }
+
+    public void writeFrom(ProtoContext ctx, Serializer serializer, Object source, ByteBuffer buffer) throws IOException {
+        if (this.primitive && serializer instanceof IntSerializer intSerializer) {
+            intSerializer.writeInt(ctx, (int) this.accessor.getUnsignedLong(source), buffer);
+        } else {
+            serializer.writeTo(ctx, this, this.accessor.get(source), buffer);
+        }
+    }
+
+    /**
+     * @return the component type of an array field, or the type argument of a {@code List} or {@code ArrayList} field
+     */
+    private static Class<?> elementClass(Field field) {
+        Class<?> type = field.getType();
+        if (type.isArray()) {
+            return type.getComponentType();
+        }
+        if (List.class.isAssignableFrom(type) && type.isAssignableFrom(ArrayList.class)) {
+            Type genericType = field.getGenericType();
+            if (genericType instanceof ParameterizedType parameterizedType
+                    && parameterizedType.getActualTypeArguments()[0] instanceof Class<?> elementClass) {
+                return elementClass;
+            }
+        }
+        throw new IllegalArgumentException("An ARRAY property must be an array or a List of a class: " + field);
+    }
+
+    private SerializerBinding bind(SerializerRegistry serializerRegistry) {
+        SerializerBinding[] bindings = this.serializerBindings;
+        for (SerializerBinding binding : bindings) {
+            if (binding.isBoundTo(serializerRegistry)) {
+                return binding;
+            }
+        }
+
+        SerializerBinding binding = new SerializerBinding(serializerRegistry, this.typeId, this.lengthPrefixTypeId, this.elementTypeId);
+        SerializerBinding[] newBindings = new SerializerBinding[Math.min(bindings.length + 1, MAX_SERIALIZER_BINDINGS)];
+        newBindings[0] = binding;
+        int index = 1;
+        for (int i = 0; i < bindings.length && index < newBindings.length; i++) {
+            if (bindings[i].registry != serializerRegistry) {
+                newBindings[index++] = bindings[i];
+            }
+        }
+        this.serializerBindings = index == newBindings.length ? newBindings : Arrays.copyOf(newBindings, index);
+        return binding;
+    }
+
+    private static class SerializerBinding {
+        private final SerializerRegistry registry;
+        private final boolean frozen;
+        private final int revision;
+        private final Serializer serializer;
+        private final Deserializer deserializer;
+        private final Serializer lengthPrefixSerializer;
+        private final Deserializer lengthPrefixDeserializer;
+        private final Serializer elementSerializer;
+        private final Deserializer elementDeserializer;
+
+        SerializerBinding(SerializerRegistry registry, int typeId, int lengthPrefixTypeId, int elementTypeId) {
+            this.registry = registry;
+            this.frozen = registry.isFrozen();
+            this.revision = registry.revision();
+            this.serializer = registry.getSerializer(typeId);
+            this.deserializer = registry.getDeserializer(typeId);
+            this.lengthPrefixSerializer = lengthPrefixTypeId < 0 ? null : registry.getSerializer(lengthPrefixTypeId);
+            this.lengthPrefixDeserializer = lengthPrefixTypeId < 0 ? null : registry.getDeserializer(lengthPrefixTypeId);
+            this.elementSerializer = elementTypeId < 0 ? null : registry.getSerializer(elementTypeId);
+            this.elementDeserializer = elementTypeId < 0 ? null : registry.getDeserializer(elementTypeId);
+        }
+
+        boolean isBoundTo(SerializerRegistry registry) {
+            return this.registry == registry && (this.frozen || this.revision == registry.revision());
+        }
+    }
 }
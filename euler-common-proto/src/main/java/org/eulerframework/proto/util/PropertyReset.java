@@ -0,0 +1,76 @@
+package org.eulerframework.proto.util;
+
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.eulerframework.proto.annotation.BitProperty;
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.schema.PropertyAccessor;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resets the {@link ProtoProperty} and {@link BitProperty} fields of every version of a class to their default
+ * values. A nested {@link ProtoType#OBJECT} property is reset in place, so that it is still read into.
+ */
+final class PropertyReset {
+    private static final ClassValue<PropertyReset> RESETS = new ClassValue<>() {
+        @Override
+        protected PropertyReset computeValue(Class<?> type) {
+            return new PropertyReset(type);
+        }
+    };
+
+    static void reset(Object target) {
+        RESETS.get(target.getClass()).resetProperties(target);
+    }
+
+    private final PropertyAccessor[] accessors;
+    private final Object[] defaults;
+    private final boolean[] objects;
+
+    private PropertyReset(Class<?> type) {
+        List<PropertyAccessor> accessors = new ArrayList<>();
+        List<Boolean> objects = new ArrayList<>();
+        for (Field field : FieldUtils.getAllFieldsList(type)) {
+            ProtoProperty[] properties = field.getAnnotationsByType(ProtoProperty.class);
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers())
+                    || properties.length == 0 && field.getAnnotationsByType(BitProperty.class).length == 0) {
+                continue;
+            }
+            PropertyAccessor accessor = PropertyAccessor.of(field);
+            // the fields of a record are set by its constructor only
+            if (accessor.isWritable()) {
+                accessors.add(accessor);
+                objects.add(!field.getType().isRecord()
+                        && Arrays.stream(properties).anyMatch(property -> ProtoType.OBJECT.equals(property.type())));
+            }
+        }
+
+        this.accessors = accessors.toArray(new PropertyAccessor[0]);
+        this.defaults = new Object[this.accessors.length];
+        this.objects = new boolean[this.accessors.length];
+        for (int i = 0; i < this.accessors.length; i++) {
+            Class<?> fieldType = this.accessors[i].getType();
+            // the zero of a primitive type, boxed as the type, or null
+            this.defaults[i] = fieldType.isPrimitive() ? Array.get(Array.newInstance(fieldType, 1), 0) : null;
+            this.objects[i] = objects.get(i);
+        }
+    }
+
+    private void resetProperties(Object target) {
+        for (int i = 0; i < this.accessors.length; i++) {
+            if (this.objects[i]) {
+                Object value = this.accessors[i].get(target);
+                if (value != null) {
+                    reset(value);
+                    continue;
+                }
+            }
+            this.accessors[i].set(target, this.defaults[i]);
+        }
+    }
+}
@@ -1,12 +1,19 @@
 package org.eulerframework.proto.util;
 
+import org.eulerframework.proto.node.ObjectProtoNode;
 import org.eulerframework.proto.node.ProtoNode;
+import org.eulerframework.proto.node.ProtoNodeSampler;
+import org.eulerframework.proto.schema.ProtoProjection;
 
 public class ProtoContext {
     private int version;
 
     private ProtoNode propertyNode;
 
+    private ProtoProjection projection;
+
+    private byte[] scratch;
+
     public int getVersion() {
         return version;
     }
@@ -15,6 +22,10 @@ public class ProtoContext {
         this.version = version;
     }
 
+    /**
+     * @return the node the properties being read are added to, or {@code null} if no {@link ProtoNode} tree
+     * is built
+     */
     public ProtoNode getPropertyNode() {
         return propertyNode;
     }
@@ -22,4 +33,46 @@ public class ProtoContext {
     public void setPropertyNode(ProtoNode propertyNode) {
         this.propertyNode = propertyNode;
     }
+
+    /**
+     * @return {@code true} if the messages read with this context build their {@link ProtoNode} tree
+     */
+    public boolean isNodeTreeEnabled() {
+        return this.propertyNode != null;
+    }
+
+    /**
+     * Starts the {@link ProtoNode} tree of the next message if the sampler samples it, otherwise the tree is
+     * skipped and the message may be read by a compiled codec.
+     *
+     * @return the root node of the tree, or {@code null} if the tree is skipped
+     */
+    public ObjectProtoNode sampleNodeTree(ProtoNodeSampler sampler) {
+        ObjectProtoNode rootNode = sampler.sample() ? ProtoNode.newRootNode() : null;
+        this.propertyNode = rootNode;
+        return rootNode;
+    }
+
+    /**
+     * @return the properties to read of the messages of its type, or {@code null} if every property is read
+     */
+    public ProtoProjection getProjection() {
+        return projection;
+    }
+
+    public void setProjection(ProtoProjection projection) {
+        this.projection = projection;
+    }
+
+    /**
+     * @return a buffer of at least {@code length} bytes reused by the reads and writes done with this context,
+     * its content is not kept from one use to the next
+     */
+    public byte[] scratch(int length) {
+        byte[] scratch = this.scratch;
+        if (scratch == null || scratch.length < length) {
+            this.scratch = scratch = new byte[Math.max(length, 32)];
+        }
+        return scratch;
+    }
 }
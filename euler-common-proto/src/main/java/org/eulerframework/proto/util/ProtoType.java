@@ -8,4 +8,27 @@ public class ProtoType {
     public final static String BYTES = "BYTES";
 
     public final static String OBJECT = "OBJECT";
+
+    /**
+     * A repeated property, a {@link java.util.List} or an array of the
+     * {@link org.eulerframework.proto.annotation.ProtoProperty#elementType() element type}.
+     */
+    public final static String ARRAY = "ARRAY";
+
+    /**
+     * Little-Endian unsigned numbers of 2 and 4 bytes.
+     */
+    public final static String WORD_LE = "WORD_LE";
+    public final static String DWORD_LE = "DWORD_LE";
+
+    /**
+     * An unsigned LEB128 number of 1 to 10 bytes.
+     */
+    public final static String VARINT = "VARINT";
+
+    /**
+     * Packed binary coded decimals of {@link org.eulerframework.proto.annotation.ProtoProperty#length()} bytes, read
+     * as a number or as a {@link String} of digits.
+     */
+    public final static String BCD = "BCD";
 }
@@ -6,6 +6,7 @@ import org.eulerframework.proto.annotation.BitProperty;
 import org.eulerframework.proto.annotation.ProtoProperty;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
@@ -15,6 +16,7 @@ import java.util.stream.Collectors;
 public class ProtoUtils {
     public static List<PropertyField> getSortedPropertyFields(Class<?> clazz, int version) {
         return FieldUtils.getAllFieldsList(clazz).stream()
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
                 .map(field -> {
                     ProtoProperty[] propertyAnnotations = field.getAnnotationsByType(ProtoProperty.class);
                     if (propertyAnnotations.length == 0) {
@@ -50,6 +52,7 @@ public class ProtoUtils {
 
     public static List<BitPropertyField> getSortedBitPropertyFields(Class<?> clazz, int version) {
         return FieldUtils.getAllFieldsList(clazz).stream()
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
                 .map(field -> {
                     BitProperty[] propertyAnnotations = field.getAnnotationsByType(BitProperty.class);
                     if (propertyAnnotations.length == 0) {
@@ -83,34 +86,51 @@ public class ProtoUtils {
     }
 
     private static <A extends Annotation> A getMatchedAnnotation(AnnotationWithVersion<A>[] annotations, int exceptedVersion) throws DuplicatedVersionException {
-        if (annotations.length == 0) {
-            return null;
+        int[][] versions = new int[annotations.length][];
+        for (int i = 0; i < annotations.length; i++) {
+            versions[i] = annotations[i].getVersion();
+        }
+        int matchedIndex = getMatchedVersionIndex(versions, exceptedVersion);
+        return matchedIndex < 0 ? null : annotations[matchedIndex].getAnnotation();
+    }
+
+    /**
+     * Finds the version marks matching the excepted version best, the marks are the {@code version}
+     * attributes of the annotations declared on one property.
+     *
+     * @return the index of the matched version marks, or {@code -1} if none of them matches
+     * @throws DuplicatedVersionException if more than one version marks match with the same score
+     */
+    public static int getMatchedVersionIndex(int[][] versions, int exceptedVersion) throws DuplicatedVersionException {
+        if (versions.length == 0) {
+            return -1;
         }
 
         int matchedPropertyScore = -1;
-        AnnotationWithVersion<A> matchedProperty = null;
+        int matchedProperty = -1;
 
-        for (AnnotationWithVersion<A> propertyAnnotation : annotations) {
+        for (int i = 0; i < versions.length; i++) {
+            int[] version = versions[i];
             int matchedScore = 0;
-            if (propertyAnnotation.getVersion() == null || propertyAnnotation.getVersion().length == 0) {
+            if (version == null || version.length == 0) {
                 // 没有版本标记, 则跟所有版本都匹配, 但是匹配度最低
                 if (matchedScore > matchedPropertyScore) {
                     matchedPropertyScore = matchedScore;
-                    matchedProperty = propertyAnnotation;
+                    matchedProperty = i;
                 } else if (matchedScore == matchedPropertyScore) {
                     throw new DuplicatedVersionException();
                 }
                 continue;
             }
 
-            if (propertyAnnotation.getVersion().length == 1 && propertyAnnotation.getVersion()[0] <= exceptedVersion) {
+            if (version.length == 1 && version[0] <= exceptedVersion) {
                 // 有版本标记, 且只有一个, 则跟所有大于它的版本匹配,
                 // 若版本刚好相等, 匹配度最高
                 // 若版本标记小于期望版本, 则随着版本差距匹配度逐次降低
-                matchedScore = Integer.MAX_VALUE - (exceptedVersion - propertyAnnotation.getVersion()[0]);
+                matchedScore = Integer.MAX_VALUE - (exceptedVersion - version[0]);
                 if (matchedScore > matchedPropertyScore) {
                     matchedPropertyScore = matchedScore;
-                    matchedProperty = propertyAnnotation;
+                    matchedProperty = i;
                 } else if (matchedScore == matchedPropertyScore) {
                     throw new DuplicatedVersionException();
                 }
@@ -118,28 +138,28 @@ public class ProtoUtils {
             }
 
             // 若指定了多个版本标记, 若可以精确匹配, 则匹配度最高, 否则按较高的版本匹配
-            if (ArrayUtils.contains(propertyAnnotation.getVersion(), exceptedVersion)) {
+            if (ArrayUtils.contains(version, exceptedVersion)) {
                 matchedScore = Integer.MAX_VALUE;
                 if (matchedScore > matchedPropertyScore) {
                     matchedPropertyScore = matchedScore;
-                    matchedProperty = propertyAnnotation;
+                    matchedProperty = i;
                 } else {
                     throw new DuplicatedVersionException();
                 }
             }
 
-            int maxVersion = Arrays.stream(propertyAnnotation.getVersion()).max().getAsInt();
+            int maxVersion = Arrays.stream(version).max().getAsInt();
             if (exceptedVersion > maxVersion) {
                 matchedScore = Integer.MAX_VALUE - (exceptedVersion - maxVersion);
                 if (matchedScore > matchedPropertyScore) {
                     matchedPropertyScore = matchedScore;
-                    matchedProperty = propertyAnnotation;
+                    matchedProperty = i;
                 } else if (matchedScore == matchedPropertyScore) {
                     throw new DuplicatedVersionException();
                 }
             }
         }
-        return matchedProperty == null ? null : matchedProperty.getAnnotation();
+        return matchedProperty;
     }
 
     private static class AnnotationWithVersion<A extends Annotation> {
@@ -0,0 +1,177 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Packed binary coded decimals, two decimal digits a byte with the high nibble first, such as the
+ * {@code YYMMDDhhmmss} timestamps of device protocols.
+ * <p>
+ * A byte is decoded to its value and its two digit chars, and a value below 100 is encoded to a byte, by table
+ * lookup instead of masking and dividing digit by digit.
+ */
+public final class Bcd {
+    /**
+     * The byte count of the largest value read as a {@code long}.
+     */
+    public static final int MAX_LONG_LENGTH = 9;
+
+    /**
+     * The value of a byte, or {@code -1} if a nibble of the byte is not a decimal digit.
+     */
+    private static final byte[] VALUES = new byte[256];
+    private static final byte[] BYTES = new byte[100];
+    private static final char[] DIGITS = new char[200];
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < 100; i++) {
+            int b = (i / 10) << 4 | i % 10;
+            VALUES[b] = (byte) i;
+            BYTES[i] = (byte) b;
+            DIGITS[i << 1] = (char) ('0' + i / 10);
+            DIGITS[(i << 1) + 1] = (char) ('0' + i % 10);
+        }
+    }
+
+    private Bcd() {
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code offset} as a number.
+     *
+     * @throws IllegalArgumentException if a nibble is not a decimal digit, or the length is more than
+     *                                  {@link #MAX_LONG_LENGTH}
+     */
+    public static long readLong(byte[] data, int offset, int length) {
+        checkLongLength(length);
+        Objects.checkFromIndexSize(offset, length, data.length);
+        long value = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            value = value * 100 + value(data[i]);
+        }
+        return value;
+    }
+
+    /**
+     * Reads {@code length} bytes at the position of the buffer as a number and moves the position past them.
+     */
+    public static long readLong(ByteBuffer buffer, int length) {
+        checkLongLength(length);
+        checkRemaining(buffer, length);
+        int position = buffer.position();
+        if (buffer.hasArray()) {
+            long value = readLong(buffer.array(), buffer.arrayOffset() + position, length);
+            buffer.position(position + length);
+            return value;
+        }
+
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = value * 100 + value(buffer.get(position + i));
+        }
+        buffer.position(position + length);
+        return value;
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code offset} as {@code 2 * length} digits, the leading zeros are kept.
+     *
+     * @throws IllegalArgumentException if a nibble is not a decimal digit
+     */
+    public static String readString(byte[] data, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        char[] chars = new char[length << 1];
+        for (int i = 0; i < length; i++) {
+            int value = value(data[offset + i]);
+            chars[i << 1] = DIGITS[value << 1];
+            chars[(i << 1) + 1] = DIGITS[(value << 1) + 1];
+        }
+        return new String(chars);
+    }
+
+    public static String readString(ByteBuffer buffer, int length) {
+        checkRemaining(buffer, length);
+        int position = buffer.position();
+        String s;
+        if (buffer.hasArray()) {
+            s = readString(buffer.array(), buffer.arrayOffset() + position, length);
+        } else {
+            byte[] data = new byte[length];
+            buffer.get(position, data);
+            s = readString(data, 0, length);
+        }
+        buffer.position(position + length);
+        return s;
+    }
+
+    /**
+     * Writes the value as {@code length} bytes at {@code offset}, padded with leading zeros.
+     *
+     * @throws IllegalArgumentException  if the value is negative
+     * @throws IndexOutOfBoundsException if the value has more than {@code 2 * length} digits
+     */
+    public static void write(long value, byte[] data, int offset, int length) {
+        if (value < 0) {
+            throw new IllegalArgumentException("A BCD number is not negative: " + value);
+        }
+        Objects.checkFromIndexSize(offset, length, data.length);
+        for (int i = offset + length - 1; i >= offset; i--) {
+            data[i] = BYTES[(int) (value % 100)];
+            value /= 100;
+        }
+        if (value != 0) {
+            throw new IndexOutOfBoundsException("The value has more than " + (length << 1) + " digits.");
+        }
+    }
+
+    /**
+     * Writes the decimal digits as {@code length} bytes at {@code offset}, padded with leading zeros.
+     *
+     * @throws IllegalArgumentException  if a char is not a decimal digit
+     * @throws IndexOutOfBoundsException if there are more than {@code 2 * length} digits
+     */
+    public static void write(CharSequence digits, byte[] data, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        int count = digits.length();
+        if (count > length << 1) {
+            throw new IndexOutOfBoundsException("The value has more than " + (length << 1) + " digits.");
+        }
+        // the digits are right aligned, an odd count starts in the low nibble
+        int index = count - 1;
+        for (int i = offset + length - 1; i >= offset; i--) {
+            int low = index >= 0 ? digit(digits.charAt(index--)) : 0;
+            int high = index >= 0 ? digit(digits.charAt(index--)) : 0;
+            data[i] = (byte) (high << 4 | low);
+        }
+    }
+
+    private static int value(byte b) {
+        int value = VALUES[b & 0xFF];
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid BCD byte: 0x" + Integer.toHexString(b & 0xFF));
+        }
+        return value;
+    }
+
+    private static int digit(char c) {
+        if (c < '0' || c > '9') {
+            throw new IllegalArgumentException("Invalid BCD digit: " + c);
+        }
+        return c - '0';
+    }
+
+    private static void checkRemaining(ByteBuffer buffer, int length) {
+        if (length < 0 || buffer.remaining() < length) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    private static void checkLongLength(int length) {
+        if (length > MAX_LONG_LENGTH) {
+            throw new IllegalArgumentException("A BCD number of " + length + " bytes is too long for a long.");
+        }
+    }
+}
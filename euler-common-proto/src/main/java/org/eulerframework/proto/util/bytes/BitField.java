@@ -0,0 +1,123 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * The compiled layout of a bit field in a byte array, bit 0 is the lowest bit of the last byte (Big-Endian).
+ * <p>
+ * A field of at most {@link ByteArrayUtils#MAX_BIT_FIELD_LENGTH} bits always lies in one Big-Endian word of at most
+ * 8 bytes, so it is read with one word load, a shift and a mask, and written with one load and one store.
+ */
+public final class BitField {
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final int byteLength;
+    private final int length;
+    private final int wordIndex;
+    private final int wordLength;
+    private final int shift;
+    private final long mask;
+
+    private BitField(int byteLength, int offset, int length) {
+        if (length < 0 || length > ByteArrayUtils.MAX_BIT_FIELD_LENGTH) {
+            throw new IllegalArgumentException("The max bit length of a field is " + ByteArrayUtils.MAX_BIT_FIELD_LENGTH + ", but " + length);
+        }
+        if (offset < 0 || offset + length > byteLength * Byte.SIZE) {
+            throw new IndexOutOfBoundsException("The bits " + offset + " to " + (offset + length) + " are out of "
+                    + byteLength + " bytes");
+        }
+
+        this.byteLength = byteLength;
+        this.length = length;
+        this.wordLength = Math.min(byteLength, Long.BYTES);
+        // the word ends at the byte of the lowest bit, or starts at the first byte
+        this.wordIndex = Math.max(0, byteLength - offset / Byte.SIZE - Long.BYTES);
+        this.shift = offset - (byteLength - this.wordIndex - this.wordLength) * Byte.SIZE;
+        this.mask = (1L << length) - 1;
+    }
+
+    /**
+     * @param byteLength the length of the byte arrays the field is in
+     * @param offset     the bit offset of the field
+     * @param length     the bit length of the field
+     */
+    public static BitField of(int byteLength, int offset, int length) {
+        return new BitField(byteLength, offset, length);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * @return the unsigned value of the field
+     */
+    public int read(byte[] data) {
+        this.checkLength(data);
+        return (int) (getWord(data, this.wordIndex, this.wordLength) >>> this.shift & this.mask);
+    }
+
+    /**
+     * ORs the value into the field.
+     *
+     * @throws IllegalArgumentException if the value has more bits than the field
+     */
+    public void write(byte[] data, int value) {
+        if (this.length < ByteArrayUtils.MAX_BIT_FIELD_LENGTH && value >>> this.length != 0) {
+            throw new IllegalArgumentException(String.format("value 0x%04x(%d) is too large for a %d bit value", value, value, this.length));
+        }
+        if (value == 0) {
+            return;
+        }
+
+        this.checkLength(data);
+        long word = getWord(data, this.wordIndex, this.wordLength);
+        putWord(data, this.wordIndex, this.wordLength, word | (value & 0xFFFFFFFFL) << this.shift);
+    }
+
+    private void checkLength(byte[] data) {
+        if (data.length != this.byteLength) {
+            throw new IllegalArgumentException("The bit field is in " + this.byteLength + " bytes, but " + data.length);
+        }
+    }
+
+    /**
+     * Reads {@code length} bytes, at most 8, at {@code index} as a Big-Endian word.
+     */
+    static long getWord(byte[] data, int index, int length) {
+        switch (length) {
+            case Long.BYTES:
+                return (long) LONG_BE.get(data, index);
+            case Integer.BYTES:
+                return (int) INT_BE.get(data, index) & 0xFFFFFFFFL;
+            default:
+                long word = 0;
+                for (int i = 0; i < length; i++) {
+                    word = word << Byte.SIZE | data[index + i] & 0xFF;
+                }
+                return word;
+        }
+    }
+
+    /**
+     * Writes the lowest {@code length} bytes, at most 8, of the word at {@code index} in Big-Endian.
+     */
+    static void putWord(byte[] data, int index, int length, long word) {
+        switch (length) {
+            case Long.BYTES:
+                LONG_BE.set(data, index, word);
+                break;
+            case Integer.BYTES:
+                INT_BE.set(data, index, (int) word);
+                break;
+            default:
+                for (int i = length - 1; i >= 0; i--) {
+                    data[index + i] = (byte) word;
+                    word >>>= Byte.SIZE;
+                }
+        }
+    }
+}
@@ -1,8 +1,21 @@
 package org.eulerframework.proto.util.bytes;
 
-import org.apache.commons.lang3.ArrayUtils;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Objects;
 
 public class ByteArrayUtils {
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final VarHandle SHORT_BE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long NON_ASCII_MASK = 0x8080808080808080L;
+
     public static byte[] rightTrim(byte[] data) {
         return rightTrim(data, (byte) 0);
     }
@@ -16,18 +29,150 @@ public class ByteArrayUtils {
             return data;
         }
 
-        int trimIndex = -1;
-        for (int i = data.length - 1; i >= 0; i--) {
-            if (data[i] == b) {
-                trimIndex = i;
-                continue;
+        int end = rightTrimIndex(data, 0, data.length, b);
+        return end == data.length ? data : Arrays.copyOf(data, end);
+    }
+
+    /**
+     * @return the end index of {@code data[from, to)} without the trailing {@code b} bytes, the array is
+     * not copied
+     */
+    public static int rightTrimIndex(byte[] data, int from, int to, byte b) {
+        Objects.checkFromToIndex(from, to, data.length);
+        while (to > from && data[to - 1] == b) {
+            to--;
+        }
+        return to;
+    }
+
+    /**
+     * @return {@code true} if every byte of {@code data[from, to)} is lower than {@code 0x80}, the bytes are
+     * scanned 8 at a time
+     */
+    public static boolean isAscii(byte[] data, int from, int to) {
+        Objects.checkFromToIndex(from, to, data.length);
+        int i = from;
+        for (int end = to - Long.BYTES; i <= end; i += Long.BYTES) {
+            if (((long) LONG.get(data, i) & NON_ASCII_MASK) != 0) {
+                return false;
             }
-            break;
         }
-        if (trimIndex > -1) {
-            return ArrayUtils.subarray(data, 0, trimIndex);
-        } else {
-            return data;
+        for (; i < to; i++) {
+            if (data[i] < 0) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    /**
+     * @return the index of the first occurrence of {@code pattern} in {@code data}, or {@code -1}
+     */
+    public static int indexOf(byte[] data, byte[] pattern) {
+        return indexOf(data, 0, data.length, pattern);
+    }
+
+    /**
+     * @return the index of the first occurrence of {@code pattern} between {@code fromIndex} (inclusive)
+     * and {@code toIndex} (exclusive), or {@code -1}
+     */
+    public static int indexOf(byte[] data, int fromIndex, int toIndex, byte[] pattern) {
+        return ByteSearch.indexOf(data, fromIndex, toIndex, pattern);
+    }
+
+    /**
+     * @return the index of the first {@code a} or {@code b} byte between {@code fromIndex} (inclusive) and
+     * {@code toIndex} (exclusive), or {@code -1}, the bytes are scanned 8 at a time
+     */
+    public static int indexOfAny(byte[] data, int fromIndex, int toIndex, byte a, byte b) {
+        Objects.checkFromToIndex(fromIndex, toIndex, data.length);
+        return ByteSearch.indexOfAny(data, fromIndex, toIndex, a, b);
+    }
+
+    public static final int MAX_BIT_FIELD_LENGTH = Integer.SIZE;
+
+    /**
+     * Reads an unsigned value of {@code length} bits starting at bit {@code offset}, bit 0 is the lowest
+     * bit of the last byte (Big-Endian). The bits are read with one word load as by {@link BitField}, use a
+     * {@link BitField} to compute the layout once for a field read many times.
+     */
+    public static int readBits(byte[] data, int offset, int length) {
+        return BitField.of(data.length, offset, length).read(data);
+    }
+
+    /**
+     * Writes an unsigned value of {@code length} bits starting at bit {@code offset}, the reverse of
+     * {@link #readBits(byte[], int, int)}. The bits are OR-ed into {@code data}.
+     */
+    public static void writeBits(byte[] data, int offset, int length, int value) {
+        if (value == 0) {
+            return;
+        }
+
+        BitField.of(data.length, offset, length).write(data, value);
+    }
+
+    /*
+     * The numbers at an index of an array are loaded and stored with one access through a VarHandle view,
+     * an index out of the array throws an IndexOutOfBoundsException.
+     */
+
+    public static short getShort(byte[] data, int index) {
+        return (short) SHORT_BE.get(data, index);
+    }
+
+    public static int getInt(byte[] data, int index) {
+        return (int) INT_BE.get(data, index);
+    }
+
+    public static long getLong(byte[] data, int index) {
+        return (long) LONG_BE.get(data, index);
+    }
+
+    public static short getShortLE(byte[] data, int index) {
+        return (short) SHORT_LE.get(data, index);
+    }
+
+    public static int getIntLE(byte[] data, int index) {
+        return (int) INT_LE.get(data, index);
+    }
+
+    public static long getLongLE(byte[] data, int index) {
+        return (long) LONG_LE.get(data, index);
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code index} as a Big-Endian number.
+     */
+    public static long getUnsigned(byte[] data, int index, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (data[index + i] & 0xff);
+        }
+        return value;
+    }
+
+    public static void putShort(byte[] data, int index, short value) {
+        SHORT_BE.set(data, index, value);
+    }
+
+    public static void putInt(byte[] data, int index, int value) {
+        INT_BE.set(data, index, value);
+    }
+
+    public static void putLong(byte[] data, int index, long value) {
+        LONG_BE.set(data, index, value);
+    }
+
+    public static void putShortLE(byte[] data, int index, short value) {
+        SHORT_LE.set(data, index, value);
+    }
+
+    public static void putIntLE(byte[] data, int index, int value) {
+        INT_LE.set(data, index, value);
+    }
+
+    public static void putLongLE(byte[] data, int index, long value) {
+        LONG_LE.set(data, index, value);
     }
 }
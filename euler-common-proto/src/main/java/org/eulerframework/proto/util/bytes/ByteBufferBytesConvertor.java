@@ -0,0 +1,68 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+
+/**
+ * Converts a {@link ByteBuffer} property. Reading from a buffer returns a read only slice of it without copying,
+ * so the value is only valid as long as the bytes of the source buffer are not reused, for example until the
+ * next read into a socket buffer. Writing a value is one bulk transfer of its remaining bytes and leaves its
+ * position unchanged.
+ */
+public class ByteBufferBytesConvertor implements BytesConvertor<ByteBuffer> {
+    @Override
+    public ByteBuffer readFrom(InputStream in) throws IOException {
+        return ByteBuffer.wrap(in.readAllBytes());
+    }
+
+    @Override
+    public ByteBuffer readFrom(byte[] data) {
+        return ByteBuffer.wrap(data.clone());
+    }
+
+    @Override
+    public ByteBuffer wrap(byte[] data) {
+        return ByteBuffer.wrap(data);
+    }
+
+    @Override
+    public boolean isSharing() {
+        return true;
+    }
+
+    @Override
+    public int writeTo(Object value, OutputStream out) throws IOException {
+        ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+        int count = buffer.remaining();
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), count);
+        } else if (out instanceof ByteBufferOutputStream) {
+            ((ByteBufferOutputStream) out).write(buffer);
+        } else {
+            // a direct or read only buffer is copied chunk by chunk
+            Channels.newChannel(out).write(buffer);
+        }
+        return count;
+    }
+
+    @Override
+    public int sizeOf(Object value) {
+        return ((ByteBuffer) value).remaining();
+    }
+
+    @Override
+    public ByteBuffer readFrom(ByteBuffer buffer) {
+        return ByteBufferUtils.readSlice(buffer, buffer.remaining()).asReadOnlyBuffer();
+    }
+
+    @Override
+    public int writeTo(Object value, ByteBuffer buffer) {
+        ByteBuffer data = ((ByteBuffer) value).duplicate();
+        int count = data.remaining();
+        buffer.put(data);
+        return count;
+    }
+}
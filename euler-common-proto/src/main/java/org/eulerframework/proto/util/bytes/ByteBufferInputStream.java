@@ -0,0 +1,79 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link InputStream} reading the remaining bytes of a {@link ByteBuffer}, the position of the
+ * buffer moves with the stream. It lets the stream based serializers read a buffer without copying it.
+ */
+public class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+    private int mark = -1;
+
+    public ByteBufferInputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return the buffer read, a deserializer may read a slice of it directly
+     */
+    public ByteBuffer getBuffer() {
+        return buffer;
+    }
+
+    @Override
+    public int read() {
+        return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        int remaining = this.buffer.remaining();
+        if (remaining == 0) {
+            return -1;
+        }
+        int count = Math.min(len, remaining);
+        this.buffer.get(b, off, count);
+        return count;
+    }
+
+    @Override
+    public byte[] readAllBytes() {
+        return ByteBufferUtils.readAllBytes(this.buffer);
+    }
+
+    @Override
+    public long skip(long n) {
+        int count = (int) Math.max(0, Math.min(n, this.buffer.remaining()));
+        this.buffer.position(this.buffer.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return this.buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    @Override
+    public void mark(int readLimit) {
+        this.mark = this.buffer.position();
+    }
+
+    @Override
+    public void reset() throws IOException {
+        if (this.mark < 0) {
+            throw new IOException("The stream is not marked.");
+        }
+        this.buffer.position(this.mark);
+    }
+}
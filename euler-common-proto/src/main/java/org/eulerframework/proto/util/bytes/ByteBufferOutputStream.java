@@ -0,0 +1,33 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * An {@link OutputStream} putting the bytes into a {@link ByteBuffer}, a full buffer throws
+ * {@link java.nio.BufferOverflowException}.
+ */
+public class ByteBufferOutputStream extends OutputStream {
+    private final ByteBuffer buffer;
+
+    public ByteBufferOutputStream(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public void write(int b) {
+        this.buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        this.buffer.put(b, off, len);
+    }
+
+    /**
+     * Puts the remaining bytes of the source with one bulk put.
+     */
+    public void write(ByteBuffer src) {
+        this.buffer.put(src);
+    }
+}
@@ -0,0 +1,156 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads and writes Big-Endian numbers, or Little-Endian numbers by the {@code LE} methods, at the position of a
+ * {@link ByteBuffer} with absolute access, whatever the {@link ByteBuffer#order()} of the buffer is, and then
+ * moves the position forward.
+ */
+public final class ByteBufferUtils {
+    private ByteBufferUtils() {
+    }
+
+    public static short readShort(ByteBuffer buffer) {
+        int position = advance(buffer, Short.BYTES);
+        short value = buffer.getShort(position);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Short.reverseBytes(value);
+    }
+
+    public static int readInt(ByteBuffer buffer) {
+        int position = advance(buffer, Integer.BYTES);
+        int value = buffer.getInt(position);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+    public static long readLong(ByteBuffer buffer) {
+        int position = advance(buffer, Long.BYTES);
+        long value = buffer.getLong(position);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    public static short readShortLE(ByteBuffer buffer) {
+        int position = advance(buffer, Short.BYTES);
+        short value = buffer.getShort(position);
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN ? value : Short.reverseBytes(value);
+    }
+
+    public static int readIntLE(ByteBuffer buffer) {
+        int position = advance(buffer, Integer.BYTES);
+        int value = buffer.getInt(position);
+        return buffer.order() == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+    /**
+     * Reads at most {@code length} bytes as a Big-Endian number, the same as reading a {@code byte[]} shorter
+     * than the number type. Only the bytes read are consumed.
+     */
+    public static long readUnsigned(ByteBuffer buffer, int length) {
+        int count = Math.min(buffer.remaining(), length);
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value = (value << 8) | (buffer.get() & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * Reads {@code length} bytes at {@code index} as a Big-Endian number without moving the position.
+     */
+    public static long getUnsigned(ByteBuffer buffer, int index, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            value = (value << 8) | (buffer.get(index + i) & 0xff);
+        }
+        return value;
+    }
+
+    public static void writeShort(ByteBuffer buffer, short value) {
+        buffer.putShort(buffer.position(), buffer.order() == ByteOrder.BIG_ENDIAN ? value : Short.reverseBytes(value));
+        buffer.position(buffer.position() + Short.BYTES);
+    }
+
+    public static void writeInt(ByteBuffer buffer, int value) {
+        buffer.putInt(buffer.position(), buffer.order() == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value));
+        buffer.position(buffer.position() + Integer.BYTES);
+    }
+
+    public static void writeLong(ByteBuffer buffer, long value) {
+        buffer.putLong(buffer.position(), buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value));
+        buffer.position(buffer.position() + Long.BYTES);
+    }
+
+    public static void writeShortLE(ByteBuffer buffer, short value) {
+        buffer.putShort(buffer.position(), buffer.order() == ByteOrder.LITTLE_ENDIAN ? value : Short.reverseBytes(value));
+        buffer.position(buffer.position() + Short.BYTES);
+    }
+
+    public static void writeIntLE(ByteBuffer buffer, int value) {
+        buffer.putInt(buffer.position(), buffer.order() == ByteOrder.LITTLE_ENDIAN ? value : Integer.reverseBytes(value));
+        buffer.position(buffer.position() + Integer.BYTES);
+    }
+
+    /**
+     * Reads all the remaining bytes of the buffer.
+     */
+    public static byte[] readAllBytes(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+
+    /**
+     * Returns the next {@code length} bytes as a slice sharing the content of the buffer, and moves the
+     * position past them.
+     */
+    public static ByteBuffer readSlice(ByteBuffer buffer, int length) {
+        int position = advance(buffer, length);
+        return buffer.slice(position, length);
+    }
+
+    /**
+     * @return the absolute index of the first occurrence of {@code pattern} between the position and the
+     * limit of the buffer, or {@code -1}
+     */
+    public static int indexOf(ByteBuffer buffer, byte[] pattern) {
+        return ByteSearch.indexOf(buffer, buffer.position(), buffer.limit(), pattern);
+    }
+
+    /**
+     * @return the absolute index of the first occurrence of {@code pattern} between {@code fromIndex} (inclusive)
+     * and {@code toIndex} (exclusive), or {@code -1}
+     */
+    public static int indexOf(ByteBuffer buffer, int fromIndex, int toIndex, byte[] pattern) {
+        return ByteSearch.indexOf(buffer, fromIndex, toIndex, pattern);
+    }
+
+    /**
+     * @return the absolute index of the first {@code a} or {@code b} byte between {@code fromIndex} (inclusive)
+     * and {@code toIndex} (exclusive), or {@code -1}
+     */
+    public static int indexOfAny(ByteBuffer buffer, int fromIndex, int toIndex, byte a, byte b) {
+        return ByteSearch.indexOfAny(buffer, fromIndex, toIndex, a, b);
+    }
+
+    /**
+     * Moves the limit of the buffer before its trailing zeros.
+     */
+    public static ByteBuffer rightTrim(ByteBuffer buffer) {
+        int limit = buffer.limit();
+        while (limit > buffer.position() && buffer.get(limit - 1) == 0) {
+            limit--;
+        }
+        return buffer.limit(limit);
+    }
+
+    private static int advance(ByteBuffer buffer, int length) {
+        int position = buffer.position();
+        if (buffer.limit() - position < length) {
+            throw new BufferUnderflowException();
+        }
+        buffer.position(position + length);
+        return position;
+    }
+}
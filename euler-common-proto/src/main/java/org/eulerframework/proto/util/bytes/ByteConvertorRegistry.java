@@ -1,16 +1,25 @@
 package org.eulerframework.proto.util.bytes;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The convertors of the field types. A registry may be extended until it is {@link #freeze() frozen}.
+ * <p>
+ * A {@link org.eulerframework.proto.util.PropertyField} resolves the convertor of its field once when the
+ * schema is built.
+ */
 public class ByteConvertorRegistry {
-    private final Map<Class<?>, BytesConvertor<?>> convertors = new HashMap<>();
+    private final Map<Class<?>, BytesConvertor<?>> convertors = new ConcurrentHashMap<>();
+    private volatile boolean frozen;
 
     ByteConvertorRegistry() {
-        System.out.println("Create new byte convertor registry.");
     }
 
     public ByteConvertorRegistry addConvertor(Class<?> clazz, BytesConvertor<?> convertor) {
+        if (this.frozen) {
+            throw new IllegalStateException("The byte convertor registry is frozen.");
+        }
         this.convertors.put(clazz, convertor);
         return this;
     }
@@ -24,4 +33,18 @@ public class ByteConvertorRegistry {
     public <T> BytesConvertor<T> getConvertor(Class<T> clazz) {
         return (BytesConvertor<T>) convertors.get(clazz);
     }
+
+    /**
+     * Rejects any later convertor.
+     *
+     * @return this registry
+     */
+    public ByteConvertorRegistry freeze() {
+        this.frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
 }
@@ -1,5 +1,7 @@
 package org.eulerframework.proto.util.bytes;
 
+import java.nio.ByteBuffer;
+
 public class ByteConvertorRegistryFactory {
 
     public static ByteConvertorRegistry defaultRegistry() {
@@ -14,7 +16,9 @@ public class ByteConvertorRegistryFactory {
                     .addConvertor(Short.class, new ShortBytesConvertor())
                     .addConvertor(Long.class, new LongBytesConvertor())
                     .addConvertor(String.class, new StringBytesConvertor())
-                    .addConvertor(byte[].class, new BytesBytesConvertor());
+                    .addConvertor(byte[].class, new BytesBytesConvertor())
+                    .addConvertor(ByteBuffer.class, new ByteBufferBytesConvertor())
+                    .addConvertor(ByteSlice.class, new ByteSliceBytesConvertor());
         }
     }
 }
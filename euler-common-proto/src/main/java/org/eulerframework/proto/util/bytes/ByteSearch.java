@@ -0,0 +1,172 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds a byte sequence eight bytes at a time (SWAR): every word is tested for the first byte of the
+ * sequence with a few arithmetic operations, and only the candidates are compared byte by byte. The first of two
+ * bytes, such as the flag and the escape byte of a frame, is found the same way.
+ */
+final class ByteSearch {
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+
+    private ByteSearch() {
+    }
+
+    static int indexOf(byte[] data, int fromIndex, int toIndex, byte[] pattern) {
+        if (pattern.length == 0) {
+            throw new IllegalArgumentException("Empty pattern");
+        }
+
+        int last = toIndex - pattern.length;
+        long first = broadcast(pattern[0]);
+        int i = fromIndex;
+        while (i <= last) {
+            int candidate;
+            if (i + Long.BYTES <= toIndex) {
+                long matches = zeroBytes((long) LONG_LE.get(data, i) ^ first);
+                if (matches == 0) {
+                    i += Long.BYTES;
+                    continue;
+                }
+                candidate = i + (Long.numberOfTrailingZeros(matches) >>> 3);
+            } else if (data[i] == pattern[0]) {
+                candidate = i;
+            } else {
+                i++;
+                continue;
+            }
+
+            if (candidate > last) {
+                return -1;
+            }
+            if (matches(data, candidate, pattern)) {
+                return candidate;
+            }
+            i = candidate + 1;
+        }
+        return -1;
+    }
+
+    static int indexOf(ByteBuffer buffer, int fromIndex, int toIndex, byte[] pattern) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            int index = indexOf(buffer.array(), offset + fromIndex, offset + toIndex, pattern);
+            return index < 0 ? -1 : index - offset;
+        }
+
+        if (pattern.length == 0) {
+            throw new IllegalArgumentException("Empty pattern");
+        }
+
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        int last = toIndex - pattern.length;
+        long first = broadcast(pattern[0]);
+        int i = fromIndex;
+        while (i <= last) {
+            int candidate;
+            if (i + Long.BYTES <= toIndex) {
+                long matches = zeroBytes(buffer.getLong(i) ^ first);
+                if (matches == 0) {
+                    i += Long.BYTES;
+                    continue;
+                }
+                // the lowest address is the most significant byte of a Big-Endian word
+                candidate = i + ((bigEndian ? Long.numberOfLeadingZeros(matches) : Long.numberOfTrailingZeros(matches)) >>> 3);
+            } else if (buffer.get(i) == pattern[0]) {
+                candidate = i;
+            } else {
+                i++;
+                continue;
+            }
+
+            if (candidate > last) {
+                return -1;
+            }
+            if (matches(buffer, candidate, pattern)) {
+                return candidate;
+            }
+            i = candidate + 1;
+        }
+        return -1;
+    }
+
+    static int indexOfAny(byte[] data, int fromIndex, int toIndex, byte a, byte b) {
+        long wordA = broadcast(a);
+        long wordB = broadcast(b);
+        int i = fromIndex;
+        for (int last = toIndex - Long.BYTES; i <= last; i += Long.BYTES) {
+            long word = (long) LONG_LE.get(data, i);
+            long matches = zeroBytes(word ^ wordA) | zeroBytes(word ^ wordB);
+            if (matches != 0) {
+                return i + (Long.numberOfTrailingZeros(matches) >>> 3);
+            }
+        }
+        for (; i < toIndex; i++) {
+            if (data[i] == a || data[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static int indexOfAny(ByteBuffer buffer, int fromIndex, int toIndex, byte a, byte b) {
+        if (buffer.hasArray()) {
+            int offset = buffer.arrayOffset();
+            int index = indexOfAny(buffer.array(), offset + fromIndex, offset + toIndex, a, b);
+            return index < 0 ? -1 : index - offset;
+        }
+
+        boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        long wordA = broadcast(a);
+        long wordB = broadcast(b);
+        int i = fromIndex;
+        for (int last = toIndex - Long.BYTES; i <= last; i += Long.BYTES) {
+            long word = buffer.getLong(i);
+            long matches = zeroBytes(word ^ wordA) | zeroBytes(word ^ wordB);
+            if (matches != 0) {
+                return i + ((bigEndian ? Long.numberOfLeadingZeros(matches) : Long.numberOfTrailingZeros(matches)) >>> 3);
+            }
+        }
+        for (; i < toIndex; i++) {
+            byte value = buffer.get(i);
+            if (value == a || value == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long broadcast(byte b) {
+        return (b & 0xFFL) * 0x0101010101010101L;
+    }
+
+    /**
+     * @return a word with the high bit set in every zero byte of {@code x}, without false positives
+     */
+    private static long zeroBytes(long x) {
+        return ~(((x & LOW_BITS) + LOW_BITS) | x | LOW_BITS);
+    }
+
+    private static boolean matches(byte[] data, int index, byte[] pattern) {
+        for (int j = 1; j < pattern.length; j++) {
+            if (data[index + j] != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(ByteBuffer buffer, int index, byte[] pattern) {
+        for (int j = 1; j < pattern.length; j++) {
+            if (buffer.get(index + j) != pattern[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,128 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A read only view of a range of a byte array, the value of a {@link org.eulerframework.proto.util.ProtoType#BYTES}
+ * property read without copying.
+ * <p>
+ * A slice read from a buffer shares its bytes, so it is only valid as long as the bytes of the buffer are not
+ * reused, for example until the next read into a socket buffer. Keep a {@link #copy()} to hold it longer.
+ */
+public final class ByteSlice {
+    private static final ByteSlice EMPTY = new ByteSlice(new byte[0], 0, 0);
+
+    public static ByteSlice empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @return a slice of the whole array, the array is shared
+     */
+    public static ByteSlice of(byte[] data) {
+        return new ByteSlice(data, 0, data.length);
+    }
+
+    /**
+     * @return a slice of the range of the array, the array is shared
+     */
+    public static ByteSlice of(byte[] data, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        return new ByteSlice(data, offset, length);
+    }
+
+    /**
+     * Reads the remaining bytes of the buffer. The slice shares the backing array of a heap buffer, the bytes of
+     * any other buffer are copied.
+     */
+    public static ByteSlice read(ByteBuffer buffer) {
+        int length = buffer.remaining();
+        if (buffer.hasArray()) {
+            ByteSlice slice = new ByteSlice(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+            buffer.position(buffer.limit());
+            return slice;
+        }
+        return of(ByteBufferUtils.readAllBytes(buffer));
+    }
+
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+
+    private ByteSlice(byte[] data, int offset, int length) {
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte get(int index) {
+        Objects.checkIndex(index, this.length);
+        return this.data[this.offset + index];
+    }
+
+    /**
+     * @return a read only buffer of the bytes, sharing them
+     */
+    public ByteBuffer asReadOnlyBuffer() {
+        return ByteBuffer.wrap(this.data, this.offset, this.length).slice().asReadOnlyBuffer();
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(this.data, this.offset, this.offset + this.length);
+    }
+
+    /**
+     * @return a slice of a copy of the bytes, no longer sharing them
+     */
+    public ByteSlice copy() {
+        return of(this.toByteArray());
+    }
+
+    /**
+     * Writes the bytes with one bulk write.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(this.data, this.offset, this.length);
+    }
+
+    /**
+     * Puts the bytes with one bulk put.
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.put(this.data, this.offset, this.length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ByteSlice)) {
+            return false;
+        }
+        ByteSlice that = (ByteSlice) o;
+        return Arrays.equals(this.data, this.offset, this.offset + this.length, that.data, that.offset, that.offset + that.length);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = this.offset, end = this.offset + this.length; i < end; i++) {
+            hash = 31 * hash + this.data[i];
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "ByteSlice[length=" + this.length + "]";
+    }
+}
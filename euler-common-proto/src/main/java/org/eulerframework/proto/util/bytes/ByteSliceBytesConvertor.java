@@ -0,0 +1,56 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts a {@link ByteSlice} property. Reading from a heap buffer returns a slice of its backing array without
+ * copying, writing a value is one bulk transfer.
+ */
+public class ByteSliceBytesConvertor implements BytesConvertor<ByteSlice> {
+    @Override
+    public ByteSlice readFrom(InputStream in) throws IOException {
+        return ByteSlice.of(in.readAllBytes());
+    }
+
+    @Override
+    public ByteSlice readFrom(byte[] data) {
+        return ByteSlice.of(data.clone());
+    }
+
+    @Override
+    public ByteSlice wrap(byte[] data) {
+        return ByteSlice.of(data);
+    }
+
+    @Override
+    public boolean isSharing() {
+        return true;
+    }
+
+    @Override
+    public int writeTo(Object value, OutputStream out) throws IOException {
+        ByteSlice slice = (ByteSlice) value;
+        slice.writeTo(out);
+        return slice.length();
+    }
+
+    @Override
+    public int sizeOf(Object value) {
+        return ((ByteSlice) value).length();
+    }
+
+    @Override
+    public ByteSlice readFrom(ByteBuffer buffer) {
+        return ByteSlice.read(buffer);
+    }
+
+    @Override
+    public int writeTo(Object value, ByteBuffer buffer) {
+        ByteSlice slice = (ByteSlice) value;
+        slice.writeTo(buffer);
+        return slice.length();
+    }
+}
@@ -5,6 +5,7 @@ import org.apache.commons.lang3.ArrayUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public class BytesBytesConvertor implements BytesConvertor<byte[]> {
 
@@ -18,10 +19,32 @@ public class BytesBytesConvertor implements BytesConvertor<byte[]> {
         return ArrayUtils.clone(data);
     }
 
+    @Override
+    public byte[] wrap(byte[] data) {
+        return data;
+    }
+
     @Override
     public int writeTo(Object value, OutputStream out) throws IOException {
         byte[] bytes = (byte[]) value;
         out.write(bytes);
         return bytes.length;
     }
+
+    @Override
+    public int sizeOf(Object value) {
+        return ((byte[]) value).length;
+    }
+
+    @Override
+    public byte[] readFrom(ByteBuffer buffer) {
+        return ByteBufferUtils.readAllBytes(buffer);
+    }
+
+    @Override
+    public int writeTo(Object value, ByteBuffer buffer) {
+        byte[] bytes = (byte[]) value;
+        buffer.put(bytes);
+        return bytes.length;
+    }
 }
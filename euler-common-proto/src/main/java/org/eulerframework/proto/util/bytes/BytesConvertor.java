@@ -1,13 +1,63 @@
 package org.eulerframework.proto.util.bytes;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public interface BytesConvertor<T> {
     T readFrom(InputStream in) throws IOException;
 
     T readFrom(byte[] data);
 
+    /**
+     * Reads the value from an array nothing else refers to, such as the bytes just read for a property, so
+     * the value may keep the array instead of a copy.
+     */
+    default T wrap(byte[] data) {
+        return this.readFrom(data);
+    }
+
+    /**
+     * @return {@code true} if a value read from a buffer may share the bytes of the buffer, so the bytes must not
+     * be reused while the value is in use
+     */
+    default boolean isSharing() {
+        return false;
+    }
+
     int writeTo(Object value, OutputStream out) throws IOException;
+
+    /**
+     * @return the count of bytes {@link #writeTo(Object, OutputStream)} writes for the value
+     */
+    default int sizeOf(Object value) {
+        try {
+            CountingOutputStream out = new CountingOutputStream();
+            this.writeTo(value, out);
+            return out.getIntCount();
+        } catch (IOException e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    /**
+     * Reads the value at the position of the buffer, the same as {@link #readFrom(InputStream)}.
+     */
+    default T readFrom(ByteBuffer buffer) {
+        return this.readFrom(ByteBufferUtils.readAllBytes(buffer));
+    }
+
+    /**
+     * Puts the value at the position of the buffer, the same as {@link #writeTo(Object, OutputStream)}.
+     */
+    default int writeTo(Object value, ByteBuffer buffer) {
+        try {
+            return this.writeTo(value, new ByteBufferOutputStream(buffer));
+        } catch (IOException e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
 }
@@ -1,17 +1,53 @@
 package org.eulerframework.proto.util.bytes;
 
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 
 public interface CharSequenceBytesConvertor<T extends CharSequence> extends BytesConvertor<T> {
     T readFrom(InputStream in, Charset charset) throws IOException;
 
     T readFrom(byte[] data, Charset charset);
 
+    /**
+     * Reads {@code data[offset, offset + length)}, the default implementation copies the range.
+     */
+    default T readFrom(byte[] data, int offset, int length, Charset charset) {
+        return readFrom(Arrays.copyOfRange(data, offset, offset + length), charset);
+    }
+
     int writeTo(Object value, OutputStream out, Charset charset) throws IOException;
 
+    /**
+     * @return the count of bytes {@link #writeTo(Object, OutputStream, Charset)} writes for the value
+     */
+    default int sizeOf(Object value, Charset charset) {
+        try {
+            CountingOutputStream out = new CountingOutputStream();
+            writeTo(value, out, charset);
+            return out.getIntCount();
+        } catch (IOException e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
+    default T readFrom(ByteBuffer buffer, Charset charset) {
+        return readFrom(ByteBufferUtils.readAllBytes(buffer), charset);
+    }
+
+    default int writeTo(Object value, ByteBuffer buffer, Charset charset) {
+        try {
+            return writeTo(value, new ByteBufferOutputStream(buffer), charset);
+        } catch (IOException e) {
+            throw ExceptionUtils.asRuntimeException(e);
+        }
+    }
+
     @Override
     default T readFrom(InputStream in) throws IOException {
         return readFrom(in, Charset.defaultCharset());
@@ -26,4 +62,19 @@ public interface CharSequenceBytesConvertor<T extends CharSequence> extends Byte
     default int writeTo(Object value, OutputStream out) throws IOException {
         return writeTo(value, out, Charset.defaultCharset());
     }
+
+    @Override
+    default int sizeOf(Object value) {
+        return sizeOf(value, Charset.defaultCharset());
+    }
+
+    @Override
+    default T readFrom(ByteBuffer buffer) {
+        return readFrom(buffer, Charset.defaultCharset());
+    }
+
+    @Override
+    default int writeTo(Object value, ByteBuffer buffer) {
+        return writeTo(value, buffer, Charset.defaultCharset());
+    }
 }
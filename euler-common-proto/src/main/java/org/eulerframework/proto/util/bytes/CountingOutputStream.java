@@ -0,0 +1,33 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.io.OutputStream;
+
+/**
+ * An {@link OutputStream} discarding the bytes and only counting them, it measures the encoded size of a
+ * value that can not be computed otherwise.
+ */
+public class CountingOutputStream extends OutputStream {
+    private long count;
+
+    @Override
+    public void write(int b) {
+        this.count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        this.count += len;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return the count as an {@code int}
+     * @throws ArithmeticException if the count overflows an {@code int}
+     */
+    public int getIntCount() {
+        return Math.toIntExact(this.count);
+    }
+}
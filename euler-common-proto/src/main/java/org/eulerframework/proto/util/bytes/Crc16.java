@@ -0,0 +1,129 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.zip.Checksum;
+
+/**
+ * A table driven CRC-16, one table lookup a byte.
+ * <p>
+ * The {@link #ccitt() CRC-16/CCITT-FALSE} and {@link #modbus() CRC-16/MODBUS} share their tables between
+ * instances, other parameters build a table of their own.
+ */
+public final class Crc16 implements Checksum {
+    private static final char[] CCITT_TABLE = table(0x1021, false);
+    private static final char[] MODBUS_TABLE = table(0x8005, true);
+
+    private final char[] table;
+    private final boolean reflected;
+    private final int init;
+    private final int xorOut;
+    private int crc;
+
+    /**
+     * @param poly      the polynomial, the highest bit omitted, such as {@code 0x1021}
+     * @param reflected whether the bytes are processed and the CRC is output with the lowest bit first
+     * @param init      the initial CRC
+     * @param xorOut    the value the CRC is XORed with when it is read
+     */
+    public Crc16(int poly, boolean reflected, int init, int xorOut) {
+        this(table(poly, reflected), reflected, init, xorOut);
+    }
+
+    private Crc16(char[] table, boolean reflected, int init, int xorOut) {
+        this.table = table;
+        this.reflected = reflected;
+        this.init = init & 0xFFFF;
+        this.xorOut = xorOut & 0xFFFF;
+        this.crc = this.init;
+    }
+
+    /**
+     * @return a CRC-16/CCITT-FALSE: polynomial {@code 0x1021}, initial {@code 0xFFFF}, not reflected, the check
+     * value of {@code "123456789"} is {@code 0x29B1}
+     */
+    public static Crc16 ccitt() {
+        return new Crc16(CCITT_TABLE, false, 0xFFFF, 0);
+    }
+
+    /**
+     * @return a CRC-16/MODBUS: polynomial {@code 0x8005}, initial {@code 0xFFFF}, reflected, the check value of
+     * {@code "123456789"} is {@code 0x4B37}
+     */
+    public static Crc16 modbus() {
+        return new Crc16(MODBUS_TABLE, true, 0xFFFF, 0);
+    }
+
+    @Override
+    public void update(int b) {
+        if (this.reflected) {
+            this.crc = (this.crc >>> 8) ^ this.table[(this.crc ^ b) & 0xFF];
+        } else {
+            this.crc = ((this.crc << 8) ^ this.table[((this.crc >>> 8) ^ b) & 0xFF]) & 0xFFFF;
+        }
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        char[] table = this.table;
+        int crc = this.crc;
+        if (this.reflected) {
+            for (int i = off, end = off + len; i < end; i++) {
+                crc = (crc >>> 8) ^ table[(crc ^ b[i]) & 0xFF];
+            }
+        } else {
+            for (int i = off, end = off + len; i < end; i++) {
+                crc = ((crc << 8) ^ table[((crc >>> 8) ^ b[i]) & 0xFF]) & 0xFFFF;
+            }
+        }
+        this.crc = crc;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (buffer.hasArray()) {
+            this.update(buffer.array(), buffer.arrayOffset() + position, limit - position);
+        } else {
+            for (int i = position; i < limit; i++) {
+                this.update(buffer.get(i));
+            }
+        }
+        buffer.position(limit);
+    }
+
+    @Override
+    public long getValue() {
+        return this.crc ^ this.xorOut;
+    }
+
+    @Override
+    public void reset() {
+        this.crc = this.init;
+    }
+
+    private static char[] table(int poly, boolean reflected) {
+        char[] table = new char[256];
+        if (reflected) {
+            int reversed = Integer.reverse(poly & 0xFFFF) >>> 16;
+            for (int i = 0; i < 256; i++) {
+                int c = i;
+                for (int bit = 0; bit < 8; bit++) {
+                    c = (c & 1) != 0 ? (c >>> 1) ^ reversed : c >>> 1;
+                }
+                table[i] = (char) c;
+            }
+        } else {
+            for (int i = 0; i < 256; i++) {
+                int c = i << 8;
+                for (int bit = 0; bit < 8; bit++) {
+                    c = (c & 0x8000) != 0 ? (c << 1) ^ poly : c << 1;
+                }
+                table[i] = (char) c;
+            }
+        }
+        return table;
+    }
+}
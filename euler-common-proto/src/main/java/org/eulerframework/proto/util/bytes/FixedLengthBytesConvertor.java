@@ -2,4 +2,9 @@ package org.eulerframework.proto.util.bytes;
 
 public interface FixedLengthBytesConvertor<T> extends BytesConvertor<T> {
     int length();
+
+    @Override
+    default int sizeOf(Object value) {
+        return this.length();
+    }
 }
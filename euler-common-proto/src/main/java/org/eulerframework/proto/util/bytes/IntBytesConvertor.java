@@ -0,0 +1,36 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads and writes a fixed length Big-Endian number of at most 4 bytes as a primitive {@code int}, so a number
+ * is converted without boxing and without an intermediate byte array.
+ * <p>
+ * The methods keep no state, an implementation may be shared by threads unless it says otherwise.
+ */
+public interface IntBytesConvertor {
+    int length();
+
+    /**
+     * @return the number read, a number shorter than 4 bytes is unsigned
+     */
+    int readInt(InputStream in) throws IOException;
+
+    /**
+     * @return the number read, a number shorter than 4 bytes is unsigned
+     */
+    int readInt(ByteBuffer buffer);
+
+    /**
+     * Writes the lowest {@link #length()} bytes of the value.
+     */
+    void writeInt(int value, OutputStream out) throws IOException;
+
+    /**
+     * Writes the lowest {@link #length()} bytes of the value.
+     */
+    void writeInt(int value, ByteBuffer buffer);
+}
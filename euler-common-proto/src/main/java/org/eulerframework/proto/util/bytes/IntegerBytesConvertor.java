@@ -3,6 +3,7 @@ package org.eulerframework.proto.util.bytes;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public class IntegerBytesConvertor implements NumberBytesConvertor<Integer> {
     @Override
@@ -13,7 +14,7 @@ public class IntegerBytesConvertor implements NumberBytesConvertor<Integer> {
         }
         byte[] data = new byte[length];
         int readBytes;
-        if ((readBytes = in.read(data)) < data.length) {
+        if ((readBytes = in.readNBytes(data, 0, data.length)) < data.length) {
             throw new IOException("An integer need " + data.length + " bytes, but only " + readBytes + " bytes read.");
         }
 
@@ -24,6 +25,9 @@ public class IntegerBytesConvertor implements NumberBytesConvertor<Integer> {
     public Integer readFrom(byte[] data) {
         int value = 0;
         int length = Math.min(data.length, this.length());
+        if (length == this.length()) {
+            return ByteArrayUtils.getInt(data, 0);
+        }
         for (int i = 0; i < length; i++) {
             value = (value << 8) | (data[i] & 0xff);
         }
@@ -32,12 +36,24 @@ public class IntegerBytesConvertor implements NumberBytesConvertor<Integer> {
 
     @Override
     public int writeTo(Object value, OutputStream out) throws IOException {
-        int i = ((Number) value).intValue();
-        int length = this.length();
-        for (int j = length - 1; j >= 0; j--) {
-            out.write(i >>> (j << 3) & 0xFF);
+        byte[] data = new byte[this.length()];
+        ByteArrayUtils.putInt(data, 0, ((Number) value).intValue());
+        out.write(data);
+        return data.length;
+    }
+
+    @Override
+    public Integer readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < this.length()) {
+            return (int) ByteBufferUtils.readUnsigned(buffer, this.length());
         }
-        return length;
+        return ByteBufferUtils.readInt(buffer);
+    }
+
+    @Override
+    public int writeTo(Object value, ByteBuffer buffer) {
+        ByteBufferUtils.writeInt(buffer, ((Number) value).intValue());
+        return this.length();
     }
 
     @Override
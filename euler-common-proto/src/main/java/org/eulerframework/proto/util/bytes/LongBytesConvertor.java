@@ -3,6 +3,7 @@ package org.eulerframework.proto.util.bytes;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public class LongBytesConvertor implements NumberBytesConvertor<Long> {
     @Override
@@ -13,7 +14,7 @@ public class LongBytesConvertor implements NumberBytesConvertor<Long> {
         }
         byte[] data = new byte[length];
         int readBytes;
-        if ((readBytes = in.read(data)) < data.length) {
+        if ((readBytes = in.readNBytes(data, 0, data.length)) < data.length) {
             throw new IOException("An integer need " + data.length + " bytes, but only " + readBytes + " bytes read.");
         }
 
@@ -24,6 +25,9 @@ public class LongBytesConvertor implements NumberBytesConvertor<Long> {
     public Long readFrom(byte[] data) {
         long value = 0;
         int length = Math.min(data.length, this.length());
+        if (length == this.length()) {
+            return ByteArrayUtils.getLong(data, 0);
+        }
         for (int i = 0; i < length; i++) {
             value = (value << 8) | (data[i] & 0xff);
         }
@@ -32,12 +36,24 @@ public class LongBytesConvertor implements NumberBytesConvertor<Long> {
 
     @Override
     public int writeTo(Object value, OutputStream out) throws IOException {
-        long l = ((Number) value).longValue();
-        int length = this.length();
-        for (int i = length - 1; i >= 0; i--) {
-            out.write((byte) (l >>> (i << 3) & 0xFF));
+        byte[] data = new byte[this.length()];
+        ByteArrayUtils.putLong(data, 0, ((Number) value).longValue());
+        out.write(data);
+        return data.length;
+    }
+
+    @Override
+    public Long readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < this.length()) {
+            return ByteBufferUtils.readUnsigned(buffer, this.length());
         }
-        return length;
+        return ByteBufferUtils.readLong(buffer);
+    }
+
+    @Override
+    public int writeTo(Object value, ByteBuffer buffer) {
+        ByteBufferUtils.writeLong(buffer, ((Number) value).longValue());
+        return this.length();
     }
 
     @Override
@@ -0,0 +1,267 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * Reads and writes the {@code byte[]}, {@code short[]}, {@code int[]} and {@code long[]} elements of a repeated
+ * property in bulk. An element is a Big-Endian unsigned number of 1, 2 or 4 bytes, converted to the component
+ * type as the number serializers do: widened without sign, or truncated to the low bytes.
+ * <p>
+ * The bytes of an array are read and written through Big-Endian {@link VarHandle} views, a direct buffer of
+ * elements as wide as the component type is copied by its {@link java.nio.ShortBuffer} or
+ * {@link java.nio.IntBuffer} view.
+ */
+public final class PrimitiveArrays {
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private PrimitiveArrays() {
+    }
+
+    /**
+     * @return {@code true} if the arrays of the component type are read and written by this class
+     */
+    public static boolean isSupported(Class<?> componentType) {
+        return componentType == byte.class || componentType == short.class
+                || componentType == int.class || componentType == long.class;
+    }
+
+    /**
+     * Reads {@code count} elements of {@code width} bytes from the position of the buffer and moves the position
+     * past them.
+     *
+     * @return a new array of the component type
+     * @throws BufferUnderflowException if the buffer has fewer bytes than the elements
+     */
+    public static Object read(ByteBuffer buffer, int count, int width, Class<?> componentType) {
+        int length = Math.multiplyExact(count, checkWidth(width));
+        if (buffer.remaining() < length) {
+            throw new BufferUnderflowException();
+        }
+
+        int position = buffer.position();
+        Object array;
+        if (buffer.hasArray()) {
+            array = read(buffer.array(), buffer.arrayOffset() + position, count, width, componentType);
+        } else if (width == Short.BYTES && componentType == short.class) {
+            short[] shorts = new short[count];
+            buffer.slice().order(ByteOrder.BIG_ENDIAN).asShortBuffer().get(shorts);
+            array = shorts;
+        } else if (width == Integer.BYTES && componentType == int.class) {
+            int[] ints = new int[count];
+            buffer.slice().order(ByteOrder.BIG_ENDIAN).asIntBuffer().get(ints);
+            array = ints;
+        } else {
+            byte[] data = new byte[length];
+            buffer.get(position, data);
+            array = read(data, 0, count, width, componentType);
+        }
+        buffer.position(position + length);
+        return array;
+    }
+
+    /**
+     * Reads {@code count} elements of {@code width} bytes from {@code data} at {@code offset}.
+     *
+     * @return a new array of the component type
+     */
+    public static Object read(byte[] data, int offset, int count, int width, Class<?> componentType) {
+        Objects.checkFromIndexSize(offset, Math.multiplyExact(count, checkWidth(width)), data.length);
+        if (componentType == byte.class) {
+            byte[] array = new byte[count];
+            if (width == 1) {
+                System.arraycopy(data, offset, array, 0, count);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    array[i] = (byte) get(data, offset + i * width, width);
+                }
+            }
+            return array;
+        }
+        if (componentType == short.class) {
+            short[] array = new short[count];
+            if (width == Short.BYTES) {
+                for (int i = 0; i < count; i++) {
+                    array[i] = (short) SHORT.get(data, offset + (i << 1));
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    array[i] = (short) get(data, offset + i * width, width);
+                }
+            }
+            return array;
+        }
+        if (componentType == int.class) {
+            int[] array = new int[count];
+            if (width == Integer.BYTES) {
+                for (int i = 0; i < count; i++) {
+                    array[i] = (int) INT.get(data, offset + (i << 2));
+                }
+            } else if (width == Short.BYTES) {
+                for (int i = 0; i < count; i++) {
+                    array[i] = (short) SHORT.get(data, offset + (i << 1)) & 0xFFFF;
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    array[i] = data[offset + i] & 0xFF;
+                }
+            }
+            return array;
+        }
+        if (componentType == long.class) {
+            long[] array = new long[count];
+            if (width == Integer.BYTES) {
+                for (int i = 0; i < count; i++) {
+                    array[i] = (int) INT.get(data, offset + (i << 2)) & 0xFFFFFFFFL;
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    array[i] = get(data, offset + i * width, width);
+                }
+            }
+            return array;
+        }
+        throw new IllegalArgumentException("Unsupported component type: " + componentType);
+    }
+
+    /**
+     * Writes every element of the array as {@code width} bytes at the position of the buffer and moves the
+     * position past them.
+     *
+     * @throws BufferOverflowException if the buffer has fewer bytes than the elements
+     */
+    public static void write(Object array, int width, ByteBuffer buffer) {
+        int count = length(array);
+        int length = Math.multiplyExact(count, checkWidth(width));
+        if (buffer.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+
+        int position = buffer.position();
+        if (buffer.hasArray()) {
+            write(array, width, buffer.array(), buffer.arrayOffset() + position);
+        } else if (width == Short.BYTES && array instanceof short[] shorts) {
+            buffer.slice().order(ByteOrder.BIG_ENDIAN).asShortBuffer().put(shorts);
+        } else if (width == Integer.BYTES && array instanceof int[] ints) {
+            buffer.slice().order(ByteOrder.BIG_ENDIAN).asIntBuffer().put(ints);
+        } else {
+            byte[] data = new byte[length];
+            write(array, width, data, 0);
+            buffer.put(position, data);
+        }
+        buffer.position(position + length);
+    }
+
+    /**
+     * Writes every element of the array as {@code width} bytes to {@code data} at {@code offset}.
+     *
+     * @return the count of bytes written
+     */
+    public static int write(Object array, int width, byte[] data, int offset) {
+        int count = length(array);
+        int length = Math.multiplyExact(count, checkWidth(width));
+        Objects.checkFromIndexSize(offset, length, data.length);
+        if (array instanceof byte[] bytes) {
+            if (width == 1) {
+                System.arraycopy(bytes, 0, data, offset, count);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    put(data, offset + i * width, width, bytes[i] & 0xFF);
+                }
+            }
+        } else if (array instanceof short[] shorts) {
+            if (width == Short.BYTES) {
+                for (int i = 0; i < count; i++) {
+                    SHORT.set(data, offset + (i << 1), shorts[i]);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    put(data, offset + i * width, width, shorts[i] & 0xFFFF);
+                }
+            }
+        } else if (array instanceof int[] ints) {
+            if (width == Integer.BYTES) {
+                for (int i = 0; i < count; i++) {
+                    INT.set(data, offset + (i << 2), ints[i]);
+                }
+            } else if (width == Short.BYTES) {
+                for (int i = 0; i < count; i++) {
+                    SHORT.set(data, offset + (i << 1), (short) ints[i]);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    data[offset + i] = (byte) ints[i];
+                }
+            }
+        } else {
+            long[] longs = (long[]) array;
+            if (width == Integer.BYTES) {
+                for (int i = 0; i < count; i++) {
+                    INT.set(data, offset + (i << 2), (int) longs[i]);
+                }
+            } else {
+                for (int i = 0; i < count; i++) {
+                    put(data, offset + i * width, width, longs[i]);
+                }
+            }
+        }
+        return length;
+    }
+
+    /**
+     * @return the element count of a supported primitive array
+     * @throws IllegalArgumentException if the value is not a supported primitive array
+     */
+    public static int length(Object array) {
+        if (array instanceof byte[] bytes) {
+            return bytes.length;
+        }
+        if (array instanceof short[] shorts) {
+            return shorts.length;
+        }
+        if (array instanceof int[] ints) {
+            return ints.length;
+        }
+        if (array instanceof long[] longs) {
+            return longs.length;
+        }
+        throw new IllegalArgumentException("Unsupported array: " + (array == null ? null : array.getClass()));
+    }
+
+    private static int checkWidth(int width) {
+        if (width != 1 && width != Short.BYTES && width != Integer.BYTES) {
+            throw new IllegalArgumentException("Unsupported element width: " + width);
+        }
+        return width;
+    }
+
+    private static long get(byte[] data, int index, int width) {
+        switch (width) {
+            case 1:
+                return data[index] & 0xFF;
+            case Short.BYTES:
+                return (short) SHORT.get(data, index) & 0xFFFF;
+            default:
+                return (int) INT.get(data, index) & 0xFFFFFFFFL;
+        }
+    }
+
+    private static void put(byte[] data, int index, int width, long value) {
+        switch (width) {
+            case 1:
+                data[index] = (byte) value;
+                break;
+            case Short.BYTES:
+                SHORT.set(data, index, (short) value);
+                break;
+            default:
+                INT.set(data, index, (int) value);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.eulerframework.proto.util.bytes;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public class ShortBytesConvertor implements NumberBytesConvertor<Short> {
     @Override
@@ -13,7 +14,7 @@ public class ShortBytesConvertor implements NumberBytesConvertor<Short> {
         }
         byte[] data = new byte[length];
         int readBytes;
-        if ((readBytes = in.read(data)) < data.length) {
+        if ((readBytes = in.readNBytes(data, 0, data.length)) < data.length) {
             throw new IOException("An integer need " + data.length + " bytes, but only " + readBytes + " bytes read.");
         }
 
@@ -24,6 +25,9 @@ public class ShortBytesConvertor implements NumberBytesConvertor<Short> {
     public Short readFrom(byte[] data) {
         int value = 0;
         int length = Math.min(data.length, this.length());
+        if (length == this.length()) {
+            return ByteArrayUtils.getShort(data, 0);
+        }
         for (int i = 0; i < length; i++) {
             value = (value << 8) | (data[i] & 0xff);
         }
@@ -32,12 +36,24 @@ public class ShortBytesConvertor implements NumberBytesConvertor<Short> {
 
     @Override
     public int writeTo(Object value, OutputStream out) throws IOException {
-        short s = ((Number) value).shortValue();
-        int length = this.length();
-        for (int i = length - 1; i >= 0; i--) {
-            out.write(s >>> (i << 3) & 0xFF);
+        byte[] data = new byte[this.length()];
+        ByteArrayUtils.putShort(data, 0, ((Number) value).shortValue());
+        out.write(data);
+        return data.length;
+    }
+
+    @Override
+    public Short readFrom(ByteBuffer buffer) {
+        if (buffer.remaining() < this.length()) {
+            return (short) ByteBufferUtils.readUnsigned(buffer, this.length());
         }
-        return length;
+        return ByteBufferUtils.readShort(buffer);
+    }
+
+    @Override
+    public int writeTo(Object value, ByteBuffer buffer) {
+        ByteBufferUtils.writeShort(buffer, ((Number) value).shortValue());
+        return this.length();
     }
 
     @Override
@@ -3,30 +3,340 @@ package org.eulerframework.proto.util.bytes;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Converts strings with the encoders and decoders of the thread, the result is the same as
+ * {@link String#getBytes(Charset)} and {@link String#String(byte[], Charset)}. A pure ASCII value of an
+ * ASCII compatible charset, such as GBK, is copied byte by byte without any encoder or decoder.
+ */
 public class StringBytesConvertor implements CharSequenceBytesConvertor<String>, BytesConvertor<String> {
+    private static final ThreadLocal<Coders> CODERS = ThreadLocal.withInitial(Coders::new);
+    private static final ConcurrentMap<Charset, Boolean> ASCII_COMPATIBLE = new ConcurrentHashMap<>();
+
+    /**
+     * ASCII bytes a stateful charset, such as ISO-2022-JP or HZ, decodes to other chars.
+     */
+    private static final String[] SHIFT_SEQUENCES = {"\u001B$B0!\u001B(B", "\u001B$)C\u000E!!\u000F", "~{!!~}"};
+
     @Override
     public String readFrom(InputStream in, Charset charset) throws IOException {
-        ByteArrayBuffer dataBuffer = new ByteArrayBuffer(in.available());
-        byte[] readBuffer = new byte[Math.min(in.available(), 1024)];
-        int readBytes;
-        while ((readBytes = in.read(readBuffer)) != -1) {
-            dataBuffer.append(readBuffer, 0, readBytes);
-        }
-        return new String(dataBuffer.toByteArray(), charset);
+        return this.readFrom(in.readAllBytes(), charset);
     }
 
     @Override
     public String readFrom(byte[] data, Charset charset) {
-        return new String(data, charset);
+        return this.readFrom(data, 0, data.length, charset);
+    }
+
+    @Override
+    public String readFrom(byte[] data, int offset, int length, Charset charset) {
+        Objects.checkFromIndexSize(offset, length, data.length);
+        if (isIntrinsic(charset)) {
+            return new String(data, offset, length, charset);
+        }
+        if (isAsciiCompatible(charset) && ByteArrayUtils.isAscii(data, offset, offset + length)) {
+            // every byte is a char, ISO-8859-1 copies them without a decoder
+            return new String(data, offset, length, StandardCharsets.ISO_8859_1);
+        }
+        return CODERS.get().decode(ByteBuffer.wrap(data, offset, length), charset);
+    }
+
+    @Override
+    public String readFrom(ByteBuffer buffer, Charset charset) {
+        if (buffer.hasArray()) {
+            // decode the backing array in place
+            String s = this.readFrom(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), charset);
+            buffer.position(buffer.limit());
+            return s;
+        }
+        return CODERS.get().decode(buffer, charset);
     }
 
     @Override
     public int writeTo(Object value, OutputStream out, Charset charset) throws IOException {
+        return CODERS.get().encode((String) value, out, charset);
+    }
+
+    @Override
+    public int writeTo(Object value, ByteBuffer buffer, Charset charset) {
+        return CODERS.get().encode((String) value, buffer, charset);
+    }
+
+    @Override
+    public int sizeOf(Object value, Charset charset) {
         String s = (String) value;
-        byte[] data = s.getBytes(charset);
-        out.write(data);
-        return data.length;
+        if (StandardCharsets.UTF_8.equals(charset)) {
+            return utf8Length(s);
+        }
+        return CODERS.get().length(s, charset);
+    }
+
+    /**
+     * @return the length of {@code s} encoded in UTF-8 without encoding it, a lone surrogate counts as the
+     * one byte replacement of {@link String#getBytes(Charset)}
+     */
+    private static int utf8Length(String s) {
+        int length = s.length();
+        int count = length;
+        for (int i = 0; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                continue;
+            }
+            if (c < 0x800) {
+                count += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                // 2 chars are encoded in 4 bytes
+                count += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                count += 2;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return {@code true} if {@link String} decodes the charset without a decoder
+     */
+    private static boolean isIntrinsic(Charset charset) {
+        return charset == StandardCharsets.UTF_8 || charset == StandardCharsets.ISO_8859_1
+                || charset == StandardCharsets.US_ASCII;
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        Boolean compatible = ASCII_COMPATIBLE.get(charset);
+        if (compatible == null) {
+            compatible = ASCII_COMPATIBLE.computeIfAbsent(charset, StringBytesConvertor::checkAsciiCompatible);
+        }
+        return compatible;
+    }
+
+    private static boolean checkAsciiCompatible(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        char[] ascii = new char[0x80];
+        for (char c = 0; c < ascii.length; c++) {
+            ascii[c] = c;
+        }
+        byte[] data = new String(ascii).getBytes(charset);
+        if (data.length != ascii.length) {
+            return false;
+        }
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] != i) {
+                return false;
+            }
+        }
+        for (String sequence : SHIFT_SEQUENCES) {
+            if (!sequence.equals(new String(sequence.getBytes(StandardCharsets.US_ASCII), charset))) {
+                return false;
+            }
+        }
+        return new String(ascii).equals(new String(data, charset));
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0, length = s.length(); i < length; i++) {
+            if (s.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The encoders and decoders of the recently used charsets and the scratch buffers of a thread.
+     */
+    private static final class Coders {
+        private static final int MAX_CODERS = 4;
+        private static final int MAX_SCRATCH_CHARS = 4096;
+
+        private final Coder[] coders = new Coder[MAX_CODERS];
+        private final ByteBuffer bytes = ByteBuffer.allocate(1024);
+        private CharBuffer chars = CharBuffer.allocate(64);
+
+        Coder coder(Charset charset) {
+            for (Coder coder : this.coders) {
+                if (coder == null) {
+                    break;
+                }
+                if (coder.charset == charset || coder.charset.equals(charset)) {
+                    return coder;
+                }
+            }
+            Coder coder = new Coder(charset);
+            System.arraycopy(this.coders, 0, this.coders, 1, MAX_CODERS - 1);
+            this.coders[0] = coder;
+            return coder;
+        }
+
+        String decode(ByteBuffer in, Charset charset) {
+            CharsetDecoder decoder = this.coder(charset).decoder();
+            int capacity = (int) Math.ceil(in.remaining() * (double) decoder.maxCharsPerByte());
+            if (capacity > MAX_SCRATCH_CHARS) {
+                return decode(decoder, in, CharBuffer.allocate(capacity));
+            }
+            if (this.chars.capacity() < capacity) {
+                this.chars = CharBuffer.allocate(Math.max(capacity, this.chars.capacity() << 1));
+            }
+            this.chars.clear();
+            return decode(decoder, in, this.chars);
+        }
+
+        int encode(String s, OutputStream out, Charset charset) throws IOException {
+            Coder coder = this.coder(charset);
+            byte[] scratch = this.bytes.array();
+            if (coder.asciiCompatible && isAscii(s)) {
+                int length = s.length();
+                for (int from = 0; from < length; from += scratch.length) {
+                    int count = Math.min(scratch.length, length - from);
+                    for (int i = 0; i < count; i++) {
+                        scratch[i] = (byte) s.charAt(from + i);
+                    }
+                    out.write(scratch, 0, count);
+                }
+                return length;
+            }
+
+            CharBuffer in = CharBuffer.wrap(s);
+            CharsetEncoder encoder = coder.encoder();
+            encoder.reset();
+            int count = 0;
+            CoderResult result;
+            do {
+                this.bytes.clear();
+                result = encoder.encode(in, this.bytes, true);
+                out.write(scratch, 0, this.bytes.position());
+                count += this.bytes.position();
+            } while (result.isOverflow());
+            do {
+                this.bytes.clear();
+                result = encoder.flush(this.bytes);
+                out.write(scratch, 0, this.bytes.position());
+                count += this.bytes.position();
+            } while (result.isOverflow());
+            return count;
+        }
+
+        int encode(String s, ByteBuffer buffer, Charset charset) {
+            Coder coder = this.coder(charset);
+            if (coder.asciiCompatible && isAscii(s)) {
+                int length = s.length();
+                if (buffer.remaining() < length) {
+                    throw new BufferOverflowException();
+                }
+                if (buffer.hasArray()) {
+                    byte[] array = buffer.array();
+                    int offset = buffer.arrayOffset() + buffer.position();
+                    for (int i = 0; i < length; i++) {
+                        array[offset + i] = (byte) s.charAt(i);
+                    }
+                    buffer.position(buffer.position() + length);
+                } else {
+                    for (int i = 0; i < length; i++) {
+                        buffer.put((byte) s.charAt(i));
+                    }
+                }
+                return length;
+            }
+
+            int start = buffer.position();
+            CharsetEncoder encoder = coder.encoder();
+            encoder.reset();
+            CoderResult result = encoder.encode(CharBuffer.wrap(s), buffer, true);
+            if (result.isUnderflow()) {
+                result = encoder.flush(buffer);
+            }
+            if (result.isOverflow()) {
+                throw new BufferOverflowException();
+            }
+            return buffer.position() - start;
+        }
+
+        /**
+         * Counts the encoded length of a string without allocating its bytes.
+         */
+        int length(String s, Charset charset) {
+            Coder coder = this.coder(charset);
+            if (coder.asciiCompatible && isAscii(s)) {
+                return s.length();
+            }
+
+            CharBuffer in = CharBuffer.wrap(s);
+            CharsetEncoder encoder = coder.encoder();
+            encoder.reset();
+            int count = 0;
+            CoderResult result;
+            do {
+                this.bytes.clear();
+                result = encoder.encode(in, this.bytes, true);
+                count += this.bytes.position();
+            } while (result.isOverflow());
+            do {
+                this.bytes.clear();
+                result = encoder.flush(this.bytes);
+                count += this.bytes.position();
+            } while (result.isOverflow());
+            return count;
+        }
+
+        private static String decode(CharsetDecoder decoder, ByteBuffer in, CharBuffer out) {
+            decoder.reset();
+            CoderResult result = decoder.decode(in, out, true);
+            if (result.isUnderflow()) {
+                result = decoder.flush(out);
+            }
+            if (!result.isUnderflow()) {
+                throw new IllegalStateException("Failed to decode the bytes with " + decoder.charset() + ": " + result);
+            }
+            return new String(out.array(), 0, out.position());
+        }
+    }
+
+    /**
+     * The encoder and decoder of a charset, created on first use and replacing as {@link String} does.
+     */
+    private static final class Coder {
+        private final Charset charset;
+        private final boolean asciiCompatible;
+        private CharsetEncoder encoder;
+        private CharsetDecoder decoder;
+
+        Coder(Charset charset) {
+            this.charset = charset;
+            this.asciiCompatible = isAsciiCompatible(charset);
+        }
+
+        CharsetEncoder encoder() {
+            if (this.encoder == null) {
+                this.encoder = this.charset.newEncoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            return this.encoder;
+        }
+
+        CharsetDecoder decoder() {
+            if (this.decoder == null) {
+                this.decoder = this.charset.newDecoder()
+                        .onMalformedInput(CodingErrorAction.REPLACE)
+                        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            }
+            return this.decoder;
+        }
     }
 }
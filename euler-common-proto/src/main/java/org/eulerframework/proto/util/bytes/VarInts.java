@@ -0,0 +1,174 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Objects;
+
+/**
+ * Unsigned LEB128 variable length numbers of at most 64 bits: 7 bits a byte, the lowest bits first, and the
+ * high bit of a byte set if another byte follows.
+ * <p>
+ * The byte count of a value is looked up by its bit length, so the bytes are written by a counted loop
+ * instead of testing the bits left after every byte.
+ */
+public final class VarInts {
+    /**
+     * The byte count of the largest value.
+     */
+    public static final int MAX_LENGTH = 10;
+
+    /**
+     * The byte count of a value by its bit length, zero is one byte.
+     */
+    private static final byte[] LENGTHS = new byte[Long.SIZE + 1];
+
+    static {
+        for (int bits = 0; bits <= Long.SIZE; bits++) {
+            LENGTHS[bits] = (byte) Math.max(1, (bits + 6) / 7);
+        }
+    }
+
+    private VarInts() {
+    }
+
+    /**
+     * @return the byte count of the value, the value is unsigned
+     */
+    public static int sizeOf(long value) {
+        return LENGTHS[Long.SIZE - Long.numberOfLeadingZeros(value)];
+    }
+
+    /**
+     * Writes the value to {@code data} at {@code offset}.
+     *
+     * @return the count of bytes written
+     */
+    public static int write(long value, byte[] data, int offset) {
+        int length = sizeOf(value);
+        Objects.checkFromIndexSize(offset, length, data.length);
+        int last = offset + length - 1;
+        for (int i = offset; i < last; i++) {
+            data[i] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        data[last] = (byte) value;
+        return length;
+    }
+
+    /**
+     * Writes the value at the position of the buffer and moves the position past it.
+     *
+     * @return the count of bytes written
+     */
+    public static int write(long value, ByteBuffer buffer) {
+        int length = sizeOf(value);
+        if (buffer.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        int position = buffer.position();
+        if (buffer.hasArray()) {
+            write(value, buffer.array(), buffer.arrayOffset() + position);
+        } else {
+            for (int i = 1; i < length; i++) {
+                buffer.put(position++, (byte) (value | 0x80));
+                value >>>= 7;
+            }
+            buffer.put(position, (byte) value);
+        }
+        buffer.position(buffer.position() + length);
+        return length;
+    }
+
+    /**
+     * @return the count of bytes written
+     */
+    public static int write(long value, OutputStream out) throws IOException {
+        if ((value & ~0x7FL) == 0) {
+            out.write((int) value);
+            return 1;
+        }
+        byte[] data = new byte[sizeOf(value)];
+        write(value, data, 0);
+        out.write(data);
+        return data.length;
+    }
+
+    /**
+     * Reads a value at the position of the buffer and moves the position past it. The bytes of a heap buffer are
+     * read from its array.
+     *
+     * @throws IllegalArgumentException if the value is longer than 64 bits or the buffer ends in the value
+     */
+    public static long read(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            byte[] data = buffer.array();
+            int offset = buffer.arrayOffset();
+            int index = offset + buffer.position();
+            int end = offset + buffer.limit();
+            long value = 0;
+            for (int shift = 0; index < end; shift += 7) {
+                byte b = data[index++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    checkLast(shift, b);
+                    buffer.position(index - offset);
+                    return value;
+                }
+                checkMore(shift);
+            }
+            throw new IllegalArgumentException("Not enough bytes to read a varint.");
+        }
+
+        int position = buffer.position();
+        int limit = buffer.limit();
+        long value = 0;
+        for (int shift = 0; position < limit; shift += 7) {
+            byte b = buffer.get(position++);
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                checkLast(shift, b);
+                buffer.position(position);
+                return value;
+            }
+            checkMore(shift);
+        }
+        throw new IllegalArgumentException("Not enough bytes to read a varint.");
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is longer than 64 bits or the stream ends in the value
+     */
+    public static long read(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new IllegalArgumentException("Not enough bytes to read a varint.");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if (b < 0x80) {
+                checkLast(shift, b);
+                return value;
+            }
+            checkMore(shift);
+        }
+    }
+
+    /**
+     * The tenth byte holds the highest bit only.
+     */
+    private static void checkLast(int shift, int b) {
+        if (shift == 63 && b > 1) {
+            throw new IllegalArgumentException("The varint is longer than 64 bits.");
+        }
+    }
+
+    private static void checkMore(int shift) {
+        if (shift == 63) {
+            throw new IllegalArgumentException("The varint is longer than " + MAX_LENGTH + " bytes.");
+        }
+    }
+}
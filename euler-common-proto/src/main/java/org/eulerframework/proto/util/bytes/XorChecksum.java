@@ -0,0 +1,80 @@
+package org.eulerframework.proto.util.bytes;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Objects;
+import java.util.zip.Checksum;
+
+/**
+ * The XOR of all the bytes, the one byte check code of many device protocols.
+ * <p>
+ * The bytes are folded eight at a time into a word, and the eight bytes of the word are folded into one at the
+ * end, as the XOR of a byte lane does not depend on the other lanes.
+ */
+public final class XorChecksum implements Checksum {
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private int value;
+
+    @Override
+    public void update(int b) {
+        this.value ^= b & 0xFF;
+    }
+
+    @Override
+    public void update(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        long word = 0;
+        int i = off;
+        for (int last = off + len - Long.BYTES; i <= last; i += Long.BYTES) {
+            word ^= (long) LONG.get(b, i);
+        }
+        int x = fold(word);
+        for (int end = off + len; i < end; i++) {
+            x ^= b[i];
+        }
+        this.value ^= x & 0xFF;
+    }
+
+    @Override
+    public void update(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        if (buffer.hasArray()) {
+            this.update(buffer.array(), buffer.arrayOffset() + position, limit - position);
+            buffer.position(limit);
+            return;
+        }
+
+        long word = 0;
+        int i = position;
+        for (int last = limit - Long.BYTES; i <= last; i += Long.BYTES) {
+            word ^= buffer.getLong(i);
+        }
+        int x = fold(word);
+        for (; i < limit; i++) {
+            x ^= buffer.get(i);
+        }
+        this.value ^= x & 0xFF;
+        buffer.position(limit);
+    }
+
+    @Override
+    public long getValue() {
+        return this.value;
+    }
+
+    @Override
+    public void reset() {
+        this.value = 0;
+    }
+
+    private static int fold(long word) {
+        word ^= word >>> 32;
+        word ^= word >>> 16;
+        word ^= word >>> 8;
+        return (int) word;
+    }
+}
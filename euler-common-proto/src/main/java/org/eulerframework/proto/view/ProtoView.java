@@ -0,0 +1,319 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.view;
+
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.codec.ProtoCodecSupport;
+import org.eulerframework.proto.frame.ProtoFrameDecoder;
+import org.eulerframework.proto.schema.ProtoSchema;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.eulerframework.proto.util.bytes.ByteBufferUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A flyweight view of an encoded message, reading its properties only when they are accessed.
+ * <p>
+ * Routing or filtering a message often needs two or three of its properties, a view reads them from the frame
+ * without instantiating the message. The offsets of the properties are resolved from the {@link ProtoSchema}
+ * once: the offsets before the first variable length property are the same for every frame, the others are
+ * resolved for each frame when a later property is accessed. {@link #wrap(ByteBuffer)} points the view at the
+ * next frame, and neither wrapping nor {@link #getUnsigned(int)} allocates.
+ * <p>
+ * As for the {@link ProtoFrameDecoder}, the length of every property must be known from the schema: the nested
+ * {@link ProtoType#OBJECT}s must have a fixed length, a {@link ProtoPropertyOption#LENGTH_MODE_PREFIX} property
+ * must have a {@link ProtoType#BYTE}, {@link ProtoType#WORD} or {@link ProtoType#DWORD} prefix and only the
+ * last property may be in {@link ProtoPropertyOption#LENGTH_MODE_ALL_BYTES} mode.
+ * <p>
+ * A view is not thread-safe.
+ */
+public final class ProtoView<T> {
+    private static final int PREFIX = -1;
+    private static final int SEPARATOR = -2;
+    private static final int ALL_BYTES = -3;
+
+    private final SerializerRegistry serializerRegistry;
+    private final Class<T> type;
+    private final ProtoContext ctx;
+    private final List<PropertyField> propertyFields;
+    private final Map<String, Integer> indexes;
+    /**
+     * the byte length of each property, or {@link #PREFIX}, {@link #SEPARATOR} or {@link #ALL_BYTES}
+     */
+    private final int[] lengths;
+    private final int[] prefixLengths;
+    private final byte[][] separators;
+    /**
+     * the offset of each property from the start of the frame, followed by the end of the last property
+     */
+    private final int[] offsets;
+    private final int constantOffsets;
+
+    private ByteBuffer frame;
+    private byte[] frameArray;
+    private int start;
+    private int end;
+    private int resolvedOffsets;
+
+    /**
+     * @throws IllegalArgumentException if the messages have no property, or the length of a property can not
+     *                                  be resolved with the serializers of the registry
+     */
+    public ProtoView(SerializerRegistry serializerRegistry, Class<T> type, int version) {
+        ProtoSchema schema = ProtoSchema.forClass(type, version);
+        if (schema.getPropertyFields().isEmpty()) {
+            throw new IllegalArgumentException("The messages of " + type.getName() + " have no property to view, version " + version);
+        }
+        ProtoCodecSupport.checkBuiltIn(serializerRegistry, schema);
+
+        this.serializerRegistry = serializerRegistry;
+        this.type = type;
+        this.ctx = new ProtoContext();
+        this.ctx.setVersion(version);
+        this.propertyFields = schema.getPropertyFields();
+
+        int count = this.propertyFields.size();
+        Map<String, Integer> indexes = new HashMap<>();
+        this.lengths = new int[count];
+        this.prefixLengths = new int[count];
+        this.separators = new byte[count][];
+        for (int i = 0; i < count; i++) {
+            PropertyField propertyField = this.propertyFields.get(i);
+            indexes.put(propertyField.getField().getName(), i);
+            int length = schema.getFixedLength(i);
+            this.lengths[i] = length < 0 ? this.variableLength(propertyField, i, version) : length;
+        }
+        this.indexes = Map.copyOf(indexes);
+
+        this.offsets = new int[count + 1];
+        int constantOffsets = 0;
+        while (constantOffsets < count && this.lengths[constantOffsets] >= 0) {
+            this.offsets[constantOffsets + 1] = this.offsets[constantOffsets] + this.lengths[constantOffsets];
+            constantOffsets++;
+        }
+        this.constantOffsets = constantOffsets;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Points the view at the bytes between the position and the limit of the frame. The position of the frame
+     * is not moved, and the frame must not be changed while it is viewed.
+     */
+    public ProtoView<T> wrap(ByteBuffer frame) {
+        this.frame = frame;
+        this.frameArray = null;
+        this.start = frame.position();
+        this.end = frame.limit();
+        this.resolvedOffsets = this.constantOffsets;
+        return this;
+    }
+
+    public ProtoView<T> wrap(byte[] frame) {
+        return this.wrap(frame, 0, frame.length);
+    }
+
+    /**
+     * Points the view at {@code length} bytes of the array from {@code offset}. The array is only wrapped
+     * in a new buffer if it is not the array viewed before, so a reused receive buffer allocates nothing.
+     */
+    public ProtoView<T> wrap(byte[] frame, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, frame.length);
+        if (this.frameArray != frame) {
+            this.frame = ByteBuffer.wrap(frame);
+            this.frameArray = frame;
+        }
+        this.start = offset;
+        this.end = offset + length;
+        this.resolvedOffsets = this.constantOffsets;
+        return this;
+    }
+
+    /**
+     * @return the index of the property, to be resolved once and then used for every frame
+     * @throws IllegalArgumentException if the messages have no such property
+     */
+    public int indexOf(String propertyName) {
+        Integer index = this.indexes.get(propertyName);
+        if (index == null) {
+            throw new IllegalArgumentException("The messages of " + this.type.getName() + " have no property " + propertyName);
+        }
+        return index;
+    }
+
+    /**
+     * @return the offset of the property from the start of the frame
+     */
+    public int offsetOf(int index) {
+        return this.resolve(index);
+    }
+
+    /**
+     * @return the byte length of the property, including its length prefix or separator
+     */
+    public int lengthOf(int index) {
+        int offset = this.resolve(index);
+        return this.offsets[index + 1] - offset;
+    }
+
+    /**
+     * Reads the bytes of the property as a Big-Endian unsigned number without decoding it, such as the raw
+     * value of a {@link ProtoType#WORD} or {@link ProtoType#DWORD}.
+     *
+     * @throws IllegalArgumentException if the property is longer than 8 bytes
+     */
+    public long getUnsigned(int index) {
+        int offset = this.resolve(index);
+        int length = this.offsets[index + 1] - offset;
+        if (length > Long.BYTES) {
+            throw new IllegalArgumentException("The property " + this.propertyFields.get(index).getField().getName() +
+                    " has " + length + " bytes, more than a number.");
+        }
+        return ByteBufferUtils.getUnsigned(this.frame, this.start + offset, length);
+    }
+
+    /**
+     * Decodes the property with its deserializer.
+     */
+    public <V> V get(int index) throws IOException {
+        int offset = this.resolve(index);
+        PropertyField propertyField = this.propertyFields.get(index);
+        ByteBuffer frame = this.frame;
+        int position = frame.position();
+        int limit = frame.limit();
+        frame.limit(this.start + this.offsets[index + 1]).position(this.start + offset);
+        try {
+            return propertyField.getDeserializer(this.serializerRegistry).read(this.ctx, frame, propertyField);
+        } finally {
+            frame.limit(limit).position(position);
+        }
+    }
+
+    /**
+     * Decodes the whole message.
+     */
+    public T decode() throws IOException {
+        this.checkWrapped();
+        ByteBuffer frame = this.frame;
+        int position = frame.position();
+        int limit = frame.limit();
+        frame.limit(this.end).position(this.start);
+        try {
+            return this.serializerRegistry.getDeserializer(ProtoType.OBJECT).read(this.ctx, frame, this.type);
+        } finally {
+            frame.limit(limit).position(position);
+        }
+    }
+
+    /**
+     * Resolves the offsets up to the end of the property.
+     *
+     * @return the offset of the property
+     */
+    private int resolve(int index) {
+        Objects.checkIndex(index, this.lengths.length);
+        this.checkWrapped();
+        int frameLength = this.end - this.start;
+        while (this.resolvedOffsets <= index) {
+            int i = this.resolvedOffsets;
+            this.offsets[i + 1] = this.offsets[i] + this.lengthAt(i, this.start + this.offsets[i]);
+            this.checkEnd(i, frameLength);
+            this.resolvedOffsets++;
+        }
+        // the constant offsets are not checked against the frame when it is wrapped
+        this.checkEnd(index, frameLength);
+        return this.offsets[index];
+    }
+
+    private void checkEnd(int index, int frameLength) {
+        if (this.offsets[index + 1] > frameLength) {
+            throw new IndexOutOfBoundsException("The frame has " + frameLength + " bytes, but the property " +
+                    this.propertyFields.get(index).getField().getName() + " ends at " + this.offsets[index + 1]);
+        }
+    }
+
+    /**
+     * @return the byte length of the property at the position, or any length past the end of the frame if the
+     * property does not end in the frame
+     */
+    private int lengthAt(int index, int position) {
+        int length = this.lengths[index];
+        int remaining = this.end - position;
+        switch (length) {
+            case PREFIX:
+                int prefixLength = this.prefixLengths[index];
+                if (remaining < prefixLength) {
+                    return prefixLength;
+                }
+                return (int) Math.min(prefixLength + ByteBufferUtils.getUnsigned(this.frame, position, prefixLength), remaining + 1L);
+            case SEPARATOR:
+                byte[] separator = this.separators[index];
+                int separatorIndex = ByteBufferUtils.indexOf(this.frame, position, this.end, separator);
+                if (separatorIndex < 0) {
+                    throw new IllegalArgumentException("The separator of the property " +
+                            this.propertyFields.get(index).getField().getName() + " is not found.");
+                }
+                return separatorIndex - position + separator.length;
+            case ALL_BYTES:
+                return remaining;
+            default:
+                return length;
+        }
+    }
+
+    private void checkWrapped() {
+        if (this.frame == null) {
+            throw new IllegalStateException("The view is not pointed at a frame.");
+        }
+    }
+
+    private int variableLength(PropertyField propertyField, int index, int version) {
+        boolean bytes = ProtoType.BYTES.equals(propertyField.getType());
+        // an ARRAY is framed by its length prefix like BYTES, not by its count prefix
+        if (bytes || ProtoType.ARRAY.equals(propertyField.getType())) {
+            String lengthMode = propertyField.getLengthMode();
+            if (ProtoPropertyOption.LENGTH_MODE_PREFIX.equals(lengthMode)) {
+                String prefixType = propertyField.getLengthPrefixType();
+                if (ProtoCodecSupport.isBuiltIn(this.serializerRegistry, prefixType)) {
+                    int prefixLength = ProtoCodecSupport.fixedLength(this.serializerRegistry.getDeserializer(prefixType));
+                    if (prefixLength > 0) {
+                        this.prefixLengths[index] = prefixLength;
+                        return PREFIX;
+                    }
+                }
+            } else if (bytes && ProtoPropertyOption.LENGTH_MODE_SEPARATOR.equals(lengthMode)
+                    && propertyField.getSeparator().length > 0) {
+                this.separators[index] = propertyField.getSeparator();
+                return SEPARATOR;
+            } else if (ProtoPropertyOption.LENGTH_MODE_ALL_BYTES.equals(lengthMode)
+                    && index == this.propertyFields.size() - 1) {
+                return ALL_BYTES;
+            }
+        }
+        throw new IllegalArgumentException("The length of " + this.type.getName() + "." + propertyField.getField().getName()
+                + " can not be resolved, version " + version);
+    }
+}
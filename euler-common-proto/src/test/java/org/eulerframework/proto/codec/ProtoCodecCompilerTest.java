@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.codec;
+
+import org.eulerframework.proto.fixture.Message;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Status;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+class ProtoCodecCompilerTest {
+
+    @Test
+    void compiledCodecMatchesObjectField() throws IOException {
+        for (int version : new int[]{0, 1}) {
+            Message message = ProtoFixtures.newMessage(0);
+            message.id = 0xFFFF8001;
+            message.count = 0x10203;
+
+            byte[] expected = ProtoFixtures.write(ProtoFixtures.newRegistry(false), message, version);
+            byte[] actual = ProtoFixtures.write(ProtoFixtures.newRegistry(true), message, version);
+            Assertions.assertArrayEquals(expected, actual);
+
+            Message result = ProtoFixtures.read(ProtoFixtures.newRegistry(true), actual, Message.class, version);
+            ProtoFixtures.assertMessage(message, result, version);
+        }
+    }
+
+    @Test
+    void stopAtEndOfStream() throws IOException {
+        byte[] data = new byte[]{0, 1, 0, 2, 3, 0};
+
+        Message result = ProtoFixtures.read(ProtoFixtures.newRegistry(true), Arrays.copyOf(data, 4), Message.class, 0);
+        Assertions.assertEquals(1, result.id);
+        Assertions.assertEquals(2, result.serial);
+        Assertions.assertNull(result.count);
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> ProtoFixtures.read(ProtoFixtures.newRegistry(true), data, Message.class, 0));
+    }
+
+    @Test
+    void shortReads() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(true);
+        Message message = ProtoFixtures.newMessage(1);
+        byte[] data = ProtoFixtures.write(registry, message, 0);
+        // a stream returning one byte for every bulk read, as a socket stream may do
+        InputStream in = new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1));
+            }
+        };
+        Message result = registry.getDeserializer(ProtoType.OBJECT).read(new ProtoContext(), in, Message.class);
+        ProtoFixtures.assertMessage(message, result, 0);
+    }
+
+    @Test
+    void byteArrayObjectIsNotCompiled() {
+        ProtoCodecCompiler compiler = new ProtoCodecCompiler(ProtoFixtures.newRegistry(false));
+        Assertions.assertNull(compiler.getCodec(Status.class, 0));
+        Assertions.assertTrue(compiler.getCodec(Message.class, 0).getClass().isHidden());
+        Assertions.assertSame(compiler.getCodec(Message.class, 0), compiler.getCodec(Message.class, 0));
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.fixture;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.util.ProtoCharset;
+import org.eulerframework.proto.util.ProtoType;
+
+/**
+ * A fixed length message using every built-in type, 30 bytes before version 1 and 36 bytes since.
+ */
+public class Message {
+    @ProtoProperty(type = ProtoType.WORD, order = 0)
+    @ProtoProperty(type = ProtoType.DWORD, order = 0, version = 1)
+    public int id;
+
+    @ProtoProperty(type = ProtoType.WORD, order = 1)
+    public short serial;
+
+    @ProtoProperty(type = ProtoType.BYTE, order = 2)
+    public byte flag;
+
+    @ProtoProperty(type = ProtoType.WORD, order = 3)
+    public Integer count;
+
+    @ProtoProperty(type = ProtoType.BYTE, order = 4)
+    public boolean alive;
+
+    @ProtoProperty(type = ProtoType.DWORD, order = 5)
+    public long timestamp;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 6, length = 8, charset = ProtoCharset.GBK)
+    public String name;
+
+    @ProtoProperty(type = ProtoType.OBJECT, order = 7)
+    public Status status;
+
+    @ProtoProperty(type = ProtoType.OBJECT, order = 8)
+    public Location location;
+
+    @ProtoProperty(type = ProtoType.DWORD, order = 9, version = 1)
+    public int extra;
+
+    /**
+     * Not a property, static fields are skipped.
+     */
+    @ProtoProperty(type = ProtoType.BYTES, order = 10, length = 4, charset = "unknown-charset")
+    public static String ignored;
+}
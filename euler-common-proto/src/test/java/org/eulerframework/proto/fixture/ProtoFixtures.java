@@ -0,0 +1,147 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.fixture;
+
+import org.eulerframework.proto.codec.ProtoCodecCompiler;
+import org.eulerframework.proto.node.ProtoNode;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.serializer.SerializerRegistryFactory;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * The registries, sample values and round trips shared by the tests.
+ */
+public final class ProtoFixtures {
+    public static final int MESSAGE_LENGTH = 30;
+    public static final int MESSAGE_LENGTH_V1 = 36;
+
+    private ProtoFixtures() {
+    }
+
+    public static SerializerRegistry newRegistry(boolean compiled) {
+        return compiled
+                ? SerializerRegistryFactory.newRegistry(ProtoCodecCompiler::new)
+                : SerializerRegistryFactory.newRegistry();
+    }
+
+    public static Message newMessage(int i) {
+        Message message = new Message();
+        message.id = 0x8001 + i;
+        message.serial = (short) (0xF234 + i);
+        message.flag = (byte) 0xA5;
+        message.count = 0x0203 + i;
+        message.alive = i % 2 == 0;
+        message.timestamp = 0xFFFFFFF0L + i;
+        message.name = "设备0" + i;
+        message.status = new Status();
+        message.status.online = true;
+        message.status.alarm = i + 5;
+        message.location = new Location();
+        message.location.latitude = 31_230_416 + i;
+        message.location.longitude = 121_473_701 + i;
+        message.extra = 0x7FFFFFFF - i;
+        return message;
+    }
+
+    public static Record newRecord() {
+        Record record = new Record();
+        record.name = "设备01";
+        record.payload = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9};
+        record.line = "GET / HTTP/1.1";
+        record.body = ByteBuffer.wrap(new byte[]{0x0D, 0x0A, 0x0D, 0x7E});
+        return record;
+    }
+
+    public static Track newTrack() {
+        Track track = new Track();
+        track.fixed = new int[]{1, 0xFFFF, 3};
+        track.counted = new long[]{0xFFFFFFFFL, 2};
+        Location location = new Location();
+        location.latitude = 1;
+        location.longitude = 2;
+        track.locations = List.of(location);
+        track.positions = new Position[]{new Position(3, 4, 0, null)};
+        track.codes = List.of(5, 6);
+        track.rest = new short[]{7, (short) 0x8000};
+        return track;
+    }
+
+    /**
+     * @param nodeTree whether the read builds the {@link ProtoNode} tree, which bypasses the compiled codecs
+     */
+    public static ProtoContext newContext(int version, boolean nodeTree) {
+        ProtoContext ctx = new ProtoContext();
+        ctx.setVersion(version);
+        if (nodeTree) {
+            ctx.setPropertyNode(ProtoNode.newObjectNode(null));
+        }
+        return ctx;
+    }
+
+    public static void assertMessage(Message expected, Message actual, int version) {
+        Assertions.assertEquals(version >= 1 ? expected.id : expected.id & 0xFFFF, actual.id);
+        Assertions.assertEquals(expected.serial, actual.serial);
+        Assertions.assertEquals(expected.flag, actual.flag);
+        Assertions.assertEquals(expected.count & 0xFFFF, actual.count);
+        Assertions.assertEquals(expected.alive, actual.alive);
+        Assertions.assertEquals(expected.timestamp, actual.timestamp);
+        Assertions.assertEquals(expected.name, actual.name);
+        Assertions.assertEquals(expected.status.online, actual.status.online);
+        Assertions.assertEquals(expected.status.alarm, actual.status.alarm);
+        Assertions.assertEquals(expected.location.latitude, actual.location.latitude);
+        Assertions.assertEquals(expected.location.longitude, actual.location.longitude);
+        Assertions.assertEquals(version >= 1 ? expected.extra : 0, actual.extra);
+    }
+
+    public static byte[] write(SerializerRegistry registry, Object value, int version) throws IOException {
+        ProtoContext ctx = new ProtoContext();
+        ctx.setVersion(version);
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            registry.getSerializer(ProtoType.OBJECT).writeTo(ctx, value, out);
+            return out.toByteArray();
+        }
+    }
+
+    public static <T> T read(SerializerRegistry registry, byte[] data, Class<T> type, int version) throws IOException {
+        ProtoContext ctx = new ProtoContext();
+        ctx.setVersion(version);
+        try (ByteArrayInputStream in = new ByteArrayInputStream(data)) {
+            return registry.getDeserializer(ProtoType.OBJECT).read(ctx, in, type);
+        }
+    }
+
+    /**
+     * @return a stream of the data that does not support {@link InputStream#mark(int)}
+     */
+    public static InputStream unmarked(byte[] data) {
+        return new FilterInputStream(new ByteArrayInputStream(data)) {
+            @Override
+            public boolean markSupported() {
+                return false;
+            }
+        };
+    }
+}
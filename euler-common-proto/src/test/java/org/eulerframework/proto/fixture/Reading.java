@@ -0,0 +1,53 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.fixture;
+
+import org.eulerframework.proto.annotation.ProtoCreator;
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.util.ProtoType;
+
+/**
+ * An immutable message read through its {@link ProtoCreator} constructor.
+ */
+public class Reading {
+    @ProtoProperty(type = ProtoType.WORD, order = 0)
+    private final int id;
+
+    @ProtoProperty(type = ProtoType.OBJECT, order = 1)
+    private final Position position;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 2, length = 6)
+    private final String name;
+
+    @ProtoCreator({"id", "position", "name"})
+    public Reading(int id, Position position, String name) {
+        this.id = id;
+        this.position = position;
+        this.name = name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Position getPosition() {
+        return position;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.fixture;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.util.ProtoCharset;
+import org.eulerframework.proto.util.ProtoType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A message of {@link ProtoPropertyOption#LENGTH_MODE_PREFIX} and {@link ProtoPropertyOption#LENGTH_MODE_SEPARATOR}
+ * properties.
+ */
+public class Record {
+    @ProtoProperty(type = ProtoType.BYTES, order = 0, charset = ProtoCharset.GBK,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_PREFIX, lengthPrefixType = ProtoType.WORD))
+    public String name;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 1,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_PREFIX, lengthPrefixType = ProtoType.BYTE))
+    public byte[] payload;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 2,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_SEPARATOR, separator = {0x0D, 0x0A}))
+    public String line;
+
+    @ProtoProperty(type = ProtoType.BYTES, order = 3,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_SEPARATOR, separator = 0x7F))
+    public ByteBuffer body;
+}
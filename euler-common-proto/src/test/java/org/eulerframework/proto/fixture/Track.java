@@ -0,0 +1,50 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.fixture;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.util.ProtoType;
+
+import java.util.List;
+
+/**
+ * A message of {@link ProtoType#ARRAY} properties in every length mode.
+ */
+public class Track {
+    @ProtoProperty(type = ProtoType.ARRAY, elementType = ProtoType.WORD, order = 0, length = 3)
+    public int[] fixed;
+
+    @ProtoProperty(type = ProtoType.ARRAY, elementType = ProtoType.DWORD, order = 1,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_COUNT_PREFIX, lengthPrefixType = ProtoType.BYTE))
+    public long[] counted;
+
+    @ProtoProperty(type = ProtoType.ARRAY, elementType = ProtoType.OBJECT, order = 2,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_PREFIX, lengthPrefixType = ProtoType.WORD))
+    public List<Location> locations;
+
+    @ProtoProperty(type = ProtoType.ARRAY, elementType = ProtoType.OBJECT, order = 3,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_COUNT_PREFIX, lengthPrefixType = ProtoType.WORD))
+    public Position[] positions;
+
+    @ProtoProperty(type = ProtoType.ARRAY, elementType = ProtoType.WORD, order = 4,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_COUNT_PREFIX, lengthPrefixType = ProtoType.BYTE))
+    public List<Integer> codes;
+
+    @ProtoProperty(type = ProtoType.ARRAY, elementType = ProtoType.WORD, order = 5,
+            option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_ALL_BYTES))
+    public short[] rest;
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.frame;
+
+import org.eulerframework.proto.fixture.Message;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+class DelimitedFrameDecoderTest {
+    private static final byte FLAG = 0x7E;
+
+    @Test
+    void decodeChunks() throws IOException {
+        FrameChecksum[] checksums = {null, FrameChecksum.XOR, FrameChecksum.CRC16_CCITT, FrameChecksum.CRC16_MODBUS,
+                FrameChecksum.CRC32};
+        for (FrameChecksum checksum : checksums) {
+            List<byte[]> payloads = newPayloads();
+            DelimitedFrameEncoder encoder = new DelimitedFrameEncoder(FLAG, FrameEscaping.jt808(), checksum);
+            byte[] data;
+            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                out.write(new byte[]{1, 2, 3});
+                for (byte[] payload : payloads) {
+                    encoder.encode(ByteBuffer.wrap(payload), out);
+                }
+                data = out.toByteArray();
+            }
+
+            for (int chunkSize = 1; chunkSize <= data.length; chunkSize++) {
+                for (boolean direct : new boolean[]{false, true}) {
+                    DelimitedFrameDecoder decoder = new DelimitedFrameDecoder(FLAG, FrameEscaping.jt808(), checksum);
+                    List<byte[]> decoded = new ArrayList<>();
+                    for (int offset = 0; offset < data.length; offset += chunkSize) {
+                        int length = Math.min(chunkSize, data.length - offset);
+                        ByteBuffer chunk = direct
+                                ? ByteBuffer.allocateDirect(length).put(data, offset, length).flip()
+                                : ByteBuffer.wrap(data, offset, length);
+                        decoder.decode(chunk, payload -> decoded.add(toArray(payload)));
+                        Assertions.assertFalse(chunk.hasRemaining());
+                    }
+                    Assertions.assertFalse(decoder.isDecoding());
+                    Assertions.assertEquals(payloads.size(), decoded.size(), "chunk size " + chunkSize);
+                    for (int i = 0; i < payloads.size(); i++) {
+                        Assertions.assertArrayEquals(payloads.get(i), decoded.get(i), "chunk size " + chunkSize);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void encode() {
+        DelimitedFrameEncoder encoder = new DelimitedFrameEncoder(FLAG, FrameEscaping.jt808(), FrameChecksum.XOR);
+        ByteBuffer out = ByteBuffer.allocate(encoder.maxFrameLength(4));
+        ByteBuffer payload = ByteBuffer.wrap(new byte[]{0x30, 0x7E, 0x08, 0x7D});
+        encoder.encode(payload, out);
+        Assertions.assertFalse(payload.hasRemaining());
+        // the check code 0x30 ^ 0x7E ^ 0x08 ^ 0x7D = 0x3B
+        Assertions.assertArrayEquals(new byte[]{0x7E, 0x30, 0x7D, 0x02, 0x08, 0x7D, 0x01, 0x3B, 0x7E}, toArray(out.flip()));
+
+        // an escaped check code
+        out.clear();
+        encoder.encode(ByteBuffer.wrap(new byte[]{0x7D}), out);
+        Assertions.assertArrayEquals(new byte[]{0x7E, 0x7D, 0x01, 0x7D, 0x01, 0x7E}, toArray(out.flip()));
+
+        ByteBuffer small = ByteBuffer.allocateDirect(6);
+        payload.position(0);
+        Assertions.assertThrows(BufferOverflowException.class, () -> encoder.encode(payload, small));
+        Assertions.assertEquals(0, payload.position());
+        Assertions.assertEquals(4, payload.limit());
+        Assertions.assertEquals(0, small.position());
+
+        DelimitedFrameEncoder plain = new DelimitedFrameEncoder(FLAG);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> plain.encode(ByteBuffer.wrap(new byte[]{1, FLAG}), ByteBuffer.allocate(8)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new DelimitedFrameEncoder((byte) 0x02, FrameEscaping.jt808(), null));
+    }
+
+    @Test
+    void separateFlags() throws IOException {
+        FrameEscaping escaping = new FrameEscaping((byte) 0x10, new byte[]{0x02, 0x03, 0x10}, new byte[]{0x22, 0x23, 0x30});
+        DelimitedFrameEncoder encoder = new DelimitedFrameEncoder((byte) 0x02, (byte) 0x03, escaping, FrameChecksum.CRC16_MODBUS);
+        ByteBuffer out = ByteBuffer.allocate(64);
+        encoder.encode(ByteBuffer.wrap(new byte[]{0x01, 0x02, 0x03, 0x10, 0x11}), out);
+        // the bytes between the frames are dropped
+        out.put(new byte[]{0x03, 0x04});
+        encoder.encode(ByteBuffer.wrap(new byte[]{0x05}), out);
+
+        DelimitedFrameDecoder decoder = new DelimitedFrameDecoder((byte) 0x02, (byte) 0x03, escaping,
+                FrameChecksum.CRC16_MODBUS, DelimitedFrameDecoder.DEFAULT_MAX_FRAME_LENGTH);
+        List<byte[]> decoded = new ArrayList<>();
+        decoder.decode(out.flip(), payload -> decoded.add(toArray(payload)));
+        Assertions.assertEquals(2, decoded.size());
+        Assertions.assertArrayEquals(new byte[]{0x01, 0x02, 0x03, 0x10, 0x11}, decoded.get(0));
+        Assertions.assertArrayEquals(new byte[]{0x05}, decoded.get(1));
+    }
+
+    @Test
+    void brokenFrames() throws IOException {
+        DelimitedFrameDecoder decoder = new DelimitedFrameDecoder(FLAG, FLAG, FrameEscaping.jt808(), FrameChecksum.XOR, 8);
+        List<byte[]> decoded = new ArrayList<>();
+        byte[] valid = {0x7E, 0x01, 0x02, 0x03, 0x7E};
+
+        // a wrong checksum, the bytes after the frame are left in the chunk
+        ByteBuffer chunk = ByteBuffer.wrap(concat(new byte[]{0x7E, 0x01, 0x02, 0x04, 0x7E}, valid));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decoder.decode(chunk, payload -> decoded.add(toArray(payload))));
+        Assertions.assertFalse(decoder.isDecoding());
+        decoder.decode(chunk, payload -> decoded.add(toArray(payload)));
+        Assertions.assertEquals(1, decoded.size());
+        Assertions.assertArrayEquals(new byte[]{0x01, 0x02}, decoded.get(0));
+
+        // an invalid escape sequence, the rest of the frame is dropped
+        decoder.reset();
+        ByteBuffer escape = ByteBuffer.wrap(concat(new byte[]{0x7E, 0x01, 0x7D, 0x05, 0x06, 0x7E}, valid));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decoder.decode(escape, payload -> decoded.add(toArray(payload))));
+        decoder.decode(escape, payload -> decoded.add(toArray(payload)));
+        Assertions.assertEquals(2, decoded.size());
+
+        // a frame longer than the max frame length, split in chunks
+        decoder.reset();
+        byte[] oversize = new byte[12];
+        oversize[0] = 0x7E;
+        oversize[11] = 0x7E;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> {
+            decoder.decode(ByteBuffer.wrap(oversize, 0, 6), payload -> decoded.add(toArray(payload)));
+            decoder.decode(ByteBuffer.wrap(oversize, 6, 4), payload -> decoded.add(toArray(payload)));
+        });
+        decoder.decode(ByteBuffer.wrap(concat(Arrays.copyOfRange(oversize, 10, 12), valid)), payload -> decoded.add(toArray(payload)));
+        Assertions.assertEquals(3, decoded.size());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> decoder.decode(ByteBuffer.wrap(oversize), payload -> decoded.add(toArray(payload))));
+
+        // a frame shorter than its checksum
+        DelimitedFrameDecoder crc = new DelimitedFrameDecoder(FLAG, null, FrameChecksum.CRC16_CCITT);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> crc.decode(ByteBuffer.wrap(new byte[]{0x7E, 0x01, 0x7E}), payload -> decoded.add(toArray(payload))));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new DelimitedFrameDecoder((byte) 0x02, FrameEscaping.jt808(), null));
+    }
+
+    @Test
+    void decodeMessages() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        DelimitedFrameEncoder encoder = new DelimitedFrameEncoder(FLAG, FrameEscaping.jt808(), FrameChecksum.XOR);
+        byte[] data;
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 0; i < 3; i++) {
+                encoder.encode(ByteBuffer.wrap(ProtoFixtures.write(registry, ProtoFixtures.newMessage(i), 0)), out);
+            }
+            data = out.toByteArray();
+        }
+
+        DelimitedFrameDecoder frameDecoder = new DelimitedFrameDecoder(FLAG, FrameEscaping.jt808(), FrameChecksum.XOR);
+        ProtoFrameDecoder<Message> messageDecoder = new ProtoFrameDecoder<>(registry, Message.class, 0);
+        List<Message> messages = new ArrayList<>();
+        for (int offset = 0; offset < data.length; offset += 7) {
+            frameDecoder.decode(ByteBuffer.wrap(data, offset, Math.min(7, data.length - offset)),
+                    payload -> messageDecoder.decode(payload, messages::add));
+        }
+        Assertions.assertEquals(3, messages.size());
+        for (int i = 0; i < 3; i++) {
+            ProtoFixtures.assertMessage(ProtoFixtures.newMessage(i), messages.get(i), 0);
+        }
+    }
+
+    private static List<byte[]> newPayloads() {
+        Random random = new Random(42);
+        List<byte[]> payloads = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            byte[] payload = new byte[1 + random.nextInt(20)];
+            for (int j = 0; j < payload.length; j++) {
+                payload[j] = (byte) (random.nextInt(5) == 0 ? 0x7D + random.nextInt(2) : random.nextInt(256));
+            }
+            payloads.add(payload);
+        }
+        // no escaped byte, decoded as a view of the chunk
+        payloads.add(new byte[]{0x01, 0x02, 0x03});
+        return payloads;
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+
+    private static byte[] concat(byte[] a, byte[] b) {
+        byte[] data = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, data, a.length, b.length);
+        return data;
+    }
+}
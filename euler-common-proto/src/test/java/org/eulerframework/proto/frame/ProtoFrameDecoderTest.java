@@ -0,0 +1,320 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.frame;
+
+import org.eulerframework.proto.fixture.Message;
+import org.eulerframework.proto.fixture.Packet;
+import org.eulerframework.proto.fixture.Position;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Record;
+import org.eulerframework.proto.fixture.Status;
+import org.eulerframework.proto.node.ObjectProtoNode;
+import org.eulerframework.proto.node.ProtoNodeSampler;
+import org.eulerframework.proto.node.ValueProtoNode;
+import org.eulerframework.proto.serializer.ObjectProtoFieldDeserializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.serializer.UnsignedIntegerProtoFieldDeserializer;
+import org.eulerframework.proto.util.ObjectPool;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+class ProtoFrameDecoderTest {
+    private static final int LENGTH = ProtoFixtures.MESSAGE_LENGTH;
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void decodeChunks(boolean compiled) throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        byte[] data;
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 0; i < 3; i++) {
+                registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), ProtoFixtures.newMessage(i), out);
+            }
+            data = out.toByteArray();
+        }
+        Assertions.assertEquals(3 * LENGTH, data.length);
+
+        for (int chunkSize = 1; chunkSize <= data.length; chunkSize++) {
+            ProtoFrameDecoder<Message> decoder = new ProtoFrameDecoder<>(registry, Message.class, 0);
+            List<Message> messages = new ArrayList<>();
+            for (int offset = 0; offset < data.length; offset += chunkSize) {
+                ByteBuffer chunk = ByteBuffer.wrap(data, offset, Math.min(chunkSize, data.length - offset));
+                decoder.decode(chunk, messages::add);
+                Assertions.assertFalse(chunk.hasRemaining());
+                Assertions.assertEquals(chunk.limit() % LENGTH != 0, decoder.isDecoding());
+            }
+
+            Assertions.assertEquals(3, messages.size(), "chunk size " + chunkSize);
+            for (int i = 0; i < 3; i++) {
+                ProtoFixtures.assertMessage(ProtoFixtures.newMessage(i), messages.get(i), 0);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void objectPool(boolean compiled) throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        byte[] data;
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 0; i < 4; i++) {
+                registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), ProtoFixtures.newMessage(i), out);
+            }
+            data = out.toByteArray();
+        }
+
+        List<Message> resets = new ArrayList<>();
+        ObjectPool<Message> pool = new ObjectPool<>(Message::new, 1, resets::add);
+        ProtoFrameDecoder<Message> decoder = new ProtoFrameDecoder<>(registry, Message.class, 0);
+        decoder.setObjectPool(pool);
+        List<Message> messages = new ArrayList<>();
+        List<Status> statuses = new ArrayList<>();
+        decoder.decode(ByteBuffer.wrap(data), message -> {
+            ProtoFixtures.assertMessage(ProtoFixtures.newMessage(messages.size()), message, 0);
+            messages.add(message);
+            statuses.add(message.status);
+            pool.release(message);
+        });
+
+        Assertions.assertEquals(4, messages.size());
+        Assertions.assertEquals(messages, resets);
+        for (int i = 1; i < 4; i++) {
+            Assertions.assertSame(messages.get(0), messages.get(i));
+            Assertions.assertSame(statuses.get(0), statuses.get(i));
+        }
+        Assertions.assertEquals(1, pool.size());
+
+        // a dropped message goes back to the pool
+        Message pooled = pool.acquire();
+        decoder.decode(ByteBuffer.wrap(data, 0, 10), messages::add);
+        Assertions.assertEquals(0, pool.size());
+        decoder.reset();
+        Assertions.assertEquals(1, pool.size());
+        Assertions.assertFalse(pool.release(pooled));
+        Assertions.assertEquals(1, pool.capacity());
+    }
+
+    @Test
+    void decodeImmutableMessages() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        byte[] data;
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 0; i < 3; i++) {
+                registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), new Position(i, 0xF0000000L + i, 1, null), out);
+            }
+            data = out.toByteArray();
+        }
+
+        for (ProtoNodeSampler sampler : new ProtoNodeSampler[]{ProtoNodeSampler.NEVER, ProtoNodeSampler.ALWAYS}) {
+            ProtoFrameDecoder<Position> decoder = new ProtoFrameDecoder<>(registry, Position.class, 0);
+            decoder.setNodeSampler(sampler);
+            List<Position> messages = new ArrayList<>();
+            for (int offset = 0; offset < data.length; offset += 3) {
+                decoder.decode(ByteBuffer.wrap(data, offset, Math.min(3, data.length - offset)), messages::add);
+            }
+            Assertions.assertEquals(List.of(new Position(0, 0xF0000000L, 0, null), new Position(1, 0xF0000001L, 0, null),
+                    new Position(2, 0xF0000002L, 0, null)), messages);
+            Assertions.assertThrows(IllegalArgumentException.class, () -> decoder.setObjectPool(new ObjectPool<>(Position.class, 1)));
+        }
+    }
+
+    @Test
+    void partialMessage() throws IOException {
+        ProtoFrameDecoder<Status> decoder = new ProtoFrameDecoder<>(ProtoFixtures.newRegistry(false), Status.class, 0);
+        List<Status> messages = new ArrayList<>();
+        decoder.decode(ByteBuffer.wrap(new byte[]{0x05}), messages::add);
+        Assertions.assertTrue(decoder.isDecoding());
+        Assertions.assertTrue(messages.isEmpty());
+
+        decoder.reset();
+        decoder.decode(ByteBuffer.wrap(new byte[]{0x00, 0x71}), messages::add);
+        Assertions.assertFalse(decoder.isDecoding());
+        Assertions.assertEquals(1, messages.size());
+        Assertions.assertEquals(7, messages.get(0).alarm);
+        Assertions.assertTrue(messages.get(0).online);
+    }
+
+    @Test
+    void resetAfterFailure() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        registry.registerDeserializer(ProtoType.OBJECT, new ObjectProtoFieldDeserializer(registry) {
+            @Override
+            public <E> E read(ProtoContext ctx, ByteBuffer buffer, PropertyField propertyField) throws IOException {
+                if (buffer.get(buffer.position()) == (byte) 0xFF) {
+                    throw new IOException("Broken property");
+                }
+                return super.read(ctx, buffer, propertyField);
+            }
+        });
+        byte[] broken = ProtoFixtures.write(registry, ProtoFixtures.newMessage(0), 0);
+        // the first byte of the location
+        broken[LENGTH - 8] = (byte) 0xFF;
+
+        ProtoFrameDecoder<Message> decoder = new ProtoFrameDecoder<>(registry, Message.class, 0);
+        List<Message> messages = new ArrayList<>();
+        decoder.decode(ByteBuffer.wrap(broken, 0, LENGTH - 4), messages::add);
+        Assertions.assertTrue(decoder.isDecoding());
+        Assertions.assertThrows(IOException.class, () -> decoder.decode(ByteBuffer.wrap(broken, LENGTH - 4, 4), messages::add));
+        Assertions.assertFalse(decoder.isDecoding());
+
+        decoder.decode(ByteBuffer.wrap(ProtoFixtures.write(registry, ProtoFixtures.newMessage(1), 0)), messages::add);
+        Assertions.assertEquals(1, messages.size());
+        ProtoFixtures.assertMessage(ProtoFixtures.newMessage(1), messages.get(0), 0);
+    }
+
+    @Test
+    void decodeRecords() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        byte[] record = ProtoFixtures.write(registry, ProtoFixtures.newRecord(), 0);
+        byte[] data = new byte[3 * record.length];
+        for (int i = 0; i < 3; i++) {
+            System.arraycopy(record, 0, data, i * record.length, record.length);
+        }
+
+        for (int chunkSize = 1; chunkSize <= data.length; chunkSize++) {
+            ProtoFrameDecoder<Record> decoder = new ProtoFrameDecoder<>(registry, Record.class, 0);
+            List<Record> records = new ArrayList<>();
+            for (int offset = 0; offset < data.length; offset += chunkSize) {
+                // a new chunk each time, as a socket reusing its buffer would overwrite the previous bytes
+                ByteBuffer chunk = ByteBuffer.wrap(Arrays.copyOfRange(data, offset, Math.min(offset + chunkSize, data.length)));
+                decoder.decode(chunk, records::add);
+                Assertions.assertFalse(chunk.hasRemaining());
+            }
+            Assertions.assertFalse(decoder.isDecoding());
+
+            Assertions.assertEquals(3, records.size(), "chunk size " + chunkSize);
+            Record expected = ProtoFixtures.newRecord();
+            for (Record actual : records) {
+                Assertions.assertEquals(expected.name, actual.name);
+                Assertions.assertArrayEquals(expected.payload, actual.payload);
+                Assertions.assertEquals(expected.line, actual.line);
+                Assertions.assertEquals(expected.body, actual.body, "chunk size " + chunkSize);
+                Assertions.assertTrue(actual.body.isReadOnly());
+            }
+        }
+    }
+
+    @Test
+    void maxPropertyLength() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        Record large = ProtoFixtures.newRecord();
+        large.payload = new byte[13];
+        large.line = "GET";
+        byte[] oversize = ProtoFixtures.write(registry, large, 0);
+        Record small = ProtoFixtures.newRecord();
+        small.payload = new byte[]{1, 2, 3};
+        small.line = "GET";
+        byte[] valid = ProtoFixtures.write(registry, small, 0);
+
+        for (int chunkSize : new int[]{1, oversize.length}) {
+            ProtoFrameDecoder<Record> decoder = new ProtoFrameDecoder<>(registry, Record.class, 0, 12);
+            List<Record> records = new ArrayList<>();
+            Assertions.assertThrows(IllegalArgumentException.class, () -> {
+                for (int offset = 0; offset < oversize.length; offset += chunkSize) {
+                    decoder.decode(ByteBuffer.wrap(oversize, offset, Math.min(chunkSize, oversize.length - offset)), records::add);
+                }
+            });
+            Assertions.assertFalse(decoder.isDecoding());
+
+            decoder.decode(ByteBuffer.wrap(valid), records::add);
+            Assertions.assertEquals(1, records.size());
+            Assertions.assertArrayEquals(small.payload, records.get(0).payload);
+        }
+
+        // a separator not found within the max length
+        ProtoFrameDecoder<Record> decoder = new ProtoFrameDecoder<>(registry, Record.class, 0, 12);
+        byte[] line = Arrays.copyOf(valid, 40);
+        Arrays.fill(line, 12, 40, (byte) 'x');
+        Assertions.assertThrows(IllegalArgumentException.class, () -> decoder.decode(ByteBuffer.wrap(line), records -> {
+        }));
+        Assertions.assertFalse(decoder.isDecoding());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void nodeSampling(boolean compiled) throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        byte[] data;
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            for (int i = 0; i < 3; i++) {
+                out.write(ProtoFixtures.write(registry, ProtoFixtures.newMessage(i), 0));
+            }
+            data = out.toByteArray();
+        }
+
+        ProtoFrameDecoder<Message> decoder = new ProtoFrameDecoder<>(registry, Message.class, 0);
+        List<ObjectProtoNode> nodes = new ArrayList<>();
+        decoder.decode(ByteBuffer.wrap(data), message -> nodes.add(decoder.getPropertyNode()));
+        Assertions.assertEquals(Arrays.asList(null, null, null), nodes);
+
+        decoder.setNodeSampler(ProtoNodeSampler.oneIn(2));
+        nodes.clear();
+        List<Message> messages = new ArrayList<>();
+        decoder.decode(ByteBuffer.wrap(data), message -> {
+            messages.add(message);
+            nodes.add(decoder.getPropertyNode());
+        });
+        Assertions.assertNull(decoder.getPropertyNode());
+        Assertions.assertNull(nodes.get(1));
+        for (int i : new int[]{0, 2}) {
+            ProtoFixtures.assertMessage(ProtoFixtures.newMessage(i), messages.get(i), 0);
+            ObjectProtoNode root = nodes.get(i);
+            Assertions.assertEquals(List.of("id", "serial", "flag", "count", "alive", "timestamp", "name", "status", "location"),
+                    new ArrayList<>(root.getProperties().keySet()));
+            Assertions.assertEquals(messages.get(i).name, ((ValueProtoNode) root.getProperties().get("name")).value());
+
+            // the properties of a nested object are in its own node
+            ObjectProtoNode location = (ObjectProtoNode) root.getProperties().get("location");
+            Assertions.assertSame(root, location.parent());
+            Assertions.assertSame(messages.get(i).location, location.value());
+            Assertions.assertEquals(messages.get(i).location.latitude,
+                    ((ValueProtoNode) location.getProperties().get("latitude")).value());
+            ObjectProtoNode status = (ObjectProtoNode) root.getProperties().get("status");
+            Assertions.assertEquals(List.of("online", "alarm"), new ArrayList<>(status.getProperties().keySet()));
+        }
+    }
+
+    @Test
+    void variableLength() {
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ProtoFrameDecoder<>(ProtoFixtures.newRegistry(false), Packet.class, 0));
+
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        registry.registerDeserializer(ProtoType.WORD, new UnsignedIntegerProtoFieldDeserializer());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ProtoFrameDecoder<>(registry, Message.class, 0));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ProtoFrameDecoder<>(ProtoFixtures.newRegistry(false), Object.class, 0));
+
+        SerializerRegistry prefix = ProtoFixtures.newRegistry(false);
+        prefix.registerDeserializer(ProtoType.WORD, new UnsignedIntegerProtoFieldDeserializer());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ProtoFrameDecoder<>(prefix, Record.class, 0));
+    }
+}
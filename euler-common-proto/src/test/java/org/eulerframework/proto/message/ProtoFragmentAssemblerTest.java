@@ -0,0 +1,210 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.message;
+
+import org.eulerframework.proto.fixture.Message;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+class ProtoFragmentAssemblerTest {
+
+    @Test
+    void reassemble() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        byte[] data = ProtoFixtures.write(registry, ProtoFixtures.newMessage(1), 0);
+        List<ByteBuffer> fragments = fragments(data, 8);
+        Assertions.assertEquals(4, fragments.size());
+
+        ProtoFragmentAssembler<String> assembler = new ProtoFragmentAssembler<>(1024, 4096);
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            List<Integer> order = new ArrayList<>(List.of(0, 1, 2, 3));
+            Collections.shuffle(order, random);
+            ByteBuffer message = null;
+            for (int i = 0; i < order.size(); i++) {
+                int index = order.get(i);
+                ByteBuffer fragment = fragments.get(index).duplicate();
+                if (i < 3) {
+                    // the fragments of another session are kept apart
+                    Assertions.assertNull(assembler.accept("other", 0x0801, 7, 4, index + 1, fragments.get(index).duplicate()));
+                }
+                message = assembler.accept("device", 0x0801, 7, 4, index + 1, fragment);
+                Assertions.assertFalse(fragment.hasRemaining());
+                Assertions.assertEquals(i < 3, message == null);
+                if (i == 1) {
+                    // a repeated fragment is ignored
+                    Assertions.assertNull(assembler.accept("device", 0x0801, 7, 4, index + 1, fragments.get(index).duplicate()));
+                    Assertions.assertTrue(assembler.getReservedBytes("device") >= 32);
+                }
+            }
+            Assertions.assertEquals(data.length, message.remaining());
+            Message read = registry.getDeserializer(ProtoType.OBJECT).read(new ProtoContext(), message, Message.class);
+            ProtoFixtures.assertMessage(ProtoFixtures.newMessage(1), read, 0);
+            Assertions.assertEquals(0, assembler.getReservedBytes("device"));
+            assembler.removeSession("other");
+            Assertions.assertEquals(0, assembler.size());
+            Assertions.assertEquals(0, assembler.getReservedBytes());
+        }
+
+        // a message of one fragment is a view of the fragment
+        ByteBuffer single = ByteBuffer.allocateDirect(3).put(new byte[]{1, 2, 3}).flip();
+        ByteBuffer message = assembler.accept("device", 0x0801, 8, 1, 1, single);
+        Assertions.assertEquals(ByteBuffer.wrap(new byte[]{1, 2, 3}), message);
+        Assertions.assertFalse(single.hasRemaining());
+    }
+
+    @Test
+    void invalidFragments() {
+        ProtoFragmentAssembler<String> assembler = new ProtoFragmentAssembler<>(1024, 4096);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> assembler.accept("device", 1, 1, 3, 0, ByteBuffer.allocate(4)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> assembler.accept("device", 1, 1, 3, 4, ByteBuffer.allocate(4)));
+
+        Assertions.assertNull(assembler.accept("device", 1, 1, 3, 1, ByteBuffer.allocate(4)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> assembler.accept("device", 1, 1, 4, 2, ByteBuffer.allocate(4)));
+        Assertions.assertEquals(0, assembler.size());
+
+        Assertions.assertNull(assembler.accept("device", 1, 1, 3, 1, ByteBuffer.allocate(4)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> assembler.accept("device", 1, 1, 3, 2, ByteBuffer.allocate(3)));
+        Assertions.assertEquals(0, assembler.getReservedBytes());
+
+        // the last fragment arrived first is longer than the others
+        Assertions.assertNull(assembler.accept("device", 1, 1, 3, 3, ByteBuffer.allocate(5)));
+        Assertions.assertEquals(5, assembler.getReservedBytes());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> assembler.accept("device", 1, 1, 3, 1, ByteBuffer.allocate(4)));
+        Assertions.assertEquals(0, assembler.size());
+        Assertions.assertEquals(0, assembler.getReservedBytes());
+    }
+
+    @Test
+    void memoryLimits() {
+        ProtoFragmentAssembler<String> assembler = new ProtoFragmentAssembler<>(64, 100);
+        // 10 fragments of 8 bytes reserve 80 bytes
+        Assertions.assertThrows(IllegalArgumentException.class, () -> assembler.accept("a", 1, 1, 10, 1, ByteBuffer.allocate(8)));
+        Assertions.assertEquals(0, assembler.size());
+        Assertions.assertEquals(0, assembler.getReservedBytes("a"));
+
+        Assertions.assertNull(assembler.accept("a", 1, 1, 6, 1, ByteBuffer.allocate(8)));
+        Assertions.assertNull(assembler.accept("b", 1, 1, 6, 1, ByteBuffer.allocate(8)));
+        Assertions.assertEquals(96, assembler.getReservedBytes());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> assembler.accept("c", 1, 1, 2, 1, ByteBuffer.allocate(8)));
+        // a second message of a session within the total
+        Assertions.assertThrows(IllegalArgumentException.class, () -> assembler.accept("a", 1, 2, 3, 1, ByteBuffer.allocate(8)));
+        Assertions.assertEquals(48, assembler.getReservedBytes("a"));
+
+        assembler.removeSession("b");
+        Assertions.assertEquals(48, assembler.getReservedBytes());
+        Assertions.assertNull(assembler.accept("c", 1, 1, 2, 1, ByteBuffer.allocate(8)));
+        Assertions.assertEquals(64, assembler.getReservedBytes());
+    }
+
+    @Test
+    void fragmentCountLimit() {
+        // a huge count is rejected before the received bits of its message are allocated
+        ProtoFragmentAssembler<String> assembler = new ProtoFragmentAssembler<>(1024, 4096);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> assembler.accept("a", 1, 1, Integer.MAX_VALUE, 1, ByteBuffer.allocate(8)));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> assembler.accept("a", 1, 1, Integer.MAX_VALUE, Integer.MAX_VALUE, ByteBuffer.allocate(8)));
+        Assertions.assertEquals(0, assembler.size());
+        Assertions.assertEquals(0, assembler.getReservedBytes());
+
+        ProtoFragmentAssembler<String> limited = new ProtoFragmentAssembler<>(1024, 4096, 4,
+                ProtoFragmentAssembler.DEFAULT_TIMEOUT, Clock.systemUTC());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> limited.accept("a", 1, 1, 5, 1, ByteBuffer.allocate(8)));
+        Assertions.assertNull(limited.accept("a", 1, 1, 4, 1, ByteBuffer.allocate(8)));
+        Assertions.assertEquals(1, limited.size());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new ProtoFragmentAssembler<String>(1024, 4096, 0, ProtoFragmentAssembler.DEFAULT_TIMEOUT, Clock.systemUTC()));
+    }
+
+    @Test
+    void timeout() {
+        MutableClock clock = new MutableClock();
+        ProtoFragmentAssembler<String> assembler = new ProtoFragmentAssembler<>(1024, 4096, Duration.ofSeconds(10), clock);
+        byte[] data = new byte[20];
+        Arrays.fill(data, (byte) 1);
+        List<ByteBuffer> fragments = fragments(data, 8);
+
+        Assertions.assertNull(assembler.accept("a", 1, 1, 3, 1, fragments.get(0).duplicate()));
+        Assertions.assertNull(assembler.accept("b", 1, 1, 3, 1, fragments.get(0).duplicate()));
+        clock.millis += 6000;
+        Assertions.assertNull(assembler.accept("a", 1, 1, 3, 2, fragments.get(1).duplicate()));
+        clock.millis += 6000;
+        Assertions.assertEquals(1, assembler.expire());
+        Assertions.assertEquals(0, assembler.getReservedBytes("b"));
+
+        // the fragments of "a" arrived within the timeout of each other
+        Assertions.assertNotNull(assembler.accept("a", 1, 1, 3, 3, fragments.get(2).duplicate()));
+
+        // a late fragment starts the message over
+        Assertions.assertNull(assembler.accept("a", 1, 2, 3, 1, fragments.get(0).duplicate()));
+        Assertions.assertNull(assembler.accept("a", 1, 2, 3, 2, fragments.get(1).duplicate()));
+        clock.millis += 11000;
+        Assertions.assertNull(assembler.accept("a", 1, 2, 3, 3, fragments.get(2).duplicate()));
+        // only the last fragment is kept, until the length of the others is known
+        Assertions.assertEquals(4, assembler.getReservedBytes("a"));
+        Assertions.assertEquals(0, assembler.expire());
+    }
+
+    private static List<ByteBuffer> fragments(byte[] data, int length) {
+        List<ByteBuffer> fragments = new ArrayList<>();
+        for (int offset = 0; offset < data.length; offset += length) {
+            fragments.add(ByteBuffer.wrap(data, offset, Math.min(length, data.length - offset)).slice());
+        }
+        return fragments;
+    }
+
+    private static class MutableClock extends Clock {
+        long millis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(this.millis);
+        }
+
+        @Override
+        public long millis() {
+            return this.millis;
+        }
+    }
+}
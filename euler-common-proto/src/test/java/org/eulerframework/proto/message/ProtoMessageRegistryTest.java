@@ -0,0 +1,220 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.message;
+
+import org.eulerframework.proto.annotation.ProtoMessage;
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+class ProtoMessageRegistryTest {
+
+    @Test
+    void messageTypes() {
+        ProtoMessageRegistry<Header> registry = newRegistry(ProtoFixtures.newRegistry(false))
+                .register(Heartbeat.class)
+                .register(Report.class)
+                .register(ReportV2.class)
+                .register(0x12345, Heartbeat.class);
+
+        Assertions.assertEquals(Heartbeat.class, registry.getType(0x0002, 0));
+        Assertions.assertEquals(Heartbeat.class, registry.getType(0x0002, 1000));
+        Assertions.assertEquals(Heartbeat.class, registry.getType(0x12345, 7));
+        Assertions.assertEquals(Report.class, registry.getType(0x0200, 0));
+        Assertions.assertEquals(Report.class, registry.getType(0x0200, 1));
+        Assertions.assertEquals(ReportV2.class, registry.getType(0x0200, 2));
+        Assertions.assertEquals(ReportV2.class, registry.getType(0x0200, 100));
+        Assertions.assertEquals(ReportV2.class, registry.getType(0x0201, 2));
+        Assertions.assertNull(registry.getType(0x0201, 1));
+        Assertions.assertNull(registry.getType(0x0003, 0));
+        Assertions.assertNull(registry.getType(-1, 0));
+
+        // registering a type again is harmless, another type of the same ID and version is not
+        registry.register(Report.class);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.register(0x0200, 2, Report.class));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.register(Header.class));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.register(0x0004, -1, Report.class));
+        registry.freeze();
+        Assertions.assertThrows(IllegalStateException.class, () -> registry.register(0x0004, Report.class));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readMessages(boolean compiled) throws IOException {
+        SerializerRegistry serializerRegistry = ProtoFixtures.newRegistry(compiled);
+        ProtoMessageRegistry<Header> registry = newRegistry(serializerRegistry)
+                .register(Heartbeat.class)
+                .register(Report.class)
+                .register(ReportV2.class)
+                .freeze();
+
+        Report report = new Report();
+        report.latitude = 31_230_416;
+        report.longitude = 121_473_701;
+        ReportV2 reportV2 = new ReportV2();
+        reportV2.latitude = report.latitude;
+        reportV2.longitude = report.longitude;
+        reportV2.speed = 0x8001;
+        byte[] data;
+        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            write(serializerRegistry, out, header(0x0200, 1, 1), report);
+            write(serializerRegistry, out, header(0x0002, 2, 0), new Heartbeat());
+            write(serializerRegistry, out, header(0x0200, 3, 2), reportV2);
+            write(serializerRegistry, out, header(0x0201, 4, 2), reportV2);
+            data = out.toByteArray();
+        }
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data).flip();
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(data), direct}) {
+            List<ProtoEnvelope<Header>> envelopes = new ArrayList<>();
+            ProtoContext ctx = new ProtoContext();
+            while (buffer.hasRemaining()) {
+                envelopes.add(registry.read(ctx, buffer));
+            }
+            assertEnvelopes(envelopes, report, reportV2);
+            Assertions.assertEquals(0, ctx.getVersion());
+        }
+
+        List<ProtoEnvelope<Header>> envelopes = new ArrayList<>();
+        InputStream in = new ByteArrayInputStream(data);
+        while (in.available() > 0) {
+            envelopes.add(registry.read(new ProtoContext(), in));
+        }
+        assertEnvelopes(envelopes, report, reportV2);
+
+        // the body of an unknown message is left to the caller
+        ByteBuffer unknown = ByteBuffer.wrap(data, 0, Header.LENGTH + 8).slice();
+        unknown.put(1, (byte) 0x03);
+        ProtoEnvelope<Header> envelope = registry.read(new ProtoContext(), unknown);
+        Assertions.assertFalse(envelope.isKnown());
+        Assertions.assertEquals(0x0203, envelope.getMessageId());
+        Assertions.assertEquals(8, unknown.remaining());
+    }
+
+    @Test
+    void registerPackage(@TempDir Path classPath) throws IOException {
+        // no index lists the classes of this package, the class files are scanned
+        ProtoMessageRegistry<Header> registry = newRegistry(ProtoFixtures.newRegistry(false))
+                .registerPackage(getClass().getPackageName());
+        Assertions.assertEquals(Heartbeat.class, registry.getType(0x0002, 0));
+        Assertions.assertEquals(Report.class, registry.getType(0x0200, 0));
+        Assertions.assertEquals(ReportV2.class, registry.getType(0x0201, 2));
+        Assertions.assertNull(registry.getType(0x0003, 0));
+
+        // an index lists the classes of the package, nothing else is scanned
+        Path index = classPath.resolve(ProtoMessageRegistry.INDEX_FILE);
+        Files.createDirectories(index.getParent());
+        Files.writeString(index, "# messages\n" + Heartbeat.class.getName() + "\norg.eulerframework.other.Message\n");
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{classPath.toUri().toURL()}, getClass().getClassLoader())) {
+            registry = newRegistry(ProtoFixtures.newRegistry(false)).registerPackage("org.eulerframework.proto", classLoader);
+        }
+        Assertions.assertEquals(Heartbeat.class, registry.getType(0x0002, 0));
+        Assertions.assertNull(registry.getType(0x0200, 0));
+    }
+
+    private static void assertEnvelopes(List<ProtoEnvelope<Header>> envelopes, Report report, ReportV2 reportV2) {
+        Assertions.assertEquals(4, envelopes.size());
+        Report actual = (Report) envelopes.get(0).getBody();
+        Assertions.assertEquals(1, envelopes.get(0).getHeader().serial);
+        Assertions.assertEquals(report.latitude, actual.latitude);
+        Assertions.assertEquals(report.longitude, actual.longitude);
+        Assertions.assertInstanceOf(Heartbeat.class, envelopes.get(1).getBody());
+        for (ProtoEnvelope<Header> envelope : envelopes.subList(2, 4)) {
+            ReportV2 actualV2 = (ReportV2) envelope.getBody();
+            Assertions.assertEquals(2, envelope.getVersion());
+            Assertions.assertEquals(reportV2.longitude, actualV2.longitude);
+            Assertions.assertEquals(reportV2.speed, actualV2.speed);
+        }
+        Assertions.assertEquals(0x0201, envelopes.get(3).getMessageId());
+    }
+
+    private static ProtoMessageRegistry<Header> newRegistry(SerializerRegistry serializerRegistry) {
+        return new ProtoMessageRegistry<>(serializerRegistry, Header.class, header -> header.messageId, header -> header.version);
+    }
+
+    private static Header header(int messageId, int serial, int version) {
+        Header header = new Header();
+        header.messageId = messageId;
+        header.serial = serial;
+        header.version = version;
+        return header;
+    }
+
+    private static void write(SerializerRegistry registry, ByteArrayOutputStream out, Header header, Object body) throws IOException {
+        ProtoContext ctx = new ProtoContext();
+        registry.getSerializer(ProtoType.OBJECT).writeTo(ctx, header, out);
+        ctx.setVersion(header.version);
+        registry.getSerializer(ProtoType.OBJECT).writeTo(ctx, body, out);
+    }
+
+    public static class Header {
+        static final int LENGTH = 5;
+
+        @ProtoProperty(type = ProtoType.WORD, order = 0)
+        private int messageId;
+
+        @ProtoProperty(type = ProtoType.WORD, order = 1)
+        private int serial;
+
+        @ProtoProperty(type = ProtoType.BYTE, order = 2)
+        private int version;
+    }
+
+    @ProtoMessage(id = 0x0002)
+    public static class Heartbeat {
+    }
+
+    @ProtoMessage(id = 0x0200)
+    public static class Report {
+        @ProtoProperty(type = ProtoType.DWORD, order = 0)
+        private long latitude;
+
+        @ProtoProperty(type = ProtoType.DWORD, order = 1)
+        private long longitude;
+    }
+
+    @ProtoMessage(id = 0x0200, version = 2)
+    @ProtoMessage(id = 0x0201, version = 2)
+    public static class ReportV2 {
+        @ProtoProperty(type = ProtoType.DWORD, order = 0)
+        private long latitude;
+
+        @ProtoProperty(type = ProtoType.DWORD, order = 1)
+        private long longitude;
+
+        @ProtoProperty(type = ProtoType.WORD, order = 2)
+        private int speed;
+    }
+}
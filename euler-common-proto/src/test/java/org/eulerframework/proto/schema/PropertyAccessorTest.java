@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.schema;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class PropertyAccessorTest {
+
+    @Test
+    void primitiveAccess() throws NoSuchFieldException {
+        Bean bean = new Bean();
+        PropertyAccessor accessor = PropertyAccessor.of(Bean.class.getDeclaredField("i"));
+        accessor.setInt(bean, 0x80000001);
+        Assertions.assertEquals(0x80000001, accessor.getInt(bean));
+        Assertions.assertEquals(0x80000001, accessor.get(bean));
+        Assertions.assertEquals(0x80000001L, accessor.getUnsignedLong(bean));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> accessor.setLong(bean, 1L));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> accessor.set(bean, null));
+
+        PropertyAccessor flag = PropertyAccessor.of(Bean.class.getDeclaredField("flag"));
+        flag.setUnsignedLong(bean, 1);
+        Assertions.assertTrue(bean.flag);
+
+        PropertyAccessor b = PropertyAccessor.of(Bean.class.getDeclaredField("b"));
+        b.setUnsignedLong(bean, 0xF9);
+        Assertions.assertEquals((byte) 0xF9, bean.b);
+        Assertions.assertEquals(0xF9L, b.getUnsignedLong(bean));
+    }
+
+    @Test
+    void objectAndFinalAccess() throws NoSuchFieldException {
+        Bean bean = new Bean();
+        PropertyAccessor boxed = PropertyAccessor.of(Bean.class.getDeclaredField("boxed"));
+        boxed.setUnsignedLong(bean, 0xFFFF);
+        Assertions.assertEquals((short) 0xFFFF, bean.boxed);
+
+        PropertyAccessor name = PropertyAccessor.of(Bean.class.getDeclaredField("name"));
+        name.set(bean, "proto");
+        Assertions.assertEquals("proto", name.get(bean));
+
+        PropertyAccessor finalValue = PropertyAccessor.of(Bean.class.getDeclaredField("finalValue"));
+        finalValue.set(bean, 3L);
+        Assertions.assertEquals(3L, finalValue.getLong(bean));
+
+        // a record component is passed to the constructor
+        Point point = new Point(7);
+        PropertyAccessor x = ProtoSchema.forClass(Point.class, 0).getPropertyFields().get(0).getAccessor();
+        Assertions.assertFalse(x.isWritable());
+        Assertions.assertEquals(7, x.getInt(point));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> x.set(point, 8));
+        Assertions.assertEquals(point, ProtoSchema.forClass(Point.class, 0).getConstructor().newInstance(new Object[]{7}));
+    }
+
+    private static class Bean {
+        private int i;
+        private boolean flag;
+        private byte b;
+        private Short boxed;
+        private String name;
+        private final long finalValue = 1L;
+    }
+
+    private record Point(@ProtoProperty(type = ProtoType.DWORD, order = 0) int x) {
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.schema;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.fixture.Packet;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.serializer.ByteProtoFieldSerializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+class PropertyRunTest {
+    private static final byte[] HEADER = {
+            (byte) 0x80, 0x01, 0x12, 0x34, 0x01, (byte) 0xEF, (byte) 0xCD, (byte) 0xAB, (byte) 0x89,
+            0x13, 0x57,
+            (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF};
+
+    @Test
+    void propertyRuns() {
+        ProtoSchema schema = ProtoSchema.forClass(Header.class, 0);
+        Assertions.assertEquals(9, schema.getPropertyRun(0).getLength());
+        Assertions.assertEquals(4, schema.getPropertyRun(0).getTo());
+        Assertions.assertNull(schema.getPropertyRun(1));
+        Assertions.assertNull(schema.getPropertyRun(4));
+        Assertions.assertEquals(5, schema.getPropertyRun(5).getLength());
+        // a run of one property is not fused
+        Assertions.assertNull(ProtoSchema.forClass(Packet.class, 0).getPropertyRun(0));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readAndWriteRuns(boolean compiled) throws IOException {
+        Header header = newHeader();
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        Assertions.assertArrayEquals(HEADER, ProtoFixtures.write(registry, header, 0));
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(32), ByteBuffer.allocateDirect(32)}) {
+            buffer.put((byte) 0x7E);
+            registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), header, buffer);
+            buffer.flip().position(1);
+            byte[] written = new byte[buffer.remaining()];
+            buffer.duplicate().get(written);
+            Assertions.assertArrayEquals(HEADER, written);
+
+            Header actual = registry.getDeserializer(ProtoType.OBJECT).read(new ProtoContext(), buffer, Header.class);
+            Assertions.assertFalse(buffer.hasRemaining());
+            Assertions.assertArrayEquals(HEADER, ProtoFixtures.write(registry, actual, 0));
+        }
+
+        Header actual = ProtoFixtures.read(registry, HEADER, Header.class, 0);
+        Assertions.assertEquals(0x8001, actual.messageId);
+        Assertions.assertEquals(0x1234, actual.attributes);
+        Assertions.assertTrue(actual.encrypted);
+        Assertions.assertEquals(0x89ABCDEFL, actual.serial);
+        Assertions.assertEquals((byte) 0xFE, actual.count);
+        Assertions.assertEquals(0xFFFFFFFFL, actual.total);
+
+        // a message ending within a run is read property by property, the missing ones are defaults
+        Header partial = ProtoFixtures.read(registry, Arrays.copyOf(HEADER, 5), Header.class, 0);
+        Assertions.assertEquals(0x1234, partial.attributes);
+        Assertions.assertTrue(partial.encrypted);
+        Assertions.assertEquals(0, partial.serial);
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> ProtoFixtures.read(registry, Arrays.copyOf(HEADER, 7), Header.class, 0));
+    }
+
+    @Test
+    void replacedSerializer() throws IOException {
+        // a replaced serializer of a property type is used instead of the run
+        Header header = newHeader();
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false)
+                .registerSerializer(ProtoType.BYTE, new ByteProtoFieldSerializer() {
+                    @Override
+                    public void writeInt(ProtoContext ctx, int value, OutputStream outputStream) throws IOException {
+                        super.writeInt(ctx, ~value, outputStream);
+                    }
+                });
+        byte[] replaced = ProtoFixtures.write(registry, header, 0);
+        Assertions.assertEquals((byte) 0xFE, replaced[4]);
+        Assertions.assertEquals(0x01, replaced[11]);
+        Assertions.assertThrows(BufferOverflowException.class, () -> ProtoFixtures.newRegistry(false)
+                .getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), header, ByteBuffer.allocate(8)));
+    }
+
+    private static Header newHeader() {
+        Header header = new Header();
+        header.messageId = 0x8001;
+        header.attributes = 0x1234;
+        header.encrypted = true;
+        header.serial = 0x89ABCDEFL;
+        header.phone = new byte[]{0x13, 0x57};
+        header.count = (byte) 0xFE;
+        header.total = 0xFFFFFFFFL;
+        return header;
+    }
+
+    public static class Header {
+        @ProtoProperty(type = ProtoType.WORD, order = 0)
+        private int messageId;
+
+        @ProtoProperty(type = ProtoType.WORD, order = 1)
+        private Integer attributes;
+
+        @ProtoProperty(type = ProtoType.BYTE, order = 2)
+        private boolean encrypted;
+
+        @ProtoProperty(type = ProtoType.DWORD_LE, order = 3)
+        private long serial;
+
+        @ProtoProperty(type = ProtoType.BYTES, order = 4, length = 2)
+        private byte[] phone;
+
+        @ProtoProperty(type = ProtoType.BYTE, order = 5)
+        private byte count;
+
+        @ProtoProperty(type = ProtoType.DWORD, order = 6)
+        private Long total;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.schema;
+
+import org.eulerframework.proto.annotation.ProtoCreator;
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.fixture.Position;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Reading;
+import org.eulerframework.proto.serializer.InstanceDeserializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+class ProtoConstructorTest {
+    private static final Reading READING = new Reading(0x8001, new Position(31_230_416, 0xF0000001L, 0x1234, "ignored"), "abc");
+
+    @ParameterizedTest
+    @CsvSource({"false, 0", "false, 1", "true, 0", "true, 1"})
+    void immutableMessages(boolean compiled, int version) throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        byte[] data = ProtoFixtures.write(registry, READING, version);
+        Assertions.assertEquals(version == 0 ? 2 + 8 + 6 : 2 + 10 + 6, data.length);
+
+        for (boolean nodeTree : new boolean[]{false, true}) {
+            ProtoContext ctx = ProtoFixtures.newContext(version, nodeTree);
+            Reading stream = registry.getDeserializer(ProtoType.OBJECT).read(ctx, new ByteArrayInputStream(data), Reading.class);
+            Reading buffer = registry.getDeserializer(ProtoType.OBJECT).read(ctx, ByteBuffer.wrap(data), Reading.class);
+            for (Reading actual : new Reading[]{stream, buffer}) {
+                Assertions.assertEquals(0x8001, actual.getId());
+                Assertions.assertEquals("abc", actual.getName());
+                // the component out of the version and the one that is not a property are defaults
+                Assertions.assertEquals(new Position(31_230_416, 0xF0000001L, version == 0 ? 0 : 0x1234, null), actual.getPosition());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false, 0", "false, 1", "true, 0", "true, 1"})
+    void readIntoImmutable(boolean compiled, int version) throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        byte[] data = ProtoFixtures.write(registry, READING, version);
+
+        // the missing properties are defaults, an immutable target is replaced by a new instance
+        InstanceDeserializer deserializer = (InstanceDeserializer) registry.getDeserializer(ProtoType.OBJECT);
+        Position position = deserializer.readInto(ProtoFixtures.newContext(version, false), ByteBuffer.wrap(data, 2, 4), READING.getPosition());
+        Assertions.assertEquals(new Position(31_230_416, 0, 0, null), position);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void parametersMatchedByName(boolean compiled) throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        byte[] data = ProtoFixtures.write(registry, new Point(2, 1), 0);
+        Assertions.assertArrayEquals(new byte[]{0, 1, 0, 2}, data);
+
+        // the parameters are declared in the reverse order of the fields
+        Point point = registry.getDeserializer(ProtoType.OBJECT).read(ProtoFixtures.newContext(0, false), ByteBuffer.wrap(data), Point.class);
+        Assertions.assertEquals(1, point.x);
+        Assertions.assertEquals(2, point.y);
+    }
+
+    @Test
+    void unmarkedConstructor() {
+        // a constructor taking all the fields is not used without @ProtoCreator
+        Assertions.assertNull(ProtoSchema.forClass(Unmarked.class, 0).getConstructor());
+        Assertions.assertNotNull(ProtoSchema.forClass(Point.class, 0).getConstructor());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readUnmarked(boolean compiled) throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        Unmarked unmarked = registry.getDeserializer(ProtoType.OBJECT)
+                .read(ProtoFixtures.newContext(0, false), ByteBuffer.wrap(new byte[]{0, 1, 0, 2}), Unmarked.class);
+        Assertions.assertEquals(1, unmarked.x);
+        Assertions.assertEquals(2, unmarked.y);
+    }
+
+    static class Point {
+        @ProtoProperty(type = ProtoType.WORD, order = 0)
+        private final int x;
+
+        @ProtoProperty(type = ProtoType.WORD, order = 1)
+        private final int y;
+
+        @ProtoCreator({"y", "x"})
+        Point(int y, int x) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    static class Unmarked {
+        @ProtoProperty(type = ProtoType.WORD, order = 0)
+        private final int x;
+
+        @ProtoProperty(type = ProtoType.WORD, order = 1)
+        private final int y;
+
+        public Unmarked() {
+            this(0, 0);
+        }
+
+        Unmarked(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.schema;
+
+import org.eulerframework.proto.fixture.Location;
+import org.eulerframework.proto.fixture.Message;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Record;
+import org.eulerframework.proto.fixture.Track;
+import org.eulerframework.proto.node.ObjectProtoNode;
+import org.eulerframework.proto.node.ProtoNode;
+import org.eulerframework.proto.serializer.Deserializer;
+import org.eulerframework.proto.serializer.InstanceDeserializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.util.ObjectPool;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+class ProtoProjectionTest {
+    private static final ProtoProjection PROJECTION = ProtoProjection.of(Message.class, "serial", "timestamp", "location");
+
+    @ParameterizedTest
+    @CsvSource({"false, false", "false, true", "true, false", "true, true"})
+    void selectedProperties(boolean compiled, boolean nodeTree) throws IOException {
+        Message message = ProtoFixtures.newMessage(1);
+        Deserializer deserializer = ProtoFixtures.newRegistry(compiled).getDeserializer(ProtoType.OBJECT);
+        byte[] data = ProtoFixtures.write(ProtoFixtures.newRegistry(compiled), message, 1);
+        ProtoContext ctx = new ProtoContext();
+        ctx.setVersion(1);
+        ctx.setProjection(PROJECTION);
+        ObjectProtoNode rootNode = nodeTree ? ProtoNode.newRootNode() : null;
+        ctx.setPropertyNode(rootNode);
+        List<Message> actuals = new ArrayList<>();
+        actuals.add(deserializer.read(ctx, new ByteArrayInputStream(data), Message.class));
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(data), ByteBuffer.allocateDirect(data.length).put(data).flip()}) {
+            ctx.setPropertyNode(rootNode == null ? null : ProtoNode.newRootNode());
+            actuals.add(deserializer.read(ctx, buffer, Message.class));
+            Assertions.assertFalse(buffer.hasRemaining());
+        }
+        for (Message actual : actuals) {
+            Assertions.assertEquals(message.serial, actual.serial);
+            Assertions.assertEquals(message.timestamp, actual.timestamp);
+            Assertions.assertEquals(message.location.longitude, actual.location.longitude);
+            Assertions.assertEquals(0, actual.id);
+            Assertions.assertNull(actual.count);
+            Assertions.assertNull(actual.name);
+            Assertions.assertNull(actual.status);
+            Assertions.assertEquals(0, actual.extra);
+        }
+        if (rootNode != null) {
+            Assertions.assertEquals(List.of("serial", "timestamp", "location"), List.copyOf(rootNode.getProperties().keySet()));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void nestedProjection(boolean compiled) throws IOException {
+        // a projection of a nested type leaves the message read in full
+        Message message = ProtoFixtures.newMessage(1);
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        byte[] data = ProtoFixtures.write(registry, message, 1);
+        ProtoContext ctx = new ProtoContext();
+        ctx.setVersion(1);
+        ctx.setProjection(ProtoProjection.of(Location.class, "longitude"));
+        Message actual = registry.getDeserializer(ProtoType.OBJECT).read(ctx, ByteBuffer.wrap(data), Message.class);
+        Assertions.assertEquals(message.name, actual.name);
+        Assertions.assertEquals(message.extra, actual.extra);
+        Assertions.assertEquals(message.location.longitude, actual.location.longitude);
+        Assertions.assertEquals(0, actual.location.latitude);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void readIntoProjection(boolean compiled) throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        InstanceDeserializer deserializer = (InstanceDeserializer) registry.getDeserializer(ProtoType.OBJECT);
+        Message previous = ProtoFixtures.newMessage(1);
+        byte[] data = ProtoFixtures.write(registry, ProtoFixtures.newMessage(2), 1);
+        ProtoContext ctx = new ProtoContext();
+        ctx.setVersion(1);
+        ctx.setProjection(PROJECTION);
+
+        // the skipped properties of an instance read into keep their current value
+        ObjectPool<Message> pool = new ObjectPool<>(Message.class, 1);
+        Message message = pool.acquire();
+        deserializer.readInto(ctx, ByteBuffer.wrap(ProtoFixtures.write(registry, previous, 1)), message);
+        message.id = previous.id;
+        message.name = previous.name;
+        Assertions.assertSame(message, deserializer.readInto(ctx, ByteBuffer.wrap(data), message));
+        Assertions.assertEquals((short) 0xF236, message.serial);
+        Assertions.assertEquals(previous.id, message.id);
+        Assertions.assertEquals(previous.name, message.name);
+
+        // a pooled instance is reset on release, so the skipped properties are defaults again
+        Assertions.assertTrue(pool.release(message));
+        Message pooled = deserializer.readInto(ctx, ByteBuffer.wrap(data), pool.acquire());
+        Assertions.assertSame(message, pooled);
+        Assertions.assertEquals((short) 0xF236, pooled.serial);
+        Assertions.assertEquals(0, pooled.id);
+        Assertions.assertNull(pooled.name);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void skipByLength(boolean compiled) throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        Deserializer deserializer = registry.getDeserializer(ProtoType.OBJECT);
+
+        // the prefixed and separated bytes are skipped by their length
+        Record record = ProtoFixtures.newRecord();
+        byte[] recordData = ProtoFixtures.write(registry, record, 0);
+        ProtoContext ctx = new ProtoContext();
+        ctx.setProjection(ProtoProjection.of(Record.class, List.of("payload", "body")));
+        for (Record actual : List.of(
+                deserializer.read(ctx, new ByteArrayInputStream(recordData), Record.class),
+                deserializer.read(ctx, ProtoFixtures.unmarked(recordData), Record.class),
+                deserializer.read(ctx, ByteBuffer.wrap(recordData), Record.class))) {
+            Assertions.assertNull(actual.name);
+            Assertions.assertArrayEquals(record.payload, actual.payload);
+            Assertions.assertNull(actual.line);
+            Assertions.assertEquals(record.body, actual.body);
+        }
+
+        Track track = ProtoFixtures.newTrack();
+        byte[] trackData = ProtoFixtures.write(registry, track, 0);
+        ctx.setProjection(ProtoProjection.of(Track.class, "rest"));
+        for (Track actual : List.of(
+                deserializer.read(ctx, new ByteArrayInputStream(trackData), Track.class),
+                deserializer.read(ctx, ByteBuffer.allocateDirect(trackData.length).put(trackData).flip(), Track.class))) {
+            Assertions.assertNull(actual.fixed);
+            Assertions.assertNull(actual.locations);
+            Assertions.assertNull(actual.positions);
+            Assertions.assertArrayEquals(track.rest, actual.rest);
+        }
+
+        // a message ending in a skipped property fails as a full read does
+        ctx.setProjection(ProtoProjection.of(Track.class, "fixed"));
+        byte[] partial = Arrays.copyOf(trackData, 9);
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> deserializer.read(ctx, ByteBuffer.wrap(partial), Track.class));
+    }
+
+    @Test
+    void propertyNames() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ProtoProjection.of(Message.class, "unknown"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ProtoProjection.of(Message.class, "ignored"));
+        Assertions.assertEquals(Set.of("serial", "timestamp", "location"), PROJECTION.getPropertyNames());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.schema;
+
+import org.eulerframework.proto.fixture.Message;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Status;
+import org.eulerframework.proto.serializer.Serializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.eulerframework.proto.serializer.UnsignedShortProtoFieldDeserializer;
+import org.eulerframework.proto.serializer.UnsignedShortProtoFieldSerializer;
+import org.eulerframework.proto.util.PropertyField;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+class ProtoSchemaTest {
+
+    @Test
+    void schemaIsCachedPerVersion() {
+        ProtoSchema v0 = ProtoSchema.forClass(Message.class, 0);
+        Assertions.assertSame(v0, ProtoSchema.forClass(Message.class, 0));
+        Assertions.assertSame(ProtoSchema.forClass(Message.class, 1000), ProtoSchema.forClass(Message.class, 1000));
+
+        List<PropertyField> v0Fields = v0.getPropertyFields();
+        Assertions.assertEquals(9, v0Fields.size());
+        Assertions.assertEquals("id", v0Fields.get(0).getField().getName());
+        Assertions.assertEquals(8, v0Fields.get(6).getLength());
+        Assertions.assertEquals(ProtoFixtures.MESSAGE_LENGTH, v0.getFixedLength());
+
+        List<PropertyField> v1Fields = ProtoSchema.forClass(Message.class, 1).getPropertyFields();
+        Assertions.assertEquals(ProtoType.DWORD, v1Fields.get(0).getType());
+        // static fields are not properties
+        Assertions.assertEquals("extra", v1Fields.get(v1Fields.size() - 1).getField().getName());
+
+        ProtoSchema status = ProtoSchema.forClass(Status.class, 0);
+        Assertions.assertTrue(status.isByteArrayObject());
+        Assertions.assertEquals(2, status.getByteArrayObjectLength());
+        Assertions.assertEquals(2, status.getBitPropertyFields().size());
+    }
+
+    @Test
+    void writeAndRead() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        for (int version : new int[]{0, 1}) {
+            Message message = ProtoFixtures.newMessage(0);
+            byte[] data = ProtoFixtures.write(registry, message, version);
+            Assertions.assertEquals(version == 0 ? ProtoFixtures.MESSAGE_LENGTH : ProtoFixtures.MESSAGE_LENGTH_V1, data.length);
+            ProtoFixtures.assertMessage(message, ProtoFixtures.read(registry, data, Message.class, version), version);
+        }
+    }
+
+    @Test
+    void serializersAreBoundPerRegistry() {
+        PropertyField id = ProtoSchema.forClass(Message.class, 0).getPropertyFields().get(0);
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        SerializerRegistry other = ProtoFixtures.newRegistry(false);
+        for (int i = 0; i < 2; i++) {
+            Assertions.assertSame(registry.getSerializer(ProtoType.WORD), id.getSerializer(registry));
+            Assertions.assertSame(other.getSerializer(ProtoType.WORD), id.getSerializer(other));
+        }
+
+        Serializer serializer = new UnsignedShortProtoFieldSerializer();
+        registry.registerSerializer(ProtoType.WORD, serializer);
+        Assertions.assertSame(serializer, id.getSerializer(registry));
+        Assertions.assertSame(other.getSerializer(ProtoType.WORD), id.getSerializer(other));
+    }
+
+    @Test
+    void frozenRegistry() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        Assertions.assertFalse(registry.isFrozen());
+        Assertions.assertSame(registry, registry.freeze());
+        Assertions.assertTrue(registry.isFrozen());
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> registry.registerSerializer(ProtoType.WORD, new UnsignedShortProtoFieldSerializer()));
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> registry.registerDeserializer("CUSTOM", new UnsignedShortProtoFieldDeserializer()));
+
+        // type IDs are shared by the registries and resolve to the same serializers as the names
+        int word = SerializerRegistry.typeId(ProtoType.WORD);
+        Assertions.assertEquals(word, ProtoSchema.forClass(Message.class, 0).getPropertyFields().get(0).getTypeId());
+        Assertions.assertSame(registry.getSerializer(ProtoType.WORD), registry.getSerializer(word));
+        Assertions.assertSame(registry.getDeserializer(ProtoType.WORD), registry.getDeserializer(word));
+        Assertions.assertNull(registry.getSerializer("CUSTOM"));
+        Assertions.assertNull(registry.getDeserializer(SerializerRegistry.typeId("CUSTOM")));
+
+        Message message = ProtoFixtures.newMessage(0);
+        ProtoFixtures.assertMessage(message, ProtoFixtures.read(registry, ProtoFixtures.write(registry, message, 0), Message.class, 0), 0);
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Record;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.eulerframework.proto.util.bytes.ByteSlice;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+class ByteArrayDeserializerTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void slices(boolean compiled) throws IOException {
+        Chunk chunk = new Chunk();
+        chunk.slice = ByteSlice.of(new byte[]{0, 1, 2, 3, 4, 5}, 1, 4);
+        chunk.buffer = ByteBuffer.allocateDirect(2).put(new byte[]{6, 7}).flip();
+        chunk.rest = new byte[]{8, 9};
+        byte[] expected = {0, 4, 1, 2, 3, 4, 2, 6, 7, 8, 9};
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        Assertions.assertArrayEquals(expected, ProtoFixtures.write(registry, chunk, 0));
+        ByteBuffer written = ByteBuffer.allocate(expected.length);
+        registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), chunk, written);
+        Assertions.assertArrayEquals(expected, written.array());
+        Assertions.assertEquals(2, chunk.buffer.remaining());
+
+        // the slices read from a buffer are views of it
+        byte[] data = expected.clone();
+        Chunk actual = registry.getDeserializer(ProtoType.OBJECT).read(new ProtoContext(), ByteBuffer.wrap(data), Chunk.class);
+        Assertions.assertEquals(chunk.slice, actual.slice);
+        Assertions.assertEquals(chunk.buffer, actual.buffer);
+        Assertions.assertArrayEquals(chunk.rest, actual.rest);
+        data[2] = 0x7F;
+        data[7] = 0x7F;
+        Assertions.assertEquals(0x7F, actual.slice.get(0));
+        Assertions.assertEquals(0x7F, actual.buffer.get(0));
+
+        actual = ProtoFixtures.read(registry, expected, Chunk.class, 0);
+        Assertions.assertEquals(chunk.slice, actual.slice);
+        Assertions.assertEquals(chunk.buffer, actual.buffer);
+        Assertions.assertArrayEquals(chunk.rest, actual.rest);
+    }
+
+    @Test
+    void lengthModes() throws IOException {
+        Record record = ProtoFixtures.newRecord();
+
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        byte[] expected = ProtoFixtures.write(registry, record, 0);
+        Assertions.assertArrayEquals(new byte[]{0x00, 0x06}, Arrays.copyOf(expected, 2));
+        Assertions.assertEquals(9, expected[8]);
+        Assertions.assertEquals(2 + 6 + 1 + 9 + 14 + 2 + 4 + 1, expected.length);
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+        registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), record, buffer);
+        byte[] actual = new byte[buffer.flip().remaining()];
+        buffer.duplicate().get(actual);
+        Assertions.assertArrayEquals(expected, actual);
+
+        for (Object source : new Object[]{buffer, new ByteArrayInputStream(expected)}) {
+            ProtoContext ctx = ProtoFixtures.newContext(0, true);
+            Record result = source instanceof ByteBuffer
+                    ? registry.getDeserializer(ProtoType.OBJECT).read(ctx, (ByteBuffer) source, Record.class)
+                    : registry.getDeserializer(ProtoType.OBJECT).read(ctx, (InputStream) source, Record.class);
+            Assertions.assertEquals(record.name, result.name);
+            Assertions.assertArrayEquals(record.payload, result.payload);
+            Assertions.assertEquals(record.line, result.line);
+            Assertions.assertEquals(record.body.rewind(), result.body);
+        }
+        Assertions.assertFalse(buffer.hasRemaining());
+
+        record.line = "GET\r\n";
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), record, ByteBuffer.allocate(64)));
+        record.line = "GET";
+        record.payload = new byte[256];
+        Assertions.assertThrows(IndexOutOfBoundsException.class,
+                () -> registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), record, new ByteArrayOutputStream()));
+    }
+
+    @Test
+    void separatorAcrossChunks() throws IOException {
+        // the separator spans the chunks a marked stream is searched by
+        Record record = ProtoFixtures.newRecord();
+        record.payload = new byte[]{1};
+        record.line = "a".repeat(255);
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        byte[] data = ProtoFixtures.write(registry, record, 0);
+        for (InputStream in : new InputStream[]{new ByteArrayInputStream(data), ProtoFixtures.unmarked(data)}) {
+            Record result = registry.getDeserializer(ProtoType.OBJECT).read(ProtoFixtures.newContext(0, true), in, Record.class);
+            Assertions.assertEquals(record.line, result.line);
+            Assertions.assertEquals(record.body.rewind(), result.body);
+            Assertions.assertEquals(0, in.available());
+        }
+    }
+
+    @Test
+    void maxSeparatedLength() throws IOException {
+        Record record = ProtoFixtures.newRecord();
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        registry.registerDeserializer(ProtoType.BYTES, new ByteArrayDeserializer(null, record.line.length()));
+        byte[] data = ProtoFixtures.write(registry, record, 0);
+        for (InputStream in : new InputStream[]{new ByteArrayInputStream(data), ProtoFixtures.unmarked(data)}) {
+            Assertions.assertEquals(record.line, registry.getDeserializer(ProtoType.OBJECT).read(new ProtoContext(), in, Record.class).line);
+        }
+
+        // a stream is not searched past the max length for a separator, a buffer holding the bytes is
+        record.line += "/";
+        byte[] longer = ProtoFixtures.write(registry, record, 0);
+        int lineOffset = 2 + record.name.getBytes("GBK").length + 1 + record.payload.length;
+        for (boolean marked : new boolean[]{true, false}) {
+            InputStream in = marked ? new ByteArrayInputStream(longer) : ProtoFixtures.unmarked(longer);
+            IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+                    () -> registry.getDeserializer(ProtoType.OBJECT).read(new ProtoContext(), in, Record.class));
+            Assertions.assertTrue(e.getMessage().contains("within 14 bytes"), e.getMessage());
+            // a marked stream is reset to the property, the other one is read up to the max length and the separator
+            Assertions.assertEquals(marked ? longer.length - lineOffset : longer.length - lineOffset - 16, in.available());
+        }
+        Assertions.assertEquals(record.line,
+                registry.getDeserializer(ProtoType.OBJECT).read(new ProtoContext(), ByteBuffer.wrap(longer), Record.class).line);
+
+        // a stream ending before the max length has no separator
+        byte[] truncated = Arrays.copyOf(data, lineOffset + 4);
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> registry.getDeserializer(ProtoType.OBJECT).read(new ProtoContext(), new ByteArrayInputStream(truncated), Record.class));
+        Assertions.assertFalse(e.getMessage().contains("within"), e.getMessage());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ByteArrayDeserializer(null, -1));
+    }
+
+    public static class Chunk {
+        @ProtoProperty(type = ProtoType.BYTES, order = 0,
+                option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_PREFIX, lengthPrefixType = ProtoType.WORD))
+        private ByteSlice slice;
+
+        @ProtoProperty(type = ProtoType.BYTES, order = 1,
+                option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_PREFIX, lengthPrefixType = ProtoType.BYTE))
+        private ByteBuffer buffer;
+
+        @ProtoProperty(type = ProtoType.BYTES, order = 2, option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_ALL_BYTES))
+        private byte[] rest;
+    }
+}
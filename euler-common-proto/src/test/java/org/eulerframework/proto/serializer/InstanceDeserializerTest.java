@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.proto.fixture.Location;
+import org.eulerframework.proto.fixture.Message;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Status;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+class InstanceDeserializerTest {
+
+    @ParameterizedTest
+    @CsvSource({"false, false", "false, true", "true, false", "true, true"})
+    void readInto(boolean compiled, boolean nodeTree) throws IOException {
+        byte[] data = ProtoFixtures.write(ProtoFixtures.newRegistry(false), ProtoFixtures.newMessage(1), 0);
+        InstanceDeserializer deserializer = (InstanceDeserializer) ProtoFixtures.newRegistry(compiled).getDeserializer(ProtoType.OBJECT);
+        Message target = ProtoFixtures.newMessage(0);
+        target.extra = 0;
+        Status status = target.status;
+        Location location = target.location;
+
+        Assertions.assertSame(target, deserializer.readInto(ProtoFixtures.newContext(0, nodeTree), new ByteArrayInputStream(data), target));
+        Assertions.assertSame(status, target.status);
+        Assertions.assertSame(location, target.location);
+        ProtoFixtures.assertMessage(ProtoFixtures.newMessage(1), target, 0);
+
+        target.status = null;
+        Assertions.assertSame(target, deserializer.readInto(ProtoFixtures.newContext(0, nodeTree), ByteBuffer.wrap(data), target));
+        Assertions.assertNotNull(target.status);
+        Assertions.assertSame(location, target.location);
+        ProtoFixtures.assertMessage(ProtoFixtures.newMessage(1), target, 0);
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.proto.annotation.ProtoProperty;
+import org.eulerframework.proto.annotation.ProtoPropertyOption;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.schema.ProtoSchema;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * The little-endian, varint and BCD number types.
+ */
+class NumberEncodingTest {
+    private static final byte[] REPORT = {
+            0x34, 0x12,
+            (byte) 0xEF, (byte) 0xCD, (byte) 0xAB, (byte) 0x89,
+            (byte) 0xAC, 0x02,
+            0x01,
+            0x26, 0x10, 0x18, 0x23, 0x59, 0x59,
+            0x01, 0x23,
+            2, 1, 2,
+            2, 1, 0, 0, 1};
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void numberEncodings(boolean compiled) throws IOException {
+        Report report = newReport();
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        Assertions.assertArrayEquals(REPORT, ProtoFixtures.write(registry, report, 0));
+        Assertions.assertEquals(REPORT.length, registry.getSerializer(ProtoType.OBJECT).sizeOf(new ProtoContext(), report));
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)}) {
+            registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), report, buffer);
+            byte[] written = new byte[buffer.flip().remaining()];
+            buffer.duplicate().get(written);
+            Assertions.assertArrayEquals(REPORT, written);
+
+            Report actual = registry.getDeserializer(ProtoType.OBJECT).read(ProtoFixtures.newContext(0, true), buffer, Report.class);
+            Assertions.assertFalse(buffer.hasRemaining());
+            Assertions.assertArrayEquals(REPORT, ProtoFixtures.write(registry, actual, 0));
+        }
+
+        Report actual = ProtoFixtures.read(registry, REPORT, Report.class, 0);
+        Assertions.assertEquals(0x1234, actual.id);
+        Assertions.assertEquals(0x89ABCDEFL, actual.total);
+        Assertions.assertEquals(300, actual.mileage);
+        Assertions.assertEquals(1, actual.small);
+        Assertions.assertEquals("261018235959", actual.time);
+        Assertions.assertEquals(123, actual.code);
+        Assertions.assertArrayEquals(report.payload, actual.payload);
+        Assertions.assertArrayEquals(report.values, actual.values);
+    }
+
+    @Test
+    void invalidNumbers() {
+        Assertions.assertEquals(4, ProtoSchema.forClass(Report.class, 0).getFixedLength(1));
+        Assertions.assertEquals(6, ProtoSchema.forClass(Report.class, 0).getFixedLength(4));
+        Assertions.assertEquals(-1, ProtoSchema.forClass(Report.class, 0).getFixedLength());
+
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        // an invalid BCD byte
+        byte[] corrupt = REPORT.clone();
+        corrupt[9] = 0x1A;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ProtoFixtures.read(registry, corrupt, Report.class, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.getDeserializer(ProtoType.OBJECT)
+                .read(new ProtoContext(), ByteBuffer.wrap(corrupt), Report.class));
+        // a varint cut by the end of the message
+        byte[] truncated = Arrays.copyOf(REPORT, 7);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.getDeserializer(ProtoType.OBJECT)
+                .read(new ProtoContext(), ByteBuffer.wrap(truncated), Report.class));
+        Report report = newReport();
+        report.code = 12345;
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> ProtoFixtures.write(registry, report, 0));
+    }
+
+    private static Report newReport() {
+        Report report = new Report();
+        report.id = 0x1234;
+        report.total = 0x89ABCDEFL;
+        report.mileage = 300;
+        report.small = 1;
+        report.time = "261018235959";
+        report.code = 123;
+        report.payload = new byte[]{1, 2};
+        report.values = new int[]{1, 0x100};
+        return report;
+    }
+
+    public static class Report {
+        @ProtoProperty(type = ProtoType.WORD_LE, order = 0)
+        private int id;
+
+        @ProtoProperty(type = ProtoType.DWORD_LE, order = 1)
+        private long total;
+
+        @ProtoProperty(type = ProtoType.VARINT, order = 2)
+        private long mileage;
+
+        @ProtoProperty(type = ProtoType.VARINT, order = 3)
+        private int small;
+
+        @ProtoProperty(type = ProtoType.BCD, order = 4, length = 6)
+        private String time;
+
+        @ProtoProperty(type = ProtoType.BCD, order = 5, length = 2)
+        private int code;
+
+        @ProtoProperty(type = ProtoType.BYTES, order = 6,
+                option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_PREFIX, lengthPrefixType = ProtoType.VARINT))
+        private byte[] payload;
+
+        @ProtoProperty(type = ProtoType.ARRAY, elementType = ProtoType.WORD_LE, order = 7,
+                option = @ProtoPropertyOption(lengthMode = ProtoPropertyOption.LENGTH_MODE_COUNT_PREFIX, lengthPrefixType = ProtoType.VARINT))
+        private int[] values;
+    }
+}
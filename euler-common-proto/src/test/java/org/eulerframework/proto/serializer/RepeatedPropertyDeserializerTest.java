@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.serializer;
+
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Track;
+import org.eulerframework.proto.schema.ProtoSchema;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+class RepeatedPropertyDeserializerTest {
+    private static final byte[] TRACK = {
+            0, 1, (byte) 0xFF, (byte) 0xFF, 0, 3,
+            2, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0, 0, 0, 2,
+            0, 8, 0, 0, 0, 1, 0, 0, 0, 2,
+            0, 1, 0, 0, 0, 3, 0, 0, 0, 4,
+            2, 0, 5, 0, 6,
+            0, 7, (byte) 0x80, 0};
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void repeatedProperties(boolean compiled) throws IOException {
+        Track track = ProtoFixtures.newTrack();
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        Assertions.assertArrayEquals(TRACK, ProtoFixtures.write(registry, track, 0));
+        Assertions.assertEquals(TRACK.length, registry.getSerializer(ProtoType.OBJECT).sizeOf(new ProtoContext(), track));
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)}) {
+            registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), track, buffer);
+            byte[] written = new byte[buffer.flip().remaining()];
+            buffer.duplicate().get(written);
+            Assertions.assertArrayEquals(TRACK, written);
+
+            Track actual = registry.getDeserializer(ProtoType.OBJECT).read(ProtoFixtures.newContext(0, true), buffer, Track.class);
+            Assertions.assertFalse(buffer.hasRemaining());
+            Assertions.assertArrayEquals(track.fixed, actual.fixed);
+            Assertions.assertArrayEquals(track.counted, actual.counted);
+            Assertions.assertEquals(Arrays.asList(track.positions), Arrays.asList(actual.positions));
+            Assertions.assertEquals(track.codes, actual.codes);
+            Assertions.assertArrayEquals(track.rest, actual.rest);
+        }
+
+        Track actual = ProtoFixtures.read(registry, TRACK, Track.class, 0);
+        Assertions.assertEquals(1, actual.locations.size());
+        Assertions.assertEquals(2, actual.locations.get(0).longitude);
+        Assertions.assertArrayEquals(TRACK, ProtoFixtures.write(registry, actual, 0));
+    }
+
+    @Test
+    void invalidCounts() {
+        Assertions.assertEquals(6, ProtoSchema.forClass(Track.class, 0).getFixedLength(0));
+        Assertions.assertEquals(-1, ProtoSchema.forClass(Track.class, 0).getFixedLength());
+
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        Track track = ProtoFixtures.newTrack();
+        track.fixed = new int[2];
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ProtoFixtures.write(registry, track, 0));
+        // a corrupt count is not trusted to size the elements
+        byte[] corrupt = TRACK.clone();
+        corrupt[6] = (byte) 0xFF;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ProtoFixtures.read(registry, corrupt, Track.class, 0));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.getDeserializer(ProtoType.OBJECT)
+                .read(new ProtoContext(), ByteBuffer.wrap(corrupt), Track.class));
+    }
+}
@@ -15,11 +15,27 @@
  */
 package org.eulerframework.proto.serializer;
 
+import org.eulerframework.proto.annotation.ProtoProperty;
 import org.eulerframework.proto.field.ByteProtoField;
+import org.eulerframework.proto.field.ObjectField;
 import org.eulerframework.proto.field.UnsignedIntegerProtoField;
 import org.eulerframework.proto.field.UnsignedShortProtoField;
+import org.eulerframework.proto.fixture.Message;
+import org.eulerframework.proto.fixture.Packet;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Record;
+import org.eulerframework.proto.util.ProtoContext;
+import org.eulerframework.proto.util.ProtoType;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 class SerializerTest {
 
@@ -53,4 +69,187 @@ class SerializerTest {
         Assertions.assertEquals(0x700070F9L, dwordField.longValue());
     }
 
-}
\ No newline at end of file
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void byteBuffer(boolean compiled) throws IOException {
+        Packet packet = new Packet();
+        packet.id = 0x8001;
+        packet.payload = new byte[]{1, 2, 3};
+
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        for (Object value : new Object[]{ProtoFixtures.newMessage(0), packet}) {
+            byte[] expected = ProtoFixtures.write(registry, value, 0);
+            for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(64), ByteBuffer.allocateDirect(64)}) {
+                buffer.put((byte) 0x7E);
+                registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), value, buffer);
+                Assertions.assertEquals(expected.length + 1, buffer.position());
+                byte[] actual = new byte[expected.length];
+                buffer.flip().position(1);
+                buffer.slice().get(actual);
+                Assertions.assertArrayEquals(expected, actual);
+
+                Object result = registry.getDeserializer(ProtoType.OBJECT).read(ProtoFixtures.newContext(0, !compiled), buffer, value.getClass());
+                Assertions.assertFalse(buffer.hasRemaining());
+                Assertions.assertArrayEquals(expected, ProtoFixtures.write(registry, result, 0));
+            }
+        }
+    }
+
+    @Test
+    void shortNumberBytes() throws IOException {
+        // a number read from fewer bytes than its type, the same from a stream and from a buffer
+        byte[] data = {0x12, 0x34, 0x56};
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        Deserializer deserializer = registry.getDeserializer(ProtoType.OBJECT);
+        ShortNumber fromStream = ProtoFixtures.read(registry, data, ShortNumber.class, 0);
+        ShortNumber fromBuffer = deserializer.read(new ProtoContext(), ByteBuffer.wrap(data), ShortNumber.class);
+        for (ShortNumber result : new ShortNumber[]{fromStream, fromBuffer}) {
+            Assertions.assertEquals(0x1234, result.code);
+            Assertions.assertEquals(0x56L, result.tail);
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"false, false", "false, true", "true, false", "true, true"})
+    void primitiveNumbers(boolean compiled, boolean nodeTree) throws IOException {
+        // every primitive property is read and written without boxing, it must match its boxed twin
+        byte[] data = {
+                (byte) 0xF9, (byte) 0xF9,
+                0x00, (byte) 0xF9, 0x00, (byte) 0xF9,
+                0x00, 0x00, (byte) 0x80, (byte) 0xF9, 0x00, 0x00, (byte) 0x80, (byte) 0xF9,
+                0x00, 0x01, 0x00, 0x01,
+                (byte) 0xF0, 0x00, 0x00, 0x01, (byte) 0xF0, 0x00, 0x00, 0x01};
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        Numbers fromStream = ProtoFixtures.read(registry, data, Numbers.class, 0);
+        Numbers fromBuffer = registry.getDeserializer(ProtoType.OBJECT).read(ProtoFixtures.newContext(0, nodeTree), ByteBuffer.wrap(data), Numbers.class);
+        for (Numbers numbers : new Numbers[]{fromStream, fromBuffer}) {
+            Assertions.assertEquals(0xF9, numbers.byteToInt);
+            Assertions.assertEquals(numbers.byteToInt, numbers.byteToInteger);
+            Assertions.assertEquals((byte) 0xF9, numbers.wordToByte);
+            Assertions.assertEquals(numbers.wordToByte, numbers.wordToByteObject);
+            Assertions.assertEquals((short) 0x80F9, numbers.dwordToShort);
+            Assertions.assertEquals(numbers.dwordToShort, numbers.dwordToShortObject);
+            Assertions.assertEquals(numbers.wordToBoolean, numbers.wordToBooleanObject);
+            Assertions.assertTrue(numbers.wordToBoolean);
+            Assertions.assertEquals(0xF0000001L, numbers.dwordToLong);
+            Assertions.assertEquals(numbers.dwordToLong, numbers.dwordToLongObject);
+            Assertions.assertArrayEquals(data, ProtoFixtures.write(registry, numbers, 0));
+            Assertions.assertArrayEquals(data, registry.getSerializer(ProtoType.OBJECT).writeAsBytes(new ProtoContext(), numbers));
+        }
+    }
+
+    @Test
+    void registryAware() {
+        SerializerRegistry registry = new SerializerRegistry();
+        ByteArraySerializer serializer = new ByteArraySerializer();
+        ByteArrayDeserializer deserializer = new ByteArrayDeserializer();
+        registry.registerSerializer(ProtoType.BYTES, serializer);
+        registry.registerDeserializer(ProtoType.BYTES, deserializer);
+        Assertions.assertSame(registry, serializer.getSerializerRegistry());
+        Assertions.assertSame(registry, deserializer.getSerializerRegistry());
+
+        // a registry already set is kept
+        new SerializerRegistry().registerSerializer(ProtoType.BYTES, serializer);
+        Assertions.assertSame(registry, serializer.getSerializerRegistry());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void sizeOf(boolean compiled) throws IOException {
+        Message message = ProtoFixtures.newMessage(0);
+        Record record = ProtoFixtures.newRecord();
+        record.payload = new byte[]{1, 2, 3};
+        record.body = ByteBuffer.wrap(new byte[]{0x0D, 0x0A});
+
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        Serializer serializer = registry.getSerializer(ProtoType.OBJECT);
+        for (Object value : new Object[]{message, record}) {
+            byte[] expected;
+            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                serializer.writeTo(new ProtoContext(), value, out);
+                expected = out.toByteArray();
+            }
+            Assertions.assertEquals(expected.length, serializer.sizeOf(new ProtoContext(), value));
+            Assertions.assertArrayEquals(expected, serializer.writeAsBytes(new ProtoContext(), value));
+
+            ObjectField<Object> objectField = ObjectField.valueOf(new ProtoContext(), value);
+            objectField.setSerializerRegistry(registry);
+            Assertions.assertEquals(expected.length, objectField.sizeOf());
+            Assertions.assertArrayEquals(expected, objectField.writeAsBytes());
+        }
+        Assertions.assertEquals(ProtoFixtures.MESSAGE_LENGTH, serializer.sizeOf(new ProtoContext(), message));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void overflow(boolean compiled) {
+        // a value longer than its fixed length fails the same on the stream and the buffer
+        Message overflow = ProtoFixtures.newMessage(0);
+        overflow.name = "设备设备01";
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        Assertions.assertThrows(IndexOutOfBoundsException.class,
+                () -> registry.getSerializer(ProtoType.OBJECT).writeTo(new ProtoContext(), overflow, new ByteArrayOutputStream()));
+        Assertions.assertThrows(IndexOutOfBoundsException.class,
+                () -> registry.getSerializer(ProtoType.OBJECT).writeAsBytes(new ProtoContext(), overflow));
+        ObjectField<Object> objectField = ObjectField.valueOf(new ProtoContext(), overflow);
+        objectField.setSerializerRegistry(registry);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, objectField::writeAsBytes);
+    }
+
+    @Test
+    void customSizeOf() throws IOException {
+        // a custom serializer without sizeOf is measured by writing
+        Record record = ProtoFixtures.newRecord();
+        record.payload = new byte[]{1, 2, 3};
+        record.body = ByteBuffer.wrap(new byte[]{0x0D, 0x0A});
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        registry.registerSerializer(ProtoType.WORD, new AbstractSerializer() {
+            @Override
+            public void writeTo(ProtoContext ctx, Object value, OutputStream outputStream) throws IOException {
+                outputStream.write(new byte[3]);
+            }
+        });
+        Assertions.assertEquals(2 + 6 + 1 + 3 + 14 + 2 + 2 + 1 + 1,
+                registry.getSerializer(ProtoType.OBJECT).sizeOf(new ProtoContext(), record));
+    }
+
+    public static class Numbers {
+        @ProtoProperty(type = ProtoType.BYTE, order = 0)
+        private int byteToInt;
+
+        @ProtoProperty(type = ProtoType.BYTE, order = 1)
+        private Integer byteToInteger;
+
+        @ProtoProperty(type = ProtoType.WORD, order = 2)
+        private byte wordToByte;
+
+        @ProtoProperty(type = ProtoType.WORD, order = 3)
+        private Byte wordToByteObject;
+
+        @ProtoProperty(type = ProtoType.DWORD, order = 4)
+        private short dwordToShort;
+
+        @ProtoProperty(type = ProtoType.DWORD, order = 5)
+        private Short dwordToShortObject;
+
+        @ProtoProperty(type = ProtoType.WORD, order = 6)
+        private boolean wordToBoolean;
+
+        @ProtoProperty(type = ProtoType.WORD, order = 7)
+        private Boolean wordToBooleanObject;
+
+        @ProtoProperty(type = ProtoType.DWORD, order = 8)
+        private long dwordToLong;
+
+        @ProtoProperty(type = ProtoType.DWORD, order = 9)
+        private Long dwordToLongObject;
+    }
+
+    public static class ShortNumber {
+        @ProtoProperty(type = ProtoType.BYTES, order = 0, length = 2)
+        private Integer code;
+
+        @ProtoProperty(type = ProtoType.BYTES, order = 1, length = 1)
+        private Long tail;
+    }
+}
@@ -0,0 +1,54 @@
+package org.eulerframework.proto.util;
+
+import org.eulerframework.proto.fixture.Location;
+import org.eulerframework.proto.fixture.Message;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Status;
+import org.eulerframework.proto.serializer.InstanceDeserializer;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+class ObjectPoolTest {
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void resetProperties(boolean compiled) throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(compiled);
+        InstanceDeserializer deserializer = (InstanceDeserializer) registry.getDeserializer(ProtoType.OBJECT);
+        ObjectPool<Message> pool = new ObjectPool<>(Message.class, 1);
+        Message message = pool.acquire();
+        ProtoContext ctx = new ProtoContext();
+        ctx.setVersion(1);
+        deserializer.readInto(ctx, ByteBuffer.wrap(ProtoFixtures.write(registry, ProtoFixtures.newMessage(1), 1)), message);
+        Status status = message.status;
+        Location location = message.location;
+        Assertions.assertTrue(pool.release(message));
+
+        // a short message of an older version read into the pooled instance keeps nothing of the previous one
+        Message pooled = pool.acquire();
+        Assertions.assertSame(message, pooled);
+        byte[] data = Arrays.copyOf(ProtoFixtures.write(registry, ProtoFixtures.newMessage(2), 0), 5);
+        deserializer.readInto(new ProtoContext(), ByteBuffer.wrap(data), pooled);
+        Assertions.assertEquals(0x8003, pooled.id);
+        Assertions.assertEquals((short) 0xF236, pooled.serial);
+        Assertions.assertEquals((byte) 0xA5, pooled.flag);
+        Assertions.assertNull(pooled.count);
+        Assertions.assertFalse(pooled.alive);
+        Assertions.assertEquals(0, pooled.timestamp);
+        Assertions.assertNull(pooled.name);
+        Assertions.assertEquals(0, pooled.extra);
+        // the nested objects are reset in place
+        Assertions.assertSame(status, pooled.status);
+        Assertions.assertFalse(status.online);
+        Assertions.assertEquals(0, status.alarm);
+        Assertions.assertSame(location, pooled.location);
+        Assertions.assertEquals(0, location.latitude);
+        Assertions.assertEquals(0, location.longitude);
+    }
+}
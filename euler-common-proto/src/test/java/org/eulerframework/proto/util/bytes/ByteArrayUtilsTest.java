@@ -3,6 +3,16 @@ package org.eulerframework.proto.util.bytes;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class ByteArrayUtilsTest {
@@ -19,5 +29,300 @@ class ByteArrayUtilsTest {
                 ByteArrayUtils.rightTrim(new byte[]{0, 0, 0}));
         Assertions.assertArrayEquals(new byte[0],
                 ByteArrayUtils.rightTrim(new byte[0]));
+
+        byte[] data = {0, 0x31, 0x32, 0, 0x33, 0, 0};
+        Assertions.assertEquals(5, ByteArrayUtils.rightTrimIndex(data, 0, data.length, (byte) 0));
+        Assertions.assertEquals(3, ByteArrayUtils.rightTrimIndex(data, 1, 4, (byte) 0));
+        Assertions.assertEquals(0, ByteArrayUtils.rightTrimIndex(data, 0, 1, (byte) 0));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> ByteArrayUtils.rightTrimIndex(data, 0, 8, (byte) 0));
+    }
+
+    @Test
+    void isAscii() {
+        byte[] data = "0123456789abcdefGHIJ".getBytes();
+        Assertions.assertTrue(ByteArrayUtils.isAscii(data, 0, data.length));
+        for (int i = 0; i < data.length; i++) {
+            byte b = data[i];
+            data[i] = (byte) 0x80;
+            Assertions.assertFalse(ByteArrayUtils.isAscii(data, 0, data.length), "non-ASCII at " + i);
+            Assertions.assertTrue(ByteArrayUtils.isAscii(data, i + 1, data.length));
+            Assertions.assertTrue(ByteArrayUtils.isAscii(data, 0, i));
+            data[i] = b;
+        }
+    }
+
+    @Test
+    void indexOf() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            // a small alphabet makes partial matches frequent
+            byte[] data = new byte[random.nextInt(40)];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) (random.nextInt(3) == 0 ? 0x80 : random.nextInt(3));
+            }
+            byte[] pattern = new byte[1 + random.nextInt(3)];
+            for (int i = 0; i < pattern.length; i++) {
+                pattern[i] = (byte) (random.nextInt(3) == 0 ? 0x80 : random.nextInt(3));
+            }
+            int from = data.length == 0 ? 0 : random.nextInt(data.length);
+            int expected = naiveIndexOf(data, from, pattern);
+
+            Assertions.assertEquals(expected, ByteArrayUtils.indexOf(data, from, data.length, pattern));
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 1).put(new byte[]{1}).put(data);
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                direct.order(order).limit(data.length + 1).position(from + 1);
+                Assertions.assertEquals(expected < 0 ? -1 : expected + 1, ByteBufferUtils.indexOf(direct, pattern));
+            }
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ByteArrayUtils.indexOf(new byte[1], new byte[0]));
+    }
+
+    @Test
+    void indexOfAny() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; round++) {
+            byte[] data = new byte[random.nextInt(40)];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) (random.nextInt(8) == 0 ? 0x7E : random.nextInt(8) == 0 ? 0x7D : random.nextInt(3));
+            }
+            int from = data.length == 0 ? 0 : random.nextInt(data.length);
+            int expected = -1;
+            for (int i = from; i < data.length && expected < 0; i++) {
+                if (data[i] == 0x7E || data[i] == 0x7D) {
+                    expected = i;
+                }
+            }
+
+            Assertions.assertEquals(expected, ByteArrayUtils.indexOfAny(data, from, data.length, (byte) 0x7E, (byte) 0x7D));
+            ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 1).put(new byte[]{1}).put(data);
+            for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+                direct.order(order);
+                Assertions.assertEquals(expected < 0 ? -1 : expected + 1,
+                        ByteBufferUtils.indexOfAny(direct, from + 1, data.length + 1, (byte) 0x7D, (byte) 0x7E));
+            }
+        }
+    }
+
+    @Test
+    void checksums() {
+        byte[] check = "123456789".getBytes();
+        Crc16 ccitt = Crc16.ccitt();
+        ccitt.update(check);
+        Assertions.assertEquals(0x29B1, ccitt.getValue());
+        Crc16 modbus = Crc16.modbus();
+        modbus.update(ByteBuffer.allocateDirect(check.length).put(check).flip());
+        Assertions.assertEquals(0x4B37, modbus.getValue());
+        // CRC-16/X-25
+        Crc16 x25 = new Crc16(0x1021, true, 0xFFFF, 0xFFFF);
+        for (byte b : check) {
+            x25.update(b);
+        }
+        Assertions.assertEquals(0x906E, x25.getValue());
+        x25.reset();
+        x25.update(check, 0, 0);
+        Assertions.assertEquals(0, x25.getValue());
+
+        Random random = new Random(42);
+        for (int length = 0; length < 40; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            int expected = 0;
+            for (byte b : data) {
+                expected ^= b & 0xFF;
+            }
+            XorChecksum xor = new XorChecksum();
+            xor.update(data, 0, length);
+            Assertions.assertEquals(expected, xor.getValue());
+            xor.reset();
+            xor.update(ByteBuffer.allocateDirect(length).put(data).flip());
+            Assertions.assertEquals(expected, xor.getValue());
+        }
+    }
+
+    @Test
+    void primitiveArrays() {
+        byte[] data = new byte[24];
+        new Random(7).nextBytes(data);
+        int[] sizes = {Byte.BYTES, Short.BYTES, Integer.BYTES, Long.BYTES};
+        Class<?>[] componentTypes = {byte.class, short.class, int.class, long.class};
+        for (int width : new int[]{1, 2, 4}) {
+            int count = data.length / width;
+            for (int t = 0; t < componentTypes.length; t++) {
+                Class<?> componentType = componentTypes[t];
+                ByteBuffer direct = ByteBuffer.allocateDirect(data.length + 1).put((byte) 0).put(data).flip().position(1);
+                for (Object array : new Object[]{PrimitiveArrays.read(data, 0, count, width, componentType),
+                        PrimitiveArrays.read(ByteBuffer.wrap(data), count, width, componentType),
+                        PrimitiveArrays.read(direct, count, width, componentType)}) {
+                    Assertions.assertEquals(count, Array.getLength(array));
+                    for (int i = 0; i < count; i++) {
+                        long expected = 0;
+                        for (int j = 0; j < width; j++) {
+                            expected = expected << 8 | data[i * width + j] & 0xFF;
+                        }
+                        // truncated to the component type as the number serializers do
+                        long mask = sizes[t] == Long.BYTES ? -1L : (1L << (sizes[t] << 3)) - 1;
+                        Assertions.assertEquals(expected & mask, Array.getLong(array, i) & mask, componentType + " of " + width);
+                    }
+                    if (sizes[t] >= width) {
+                        byte[] written = new byte[data.length + 1];
+                        Assertions.assertEquals(data.length, PrimitiveArrays.write(array, width, written, 1));
+                        Assertions.assertArrayEquals(data, Arrays.copyOfRange(written, 1, written.length));
+                        ByteBuffer buffer = ByteBuffer.allocateDirect(data.length);
+                        PrimitiveArrays.write(array, width, buffer);
+                        Assertions.assertFalse(buffer.hasRemaining());
+                        Assertions.assertEquals(ByteBuffer.wrap(data), buffer.flip());
+                    }
+                }
+                Assertions.assertFalse(direct.hasRemaining());
+            }
+        }
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> PrimitiveArrays.read(data, 20, 3, 2, int.class));
+        Assertions.assertThrows(BufferUnderflowException.class, () -> PrimitiveArrays.read(ByteBuffer.wrap(data), 7, 4, int.class));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> PrimitiveArrays.read(data, 0, 1, 3, int.class));
+    }
+
+    @Test
+    void numberAccessors() {
+        byte[] data = new byte[9];
+        new Random(11).nextBytes(data);
+        ByteBuffer be = ByteBuffer.wrap(data, 1, 8).slice();
+        ByteBuffer le = be.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        Assertions.assertEquals(be.getShort(0), ByteArrayUtils.getShort(data, 1));
+        Assertions.assertEquals(be.getInt(0), ByteArrayUtils.getInt(data, 1));
+        Assertions.assertEquals(be.getLong(0), ByteArrayUtils.getLong(data, 1));
+        Assertions.assertEquals(le.getShort(0), ByteArrayUtils.getShortLE(data, 1));
+        Assertions.assertEquals(le.getInt(0), ByteArrayUtils.getIntLE(data, 1));
+        Assertions.assertEquals(le.getLong(0), ByteArrayUtils.getLongLE(data, 1));
+        Assertions.assertEquals(Integer.toUnsignedLong(be.getInt(0)), ByteArrayUtils.getUnsigned(data, 1, 4));
+        Assertions.assertEquals(Short.toUnsignedLong(be.getShort(1)), ByteArrayUtils.getUnsigned(data, 2, 2));
+
+        byte[] written = new byte[9];
+        ByteArrayUtils.putLong(written, 1, be.getLong(0));
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, 1, 9), Arrays.copyOfRange(written, 1, 9));
+        ByteArrayUtils.putIntLE(written, 1, 0x01020304);
+        Assertions.assertArrayEquals(new byte[]{0, 4, 3, 2, 1}, Arrays.copyOf(written, 5));
+        ByteArrayUtils.putShortLE(written, 0, (short) 0x0506);
+        Assertions.assertArrayEquals(new byte[]{6, 5, 3, 2, 1}, Arrays.copyOf(written, 5));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> ByteArrayUtils.getInt(data, 6));
+    }
+
+    @Test
+    void varInts() throws IOException {
+        Random random = new Random(3);
+        for (int round = 0; round < 2000; round++) {
+            long value = random.nextLong() >>> random.nextInt(Long.SIZE);
+            int expectedLength = Math.max(1, (Long.SIZE - Long.numberOfLeadingZeros(value) + 6) / 7);
+            Assertions.assertEquals(expectedLength, VarInts.sizeOf(value));
+
+            byte[] data = new byte[VarInts.MAX_LENGTH + 1];
+            Assertions.assertEquals(expectedLength, VarInts.write(value, data, 1));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Assertions.assertEquals(expectedLength, VarInts.write(value, out));
+            Assertions.assertArrayEquals(Arrays.copyOfRange(data, 1, 1 + expectedLength), out.toByteArray());
+            ByteBuffer direct = ByteBuffer.allocateDirect(VarInts.MAX_LENGTH);
+            VarInts.write(value, direct);
+            Assertions.assertEquals(ByteBuffer.wrap(data, 1, expectedLength), direct.flip());
+
+            ByteBuffer heap = ByteBuffer.wrap(data, 1, data.length - 1);
+            Assertions.assertEquals(value, VarInts.read(heap));
+            Assertions.assertEquals(1 + expectedLength, heap.position());
+            Assertions.assertEquals(value, VarInts.read(direct));
+            Assertions.assertFalse(direct.hasRemaining());
+            Assertions.assertEquals(value, VarInts.read(new ByteArrayInputStream(out.toByteArray())));
+        }
+
+        byte[] encoded = new byte[2];
+        VarInts.write(300, encoded, 0);
+        Assertions.assertArrayEquals(new byte[]{(byte) 0xAC, 0x02}, encoded);
+        byte[] overlong = new byte[11];
+        Arrays.fill(overlong, (byte) 0x80);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> VarInts.read(ByteBuffer.wrap(overlong)));
+        byte[] tooWide = {-1, -1, -1, -1, -1, -1, -1, -1, -1, 0x02};
+        Assertions.assertThrows(IllegalArgumentException.class, () -> VarInts.read(ByteBuffer.wrap(tooWide)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> VarInts.read(ByteBuffer.wrap(new byte[]{(byte) 0x80})));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> VarInts.read(new ByteArrayInputStream(new byte[]{(byte) 0x80})));
+    }
+
+    @Test
+    void bcd() {
+        byte[] data = {0, 0x26, 0x10, 0x18, 0x09, 0x05, 0x59};
+        Assertions.assertEquals(261018090559L, Bcd.readLong(data, 1, 6));
+        Assertions.assertEquals("261018090559", Bcd.readString(data, 1, 6));
+        ByteBuffer direct = ByteBuffer.allocateDirect(data.length).put(data).flip().position(1);
+        Assertions.assertEquals("261018090559", Bcd.readString(direct.duplicate(), 6));
+        Assertions.assertEquals(261018090559L, Bcd.readLong(direct, 6));
+        Assertions.assertFalse(direct.hasRemaining());
+
+        Random random = new Random(5);
+        for (int round = 0; round < 2000; round++) {
+            long value = random.nextLong() >>> 1 >>> random.nextInt(Long.SIZE);
+            value %= 1_000_000_000_000_000_000L;
+            byte[] written = new byte[Bcd.MAX_LONG_LENGTH];
+            Bcd.write(value, written, 0, written.length);
+            Assertions.assertEquals(value, Bcd.readLong(written, 0, written.length));
+            String digits = Long.toString(value);
+            Assertions.assertEquals("0".repeat(18 - digits.length()) + digits, Bcd.readString(written, 0, written.length));
+            byte[] fromDigits = new byte[Bcd.MAX_LONG_LENGTH];
+            Bcd.write(digits, fromDigits, 0, fromDigits.length);
+            Assertions.assertArrayEquals(written, fromDigits);
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Bcd.readLong(new byte[]{0x1A}, 0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Bcd.write(-1, new byte[2], 0, 2));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Bcd.write("1a", new byte[2], 0, 2));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> Bcd.write(12345, new byte[2], 0, 2));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> Bcd.write("12345", new byte[2], 0, 2));
+        Assertions.assertThrows(BufferUnderflowException.class, () -> Bcd.readString(ByteBuffer.wrap(data, 4, 3), 4));
+    }
+
+    @Test
+    void bitFields() {
+        Random random = new Random(42);
+        for (int round = 0; round < 5000; round++) {
+            byte[] data = new byte[1 + random.nextInt(16)];
+            random.nextBytes(data);
+            int length = 1 + random.nextInt(Math.min(ByteArrayUtils.MAX_BIT_FIELD_LENGTH, data.length * 8));
+            int offset = random.nextInt(data.length * 8 - length + 1);
+            BitField bitField = BitField.of(data.length, offset, length);
+
+            int expected = naiveReadBits(data, offset, length);
+            Assertions.assertEquals(expected, bitField.read(data));
+            Assertions.assertEquals(expected, ByteArrayUtils.readBits(data, offset, length));
+
+            byte[] written = new byte[data.length];
+            bitField.write(written, expected);
+            for (int bit = 0; bit < data.length * 8; bit++) {
+                boolean inField = bit >= offset && bit < offset + length;
+                Assertions.assertEquals(inField ? naiveReadBits(data, bit, 1) : 0, naiveReadBits(written, bit, 1));
+            }
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BitField.of(8, 0, 33));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> BitField.of(2, 10, 7));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BitField.of(2, 4, 6).write(new byte[2], 0x40));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BitField.of(2, 4, 6).read(new byte[3]));
+    }
+
+    private static int naiveReadBits(byte[] data, int offset, int length) {
+        int value = 0;
+        for (int bit = 0; bit < length; bit++) {
+            int bitIndex = offset + bit;
+            value |= (data[data.length - bitIndex / 8 - 1] >>> bitIndex % 8 & 0x01) << bit;
+        }
+        return value;
+    }
+
+    private static int naiveIndexOf(byte[] data, int from, byte[] pattern) {
+        outer:
+        for (int i = from; i <= data.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
     }
-}
\ No newline at end of file
+}
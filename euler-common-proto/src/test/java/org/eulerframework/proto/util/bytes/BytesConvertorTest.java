@@ -6,6 +6,9 @@ import org.junit.jupiter.api.Test;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -110,4 +113,150 @@ class BytesConvertorTest {
             }
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void byteBuffer() {
+        ByteConvertorRegistry registry = ByteConvertorRegistryFactory.defaultRegistry();
+        byte[] data = new byte[]{(byte) 0xFF, (byte) 0xEE, (byte) 0xDD, 0x11, (byte) 0xAA, (byte) 0xEE, (byte) 0xDD, 0x11};
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(16), ByteBuffer.allocateDirect(16)}) {
+            // the byte order of the buffer is ignored, numbers are always Big-Endian
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.put((byte) 0x01);
+            Assertions.assertEquals(2, registry.getConvertor(Short.class).writeTo((short) 0xFFEE, buffer));
+            Assertions.assertEquals(4, registry.getConvertor(Integer.class).writeTo(0xFFEEDD11, buffer));
+            Assertions.assertEquals(8, registry.getConvertor(Long.class).writeTo(0xFFEEDD11AAEEDD11L, buffer));
+            Assertions.assertEquals(15, buffer.position());
+
+            buffer.flip();
+            Assertions.assertEquals(0x01, buffer.get());
+            Assertions.assertEquals((short) 0xFFEE, registry.getConvertor(Short.class).readFrom(buffer));
+            Assertions.assertEquals(0xFFEEDD11, registry.getConvertor(Integer.class).readFrom(buffer));
+            Assertions.assertEquals(0xFFEEDD11AAEEDD11L, registry.getConvertor(Long.class).readFrom(buffer));
+            Assertions.assertFalse(buffer.hasRemaining());
+
+            buffer.clear();
+            registry.getConvertor(Long.class).writeTo(0xFFEEDD11AAEEDD11L, buffer);
+            byte[] written = new byte[8];
+            buffer.flip().get(written);
+            Assertions.assertArrayEquals(data, written);
+        }
+
+        // a short buffer is read like a short array
+        ByteBuffer shortBuffer = ByteBuffer.wrap(new byte[]{0x12, 0x34, 0x56});
+        Assertions.assertEquals(0x123456, registry.getConvertor(Integer.class).readFrom(shortBuffer));
+        Assertions.assertFalse(shortBuffer.hasRemaining());
+        Assertions.assertEquals(0x123456, registry.getConvertor(Integer.class).readFrom(new byte[]{0x12, 0x34, 0x56}));
+
+        String str = "我是一个带Emoji😂😂的中文字符串";
+        byte[] utf8 = str.getBytes(StandardCharsets.UTF_8);
+        CharSequenceBytesConvertor<?> convertor = (CharSequenceBytesConvertor<?>) registry.getConvertor(String.class);
+        ByteBuffer slice = ByteBuffer.allocate(utf8.length + 4).position(2).slice();
+        Assertions.assertEquals(utf8.length, convertor.writeTo(str, slice, StandardCharsets.UTF_8));
+        slice.flip();
+        Assertions.assertEquals(str, convertor.readFrom(slice, StandardCharsets.UTF_8));
+        Assertions.assertFalse(slice.hasRemaining());
+    }
+
+    @Test
+    void slices() throws IOException {
+        ByteConvertorRegistry registry = ByteConvertorRegistryFactory.defaultRegistry();
+        byte[] data = new byte[]{0x01, 0x02, 0x03, 0x04, 0x05};
+
+        // a value read from a buffer is a read only view of it, valid while the bytes are not reused
+        ByteBuffer source = ByteBuffer.wrap(data, 1, 3);
+        ByteBuffer view = registry.getConvertor(ByteBuffer.class).readFrom(source);
+        Assertions.assertTrue(view.isReadOnly());
+        Assertions.assertFalse(source.hasRemaining());
+        Assertions.assertEquals(ByteBuffer.wrap(new byte[]{0x02, 0x03, 0x04}), view);
+        ByteSlice slice = registry.getConvertor(ByteSlice.class).readFrom(ByteBuffer.wrap(data, 1, 3));
+        Assertions.assertEquals(ByteSlice.of(new byte[]{0x02, 0x03, 0x04}), slice);
+        ByteSlice copy = slice.copy();
+        data[2] = 0x7F;
+        Assertions.assertEquals(0x7F, view.get(1));
+        Assertions.assertEquals(0x7F, slice.get(1));
+        Assertions.assertEquals(0x03, copy.get(1));
+        Assertions.assertTrue(registry.getConvertor(ByteBuffer.class).isSharing());
+        Assertions.assertTrue(registry.getConvertor(ByteSlice.class).isSharing());
+        Assertions.assertFalse(registry.getConvertor(byte[].class).isSharing());
+
+        // the bytes of a direct buffer are copied
+        ByteBuffer direct = ByteBuffer.allocateDirect(3).put(new byte[]{0x02, 0x03, 0x04}).flip();
+        Assertions.assertEquals(ByteSlice.of(new byte[]{0x02, 0x03, 0x04}), registry.getConvertor(ByteSlice.class).readFrom(direct));
+
+        // the bytes just read are kept without a copy
+        byte[] owned = new byte[]{0x01};
+        Assertions.assertSame(owned, registry.getConvertor(byte[].class).wrap(owned));
+        Assertions.assertNotSame(owned, registry.getConvertor(byte[].class).readFrom(owned));
+
+        for (Object value : new Object[]{slice, view, ByteBuffer.allocateDirect(3).put(new byte[]{0x02, 0x7F, 0x04}).flip(),
+                ByteSlice.of(data, 1, 3).asReadOnlyBuffer()}) {
+            Class<?> type = value instanceof ByteSlice ? ByteSlice.class : ByteBuffer.class;
+            BytesConvertor<?> convertor = registry.getConvertor(type);
+            try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                Assertions.assertEquals(3, convertor.writeTo(value, out));
+                Assertions.assertArrayEquals(new byte[]{0x02, 0x7F, 0x04}, out.toByteArray());
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(4);
+            Assertions.assertEquals(3, convertor.writeTo(value, buffer));
+            Assertions.assertEquals(3, convertor.writeTo(value, new ByteBufferOutputStream(ByteBuffer.allocateDirect(3))));
+            Assertions.assertArrayEquals(new byte[]{0x02, 0x7F, 0x04, 0x00}, buffer.array());
+        }
+    }
+
+    @Test
+    void sizeOf() {
+        ByteConvertorRegistry registry = ByteConvertorRegistryFactory.defaultRegistry();
+        Assertions.assertEquals(2, registry.getConvertor(Short.class).sizeOf((short) 1));
+        Assertions.assertEquals(8, registry.getConvertor(Long.class).sizeOf(1L));
+        Assertions.assertEquals(3, registry.getConvertor(byte[].class).sizeOf(new byte[3]));
+        Assertions.assertEquals(2, registry.getConvertor(ByteBuffer.class).sizeOf(ByteBuffer.allocate(4).position(2)));
+
+        CharSequenceBytesConvertor<?> convertor = (CharSequenceBytesConvertor<?>) registry.getConvertor(String.class);
+        String[] values = {"", "GET / HTTP/1.1", "é", "设备01", "\uD83D\uDE00 emoji", "lone \uD83D surrogate", "\uDE00\uD83D", "设备".repeat(600)};
+        for (Charset charset : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII,
+                StandardCharsets.UTF_16, Charset.forName("GBK")}) {
+            for (String value : values) {
+                Assertions.assertEquals(value.getBytes(charset).length, convertor.sizeOf(value, charset), value + " " + charset);
+            }
+        }
+    }
+
+    @Test
+    void charsets() throws IOException {
+        // the thread-confined coders and the ASCII fast path convert as String does
+        CharSequenceBytesConvertor<?> convertor = (CharSequenceBytesConvertor<?>) ByteConvertorRegistryFactory.defaultRegistry()
+                .getConvertor(String.class);
+        String[] values = {"", "GET / HTTP/1.1", "0123456789abcdef~{}", "é", "设备01", "\uD83D\uDE00 emoji",
+                "lone \uD83D surrogate", "\u001B$B0!\u001B(B", "设备".repeat(3000)};
+        for (Charset charset : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII,
+                StandardCharsets.UTF_16, Charset.forName("GBK"), Charset.forName("Big5"), Charset.forName("ISO-2022-JP"),
+                Charset.forName("x-ISO-2022-CN-GB")}) {
+            for (String value : values) {
+                String message = (value.length() > 20 ? value.substring(0, 20) : value) + " " + charset;
+                byte[] expected = value.getBytes(charset);
+                try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+                    Assertions.assertEquals(expected.length, convertor.writeTo(value, out, charset), message);
+                    Assertions.assertArrayEquals(expected, out.toByteArray(), message);
+                }
+                for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.allocate(expected.length + 2), ByteBuffer.allocateDirect(expected.length + 2)}) {
+                    buffer.put((byte) 0x7E);
+                    Assertions.assertEquals(expected.length, convertor.writeTo(value, buffer, charset), message);
+                    buffer.flip().position(1);
+                    Assertions.assertEquals(new String(expected, charset), convertor.readFrom(buffer, charset), message);
+                    Assertions.assertFalse(buffer.hasRemaining());
+                }
+
+                byte[] padded = new byte[expected.length + 3];
+                System.arraycopy(expected, 0, padded, 1, expected.length);
+                Assertions.assertEquals(new String(expected, charset), convertor.readFrom(padded, 1, expected.length, charset), message);
+                Assertions.assertEquals(new String(expected, charset), convertor.readFrom(new ByteArrayInputStream(expected), charset), message);
+            }
+        }
+
+        byte[] malformed = {'a', (byte) 0x81, 'b', (byte) 0xFF};
+        Charset gbk = Charset.forName("GBK");
+        Assertions.assertEquals(new String(malformed, gbk), convertor.readFrom(malformed, gbk));
+        Assertions.assertThrows(BufferOverflowException.class, () -> convertor.writeTo("设备01", ByteBuffer.allocate(5), gbk));
+        Assertions.assertThrows(BufferOverflowException.class, () -> convertor.writeTo("device", ByteBuffer.allocate(5), gbk));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013-2024 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eulerframework.proto.view;
+
+import org.eulerframework.proto.fixture.Location;
+import org.eulerframework.proto.fixture.Message;
+import org.eulerframework.proto.fixture.Packet;
+import org.eulerframework.proto.fixture.ProtoFixtures;
+import org.eulerframework.proto.fixture.Record;
+import org.eulerframework.proto.fixture.Status;
+import org.eulerframework.proto.serializer.SerializerRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+class ProtoViewTest {
+    @Test
+    void fixedOffsets() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(false);
+        ProtoView<Message> view = new ProtoView<>(registry, Message.class, 0);
+        int id = view.indexOf("id");
+        int name = view.indexOf("name");
+        int location = view.indexOf("location");
+
+        // one receive buffer holding the frames one after another
+        byte[] frames = new byte[2 * ProtoFixtures.MESSAGE_LENGTH + 3];
+        for (int i = 0; i < 2; i++) {
+            Message message = ProtoFixtures.newMessage(i);
+            byte[] frame = ProtoFixtures.write(registry, message, 0);
+            System.arraycopy(frame, 0, frames, 3 + i * frame.length, frame.length);
+
+            for (ProtoView<Message> wrapped : Arrays.asList(
+                    view.wrap(frames, 3 + i * frame.length, frame.length),
+                    view.wrap(ByteBuffer.wrap(frames, 3 + i * frame.length, frame.length)))) {
+                Assertions.assertEquals(message.id & 0xFFFF, wrapped.getUnsigned(id));
+                Assertions.assertEquals(22, wrapped.offsetOf(location));
+                Assertions.assertEquals(8, wrapped.lengthOf(name));
+                Assertions.assertEquals(message.name, wrapped.get(name));
+                Location actual = wrapped.get(location);
+                Assertions.assertEquals(message.location.longitude, actual.longitude);
+                Status status = wrapped.get(view.indexOf("status"));
+                Assertions.assertEquals(message.status.alarm, status.alarm);
+                ProtoFixtures.assertMessage(message, wrapped.decode(), 0);
+            }
+        }
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> view.indexOf("extra"));
+        view.wrap(frames, 0, 20);
+        Assertions.assertEquals(0, view.getUnsigned(id));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> view.get(view.indexOf("status")));
+    }
+
+    @Test
+    void variableOffsets() throws IOException {
+        SerializerRegistry registry = ProtoFixtures.newRegistry(true);
+        Record record = ProtoFixtures.newRecord();
+        byte[] frame = ProtoFixtures.write(registry, record, 0);
+
+        ProtoView<Record> view = new ProtoView<>(registry, Record.class, 0);
+        ByteBuffer buffer = ByteBuffer.wrap(frame);
+        view.wrap(buffer);
+        int body = view.indexOf("body");
+        Assertions.assertEquals(record.body, view.get(body));
+        Assertions.assertEquals(2 + 6 + 1 + 9 + 14 + 2, view.offsetOf(body));
+        Assertions.assertEquals(record.line, view.get(view.indexOf("line")));
+        Assertions.assertEquals(record.name, view.get(view.indexOf("name")));
+        Assertions.assertArrayEquals(record.payload, view.get(view.indexOf("payload")));
+        Assertions.assertEquals(0, buffer.position());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> view.getUnsigned(view.indexOf("payload")));
+
+        // a frame without the separator of the body
+        view.wrap(Arrays.copyOf(frame, frame.length - 1));
+        Assertions.assertEquals(record.line, view.get(view.indexOf("line")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> view.get(body));
+
+        // a prefix longer than the frame
+        byte[] broken = frame.clone();
+        broken[1] = (byte) 0xFF;
+        view.wrap(broken);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> view.offsetOf(body));
+
+        ProtoView<Packet> packetView = new ProtoView<>(registry, Packet.class, 0);
+        packetView.wrap(new byte[]{0x00, 0x01, 0x0A, 0x0B});
+        Assertions.assertEquals(2, packetView.lengthOf(packetView.indexOf("payload")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ProtoView<>(registry, Status.class, 0));
+    }
+}